@@ -0,0 +1,128 @@
+/*
+ * Stand-in for librtlsdr exporting the same API, so that the cost of crossing into native code can be measured
+ * without hardware. Synchronous reads copy from a static buffer like librtlsdr copies from its USB transfer, and
+ * asynchronous reads deliver RTLSDR_STUB_TRANSFERS transfers (64 by default) unless cancelled earlier.
+ */
+#include <stdint.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+
+#define DEFAULT_BUF_NUM 15
+#define DEFAULT_BUF_LEN (16 * 32 * 512)
+#define MAX_READ (1 << 24)
+
+typedef struct rtlsdr_dev {
+    uint32_t sample_rate;
+    uint32_t center_freq;
+    int freq_correction;
+    int tuner_gain;
+    volatile int cancelled;
+} rtlsdr_dev_t;
+
+typedef void (*rtlsdr_read_async_cb_t)(unsigned char *buf, uint32_t len, void *ctx);
+
+static rtlsdr_dev_t devices[8];
+static unsigned char samples[MAX_READ];
+static const int gains[] = {0, 9, 14, 27, 37, 77, 87, 125, 144, 157, 166, 197, 207, 229, 254,
+                            280, 297, 328, 338, 364, 372, 386, 402, 421, 434, 439, 445, 480, 496};
+
+static int env_int(const char *name, int fallback) {
+    const char *value = getenv(name);
+    return value != NULL ? atoi(value) : fallback;
+}
+
+uint32_t rtlsdr_get_device_count(void) {
+    return (uint32_t) env_int("RTLSDR_STUB_DEVICES", 1);
+}
+
+const char *rtlsdr_get_device_name(uint32_t index) {
+    return index < rtlsdr_get_device_count() ? "Generic RTL2832U OEM" : "";
+}
+
+int rtlsdr_get_device_usb_strings(uint32_t index, char *manufact, char *product, char *serial) {
+    if (index >= rtlsdr_get_device_count()) {
+        return -1;
+    }
+    if (manufact) snprintf(manufact, 256, "Realtek");
+    if (product) snprintf(product, 256, "RTL2838UHIDIR");
+    if (serial) snprintf(serial, 256, "%08u", index + 1);
+    return 0;
+}
+
+int rtlsdr_open(rtlsdr_dev_t **dev, uint32_t index) {
+    if (index >= rtlsdr_get_device_count() || index >= sizeof(devices) / sizeof(devices[0])) {
+        return -1;
+    }
+    memset(&devices[index], 0, sizeof(rtlsdr_dev_t));
+    devices[index].sample_rate = 2048000;
+    devices[index].center_freq = 100000000;
+    for (int i = 0; i < MAX_READ; i++) {
+        samples[i] = (unsigned char) (127 + (i & 1));
+    }
+    *dev = &devices[index];
+    return 0;
+}
+
+int rtlsdr_close(rtlsdr_dev_t *dev) { return dev ? 0 : -1; }
+int rtlsdr_set_sample_rate(rtlsdr_dev_t *dev, uint32_t rate) { dev->sample_rate = rate; return 0; }
+uint32_t rtlsdr_get_sample_rate(rtlsdr_dev_t *dev) { return dev->sample_rate; }
+int rtlsdr_reset_buffer(rtlsdr_dev_t *dev) { return dev ? 0 : -1; }
+int rtlsdr_set_freq_correction(rtlsdr_dev_t *dev, int ppm) { dev->freq_correction = ppm; return 0; }
+int rtlsdr_get_freq_correction(rtlsdr_dev_t *dev) { return dev->freq_correction; }
+int rtlsdr_set_center_freq(rtlsdr_dev_t *dev, uint32_t freq) { dev->center_freq = freq; return 0; }
+uint32_t rtlsdr_get_center_freq(rtlsdr_dev_t *dev) { return dev->center_freq; }
+int rtlsdr_set_tuner_if_gain(rtlsdr_dev_t *dev, int stage, int gain) { return 0; }
+int rtlsdr_set_tuner_gain(rtlsdr_dev_t *dev, int gain) { dev->tuner_gain = gain; return 0; }
+int rtlsdr_get_tuner_gain(rtlsdr_dev_t *dev) { return dev->tuner_gain; }
+int rtlsdr_set_tuner_gain_mode(rtlsdr_dev_t *dev, int manual) { return 0; }
+int rtlsdr_set_agc_mode(rtlsdr_dev_t *dev, int on) { return 0; }
+int rtlsdr_set_direct_sampling(rtlsdr_dev_t *dev, int on) { return 0; }
+int rtlsdr_set_offset_tuning(rtlsdr_dev_t *dev, int on) { return 0; }
+int rtlsdr_set_xtal_freq(rtlsdr_dev_t *dev, uint32_t rtl_freq, uint32_t tuner_freq) { return 0; }
+int rtlsdr_set_dithering(rtlsdr_dev_t *dev, int dither) { return 0; }
+int rtlsdr_set_tuner_bandwidth(rtlsdr_dev_t *dev, uint32_t bw) { return 0; }
+int rtlsdr_set_bias_tee(rtlsdr_dev_t *dev, int on) { return 0; }
+int rtlsdr_get_tuner_type(rtlsdr_dev_t *dev) { return 5; /* RTLSDR_TUNER_R820T */ }
+
+int rtlsdr_get_xtal_freq(rtlsdr_dev_t *dev, uint32_t *rtl_freq, uint32_t *tuner_freq) {
+    if (rtl_freq) *rtl_freq = 28800000;
+    if (tuner_freq) *tuner_freq = 28800000;
+    return 0;
+}
+
+int rtlsdr_get_tuner_gains(rtlsdr_dev_t *dev, int *gains_out) {
+    int count = (int) (sizeof(gains) / sizeof(gains[0]));
+    if (gains_out) {
+        memcpy(gains_out, gains, sizeof(gains));
+    }
+    return count;
+}
+
+int rtlsdr_read_sync(rtlsdr_dev_t *dev, void *buf, int len, int *n_read) {
+    if (len < 0 || len > MAX_READ) {
+        return -1;
+    }
+    memcpy(buf, samples, (size_t) len);
+    *n_read = len;
+    return 0;
+}
+
+int rtlsdr_read_async(rtlsdr_dev_t *dev, rtlsdr_read_async_cb_t cb, void *ctx, uint32_t buf_num, uint32_t buf_len) {
+    uint32_t count = buf_num == 0 ? DEFAULT_BUF_NUM : buf_num;
+    uint32_t length = buf_len == 0 ? DEFAULT_BUF_LEN : buf_len;
+    int transfers = env_int("RTLSDR_STUB_TRANSFERS", 64);
+    if (length > MAX_READ / count) {
+        return -1;
+    }
+    dev->cancelled = 0;
+    for (int i = 0; i < transfers && !dev->cancelled; i++) {
+        cb(samples + (i % count) * length, length, ctx);
+    }
+    return 0;
+}
+
+int rtlsdr_cancel_async(rtlsdr_dev_t *dev) {
+    dev->cancelled = 1;
+    return 0;
+}
@@ -0,0 +1,25 @@
+package com.suricatedevlab.jsdr;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of looking a driver up by identifier through {@link DriverManager#getDriver(String)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DriverManagerBenchmark {
+
+    @Param({"RTL-SDR", "FILE", "SIM"})
+    private String identifier;
+
+    @Benchmark
+    public Driver getDriver() throws SdrException {
+        return DriverManager.getDriver(identifier);
+    }
+}
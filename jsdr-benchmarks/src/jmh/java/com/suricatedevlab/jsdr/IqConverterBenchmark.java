@@ -0,0 +1,75 @@
+package com.suricatedevlab.jsdr;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link IqConverter} lookup table loops on a default librtlsdr transfer, against the arithmetic
+ * conversion the tables replace, in I/Q samples per nanosecond: a score of 1 is 1 GS/s, and the score divided by
+ * 0.0024 is the number of 2.4 MS/s streams one core can convert. {@link IqConverterVectorBenchmark} runs the same
+ * loops on the Vector API.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(IqConverterBenchmark.SAMPLES)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-D" + IqConverter.PROPERTY_VECTOR + "=false")
+public class IqConverterBenchmark {
+
+    static final int TRANSFER_SIZE = 16 * 32 * 512;
+    static final int SAMPLES = TRANSFER_SIZE / 2;
+
+    private final IqConverter converter = new IqConverter();
+    private final IqConverter dcConverter = new IqConverter(0.001);
+    private final byte[] raw = new byte[TRANSFER_SIZE];
+    private final ByteBuffer direct = ByteBuffer.allocateDirect(TRANSFER_SIZE);
+    private final float[] interleaved = new float[TRANSFER_SIZE];
+    private final float[] i = new float[TRANSFER_SIZE / 2];
+    private final float[] q = new float[TRANSFER_SIZE / 2];
+    private final short[] shorts = new short[TRANSFER_SIZE];
+
+    @Setup
+    public void setUp() {
+        new Random(1).nextBytes(raw);
+        direct.put(raw).flip();
+    }
+
+    @Benchmark
+    public float[] arithmetic() {
+        for (int n = 0; n < TRANSFER_SIZE; n++) {
+            interleaved[n] = ((raw[n] & 0xFF) - 127.5f) / 127.5f;
+        }
+        return interleaved;
+    }
+
+    @Benchmark
+    public int toFloatInterleavedArray() {
+        return converter.toFloatInterleaved(raw, 0, TRANSFER_SIZE, interleaved, 0);
+    }
+
+    @Benchmark
+    public int toFloatInterleavedDirect() {
+        direct.rewind();
+        return converter.toFloatInterleaved(direct, interleaved, 0);
+    }
+
+    @Benchmark
+    public int toFloatSplitArray() {
+        return converter.toFloatSplit(raw, 0, TRANSFER_SIZE, i, q, 0);
+    }
+
+    @Benchmark
+    public int toFloatInterleavedDcRemoval() {
+        return dcConverter.toFloatInterleaved(raw, 0, TRANSFER_SIZE, interleaved, 0);
+    }
+
+    @Benchmark
+    public int toShortInterleavedArray() {
+        return converter.toShortInterleaved(raw, 0, TRANSFER_SIZE, shorts, 0);
+    }
+}
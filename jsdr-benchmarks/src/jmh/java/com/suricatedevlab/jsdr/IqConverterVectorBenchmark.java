@@ -0,0 +1,11 @@
+package com.suricatedevlab.jsdr;
+
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * The {@link IqConverterBenchmark} loops with the {@code jdk.incubator.vector} module, converting whole vectors of
+ * samples through the Vector API. {@code arithmetic} stays the scalar reference.
+ */
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class IqConverterVectorBenchmark extends IqConverterBenchmark {
+}
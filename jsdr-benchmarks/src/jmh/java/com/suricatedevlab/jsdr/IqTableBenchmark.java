@@ -0,0 +1,81 @@
+package com.suricatedevlab.jsdr;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link IqTable} conversions of a 1 MiB buffer, against the floating-point math the tables
+ * replace, and split between 4 workers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IqTableBenchmark {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final byte[] raw = new byte[BUFFER_SIZE];
+    private final ByteBuffer direct = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final float[] values = new float[BUFFER_SIZE / 2];
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        new Random(1).nextBytes(raw);
+        direct.put(raw).flip();
+        pool = new ForkJoinPool(4);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public float[] magnitudeArithmetic() {
+        for (int n = 0, p = 0; n < values.length; n++, p += 2) {
+            float i = ((raw[p] & 0xFF) - 127.5f) / 127.5f;
+            float q = ((raw[p + 1] & 0xFF) - 127.5f) / 127.5f;
+            values[n] = (float) Math.sqrt(i * i + q * q);
+        }
+        return values;
+    }
+
+    @Benchmark
+    public float[] decibelsArithmetic() {
+        for (int n = 0, p = 0; n < values.length; n++, p += 2) {
+            float i = ((raw[p] & 0xFF) - 127.5f) / 127.5f;
+            float q = ((raw[p + 1] & 0xFF) - 127.5f) / 127.5f;
+            values[n] = (float) (10 * Math.log10(i * i + q * q));
+        }
+        return values;
+    }
+
+    @Benchmark
+    public int magnitudeArray() {
+        return IqTable.MAGNITUDE.convert(raw, 0, BUFFER_SIZE, values, 0);
+    }
+
+    @Benchmark
+    public int decibelsArray() {
+        return IqTable.DECIBELS.convert(raw, 0, BUFFER_SIZE, values, 0);
+    }
+
+    @Benchmark
+    public int decibelsDirect() {
+        direct.rewind();
+        return IqTable.DECIBELS.convert(direct, values, 0);
+    }
+
+    @Benchmark
+    public int decibelsParallel() {
+        return IqTable.DECIBELS.convert(raw, 0, BUFFER_SIZE, values, 0, pool);
+    }
+}
@@ -0,0 +1,93 @@
+package com.suricatedevlab.jsdr;
+
+import com.suricatedevlab.jsdr.sim.SimDriver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Time for an unthrottled simulated device to deliver a number of blocks to each of its subscribers, requesting one
+ * block at a time, by backpressure policy and number of subscribers sharing the blocks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SamplePublisherBenchmark {
+
+    private static final int BLOCKS = 64;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    @Param({"DROP", "LATEST", "BUFFER"})
+    private BackpressurePolicy policy;
+
+    @Param({"1", "4"})
+    private int subscribers;
+
+    private final LongAdder blocks = new LongAdder();
+    private TunerSample tunerSample;
+    private SamplePublisher publisher;
+
+    @Setup
+    public void setUp() throws SdrException {
+        TunerDefinition definition = DriverManager.getDriver("SIM").getDevice(0).getTunerDefinition();
+        definition.setSampleRate(2_400_000);
+        definition.setExtraProperties(Map.of(SimDriver.PROPERTY_PLAYBACK_MODE, "UNTHROTTLED"));
+        tunerSample = definition.tune();
+        publisher = SamplePublisher.builder(tunerSample)
+                .policy(policy)
+                .transfers(4, 64 * 1024)
+                .build();
+        for (int i = 0; i < subscribers; i++) {
+            publisher.subscribe(new CountingSubscriber());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        publisher.close();
+        tunerSample.close();
+    }
+
+    @Benchmark
+    public long deliver() {
+        long target = blocks.sum() + (long) BLOCKS * subscribers;
+        long delivered;
+        while ((delivered = blocks.sum()) < target) {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return delivered;
+    }
+
+    private final class CountingSubscriber implements Flow.Subscriber<SampleBlock> {
+
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(SampleBlock block) {
+            block.release();
+            blocks.increment();
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.suricatedevlab.jsdr.capture;
+
+import com.suricatedevlab.jsdr.DriverManager;
+import com.suricatedevlab.jsdr.SdrException;
+import com.suricatedevlab.jsdr.TunerConfiguration;
+import com.suricatedevlab.jsdr.sim.SimDriver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Time for every unthrottled simulated device to deliver the same number of blocks through one merged listener;
+ * the time staying flat as devices are added means the capture scales with the device count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaptureCoordinatorBenchmark {
+
+    private static final int BLOCKS_PER_DEVICE = 64;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    @Param({"1", "2", "4"})
+    private int devices;
+
+    private final LongAdder blocks = new LongAdder();
+    private CaptureCoordinator capture;
+
+    @Setup
+    public void setUp() throws SdrException, InterruptedException {
+        System.setProperty(SimDriver.PROPERTY_DEVICES, Integer.toString(devices));
+        capture = CaptureCoordinator.builder(DriverManager.getDriver("SIM"))
+                .configuration(TunerConfiguration.builder()
+                        .sampleRate(2_400_000)
+                        .extraProperty(SimDriver.PROPERTY_PLAYBACK_MODE, "UNTHROTTLED")
+                        .build())
+                .buffers(4, 64 * 1024)
+                .build(block -> blocks.increment());
+        capture.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        capture.close();
+    }
+
+    @Benchmark
+    public long capture() {
+        long target = blocks.sum() + (long) BLOCKS_PER_DEVICE * devices;
+        long received;
+        while ((received = blocks.sum()) < target) {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return received;
+    }
+}
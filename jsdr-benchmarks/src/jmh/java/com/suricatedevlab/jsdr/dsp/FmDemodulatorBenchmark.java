@@ -0,0 +1,59 @@
+package com.suricatedevlab.jsdr.dsp;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link FmDemodulator} in input samples per millisecond, for broadcast and narrowband FM at
+ * 2.4 MS/s: a score of 2400 is real time, and the score divided by 2400 is the number of channels one core can
+ * demodulate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FmDemodulatorBenchmark {
+
+    private static final int SAMPLE_RATE = 2_400_000;
+    private static final int BLOCK = 65_536;
+
+    @Param({"WIDEBAND", "NARROWBAND"})
+    private String mode;
+
+    private FmDemodulator demodulator;
+    private float[] samples;
+    private float[] audio;
+
+    @Setup
+    public void setUp() {
+        boolean wideband = mode.equals("WIDEBAND");
+        demodulator = wideband
+                ? FmDemodulator.builder(SAMPLE_RATE).build()
+                : FmDemodulator.builder(SAMPLE_RATE)
+                        .quadratureRate(48_000)
+                        .deviation(5_000)
+                        .audioBandwidth(3_000)
+                        .deEmphasis(0)
+                        .build();
+        // A 1 kHz tone at the nominal deviation
+        double deviation = wideband ? 75_000 : 5_000;
+        samples = new float[BLOCK << 1];
+        double phase = 0;
+        for (int i = 0; i < BLOCK; i++) {
+            phase += 2 * Math.PI * deviation * Math.sin(2 * Math.PI * 1_000 * i / SAMPLE_RATE) / SAMPLE_RATE;
+            samples[i << 1] = (float) Math.cos(phase);
+            samples[(i << 1) + 1] = (float) Math.sin(phase);
+        }
+        audio = new float[demodulator.getAudioCapacity(BLOCK)];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public void demodulate(Blackhole blackhole) {
+        blackhole.consume(demodulator.demodulate(samples, 0, BLOCK, audio, 0));
+    }
+}
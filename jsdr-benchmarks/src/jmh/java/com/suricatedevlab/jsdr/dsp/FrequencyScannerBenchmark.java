@@ -0,0 +1,58 @@
+package com.suricatedevlab.jsdr.dsp;
+
+import com.suricatedevlab.jsdr.Device;
+import com.suricatedevlab.jsdr.DriverManager;
+import com.suricatedevlab.jsdr.SdrException;
+import com.suricatedevlab.jsdr.TunerConfiguration;
+import com.suricatedevlab.jsdr.TunerDefinition;
+import com.suricatedevlab.jsdr.sim.SimDriver;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of a 20 MHz sweep of an unthrottled simulated device by number of workers, the device thread reading the
+ * next hops while the workers compute the spectra of the previous ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrequencyScannerBenchmark {
+
+    @Param({"1", "2", "4"})
+    private int workers;
+
+    private Device device;
+    private FrequencyScanner scanner;
+
+    @Setup
+    public void setUp() throws SdrException {
+        device = DriverManager.getDriver("SIM").getDevice(0);
+        TunerDefinition definition = device.getTunerDefinition();
+        definition.apply(TunerConfiguration.builder()
+                .sampleRate(2_400_000)
+                .extraProperty(SimDriver.PROPERTY_PLAYBACK_MODE, "UNTHROTTLED")
+                .build());
+        scanner = FrequencyScanner.builder(88_000_000L, 108_000_000L, 2_500)
+                .dwell(Duration.ofMillis(5))
+                .settle(Duration.ofMillis(1))
+                .workers(workers)
+                .build(definition, definition.tune(), (s, sweep, dbfs) -> { });
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        scanner.close();
+        device.close();
+    }
+
+    @Benchmark
+    public ScanStatistics sweep() throws SdrException, InterruptedException {
+        scanner.scan(1);
+        return scanner.getStatistics();
+    }
+}
@@ -0,0 +1,65 @@
+package com.suricatedevlab.jsdr.dsp;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link PolyphaseChannelizer} in samples per millisecond, by number of extracted channels and
+ * worker threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolyphaseChannelizerBenchmark {
+
+    private static final long CENTER_FREQUENCY = 100_000_000L;
+    private static final int SAMPLE_RATE = 2_400_000;
+    private static final int CHANNEL_SPACING = 25_000;
+    private static final int BLOCK = 65_536;
+
+    @Param({"1", "8", "64"})
+    private int channels;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private ForkJoinPool pool;
+    private PolyphaseChannelizer channelizer;
+    private float[] samples;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        pool = new ForkJoinPool(threads);
+        PolyphaseChannelizer.Builder builder = PolyphaseChannelizer.builder(CENTER_FREQUENCY, SAMPLE_RATE, CHANNEL_SPACING)
+                .pool(pool);
+        for (int i = 0; i < channels; i++) {
+            builder.channel(CENTER_FREQUENCY - SAMPLE_RATE / 2 + (long) (i + 1) * CHANNEL_SPACING);
+        }
+        channelizer = builder.build((channel, output, length) -> this.blackhole.consume(output[0]));
+        samples = new float[BLOCK << 1];
+        Random random = new Random(1);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextFloat() * 2 - 1;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public void process() {
+        channelizer.process(samples, 0, BLOCK);
+    }
+}
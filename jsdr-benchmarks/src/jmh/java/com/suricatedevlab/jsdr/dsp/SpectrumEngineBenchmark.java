@@ -0,0 +1,54 @@
+package com.suricatedevlab.jsdr.dsp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of a Welch estimate by FFT size, sequential and on the common pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpectrumEngineBenchmark {
+
+    private static final int FRAMES = 16;
+
+    @Param({"1024", "4096", "16384", "65536"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private SpectrumEngine engine;
+    private float[] samples;
+    private float[] dbfs;
+    private int count;
+
+    @Setup
+    public void setUp() {
+        SpectrumEngine.Builder builder = SpectrumEngine.builder(size).tuning(100_000_000L, 2_400_000);
+        if (parallel) {
+            builder.parallel(ForkJoinPool.commonPool());
+        }
+        engine = builder.build();
+        count = engine.getHop() * (FRAMES - 1) + size;
+        samples = new float[count << 1];
+        Random random = new Random(1);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextFloat() * 2 - 1;
+        }
+        dbfs = new float[size];
+    }
+
+    @Benchmark
+    public float[] estimate() {
+        engine.estimate(samples, 0, count, dbfs);
+        return dbfs;
+    }
+}
@@ -0,0 +1,116 @@
+package com.suricatedevlab.jsdr.modes;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link ModeSDecoder} in samples per second on a synthetic 2 MS/s capture of busy 1090 MHz traffic,
+ * by number of worker threads. The {@code messages} counter is the number of messages decoded per second of CPU;
+ * {@code 1e6 / score} is the fraction of a core needed per MS/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModeSDecoderBenchmark {
+
+    private static final int SAMPLES = 2_000_000;
+    private static final int BLOCK = 262_144;
+    // About 2000 extended squitters per second of signal, one in four with a bit error
+    private static final int MEAN_SPACING = 1_000;
+    private static final int POLYNOMIAL = 0xFFF409;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private ForkJoinPool pool;
+    private ModeSDecoder decoder;
+    private byte[] capture;
+    private int position;
+    private long decoded;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long messages;
+    }
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(threads);
+        decoder = ModeSDecoder.builder().pool(pool).build(message -> decoded++);
+        capture = synthesize(new Random(1));
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public void decode(Counters counters) {
+        long before = decoded;
+        decoder.process(capture, position, BLOCK << 1);
+        position = (position + (BLOCK << 1)) % (capture.length - (BLOCK << 1));
+        counters.messages += decoded - before;
+    }
+
+    // Gaussian noise around the 8-bit midpoint, with DF17 frames at random levels, phases and spacings
+    private static byte[] synthesize(Random random) {
+        byte[] iq = new byte[SAMPLES << 1];
+        for (int i = 0; i < iq.length; i++) {
+            iq[i] = (byte) Math.max(0, Math.min(255, Math.round(127.5 + random.nextGaussian() * 3)));
+        }
+        byte[] frame = new byte[14];
+        for (int sample = 1_000; sample < SAMPLES - 500; sample += 240 + random.nextInt(2 * (MEAN_SPACING - 240))) {
+            frame[0] = (byte) 0x8D;
+            for (int i = 1; i < 11; i++) {
+                frame[i] = (byte) random.nextInt(256);
+            }
+            int parity = crc(frame);
+            frame[11] = (byte) (parity >>> 16);
+            frame[12] = (byte) (parity >>> 8);
+            frame[13] = (byte) parity;
+            if (random.nextInt(4) == 0) {
+                int bit = 5 + random.nextInt(107);
+                frame[bit >> 3] ^= (byte) (0x80 >>> (bit & 7));
+            }
+            modulate(iq, sample, frame, 15 + random.nextInt(100), random.nextDouble() * 2 * Math.PI);
+        }
+        return iq;
+    }
+
+    private static int crc(byte[] frame) {
+        int crc = 0;
+        for (int i = 0; i < 11; i++) {
+            crc ^= (frame[i] & 0xFF) << 16;
+            for (int k = 0; k < 8; k++) {
+                crc = (crc & 0x800000) != 0 ? (crc << 1) ^ POLYNOMIAL : crc << 1;
+            }
+        }
+        return crc & 0xFFFFFF;
+    }
+
+    private static void modulate(byte[] iq, int sample, byte[] frame, int amplitude, double phase) {
+        for (int pulse : new int[]{0, 2, 7, 9}) {
+            pulse(iq, sample + pulse, amplitude, phase);
+        }
+        for (int bit = 0; bit < 112; bit++) {
+            boolean one = (frame[bit >> 3] & (0x80 >>> (bit & 7))) != 0;
+            pulse(iq, sample + 16 + 2 * bit + (one ? 0 : 1), amplitude, phase);
+        }
+    }
+
+    private static void pulse(byte[] iq, int sample, int amplitude, double phase) {
+        int i = (iq[sample << 1] & 0xFF) + (int) Math.round(amplitude * Math.cos(phase));
+        int q = (iq[(sample << 1) + 1] & 0xFF) + (int) Math.round(amplitude * Math.sin(phase));
+        iq[sample << 1] = (byte) Math.max(0, Math.min(255, i));
+        iq[(sample << 1) + 1] = (byte) Math.max(0, Math.min(255, q));
+    }
+}
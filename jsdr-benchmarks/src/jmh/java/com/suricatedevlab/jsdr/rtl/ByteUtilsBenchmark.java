@@ -0,0 +1,38 @@
+package com.suricatedevlab.jsdr.rtl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link ByteUtils#trim} on the buffers filled by librtlsdr for USB strings and tuner gains.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteUtilsBenchmark {
+
+    private final byte[] usbString = new byte[256];
+    private final int[] tunerGains = new int[256];
+
+    @Setup
+    public void setUp() {
+        byte[] serial = "00000001".getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(serial, 0, usbString, 0, serial.length);
+        new StubRtlNativeLibrary().rtlsdr_get_tuner_gains(null, tunerGains);
+    }
+
+    @Benchmark
+    public byte[] trimUsbString() {
+        return ByteUtils.trim(usbString);
+    }
+
+    @Benchmark
+    public int[] trimTunerGains() {
+        return ByteUtils.trim(tunerGains);
+    }
+}
@@ -0,0 +1,88 @@
+package com.suricatedevlab.jsdr.rtl;
+
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per call cost of interface mapped against direct mapped librtlsdr functions, on the stub library compiled by
+ * the {@code compileStubLibrary} task and given through the {@code jsdr.rtl.library} system property.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NativeMappingBenchmark {
+
+    private static final int TRANSFERS = 64;
+
+    @Param({"interface", "direct"})
+    private String mapping;
+
+    @Param({"16384"})
+    private int bufferSize;
+
+    private RtlNativeLibrary nativeLibrary;
+    private Pointer handle;
+    private final IntByReference nRead = new IntByReference();
+    private byte[] array;
+    private ByteBuffer direct;
+
+    @Setup
+    public void setUp() {
+        String path = System.getProperty(RtlNativeLoader.PROPERTY_LIBRARY);
+        if (path == null) {
+            throw new IllegalStateException("Run through the jmh task, which builds the stub library");
+        }
+        nativeLibrary = RtlNativeLoader.load(NativeLibrary.getInstance(path), "direct".equals(mapping));
+        PointerByReference reference = new PointerByReference();
+        if (nativeLibrary.rtlsdr_open(reference, 0) < 0) {
+            throw new IllegalStateException("Can not open the stub device");
+        }
+        handle = reference.getValue();
+        array = new byte[bufferSize];
+        direct = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        nativeLibrary.rtlsdr_close(handle);
+    }
+
+    @Benchmark
+    public long getCenterFrequency() {
+        return nativeLibrary.rtlsdr_get_center_freq(handle);
+    }
+
+    @Benchmark
+    public int setTunerGain() {
+        return nativeLibrary.rtlsdr_set_tuner_gain(handle, 297);
+    }
+
+    @Benchmark
+    public int readSyncArray() {
+        nativeLibrary.rtlsdr_read_sync(handle, array, bufferSize, nRead);
+        return nRead.getValue();
+    }
+
+    @Benchmark
+    public int readSyncDirectBuffer() {
+        direct.clear();
+        nativeLibrary.rtlsdr_read_sync(handle, direct, bufferSize, nRead);
+        return nRead.getValue();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSFERS)
+    public void readAsync(Blackhole blackhole) {
+        nativeLibrary.rtlsdr_read_async(handle, (buf, length, ctx) -> blackhole.consume(length), null, 0, bufferSize);
+    }
+}
@@ -0,0 +1,82 @@
+package com.suricatedevlab.jsdr.rtl;
+
+import com.sun.jna.NativeLibrary;
+import com.suricatedevlab.jsdr.SdrException;
+import com.suricatedevlab.jsdr.TunerSample;
+import com.suricatedevlab.jsdr.metrics.StreamMetrics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads through the tuner sample of the JNA backend (direct mapping) against the FFM backend, on the stub library
+ * compiled by the {@code compileStubLibrary} task. The {@code ffm} runs need JDK 22 or later and fail otherwise.
+ * The stream metrics are turned off, so that both backends are measured without their instrumentation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-D" + StreamMetrics.PROPERTY_ENABLED + "=false")
+public class RtlBackendBenchmark {
+
+    // Transfers delivered by each rtlsdr_read_async call of the stub, see RTLSDR_STUB_TRANSFERS
+    private static final int TRANSFERS = 64;
+
+    @Param({RtlNativeLoader.BACKEND_JNA, RtlNativeLoader.BACKEND_FFM})
+    private String backend;
+
+    @Param({"16384", "262144"})
+    private int bufferSize;
+
+    private RtlDevice device;
+    private TunerSample sample;
+    private byte[] array;
+    private ByteBuffer direct;
+
+    @Setup
+    public void setUp() throws SdrException {
+        String path = System.getProperty(RtlNativeLoader.PROPERTY_LIBRARY);
+        if (path == null) {
+            throw new IllegalStateException("Run through the jmh task, which builds the stub library");
+        }
+        RtlNativeLibrary nativeLibrary = RtlNativeLoader.BACKEND_FFM.equals(backend)
+                ? RtlNativeLoader.loadForeign(path)
+                : RtlNativeLoader.load(NativeLibrary.getInstance(path), true);
+        device = new RtlDevice(0, nativeLibrary, "Realtek", "RTL2838UHIDIR", "00000001");
+        sample = device.getTunerDefinition().tune();
+        array = new byte[bufferSize];
+        direct = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        device.close();
+    }
+
+    @Benchmark
+    public int readSyncArray() throws SdrException {
+        return sample.readSync(array, 0, bufferSize);
+    }
+
+    @Benchmark
+    public int readSyncDirectBuffer() throws SdrException {
+        direct.clear();
+        return sample.readSync(direct);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSFERS)
+    public void readAsync(Blackhole blackhole) throws SdrException {
+        sample.readAsync(blackhole::consume, 0, bufferSize);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSFERS)
+    public void readAsyncDirect(Blackhole blackhole) throws SdrException {
+        sample.readAsyncDirect(data -> blackhole.consume(data.get(data.limit() - 1)), 0, bufferSize);
+    }
+}
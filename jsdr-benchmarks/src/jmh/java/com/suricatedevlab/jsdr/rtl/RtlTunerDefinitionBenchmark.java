@@ -0,0 +1,62 @@
+package com.suricatedevlab.jsdr.rtl;
+
+import com.suricatedevlab.jsdr.TunerConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link RtlTunerDefinition} settings on top of a {@link StubRtlNativeLibrary}: gain changes, which are
+ * validated against the cached gain table, and retunes applied as a whole configuration, where the settings that did
+ * not change are skipped.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RtlTunerDefinitionBenchmark {
+
+    private static final TunerConfiguration SETUP = TunerConfiguration.builder()
+            .sampleRate(2_048_000)
+            .bandwidth(0)
+            .correctionFrequency(1)
+            .tunerGainMode(false)
+            .tunerGain(297)
+            .automaticGainControl(false)
+            .centerFrequency(1_090_000_000L)
+            .build();
+
+    private RtlTunerDefinition definition;
+    private TunerConfiguration[] retunes;
+    private int iteration;
+
+    @Setup
+    public void setUp() {
+        StubRtlNativeLibrary nativeLibrary = new StubRtlNativeLibrary();
+        RtlDevice device = new RtlDevice(0, nativeLibrary, "Realtek", "RTL2838UHIDIR", "00000001");
+        nativeLibrary.rtlsdr_open(device.getHandle(), 0);
+        definition = new RtlTunerDefinition(device);
+        definition.apply(SETUP);
+        retunes = new TunerConfiguration[] {
+                SETUP.toBuilder().centerFrequency(978_000_000L).build(),
+                SETUP
+        };
+    }
+
+    @Benchmark
+    public void setTunerGain() {
+        definition.setTunerGain((iteration++ & 1) == 0 ? 297 : 328);
+    }
+
+    @Benchmark
+    public void applyRetune() {
+        definition.apply(retunes[iteration++ & 1]);
+    }
+
+    @Benchmark
+    public String describe() {
+        return definition.toString();
+    }
+}
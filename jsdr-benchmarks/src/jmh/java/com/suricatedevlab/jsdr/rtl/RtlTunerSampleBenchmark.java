@@ -0,0 +1,69 @@
+package com.suricatedevlab.jsdr.rtl;
+
+import com.suricatedevlab.jsdr.SdrException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of dispatching reads through {@link RtlTunerSample} on top of a {@link StubRtlNativeLibrary}, so that only
+ * the Java side is measured. Run with {@code -Pjmh.profilers=gc} to check the allocation rate of each read path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RtlTunerSampleBenchmark {
+
+    private static final int TRANSFERS = 64;
+
+    @Param({"16384", "262144"})
+    private int bufferSize;
+
+    private RtlTunerSample sample;
+    private byte[] array;
+    private ByteBuffer direct;
+
+    @Setup
+    public void setUp() {
+        StubRtlNativeLibrary nativeLibrary = new StubRtlNativeLibrary();
+        nativeLibrary.setTransfers(TRANSFERS);
+        RtlDevice device = new RtlDevice(0, nativeLibrary, "Realtek", "RTL2838UHIDIR", "00000001");
+        nativeLibrary.rtlsdr_open(device.getHandle(), 0);
+        sample = new RtlTunerSample(new RtlTunerDefinition(device));
+        array = new byte[bufferSize];
+        direct = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    @Benchmark
+    public byte[] readSyncAllocating() throws SdrException {
+        return sample.readSync(bufferSize);
+    }
+
+    @Benchmark
+    public int readSyncArray() throws SdrException {
+        return sample.readSync(array, 0, bufferSize);
+    }
+
+    @Benchmark
+    public int readSyncDirectBuffer() throws SdrException {
+        direct.clear();
+        return sample.readSync(direct);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSFERS)
+    public void readAsync(Blackhole blackhole) throws SdrException {
+        sample.readAsync(blackhole::consume, 0, bufferSize);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSFERS)
+    public void readAsyncDirect(Blackhole blackhole) throws SdrException {
+        sample.readAsyncDirect(data -> blackhole.consume(data.get(data.limit() - 1)), 0, bufferSize);
+    }
+}
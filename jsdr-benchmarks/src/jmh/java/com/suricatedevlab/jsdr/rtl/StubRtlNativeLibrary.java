@@ -0,0 +1,216 @@
+package com.suricatedevlab.jsdr.rtl;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
+
+import java.nio.ByteBuffer;
+
+/**
+ * In-memory stand-in for librtlsdr, so that the Java side of the RTL driver can be measured without hardware.
+ *
+ * <p>Synchronous reads report the requested length without touching the buffer and asynchronous reads deliver
+ * {@link #setTransfers(int) a fixed number} of transfers, unless cancelled earlier, cycling over {@code buf_num}
+ * native buffers like librtlsdr does.</p>
+ */
+public class StubRtlNativeLibrary implements RtlNativeLibrary {
+
+    // Gains of the R820T tuner, in tenths of dB
+    private static final int[] TUNER_GAINS = {
+            0, 9, 14, 27, 37, 77, 87, 125, 144, 157, 166, 197, 207, 229, 254,
+            280, 297, 328, 338, 364, 372, 386, 402, 421, 434, 439, 445, 480, 496
+    };
+
+    private final Memory handle = new Memory(8);
+    private Memory[] transferBuffers = new Memory[0];
+    private int transfers = 64;
+    private int sampleRate = 2_048_000;
+    private long centerFrequency = 100_000_000L;
+    private int tunerGain;
+    private volatile boolean cancelled;
+
+    public void setTransfers(int transfers) {
+        this.transfers = transfers;
+    }
+
+    @Override
+    public int rtlsdr_open(PointerByReference dev, int index) {
+        dev.setValue(handle);
+        return 0;
+    }
+
+    @Override
+    public void rtlsdr_close(Pointer dev) {
+    }
+
+    @Override
+    public int rtlsdr_set_sample_rate(Pointer dev, int rate) {
+        sampleRate = rate;
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_get_sample_rate(Pointer dev) {
+        return sampleRate;
+    }
+
+    @Override
+    public void rtlsdr_reset_buffer(Pointer dev) {
+    }
+
+    @Override
+    public int rtlsdr_read_sync(Pointer dev, byte[] buf, int len, IntByReference n_read) {
+        n_read.setValue(len);
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_read_sync(Pointer dev, ByteBuffer buf, int len, IntByReference n_read) {
+        n_read.setValue(len);
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_read_sync(Pointer dev, Pointer buf, int len, IntByReference n_read) {
+        n_read.setValue(len);
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_set_freq_correction(Pointer dev, int ppm) {
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_get_freq_correction(Pointer dev) {
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_set_center_freq(Pointer dev, long freq) {
+        centerFrequency = freq;
+        return 0;
+    }
+
+    @Override
+    public long rtlsdr_get_center_freq(Pointer dev) {
+        return centerFrequency;
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_if_gain(Pointer dev, int stage, int gain) {
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_get_tuner_gains(Pointer dev, int[] gains) {
+        if (gains != null) {
+            System.arraycopy(TUNER_GAINS, 0, gains, 0, Math.min(TUNER_GAINS.length, gains.length));
+        }
+        return TUNER_GAINS.length;
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_gain(Pointer dev, int gain) {
+        tunerGain = gain;
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_get_tuner_gain(Pointer dev) {
+        return tunerGain;
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_gain_mode(Pointer dev, int mode) {
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_set_agc_mode(Pointer dev, int enable) {
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_set_direct_sampling(Pointer dev, int mode) {
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_set_offset_tuning(Pointer dev, int enable) {
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_get_device_count() {
+        return 1;
+    }
+
+    @Override
+    public String rtlsdr_get_device_name(int index) {
+        return "Generic RTL2832U OEM";
+    }
+
+    @Override
+    public int rtlsdr_get_device_usb_strings(int index, byte[] manufacturer, byte[] product, byte[] serial) {
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_set_xtal_freq(Pointer dev, int rtl_freq, int tuner_freq) {
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_get_xtal_freq(Pointer dev, IntByReference rtl_freq, IntByReference tuner_freq) {
+        rtl_freq.setValue(28_800_000);
+        tuner_freq.setValue(28_800_000);
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_set_dithering(Pointer dev, int on) {
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_bandwidth(Pointer dev, int bw) {
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_set_bias_tee(Pointer dev, int on) {
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_get_tuner_type(Pointer dev) {
+        return RTLSDR_TUNER_TYPE_R820T;
+    }
+
+    @Override
+    public int rtlsdr_read_async(Pointer dev, RTLSDRReadAsyncCallback cb, Pointer ctx, int buf_num, int buf_len) {
+        // Defaults of librtlsdr
+        int count = buf_num == 0 ? 15 : buf_num;
+        int length = buf_len == 0 ? 16 * 32 * 512 : buf_len;
+        if (transferBuffers.length != count || transferBuffers[0].size() != length) {
+            transferBuffers = new Memory[count];
+            for (int i = 0; i < count; i++) {
+                transferBuffers[i] = new Memory(length);
+                transferBuffers[i].clear();
+            }
+        }
+        cancelled = false;
+        for (int i = 0; i < transfers && !cancelled; i++) {
+            cb.invoke(transferBuffers[i % count], length, ctx);
+        }
+        return 0;
+    }
+
+    @Override
+    public int rtlsdr_cancel_async(Pointer dev) {
+        cancelled = true;
+        return 0;
+    }
+}
@@ -0,0 +1,32 @@
+package com.suricatedevlab.jsdr;
+
+/**
+ * The {@code BackpressurePolicy} enumeration defines what a {@link SamplePublisher} does with the blocks received
+ * while its subscriber has not requested any.
+ *
+ * <p>None of the policies ever blocks the device: samples that can not be kept are dropped and counted in the
+ * {@link PublisherStatistics}. Unlike {@link OverflowPolicy}, which applies to bytes copied into a ring, these
+ * policies apply to whole blocks and to the demand signalled through
+ * {@link java.util.concurrent.Flow.Subscription#request(long)}.</p>
+ *
+ * @see SamplePublisher
+ */
+public enum BackpressurePolicy {
+
+    /**
+     * Blocks are only kept when requested, the blocks received without demand are dropped.
+     */
+    DROP,
+
+    /**
+     * Only the most recent block received without demand is kept, delivered at the next request; each newer block
+     * replaces and drops the one kept. Suited to displays, which only need the latest samples.
+     */
+    LATEST,
+
+    /**
+     * Blocks are queued up to the buffer capacity whatever the demand; the blocks received while the buffer is
+     * full are dropped and counted as overflows.
+     */
+    BUFFER
+}
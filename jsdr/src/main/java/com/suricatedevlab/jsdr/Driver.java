@@ -1,6 +1,7 @@
 package com.suricatedevlab.jsdr;
 
 import java.util.Enumeration;
+import java.util.Iterator;
 
 /**
  * The {@code Driver} interface provides methods for interacting with
@@ -59,4 +60,28 @@ public interface Driver {
      * @throws SdrException If an error occurs while retrieving the device, such as an invalid index or communication failure.
      */
     Device getDevice(int index) throws SdrException;
+
+    /**
+     * Retrieves a specific SDR device by its serial number.
+     * <p>Serial numbers identify a device regardless of the order in which devices were plugged, unlike indexes.
+     * When several devices share the same serial number, the one with the lowest index is returned.</p>
+     * <p>The default implementation enumerates the devices through {@link #getDevices()}.</p>
+     *
+     * @param serial The serial number of the device to retrieve.
+     * @return A <code>Device</code> object representing the SDR device, or <code>null</code> if no device has this serial number.
+     * @throws SdrException If an error occurs while retrieving the devices.
+     */
+    default Device getDeviceBySerial(String serial) throws SdrException {
+        if (serial == null) {
+            return null;
+        }
+        Iterator<Device> availableDevices = getDevices().asIterator();
+        while (availableDevices.hasNext()) {
+            Device entry = availableDevices.next();
+            if (serial.equals(entry.getSerial())) {
+                return entry;
+            }
+        }
+        return null;
+    }
 }
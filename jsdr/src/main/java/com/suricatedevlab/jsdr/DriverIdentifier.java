@@ -0,0 +1,27 @@
+package com.suricatedevlab.jsdr;
+
+import java.lang.annotation.*;
+
+/**
+ * Declares the identifiers accepted by a {@link Driver} implementation.
+ *
+ * <p>{@link DriverManager} reads this annotation from the driver class registered as a service, so that it can
+ * select a driver without instantiating it nor running its static initializers. Drivers without this annotation
+ * are instantiated and asked through {@link Driver#acceptsIdentifier(String)}.</p>
+ *
+ * <p><b>Example:</b></p>
+ * <pre>
+ * &#64;DriverIdentifier("MY-SDR")
+ * public final class MyDriver implements Driver { ... }
+ * </pre>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface DriverIdentifier {
+
+    /**
+     * @return the identifiers accepted by the driver
+     */
+    String[] value();
+}
@@ -1,6 +1,7 @@
 package com.suricatedevlab.jsdr;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The {@code DriverManager} class provides the basic service for managing a set of Software Defined Radio (SDR) drivers.
@@ -32,20 +33,26 @@ public class DriverManager {
         throw new IllegalStateException("Cannot create an instance of DriverManager");
     }
 
+    private static final Map<Class<?>, Driver> DRIVERS = new ConcurrentHashMap<>();
+    private static List<DriverProvider> providers;
+
     /**
      * Retrieves an {@link Enumeration} of all currently loaded Software Defined Radio (SDR) drivers that the current caller has access to.
      * <p>
      * This method loads all available SDR drivers via the Java ServiceLoader mechanism and returns them as an enumeration.
+     * Providers are discovered once and drivers are instantiated once, then reused by later calls.
+     * Drivers that fail to load on the current platform are skipped.
      * </p>
      *
      * @return an enumeration of all available SDR drivers
      */
     public static Enumeration<Driver> getDrivers() {
         List<Driver> result = new ArrayList<>();
-        ServiceLoader<Driver> loader = ServiceLoader.load(Driver.class);
-        Iterator<Driver> iterator = loader.iterator();
-        while (iterator.hasNext()) {
-            result.add(iterator.next());
+        for (DriverProvider provider : getProviders()) {
+            Driver driver = instantiate(provider.provider());
+            if (driver != null) {
+                result.add(driver);
+            }
         }
         return Collections.enumeration(result);
     }
@@ -54,6 +61,8 @@ public class DriverManager {
      * Retrieves an instance of the currently loaded Software Defined Radio (SDR) driver based on the provided identifier.
      * <p>
      * This method searches through all the loaded drivers and returns the first one that accepts the specified identifier.
+     * Drivers annotated with {@link DriverIdentifier} are matched from their annotation, so that only the returned
+     * driver is instantiated; the others are instantiated and asked through {@link Driver#acceptsIdentifier(String)}.
      * If no driver matches the identifier, {@code null} is returned.
      * </p>
      *
@@ -65,9 +74,66 @@ public class DriverManager {
             return null;
         }
 
-        return Collections.list(getDrivers()).stream()
-                .filter(driver -> driver.acceptsIdentifier(identifier))
-                .findFirst()
-                .orElse(null);
+        for (DriverProvider provider : getProviders()) {
+            if (provider.identifiers() != null && !provider.identifiers().contains(identifier)) {
+                continue;
+            }
+            Driver driver = instantiate(provider.provider());
+            if (driver != null && driver.acceptsIdentifier(identifier)) {
+                return driver;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Discards the discovered providers and the driver instances, so that the next calls discover the drivers again,
+     * e.g. after the class path changed.
+     */
+    public static synchronized void reload() {
+        providers = null;
+        DRIVERS.clear();
+    }
+
+    private static synchronized List<DriverProvider> getProviders() {
+        if (providers == null) {
+            List<DriverProvider> result = new ArrayList<>();
+            Iterator<ServiceLoader.Provider<Driver>> iterator = ServiceLoader.load(Driver.class).stream().iterator();
+            while (iterator.hasNext()) {
+                try {
+                    ServiceLoader.Provider<Driver> provider = iterator.next();
+                    // Reading the annotation loads the driver class without initializing it
+                    DriverIdentifier declaration = provider.type().getAnnotation(DriverIdentifier.class);
+                    result.add(new DriverProvider(provider, declaration != null ? Set.of(declaration.value()) : null));
+                }
+                catch (ServiceConfigurationError e) {
+                    // The provider class can not be loaded, the other drivers remain usable
+                }
+            }
+            providers = List.copyOf(result);
+        }
+        return providers;
+    }
+
+    private static Driver instantiate(ServiceLoader.Provider<Driver> provider) {
+        Driver driver = DRIVERS.get(provider.type());
+        if (driver == null) {
+            try {
+                driver = provider.get();
+            }
+            catch (ServiceConfigurationError | LinkageError e) {
+                // The driver can not run on this platform, the other drivers remain usable
+                return null;
+            }
+            Driver previous = DRIVERS.putIfAbsent(provider.type(), driver);
+            if (previous != null) {
+                driver = previous;
+            }
+        }
+        return driver;
+    }
+
+    // Identifiers are null when the driver class does not declare them
+    private record DriverProvider(ServiceLoader.Provider<Driver> provider, Set<String> identifiers) {
     }
 }
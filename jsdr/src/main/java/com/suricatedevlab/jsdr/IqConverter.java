@@ -0,0 +1,489 @@
+package com.suricatedevlab.jsdr;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * The {@code IqConverter} class converts the raw samples delivered by {@link TunerSample}, interleaved unsigned
+ * 8-bit I/Q pairs, into signed complex samples stored in caller-owned {@code float[]} or {@code short[]} arrays.
+ *
+ * <p>Samples can be written interleaved ({@code I0, Q0, I1, Q1, ...}) or split into an in-phase and a
+ * quadrature plane. Conversions go through immutable 256-entry lookup tables and never allocate, so a
+ * converter can be fed directly from {@link TunerSample#readSync(ByteBuffer)} or from a
+ * {@link TunerSample.ReadAsyncDirectCallback}:</p>
+ * <ul>
+ *     <li><b>float</b>: values are scaled to {@code [-1, 1]}, with {@code 0} and {@code 255} mapping to
+ *     {@code -1} and {@code 1}.</li>
+ *     <li><b>short</b>: values are scaled to {@code [-32640, 32640]}, keeping the conversion exact and
+ *     symmetric around zero.</li>
+ * </ul>
+ *
+ * <p>A converter can optionally remove the DC offset introduced by the tuner. The offset is estimated as a
+ * running average of the block means, a block being the samples of one conversion call whatever the type of
+ * buffer, and the estimate from the previous blocks is subtracted from every converted sample.</p>
+ *
+ * <p>When the application runs with {@code --add-modules jdk.incubator.vector}, whole vectors of samples are
+ * converted at once through the Vector API, with the same results as the lookup tables, which then only convert the
+ * last samples of a block. The {@value #PROPERTY_VECTOR} system property turns the Vector API off; see
+ * {@link #isVectorized()}.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ * IqConverter converter = new IqConverter(0.05);
+ * float[] iq = new float[2 * 16384];
+ * tunerSample.readAsyncDirect(data -&gt; {
+ *     int samples = converter.toFloatInterleaved(data, iq, 0);
+ *     process(iq, samples);
+ * }, 0, 0);
+ * </pre>
+ *
+ * <h2>Thread Safety</h2>
+ * The static lookup tables are shared, but converters hold the DC offset state and a scratch buffer and
+ * must not be used by several threads at the same time.
+ *
+ * @see TunerSample
+ */
+public final class IqConverter {
+
+    /**
+     * System property turning the Vector API loops off when set to {@code false}.
+     */
+    public static final String PROPERTY_VECTOR = "jsdr.vector.enabled";
+
+    private static final int SCRATCH_SIZE = 16 * 1024;
+    private static final float FLOAT_SCALE = 1f / 127.5f;
+    private static final float SHORT_SCALE = 256f;
+
+    private static final float[] FLOAT_TABLE = new float[256];
+    private static final short[] SHORT_TABLE = new short[256];
+    private static final IqConverterKernel KERNEL = IqConverterKernel.load();
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            FLOAT_TABLE[i] = (i - 127.5f) * FLOAT_SCALE;
+            SHORT_TABLE[i] = (short) ((2 * i - 255) * 128);
+        }
+    }
+
+    private final float dcSmoothing;
+    private final byte[] scratch = new byte[SCRATCH_SIZE];
+    // The sums of the I and Q bytes of the block being converted
+    private final long[] dcSums = new long[2];
+    private float dcI;
+    private float dcQ;
+
+    /**
+     * Creates a converter without DC offset removal.
+     */
+    public IqConverter() {
+        this.dcSmoothing = 0f;
+    }
+
+    /**
+     * Creates a converter removing the DC offset of the samples.
+     *
+     * @param dcSmoothing the weight of each converted block in the running DC offset estimate, in {@code ]0, 1]};
+     *        smaller values track the offset more slowly but are less sensitive to the signal itself
+     * @throws IllegalArgumentException if the smoothing factor is not in {@code ]0, 1]}
+     */
+    public IqConverter(double dcSmoothing) {
+        if (!(dcSmoothing > 0 && dcSmoothing <= 1)) {
+            throw new IllegalArgumentException("DC smoothing must be in ]0, 1]");
+        }
+        this.dcSmoothing = (float) dcSmoothing;
+    }
+
+    /**
+     * Returns the scaled float value of a single unsigned 8-bit sample.
+     *
+     * @param sample the raw sample
+     * @return the sample scaled to {@code [-1, 1]}
+     */
+    public static float toFloat(byte sample) {
+        return FLOAT_TABLE[sample & 0xFF];
+    }
+
+    /**
+     * Returns whether the conversions run on the Vector API, which needs the {@code jdk.incubator.vector} module
+     * and vectors of at least 8 floats.
+     *
+     * @return {@code true} if whole vectors of samples are converted at once, {@code false} if every sample goes
+     *         through the lookup tables
+     */
+    public static boolean isVectorized() {
+        return KERNEL != null;
+    }
+
+    /**
+     * Returns whether this converter removes the DC offset of the samples.
+     *
+     * @return {@code true} if DC offset removal is enabled
+     */
+    public boolean isDcRemovalEnabled() {
+        return dcSmoothing > 0;
+    }
+
+    /**
+     * Returns the current DC offset estimate of the in-phase component, in the float scale.
+     *
+     * @return the in-phase DC offset
+     */
+    public float getDcOffsetI() {
+        return dcI;
+    }
+
+    /**
+     * Returns the current DC offset estimate of the quadrature component, in the float scale.
+     *
+     * @return the quadrature DC offset
+     */
+    public float getDcOffsetQ() {
+        return dcQ;
+    }
+
+    /**
+     * Clears the DC offset estimate, typically after retuning the device.
+     */
+    public void reset() {
+        dcI = 0f;
+        dcQ = 0f;
+    }
+
+    /**
+     * Converts the remaining complete I/Q pairs of {@code src} into interleaved float samples, advancing the
+     * position of {@code src} by the number of bytes consumed.
+     *
+     * @param src the raw samples
+     * @param dst the array receiving {@code 2 * n} interleaved floats
+     * @param offset the index of the first float to write in {@code dst}
+     * @return the number {@code n} of complex samples converted
+     * @throws IndexOutOfBoundsException if {@code dst} is too small
+     */
+    public int toFloatInterleaved(ByteBuffer src, float[] dst, int offset) {
+        int pairs = src.remaining() >> 1;
+        Objects.checkFromIndexSize(offset, pairs << 1, dst.length);
+        if (src.hasArray()) {
+            int position = src.position();
+            convertFloatInterleaved(src.array(), src.arrayOffset() + position, pairs, dst, offset);
+            src.position(position + (pairs << 1));
+            updateDcOffset(pairs);
+            return pairs;
+        }
+        int remaining = pairs;
+        while (remaining > 0) {
+            int chunk = Math.min(remaining, SCRATCH_SIZE >> 1);
+            src.get(scratch, 0, chunk << 1);
+            convertFloatInterleaved(scratch, 0, chunk, dst, offset);
+            offset += chunk << 1;
+            remaining -= chunk;
+        }
+        updateDcOffset(pairs);
+        return pairs;
+    }
+
+    /**
+     * Converts {@code length / 2} I/Q pairs of {@code src} into interleaved float samples.
+     *
+     * @param src the raw samples
+     * @param srcOffset the index of the first byte to convert
+     * @param length the number of bytes to convert, a trailing odd byte is ignored
+     * @param dst the array receiving the interleaved floats
+     * @param dstOffset the index of the first float to write in {@code dst}
+     * @return the number of complex samples converted
+     * @throws IndexOutOfBoundsException if the ranges do not fit the arrays
+     */
+    public int toFloatInterleaved(byte[] src, int srcOffset, int length, float[] dst, int dstOffset) {
+        Objects.checkFromIndexSize(srcOffset, length, src.length);
+        int pairs = length >> 1;
+        Objects.checkFromIndexSize(dstOffset, pairs << 1, dst.length);
+        convertFloatInterleaved(src, srcOffset, pairs, dst, dstOffset);
+        updateDcOffset(pairs);
+        return pairs;
+    }
+
+    /**
+     * Converts the remaining complete I/Q pairs of {@code src} into split-plane float samples, advancing the
+     * position of {@code src} by the number of bytes consumed.
+     *
+     * @param src the raw samples
+     * @param i the array receiving the in-phase components
+     * @param q the array receiving the quadrature components
+     * @param offset the index of the first sample to write in {@code i} and {@code q}
+     * @return the number of complex samples converted
+     * @throws IndexOutOfBoundsException if the arrays are too small
+     */
+    public int toFloatSplit(ByteBuffer src, float[] i, float[] q, int offset) {
+        int pairs = src.remaining() >> 1;
+        Objects.checkFromIndexSize(offset, pairs, i.length);
+        Objects.checkFromIndexSize(offset, pairs, q.length);
+        if (src.hasArray()) {
+            int position = src.position();
+            convertFloatSplit(src.array(), src.arrayOffset() + position, pairs, i, q, offset);
+            src.position(position + (pairs << 1));
+            updateDcOffset(pairs);
+            return pairs;
+        }
+        int remaining = pairs;
+        while (remaining > 0) {
+            int chunk = Math.min(remaining, SCRATCH_SIZE >> 1);
+            src.get(scratch, 0, chunk << 1);
+            convertFloatSplit(scratch, 0, chunk, i, q, offset);
+            offset += chunk;
+            remaining -= chunk;
+        }
+        updateDcOffset(pairs);
+        return pairs;
+    }
+
+    /**
+     * Converts {@code length / 2} I/Q pairs of {@code src} into split-plane float samples.
+     *
+     * @param src the raw samples
+     * @param srcOffset the index of the first byte to convert
+     * @param length the number of bytes to convert, a trailing odd byte is ignored
+     * @param i the array receiving the in-phase components
+     * @param q the array receiving the quadrature components
+     * @param dstOffset the index of the first sample to write in {@code i} and {@code q}
+     * @return the number of complex samples converted
+     * @throws IndexOutOfBoundsException if the ranges do not fit the arrays
+     */
+    public int toFloatSplit(byte[] src, int srcOffset, int length, float[] i, float[] q, int dstOffset) {
+        Objects.checkFromIndexSize(srcOffset, length, src.length);
+        int pairs = length >> 1;
+        Objects.checkFromIndexSize(dstOffset, pairs, i.length);
+        Objects.checkFromIndexSize(dstOffset, pairs, q.length);
+        convertFloatSplit(src, srcOffset, pairs, i, q, dstOffset);
+        updateDcOffset(pairs);
+        return pairs;
+    }
+
+    /**
+     * Converts the remaining complete I/Q pairs of {@code src} into interleaved 16-bit samples, advancing the
+     * position of {@code src} by the number of bytes consumed.
+     *
+     * @param src the raw samples
+     * @param dst the array receiving {@code 2 * n} interleaved shorts
+     * @param offset the index of the first short to write in {@code dst}
+     * @return the number {@code n} of complex samples converted
+     * @throws IndexOutOfBoundsException if {@code dst} is too small
+     */
+    public int toShortInterleaved(ByteBuffer src, short[] dst, int offset) {
+        int pairs = src.remaining() >> 1;
+        Objects.checkFromIndexSize(offset, pairs << 1, dst.length);
+        if (src.hasArray()) {
+            int position = src.position();
+            convertShortInterleaved(src.array(), src.arrayOffset() + position, pairs, dst, offset);
+            src.position(position + (pairs << 1));
+            updateDcOffset(pairs);
+            return pairs;
+        }
+        int remaining = pairs;
+        while (remaining > 0) {
+            int chunk = Math.min(remaining, SCRATCH_SIZE >> 1);
+            src.get(scratch, 0, chunk << 1);
+            convertShortInterleaved(scratch, 0, chunk, dst, offset);
+            offset += chunk << 1;
+            remaining -= chunk;
+        }
+        updateDcOffset(pairs);
+        return pairs;
+    }
+
+    /**
+     * Converts {@code length / 2} I/Q pairs of {@code src} into interleaved 16-bit samples.
+     *
+     * @param src the raw samples
+     * @param srcOffset the index of the first byte to convert
+     * @param length the number of bytes to convert, a trailing odd byte is ignored
+     * @param dst the array receiving the interleaved shorts
+     * @param dstOffset the index of the first short to write in {@code dst}
+     * @return the number of complex samples converted
+     * @throws IndexOutOfBoundsException if the ranges do not fit the arrays
+     */
+    public int toShortInterleaved(byte[] src, int srcOffset, int length, short[] dst, int dstOffset) {
+        Objects.checkFromIndexSize(srcOffset, length, src.length);
+        int pairs = length >> 1;
+        Objects.checkFromIndexSize(dstOffset, pairs << 1, dst.length);
+        convertShortInterleaved(src, srcOffset, pairs, dst, dstOffset);
+        updateDcOffset(pairs);
+        return pairs;
+    }
+
+    /**
+     * Converts the remaining complete I/Q pairs of {@code src} into split-plane 16-bit samples, advancing the
+     * position of {@code src} by the number of bytes consumed.
+     *
+     * @param src the raw samples
+     * @param i the array receiving the in-phase components
+     * @param q the array receiving the quadrature components
+     * @param offset the index of the first sample to write in {@code i} and {@code q}
+     * @return the number of complex samples converted
+     * @throws IndexOutOfBoundsException if the arrays are too small
+     */
+    public int toShortSplit(ByteBuffer src, short[] i, short[] q, int offset) {
+        int pairs = src.remaining() >> 1;
+        Objects.checkFromIndexSize(offset, pairs, i.length);
+        Objects.checkFromIndexSize(offset, pairs, q.length);
+        if (src.hasArray()) {
+            int position = src.position();
+            convertShortSplit(src.array(), src.arrayOffset() + position, pairs, i, q, offset);
+            src.position(position + (pairs << 1));
+            updateDcOffset(pairs);
+            return pairs;
+        }
+        int remaining = pairs;
+        while (remaining > 0) {
+            int chunk = Math.min(remaining, SCRATCH_SIZE >> 1);
+            src.get(scratch, 0, chunk << 1);
+            convertShortSplit(scratch, 0, chunk, i, q, offset);
+            offset += chunk;
+            remaining -= chunk;
+        }
+        updateDcOffset(pairs);
+        return pairs;
+    }
+
+    /**
+     * Converts {@code length / 2} I/Q pairs of {@code src} into split-plane 16-bit samples.
+     *
+     * @param src the raw samples
+     * @param srcOffset the index of the first byte to convert
+     * @param length the number of bytes to convert, a trailing odd byte is ignored
+     * @param i the array receiving the in-phase components
+     * @param q the array receiving the quadrature components
+     * @param dstOffset the index of the first sample to write in {@code i} and {@code q}
+     * @return the number of complex samples converted
+     * @throws IndexOutOfBoundsException if the ranges do not fit the arrays
+     */
+    public int toShortSplit(byte[] src, int srcOffset, int length, short[] i, short[] q, int dstOffset) {
+        Objects.checkFromIndexSize(srcOffset, length, src.length);
+        int pairs = length >> 1;
+        Objects.checkFromIndexSize(dstOffset, pairs, i.length);
+        Objects.checkFromIndexSize(dstOffset, pairs, q.length);
+        convertShortSplit(src, srcOffset, pairs, i, q, dstOffset);
+        updateDcOffset(pairs);
+        return pairs;
+    }
+
+    private void convertFloatInterleaved(byte[] src, int s, int pairs, float[] dst, int d) {
+        float[] table = FLOAT_TABLE;
+        float offsetI = dcI;
+        float offsetQ = dcQ;
+        long[] sums = dcSmoothing != 0f ? dcSums : null;
+        int done = KERNEL != null ? KERNEL.toFloatInterleaved(src, s, pairs, dst, d, offsetI, offsetQ, sums) : 0;
+        s += done << 1;
+        d += done << 1;
+        if (sums == null) {
+            for (int end = s + ((pairs - done) << 1); s < end; s++, d++) {
+                dst[d] = table[src[s] & 0xFF];
+            }
+            return;
+        }
+        long sumI = 0;
+        long sumQ = 0;
+        for (int n = done; n < pairs; n++, s += 2, d += 2) {
+            int i = src[s] & 0xFF;
+            int q = src[s + 1] & 0xFF;
+            sumI += i;
+            sumQ += q;
+            dst[d] = table[i] - offsetI;
+            dst[d + 1] = table[q] - offsetQ;
+        }
+        sums[0] += sumI;
+        sums[1] += sumQ;
+    }
+
+    private void convertFloatSplit(byte[] src, int s, int pairs, float[] dstI, float[] dstQ, int d) {
+        float[] table = FLOAT_TABLE;
+        float offsetI = dcI;
+        float offsetQ = dcQ;
+        long[] sums = dcSmoothing != 0f ? dcSums : null;
+        int done = KERNEL != null ? KERNEL.toFloatSplit(src, s, pairs, dstI, dstQ, d, offsetI, offsetQ, sums) : 0;
+        s += done << 1;
+        d += done;
+        long sumI = 0;
+        long sumQ = 0;
+        for (int end = d + pairs - done; d < end; d++, s += 2) {
+            int i = src[s] & 0xFF;
+            int q = src[s + 1] & 0xFF;
+            sumI += i;
+            sumQ += q;
+            dstI[d] = table[i] - offsetI;
+            dstQ[d] = table[q] - offsetQ;
+        }
+        if (sums != null) {
+            sums[0] += sumI;
+            sums[1] += sumQ;
+        }
+    }
+
+    private void convertShortInterleaved(byte[] src, int s, int pairs, short[] dst, int d) {
+        short[] table = SHORT_TABLE;
+        int offsetI = Math.round(dcI * 127.5f * SHORT_SCALE);
+        int offsetQ = Math.round(dcQ * 127.5f * SHORT_SCALE);
+        long[] sums = dcSmoothing != 0f ? dcSums : null;
+        int done = KERNEL != null ? KERNEL.toShortInterleaved(src, s, pairs, dst, d, offsetI, offsetQ, sums) : 0;
+        s += done << 1;
+        d += done << 1;
+        if (sums == null) {
+            for (int end = s + ((pairs - done) << 1); s < end; s++, d++) {
+                dst[d] = table[src[s] & 0xFF];
+            }
+            return;
+        }
+        long sumI = 0;
+        long sumQ = 0;
+        for (int n = done; n < pairs; n++, s += 2, d += 2) {
+            int i = src[s] & 0xFF;
+            int q = src[s + 1] & 0xFF;
+            sumI += i;
+            sumQ += q;
+            dst[d] = clamp(table[i] - offsetI);
+            dst[d + 1] = clamp(table[q] - offsetQ);
+        }
+        sums[0] += sumI;
+        sums[1] += sumQ;
+    }
+
+    private void convertShortSplit(byte[] src, int s, int pairs, short[] dstI, short[] dstQ, int d) {
+        short[] table = SHORT_TABLE;
+        int offsetI = Math.round(dcI * 127.5f * SHORT_SCALE);
+        int offsetQ = Math.round(dcQ * 127.5f * SHORT_SCALE);
+        long[] sums = dcSmoothing != 0f ? dcSums : null;
+        int done = KERNEL != null ? KERNEL.toShortSplit(src, s, pairs, dstI, dstQ, d, offsetI, offsetQ, sums) : 0;
+        s += done << 1;
+        d += done;
+        long sumI = 0;
+        long sumQ = 0;
+        for (int end = d + pairs - done; d < end; d++, s += 2) {
+            int i = src[s] & 0xFF;
+            int q = src[s + 1] & 0xFF;
+            sumI += i;
+            sumQ += q;
+            dstI[d] = clamp(table[i] - offsetI);
+            dstQ[d] = clamp(table[q] - offsetQ);
+        }
+        if (sums != null) {
+            sums[0] += sumI;
+            sums[1] += sumQ;
+        }
+    }
+
+    // Called once per conversion call with the sums of all its chunks, so that the estimate is updated once per
+    // block whatever the type of buffer
+    private void updateDcOffset(int pairs) {
+        if (dcSmoothing == 0f || pairs == 0) {
+            return;
+        }
+        float meanI = ((float) dcSums[0] / pairs - 127.5f) * FLOAT_SCALE;
+        float meanQ = ((float) dcSums[1] / pairs - 127.5f) * FLOAT_SCALE;
+        dcSums[0] = 0;
+        dcSums[1] = 0;
+        dcI += dcSmoothing * (meanI - dcI);
+        dcQ += dcSmoothing * (meanQ - dcQ);
+    }
+
+    private static short clamp(int value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+    }
+}
@@ -0,0 +1,39 @@
+package com.suricatedevlab.jsdr;
+
+// Conversion loops of IqConverter over whole vectors of samples. The Vector API implementation is compiled from the
+// optional vector source set and only loaded when the jdk.incubator.vector module is resolved at run time; without
+// it IqConverter converts everything through its lookup tables.
+//
+// Every method converts the leading pairs it can handle in whole vectors and returns their number, the caller
+// converting the remaining ones. Values are exactly those of the lookup tables minus the offsets. When sums is not
+// null, the unsigned sums of the in-phase and quadrature bytes of the converted pairs are added to sums[0] and sums[1]
+interface IqConverterKernel {
+
+    String IMPLEMENTATION = "com.suricatedevlab.jsdr.VectorIqConverterKernel";
+
+    int toFloatInterleaved(byte[] src, int s, int pairs, float[] dst, int d, float offsetI, float offsetQ,
+                           long[] sums);
+
+    int toFloatSplit(byte[] src, int s, int pairs, float[] dstI, float[] dstQ, int d, float offsetI, float offsetQ,
+                     long[] sums);
+
+    int toShortInterleaved(byte[] src, int s, int pairs, short[] dst, int d, int offsetI, int offsetQ, long[] sums);
+
+    int toShortSplit(byte[] src, int s, int pairs, short[] dstI, short[] dstQ, int d, int offsetI, int offsetQ,
+                     long[] sums);
+
+    // null when the property turns the kernel off, the module is not resolved, or the platform vectors are too short
+    static IqConverterKernel load() {
+        if ("false".equalsIgnoreCase(System.getProperty(IqConverter.PROPERTY_VECTOR))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (IqConverterKernel) Class.forName(IMPLEMENTATION).getDeclaredMethod("create").invoke(null);
+        }
+        catch (ReflectiveOperationException | LinkageError e) {
+            // A jar built without the vector source set
+            return null;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.suricatedevlab.jsdr;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * The {@code IqTable} enumeration lists per-sample quantities of the raw samples delivered by {@link TunerSample},
+ * interleaved unsigned 8-bit I/Q pairs, computed through precomputed lookup tables.
+ *
+ * <p>An I/Q pair can only take 65536 values, so every quantity is computed once for all of them when the class is
+ * loaded, and converting a sample is a single lookup instead of a square root, a logarithm or an arc tangent. The
+ * tables are shared and never modified. The components are scaled as by {@link IqConverter}, {@code 0} and
+ * {@code 255} mapping to {@code -1} and {@code 1}, so a full-scale signal has a magnitude of 1 and a power of
+ * 0 dBFS.</p>
+ *
+ * <p>Whole buffers, as returned by {@link TunerSample#readSync(int)} or received by a
+ * {@link TunerSample.ReadAsyncDirectCallback}, are converted in bulk; given a {@link ForkJoinPool}, blocks of 65536
+ * samples or more are split between its workers.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ * float[] power = new float[16384];
+ * tunerSample.readAsyncDirect(data -&gt; {
+ *     int samples = IqTable.DECIBELS.convert(data, power, 0);
+ *     detect(power, samples);
+ * }, 0, 0);
+ * </pre>
+ *
+ * <h2>Thread Safety</h2>
+ * The tables are immutable, conversions can run concurrently as long as they write to different ranges.
+ *
+ * @see IqConverter
+ */
+public enum IqTable {
+
+    /**
+     * The magnitude {@code sqrt(I² + Q²)}, in {@code [0, sqrt(2)]}.
+     */
+    MAGNITUDE(Math::hypot),
+
+    /**
+     * The power {@code I² + Q²}, in {@code [0, 2]}.
+     */
+    POWER((i, q) -> i * i + q * q),
+
+    /**
+     * The power in dBFS, {@code 10 * log10(I² + Q²)}; the pairs closest to the center read about -45 dB.
+     */
+    DECIBELS((i, q) -> 10 * Math.log10(i * i + q * q)),
+
+    /**
+     * The phase {@code atan2(Q, I)}, in radians in {@code [-pi, pi]}.
+     */
+    PHASE((i, q) -> Math.atan2(q, i));
+
+    // Below this number of samples, fork-join overhead outweighs the gain
+    private static final int PARALLEL_MIN_SAMPLES = 1 << 16;
+
+    private final float[] table = new float[1 << 16];
+
+    IqTable(DoubleBinaryOperator quantity) {
+        for (int i = 0; i < 256; i++) {
+            double scaledI = (i - 127.5) / 127.5;
+            for (int q = 0; q < 256; q++) {
+                table[(i << 8) | q] = (float) quantity.applyAsDouble(scaledI, (q - 127.5) / 127.5);
+            }
+        }
+    }
+
+    /**
+     * Returns the quantity of a single I/Q pair.
+     *
+     * @param i the raw in-phase sample
+     * @param q the raw quadrature sample
+     * @return the value of the quantity
+     */
+    public float get(byte i, byte q) {
+        return table[((i & 0xFF) << 8) | (q & 0xFF)];
+    }
+
+    /**
+     * Converts the remaining complete I/Q pairs of {@code src}, advancing its position by the number of bytes
+     * consumed.
+     *
+     * @param src the raw samples
+     * @param dst the array receiving one value per pair
+     * @param offset the index of the first value to write in {@code dst}
+     * @return the number of pairs converted
+     * @throws IndexOutOfBoundsException if {@code dst} is too small
+     */
+    public int convert(ByteBuffer src, float[] dst, int offset) {
+        return convert(src, dst, offset, null);
+    }
+
+    /**
+     * Converts the remaining complete I/Q pairs of {@code src}, advancing its position by the number of bytes
+     * consumed, splitting large buffers between the workers of a pool.
+     *
+     * @param src the raw samples
+     * @param dst the array receiving one value per pair
+     * @param offset the index of the first value to write in {@code dst}
+     * @param pool the pool converting large buffers in parallel, {@code null} to convert on the calling thread
+     * @return the number of pairs converted
+     * @throws IndexOutOfBoundsException if {@code dst} is too small
+     */
+    public int convert(ByteBuffer src, float[] dst, int offset, ForkJoinPool pool) {
+        int pairs = src.remaining() >> 1;
+        Objects.checkFromIndexSize(offset, pairs, dst.length);
+        int position = src.position();
+        if (src.hasArray()) {
+            run(src.array(), null, src.arrayOffset() + position, dst, offset, pairs, pool);
+        }
+        else {
+            run(null, src, position, dst, offset, pairs, pool);
+        }
+        src.position(position + (pairs << 1));
+        return pairs;
+    }
+
+    /**
+     * Converts {@code length / 2} I/Q pairs of {@code src}.
+     *
+     * @param src the raw samples
+     * @param srcOffset the index of the first byte to convert
+     * @param length the number of bytes to convert, a trailing odd byte is ignored
+     * @param dst the array receiving one value per pair
+     * @param dstOffset the index of the first value to write in {@code dst}
+     * @return the number of pairs converted
+     * @throws IndexOutOfBoundsException if the ranges do not fit the arrays
+     */
+    public int convert(byte[] src, int srcOffset, int length, float[] dst, int dstOffset) {
+        return convert(src, srcOffset, length, dst, dstOffset, null);
+    }
+
+    /**
+     * Converts {@code length / 2} I/Q pairs of {@code src}, splitting large arrays between the workers of a pool.
+     *
+     * @param src the raw samples
+     * @param srcOffset the index of the first byte to convert
+     * @param length the number of bytes to convert, a trailing odd byte is ignored
+     * @param dst the array receiving one value per pair
+     * @param dstOffset the index of the first value to write in {@code dst}
+     * @param pool the pool converting large arrays in parallel, {@code null} to convert on the calling thread
+     * @return the number of pairs converted
+     * @throws IndexOutOfBoundsException if the ranges do not fit the arrays
+     */
+    public int convert(byte[] src, int srcOffset, int length, float[] dst, int dstOffset, ForkJoinPool pool) {
+        Objects.checkFromIndexSize(srcOffset, length, src.length);
+        int pairs = length >> 1;
+        Objects.checkFromIndexSize(dstOffset, pairs, dst.length);
+        run(src, null, srcOffset, dst, dstOffset, pairs, pool);
+        return pairs;
+    }
+
+    private void run(byte[] array, ByteBuffer buffer, int srcOffset, float[] dst, int dstOffset, int pairs,
+                     ForkJoinPool pool) {
+        if (pool != null && pool.getParallelism() > 1 && pairs >= PARALLEL_MIN_SAMPLES) {
+            int leaf = Math.max(PARALLEL_MIN_SAMPLES >> 2, pairs / (pool.getParallelism() << 2));
+            pool.invoke(new ConvertTask(array, buffer, srcOffset, dst, dstOffset, pairs, leaf));
+        }
+        else if (array != null) {
+            convertArray(array, srcOffset, dst, dstOffset, pairs);
+        }
+        else {
+            convertBuffer(buffer, srcOffset, dst, dstOffset, pairs);
+        }
+    }
+
+    private void convertArray(byte[] src, int srcOffset, float[] dst, int dstOffset, int pairs) {
+        float[] values = table;
+        for (int n = 0, p = srcOffset; n < pairs; n++, p += 2) {
+            dst[dstOffset + n] = values[((src[p] & 0xFF) << 8) | (src[p + 1] & 0xFF)];
+        }
+    }
+
+    // Reads the pairs as 16-bit values with absolute gets, which leave the buffer untouched for the other workers
+    private void convertBuffer(ByteBuffer src, int srcOffset, float[] dst, int dstOffset, int pairs) {
+        float[] values = table;
+        boolean bigEndian = src.order() == ByteOrder.BIG_ENDIAN;
+        for (int n = 0, p = srcOffset; n < pairs; n++, p += 2) {
+            char pair = src.getChar(p);
+            dst[dstOffset + n] = values[bigEndian ? pair : Character.reverseBytes(pair)];
+        }
+    }
+
+    // Splits a conversion in halves down to leaves of a few times the parallelism
+    private final class ConvertTask extends RecursiveAction {
+
+        private final byte[] array;
+        private final ByteBuffer buffer;
+        private final int srcOffset;
+        private final float[] dst;
+        private final int dstOffset;
+        private final int pairs;
+        private final int leaf;
+
+        ConvertTask(byte[] array, ByteBuffer buffer, int srcOffset, float[] dst, int dstOffset, int pairs, int leaf) {
+            this.array = array;
+            this.buffer = buffer;
+            this.srcOffset = srcOffset;
+            this.dst = dst;
+            this.dstOffset = dstOffset;
+            this.pairs = pairs;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected void compute() {
+            if (pairs <= leaf) {
+                if (array != null) {
+                    convertArray(array, srcOffset, dst, dstOffset, pairs);
+                }
+                else {
+                    convertBuffer(buffer, srcOffset, dst, dstOffset, pairs);
+                }
+                return;
+            }
+            int half = pairs >> 1;
+            invokeAll(new ConvertTask(array, buffer, srcOffset, dst, dstOffset, half, leaf),
+                    new ConvertTask(array, buffer, srcOffset + (half << 1), dst, dstOffset + half, pairs - half,
+                            leaf));
+        }
+    }
+}
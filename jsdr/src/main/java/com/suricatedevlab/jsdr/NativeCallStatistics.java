@@ -0,0 +1,18 @@
+package com.suricatedevlab.jsdr;
+
+/**
+ * Latency of the calls to one function of a native driver library.
+ *
+ * @param calls the number of calls
+ * @param totalNanos the cumulated time spent in the function, in nanoseconds
+ * @param maxNanos the longest call, in nanoseconds
+ */
+public record NativeCallStatistics(long calls, long totalNanos, long maxNanos) {
+
+    /**
+     * @return the mean time of a call in nanoseconds, 0 without calls
+     */
+    public long meanNanos() {
+        return calls == 0 ? 0 : totalNanos / calls;
+    }
+}
@@ -0,0 +1,29 @@
+package com.suricatedevlab.jsdr;
+
+/**
+ * The {@code OverflowPolicy} enumeration defines what a bounded sample buffer does when a producer
+ * delivers more data than the buffer has room for.
+ *
+ * <p>Producers are typically driver threads delivering USB transfers, for which blocking means that the
+ * device stops being serviced. Policies that drop data never block the producer and account for every
+ * dropped byte instead.</p>
+ *
+ * @see SampleRingBuffer
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The incoming data that does not fit is discarded, the buffered data is kept.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest buffered data is discarded to make room for the incoming data.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The producer waits until the consumer has made enough room for the incoming data.
+     */
+    BLOCK
+}
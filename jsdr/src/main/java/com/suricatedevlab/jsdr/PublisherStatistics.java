@@ -0,0 +1,24 @@
+package com.suricatedevlab.jsdr;
+
+/**
+ * Snapshot of the activity of a {@link SamplePublisher}.
+ *
+ * <p>For every subscriber, every block received while it was subscribed is either delivered, dropped, counted as an
+ * overflow or still queued; the counts are summed over the subscribers, so a block shared by three subscribers is
+ * received once and delivered up to three times. Transfers lost because no pooled block was free are counted apart:
+ * a growing {@code poolExhausted} means some subscriber holds on to the blocks instead of releasing them.</p>
+ *
+ * @param received the number of blocks filled from the tuner
+ * @param delivered the number of blocks passed to the subscribers
+ * @param dropped the number of blocks dropped for lack of demand, under {@link BackpressurePolicy#DROP} and
+ *                {@link BackpressurePolicy#LATEST}
+ * @param overflows the number of blocks dropped because the buffer was full
+ * @param poolExhausted the number of blocks not filled because no pooled block was free
+ * @param subscribers the number of subscribers attached
+ * @param queued the number of blocks waiting for demand, summed over the subscribers
+ *
+ * @see SamplePublisher#getStatistics()
+ */
+public record PublisherStatistics(long received, long delivered, long dropped, long overflows, long poolExhausted,
+                                  int subscribers, int queued) {
+}
@@ -0,0 +1,164 @@
+package com.suricatedevlab.jsdr;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code SampleBlock} class is a block of raw samples held in preallocated off-heap memory owned by a
+ * {@link SampleBlockPool}.
+ *
+ * <p>A block is filled with one transfer of a tuner, tagged with its position in the stream, and handed to
+ * consumers which must {@link #release()} it once done, so that the pool can fill it again. A block that is never
+ * released is lost to the pool: once the pool is empty, the incoming samples are dropped.</p>
+ *
+ * <p>Blocks are reference counted, so that several consumers share the same samples without copying them: a block
+ * taken from the pool holds one reference, every {@link #retain()} adds one and every {@link #release()} removes
+ * one, the block returning to the pool with its last reference. The samples are read-only for every holder.</p>
+ *
+ * <h2>Thread Safety</h2>
+ * A block can be retained, read and released from any thread; the samples must not be read once the reference of
+ * the reader is released.
+ *
+ * @see SampleBlockPool
+ * @see SamplePublisher
+ */
+public final class SampleBlock {
+
+    private final SampleBlockPool pool;
+    private final ByteBuffer buffer;
+    private final ByteBuffer view;
+    private long sequence;
+    private long firstSample;
+    private long timestampNanos;
+    // 0 while in the pool
+    private final AtomicInteger references = new AtomicInteger();
+
+    SampleBlock(SampleBlockPool pool, int capacity) {
+        this.pool = pool;
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+        this.view = buffer.asReadOnlyBuffer();
+    }
+
+    // Copies as many bytes of src as fit, advancing its position
+    void fill(ByteBuffer src, long sequence, long firstSample, long timestampNanos) {
+        int length = Math.min(src.remaining(), buffer.capacity());
+        int position = src.position();
+        buffer.clear().put(0, src, position, length);
+        src.position(position + length);
+        view.clear().limit(length);
+        this.sequence = sequence;
+        this.firstSample = firstSample;
+        this.timestampNanos = timestampNanos;
+    }
+
+    // Returns whether the block was taken with a first reference, false if it was already out of the pool
+    boolean take() {
+        return references.compareAndSet(0, 1);
+    }
+
+    /**
+     * Returns a read-only view over the interleaved unsigned 8-bit I/Q samples of the block, with its position at
+     * {@code 0} and its limit at {@link #getLength()}. Every call returns a new view over the same memory, so that
+     * the holders of a shared block move their own positions. The view is only valid until the block is released.
+     *
+     * @return the raw samples
+     */
+    public ByteBuffer getData() {
+        return view.duplicate();
+    }
+
+    /**
+     * Returns the number of bytes of the block.
+     *
+     * @return the length of the samples, in bytes
+     */
+    public int getLength() {
+        return view.limit();
+    }
+
+    /**
+     * Returns the number of the block in the stream, from {@code 0}; a gap between consecutive blocks means that
+     * blocks were dropped in between.
+     *
+     * @return the block sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the number of complex samples the tuner delivered before this block.
+     *
+     * @return the index of the first sample of the block in the stream
+     */
+    public long getFirstSample() {
+        return firstSample;
+    }
+
+    /**
+     * Returns the time the samples were received, in the time base of {@link System#nanoTime()}.
+     *
+     * @return the reception time, in nanoseconds
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * Returns the number of references held on the block.
+     *
+     * @return the reference count, {@code 0} once the block is back in its pool
+     */
+    public int getReferenceCount() {
+        return references.get();
+    }
+
+    /**
+     * Adds a reference to the block, to be released by another holder.
+     *
+     * @return this block
+     * @throws IllegalStateException if the block was already released by all its holders
+     */
+    public SampleBlock retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count <= 0) {
+                throw new IllegalStateException("Block already released");
+            }
+        }
+        while (!references.compareAndSet(count, count + 1));
+        return this;
+    }
+
+    /**
+     * Releases a reference to the block, returning it to its pool with the last reference. The caller must not use
+     * the block nor its data afterwards.
+     *
+     * @throws IllegalStateException if the block was already released by all its holders
+     */
+    public void release() {
+        int count;
+        do {
+            count = references.get();
+            if (count <= 0) {
+                throw new IllegalStateException("Block already released");
+            }
+        }
+        while (!references.compareAndSet(count, count - 1));
+        if (count == 1) {
+            pool.recycle(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SampleBlock{" +
+                "sequence=" + sequence +
+                ", firstSample=" + firstSample +
+                ", timestampNanos=" + timestampNanos +
+                ", length=" + getLength() +
+                ", references=" + getReferenceCount() +
+                '}';
+    }
+}
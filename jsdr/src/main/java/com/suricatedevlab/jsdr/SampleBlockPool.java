@@ -0,0 +1,87 @@
+package com.suricatedevlab.jsdr;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The {@code SampleBlockPool} class is a fixed set of {@link SampleBlock blocks} allocated off-heap once, bounding
+ * the memory of a stream regardless of how slowly its consumers release the blocks.
+ *
+ * <p>{@link #acquire()} never waits: when every block is in use it returns {@code null} and the producer drops the
+ * samples, which is what a device does anyway when it is not serviced in time. A block returns to the pool when
+ * its last reference is {@link SampleBlock#release() released}.</p>
+ *
+ * <h2>Thread Safety</h2>
+ * Blocks can be acquired and released from any thread.
+ *
+ * @see SampleBlock
+ */
+public final class SampleBlockPool {
+
+    private final BlockingQueue<SampleBlock> free;
+    private final int capacity;
+    private final int blockSize;
+
+    /**
+     * Creates a pool and allocates all its blocks.
+     *
+     * @param capacity the number of blocks
+     * @param blockSize the size of a block in bytes
+     * @throws IllegalArgumentException if the capacity or the block size is less than or equal to 0
+     */
+    public SampleBlockPool(int capacity, int blockSize) {
+        if (capacity <= 0 || blockSize <= 0) {
+            throw new IllegalArgumentException("capacity or block size <= 0");
+        }
+        this.capacity = capacity;
+        this.blockSize = blockSize;
+        this.free = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            free.add(new SampleBlock(this, blockSize));
+        }
+    }
+
+    /**
+     * Takes a free block out of the pool.
+     *
+     * @return a block to fill, or {@code null} if every block is in use
+     */
+    public SampleBlock acquire() {
+        SampleBlock block = free.poll();
+        if (block != null && !block.take()) {
+            throw new IllegalStateException("Block of the pool in use");
+        }
+        return block;
+    }
+
+    /**
+     * Returns the number of blocks of the pool.
+     *
+     * @return the capacity, in blocks
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the size of the blocks of the pool.
+     *
+     * @return the block size, in bytes
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Returns the number of blocks not in use.
+     *
+     * @return the number of free blocks
+     */
+    public int getAvailable() {
+        return free.size();
+    }
+
+    void recycle(SampleBlock block) {
+        free.offer(block);
+    }
+}
@@ -0,0 +1,649 @@
+package com.suricatedevlab.jsdr;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code SamplePublisher} class publishes the samples of a tuner as a {@link Flow.Publisher} of pooled
+ * {@link SampleBlock blocks}, honouring the demand of each of its subscribers.
+ *
+ * <p>The stream of the tuner is started when the first subscriber subscribes and stopped when the last one cancels.
+ * Every transfer is copied once into blocks taken from a {@link SampleBlockPool}, so the memory of the publisher is
+ * bounded however slow the subscribers are. Each block is shared by all the subscribers, which hold one reference
+ * each: a recorder, a spectrum and a decoder attached to the same tuner read the same memory, and the block returns
+ * to the pool when the last of them releases it. Blocks received while a subscriber has not requested any are
+ * handled according to the {@link BackpressurePolicy}, separately for every subscriber; the device is never
+ * blocked, and every block that could not be kept is counted in the {@link #getStatistics() statistics}.</p>
+ *
+ * <p>Each subscriber must {@link SampleBlock#release() release} every block it receives once done with it, on any
+ * thread; a block kept past {@code onNext} stays out of the pool until released. As the pool is shared, a subscriber
+ * holding on to blocks leaves fewer of them to the others: the {@linkplain Builder#poolCapacity(int) pool capacity}
+ * should cover the blocks every subscriber keeps past {@code onNext}.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ * SamplePublisher publisher = tunerSample.publish(BackpressurePolicy.BUFFER);
+ * publisher.subscribe(new Flow.Subscriber&lt;&gt;() {
+ *     private Flow.Subscription subscription;
+ *     public void onSubscribe(Flow.Subscription subscription) {
+ *         this.subscription = subscription;
+ *         subscription.request(1);
+ *     }
+ *     public void onNext(SampleBlock block) {
+ *         process(block.getData());
+ *         block.release();
+ *         subscription.request(1);
+ *     }
+ *     public void onError(Throwable failure) { ... }
+ *     public void onComplete() { ... }
+ * });
+ * </pre>
+ *
+ * <h2>Thread Safety</h2>
+ * Subscribers can subscribe and cancel at any time, from any thread. The signals of a subscriber are delivered
+ * serially on the delivery executor, the common {@link ForkJoinPool} by default, never on the thread of the device;
+ * different subscribers are delivered concurrently, as far as the executor has threads for them.
+ *
+ * @see BackpressurePolicy
+ * @see PublisherStatistics
+ */
+public final class SamplePublisher implements Flow.Publisher<SampleBlock>, AutoCloseable {
+
+    // Same as librtlsdr
+    private static final int DEFAULT_BLOCK_SIZE = 16 * 32 * 512;
+    private static final BlockSubscription[] NO_SUBSCRIPTIONS = new BlockSubscription[0];
+
+    private final TunerSample sample;
+    private final BackpressurePolicy policy;
+    private final int bufferCapacity;
+    private final int bufferNumber;
+    private final int blockSize;
+    private final Executor executor;
+    private final Executor streamExecutor;
+    private final SampleBlockPool pool;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+    // Only written by the stream thread
+    private volatile long received;
+    private volatile long poolExhausted;
+    private long sequence;
+    private long samples;
+
+    // Replaced under the lock, read without it by the stream thread
+    private volatile BlockSubscription[] subscriptions = NO_SUBSCRIPTIONS;
+    private StreamHandle handle;
+    // Whether the running stream was stopped for lack of subscribers, rather than ending by itself
+    private boolean stopping;
+    private boolean closed;
+
+    private SamplePublisher(Builder builder) {
+        this.sample = builder.sample;
+        this.policy = builder.policy;
+        this.bufferCapacity = builder.bufferCapacity;
+        this.bufferNumber = builder.bufferNumber;
+        this.blockSize = builder.blockSize > 0 ? builder.blockSize : DEFAULT_BLOCK_SIZE;
+        this.executor = builder.executor != null ? builder.executor : ForkJoinPool.commonPool();
+        this.streamExecutor = builder.streamExecutor;
+        // By default the buffered blocks, plus the block being delivered and the one being filled
+        this.pool = new SampleBlockPool(builder.poolCapacity > 0 ? builder.poolCapacity : bufferCapacity + 2,
+                blockSize);
+    }
+
+    /**
+     * Starts building a publisher of the samples of a tuner.
+     *
+     * @param sample the tuner to stream
+     * @return a publisher builder
+     * @throws IllegalArgumentException if the tuner sample is {@code null}
+     */
+    public static Builder builder(TunerSample sample) {
+        if (sample == null) {
+            throw new IllegalArgumentException("Tuner sample is null");
+        }
+        return new Builder(sample);
+    }
+
+    /**
+     * Subscribes to the samples of the tuner, starting its stream unless another subscriber already did. A
+     * subscriber joining a running stream receives the blocks from the next transfer on. A subscriber subscribing
+     * after the publisher is closed receives an {@link IllegalStateException} through {@code onError}.
+     *
+     * @param subscriber the subscriber
+     * @throws NullPointerException if the subscriber is {@code null}
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super SampleBlock> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber is null");
+        BlockSubscription created = null;
+        synchronized (this) {
+            if (!closed) {
+                created = new BlockSubscription(subscriber);
+                BlockSubscription[] current = subscriptions;
+                BlockSubscription[] next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = created;
+                subscriptions = next;
+            }
+        }
+        if (created == null) {
+            subscriber.onSubscribe(CANCELLED);
+            subscriber.onError(new IllegalStateException("Publisher closed"));
+            return;
+        }
+        subscriber.onSubscribe(created);
+        created.start();
+        startStream();
+    }
+
+    /**
+     * Returns the backpressure policy of the publisher.
+     *
+     * @return the policy
+     */
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the pool of the blocks of the publisher.
+     *
+     * @return the block pool
+     */
+    public SampleBlockPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the number of subscribers currently attached to the publisher.
+     *
+     * @return the number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriptions.length;
+    }
+
+    /**
+     * Returns the block metrics of the publisher, summed over its subscribers.
+     *
+     * @return a snapshot of the metrics
+     */
+    public PublisherStatistics getStatistics() {
+        BlockSubscription[] current = subscriptions;
+        int queued = 0;
+        for (BlockSubscription subscription : current) {
+            queued += subscription.queued();
+        }
+        return new PublisherStatistics(received, delivered.sum(), dropped.sum(), overflows.sum(), poolExhausted,
+                current.length, queued);
+    }
+
+    /**
+     * Stops the stream and completes the subscribers, discarding the blocks not delivered yet. No subscriber is
+     * accepted afterwards.
+     *
+     * @throws SdrException if the stream can not be stopped
+     */
+    @Override
+    public void close() throws SdrException {
+        BlockSubscription[] current;
+        synchronized (this) {
+            closed = true;
+            current = subscriptions;
+        }
+        for (BlockSubscription subscription : current) {
+            subscription.terminate(null, true);
+        }
+        stopStream();
+    }
+
+    // A stream still stopping for lack of subscribers starts again when it ends
+    private void startStream() {
+        synchronized (this) {
+            if (subscriptions.length == 0 || (handle != null && handle.isRunning())) {
+                return;
+            }
+            sequence = 0;
+            samples = 0;
+            stopping = false;
+            StreamHandle started = new StreamHandle(sample, this::onTransfer, bufferNumber, blockSize, streamExecutor);
+            started.terminationAction = () -> onStreamEnded(started);
+            handle = started;
+            try {
+                started.launch();
+            }
+            catch (RejectedExecutionException e) {
+                for (BlockSubscription subscription : subscriptions) {
+                    subscription.terminate(e, true);
+                }
+            }
+        }
+    }
+
+    private void stopStream() throws SdrException {
+        StreamHandle current;
+        synchronized (this) {
+            current = handle;
+        }
+        if (current != null) {
+            current.stop();
+        }
+    }
+
+    // Called by a subscription once cancelled or terminated, stops the stream with the last one
+    private void unsubscribe(BlockSubscription ended) {
+        synchronized (this) {
+            BlockSubscription[] current = subscriptions;
+            int index = Arrays.asList(current).indexOf(ended);
+            if (index < 0) {
+                return;
+            }
+            BlockSubscription[] next = new BlockSubscription[current.length - 1];
+            System.arraycopy(current, 0, next, 0, index);
+            System.arraycopy(current, index + 1, next, index, next.length - index);
+            subscriptions = next.length != 0 ? next : NO_SUBSCRIPTIONS;
+            if (next.length != 0 || handle == null) {
+                return;
+            }
+            stopping = true;
+        }
+        try {
+            stopStream();
+        }
+        catch (SdrException e) {
+            // The stream is stopped again by the next subscription, or ends with the device
+        }
+    }
+
+    private void onTransfer(ByteBuffer data) {
+        BlockSubscription[] current = subscriptions;
+        int count = current.length;
+        if (count == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        while (data.hasRemaining()) {
+            SampleBlock block = pool.acquire();
+            if (block == null) {
+                // Lost like a transfer the device could not deliver, leaving a gap in the sequence
+                int remaining = Math.min(data.remaining(), blockSize);
+                data.position(data.position() + remaining);
+                samples += remaining >> 1;
+                sequence++;
+                poolExhausted++;
+                continue;
+            }
+            block.fill(data, sequence++, samples, now);
+            samples += block.getLength() >> 1;
+            received++;
+            // One reference per subscriber, the last one taking over the reference of the pool
+            for (int i = 0; i < count - 1; i++) {
+                current[i].offer(block.retain());
+            }
+            current[count - 1].offer(block);
+        }
+    }
+
+    private void onStreamEnded(StreamHandle ended) {
+        BlockSubscription[] current;
+        synchronized (this) {
+            if (ended != handle) {
+                return;
+            }
+            if (stopping) {
+                // Subscribed while the stream was stopping for lack of subscribers
+                current = null;
+            }
+            else {
+                current = subscriptions;
+            }
+        }
+        if (current != null) {
+            for (BlockSubscription subscription : current) {
+                subscription.terminate(ended.getFailure(), false);
+            }
+        }
+        else {
+            startStream();
+        }
+    }
+
+    /**
+     * Builder of {@link SamplePublisher} instances.
+     */
+    public static final class Builder {
+
+        private final TunerSample sample;
+        private BackpressurePolicy policy = BackpressurePolicy.BUFFER;
+        private int bufferCapacity = 16;
+        private int poolCapacity;
+        private int bufferNumber;
+        private int blockSize;
+        private Executor executor;
+        private Executor streamExecutor;
+
+        private Builder(TunerSample sample) {
+            this.sample = sample;
+        }
+
+        /**
+         * Sets the handling of the blocks received without demand, {@link BackpressurePolicy#BUFFER} by default.
+         *
+         * @param policy the backpressure policy
+         * @return this builder
+         * @throws IllegalArgumentException if the policy is {@code null}
+         */
+        public Builder policy(BackpressurePolicy policy) {
+            if (policy == null) {
+                throw new IllegalArgumentException("Policy is null");
+            }
+            this.policy = policy;
+            return this;
+        }
+
+        /**
+         * Sets the number of blocks queued for each subscriber, 16 by default.
+         *
+         * @param bufferCapacity the capacity of the buffer, in blocks
+         * @return this builder
+         * @throws IllegalArgumentException if the capacity is less than or equal to 0
+         */
+        public Builder bufferCapacity(int bufferCapacity) {
+            if (bufferCapacity <= 0) {
+                throw new IllegalArgumentException("buffer capacity <= 0");
+            }
+            this.bufferCapacity = bufferCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the number of blocks of the pool shared by the subscribers, the buffer capacity plus 2 by default.
+         * Subscribers releasing their blocks in {@code onNext} share the same blocks and need no more; subscribers
+         * keeping blocks for later, a recorder batching its writes for instance, need room for them.
+         *
+         * @param poolCapacity the capacity of the pool, in blocks
+         * @return this builder
+         * @throws IllegalArgumentException if the capacity is less than or equal to 0
+         */
+        public Builder poolCapacity(int poolCapacity) {
+            if (poolCapacity <= 0) {
+                throw new IllegalArgumentException("pool capacity <= 0");
+            }
+            this.poolCapacity = poolCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the number of transfer buffers of the stream and the size of the transfers, which is also the size
+         * of the blocks; the driver defaults by default.
+         *
+         * @param bufferNumber the number of transfer buffers, {@code 0} for the driver default
+         * @param blockSize the size of a transfer and of a block in bytes, {@code 0} for 256 KiB
+         * @return this builder
+         * @throws IllegalArgumentException if a value is negative
+         */
+        public Builder transfers(int bufferNumber, int blockSize) {
+            if (bufferNumber < 0 || blockSize < 0) {
+                throw new IllegalArgumentException("buffer number or block size < 0");
+            }
+            this.bufferNumber = bufferNumber;
+            this.blockSize = blockSize;
+            return this;
+        }
+
+        /**
+         * Sets the executor delivering the signals to the subscriber, the common {@link ForkJoinPool} by default.
+         *
+         * @param executor the delivery executor
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the executor running the stream of the tuner, a new daemon thread by default.
+         *
+         * @param streamExecutor the stream executor
+         * @return this builder
+         * @see TunerSample#start(TunerSample.ReadAsyncDirectCallback, int, int, Executor)
+         */
+        public Builder streamExecutor(Executor streamExecutor) {
+            this.streamExecutor = streamExecutor;
+            return this;
+        }
+
+        /**
+         * Builds the publisher and allocates its block pool. The stream starts when a subscriber subscribes.
+         *
+         * @return the publisher
+         */
+        public SamplePublisher build() {
+            return new SamplePublisher(this);
+        }
+    }
+
+    private static final Flow.Subscription CANCELLED = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    // The demand and the queued blocks of a subscriber, each holding a reference. Blocks are offered by the stream
+    // thread and delivered by a drain task, which runs on the executor one at a time
+    private final class BlockSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super SampleBlock> subscriber;
+        private final BlockingQueue<SampleBlock> queue = new ArrayBlockingQueue<>(bufferCapacity);
+        // Under LATEST, the newest block received without demand
+        private final AtomicReference<SampleBlock> latest = new AtomicReference<>();
+        private final AtomicLong requested = new AtomicLong();
+        // Held by the subscribing thread until onSubscribe returns, so that no signal precedes it
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        private volatile boolean discard;
+        private volatile Throwable failure;
+        private boolean terminated;
+
+        BlockSubscription(Flow.Subscriber<? super SampleBlock> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void offer(SampleBlock block) {
+            if (cancelled || done) {
+                block.release();
+                return;
+            }
+            switch (policy) {
+                case DROP -> {
+                    if (queue.size() >= requested.get() || !queue.offer(block)) {
+                        block.release();
+                        dropped.increment();
+                    }
+                }
+                case LATEST -> {
+                    // Once demand is added, the block kept without demand is queued before the newer ones
+                    if (queue.size() < requested.get()) {
+                        SampleBlock kept = latest.getAndSet(null);
+                        if (kept != null && !queue.offer(kept)) {
+                            latest.set(kept);
+                        }
+                    }
+                    if (queue.size() >= requested.get() || !queue.offer(block)) {
+                        SampleBlock previous = latest.getAndSet(block);
+                        if (previous != null) {
+                            previous.release();
+                            dropped.increment();
+                        }
+                    }
+                }
+                case BUFFER -> {
+                    if (!queue.offer(block)) {
+                        block.release();
+                        overflows.increment();
+                    }
+                }
+            }
+            signal();
+        }
+
+        int queued() {
+            return queue.size() + (latest.get() != null ? 1 : 0);
+        }
+
+        // Ends the subscription once the queued blocks are delivered, or at once when discarding them
+        void terminate(Throwable failure, boolean discard) {
+            if (done) {
+                return;
+            }
+            this.failure = failure;
+            this.discard = discard;
+            done = true;
+            signal();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                terminate(new IllegalArgumentException("Non-positive request " + n), true);
+                return;
+            }
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                next = current + n < 0 ? Long.MAX_VALUE : current + n;
+            }
+            while (!requested.compareAndSet(current, next));
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            unsubscribe(this);
+            signal();
+        }
+
+        // Delivers the signals raised while onSubscribe was running
+        void start() {
+            schedule();
+        }
+
+        private void signal() {
+            if (pending.getAndIncrement() == 0) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(this);
+            }
+            catch (RejectedExecutionException e) {
+                cancelled = true;
+                pending.set(0);
+                clear();
+                unsubscribe(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                if (terminated) {
+                    clear();
+                    return;
+                }
+                if (cancelled) {
+                    clear();
+                }
+                else {
+                    drain();
+                }
+                missed = pending.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            if (done && discard) {
+                complete();
+                return;
+            }
+            long demand = requested.get();
+            long emitted = 0;
+            while (emitted != demand && !cancelled) {
+                SampleBlock block = queue.poll();
+                if (block == null) {
+                    block = latest.getAndSet(null);
+                    if (block == null) {
+                        break;
+                    }
+                }
+                emitted++;
+                delivered.increment();
+                try {
+                    subscriber.onNext(block);
+                }
+                catch (Throwable t) {
+                    // The subscriber broke the contract, the subscription is cancelled
+                    cancelled = true;
+                    unsubscribe(this);
+                    clear();
+                    return;
+                }
+            }
+            if (emitted != 0 && demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+            if (done && !cancelled && queued() == 0) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            terminated = true;
+            clear();
+            unsubscribe(this);
+            Throwable cause = failure;
+            if (cause != null) {
+                subscriber.onError(cause);
+            }
+            else {
+                subscriber.onComplete();
+            }
+        }
+
+        private void clear() {
+            SampleBlock block;
+            while ((block = queue.poll()) != null) {
+                block.release();
+            }
+            block = latest.getAndSet(null);
+            if (block != null) {
+                block.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.suricatedevlab.jsdr;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The {@code SampleRingBuffer} class is a preallocated, off-heap, lock-free ring buffer connecting a single
+ * producer, typically the driver thread delivering asynchronous reads, to a single consumer thread.
+ *
+ * <p>It implements {@link TunerSample.ReadAsyncDirectCallback}, so it can be handed directly to
+ * {@link TunerSample#readAsyncDirect(TunerSample.ReadAsyncDirectCallback, int, int)}: every transfer is copied
+ * into the ring and the callback returns immediately, which keeps a slow consumer from stalling the device.
+ * What happens when the consumer falls behind is decided by the {@link OverflowPolicy}, and every dropped
+ * byte is accounted for.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ * SampleRingBuffer ring = new SampleRingBuffer(16 * 1024 * 1024, OverflowPolicy.DROP_OLDEST);
+ * // capture thread
+ * tunerSample.readAsyncDirect(ring, 0, 0);
+ * // processing thread
+ * ByteBuffer block = ByteBuffer.allocateDirect(256 * 1024);
+ * while (ring.read(block.clear(), 1, TimeUnit.SECONDS) &gt;= 0) {
+ *     process(block.flip());
+ * }
+ * </pre>
+ *
+ * <h2>Thread Safety</h2>
+ * At most one thread may call the producer methods ({@link #offer(ByteBuffer)}, {@link #onReceive(ByteBuffer)})
+ * and at most one thread may call the consumer methods ({@code read}) at any time. Statistics and
+ * {@link #close()} may be called from any thread.
+ *
+ * @see OverflowPolicy
+ * @see TunerSample
+ */
+public final class SampleRingBuffer implements TunerSample.ReadAsyncDirectCallback, AutoCloseable {
+
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+    private final OverflowPolicy overflowPolicy;
+
+    // Consumer index, also advanced by the producer when dropping the oldest data
+    private final AtomicLong head = new AtomicLong();
+    // Producer index
+    private final AtomicLong tail = new AtomicLong();
+
+    // Only written by the producer
+    private volatile long droppedBytes;
+    private volatile long highWaterMark;
+    private volatile boolean closed;
+
+    /**
+     * Creates a ring buffer with the given capacity and overflow policy.
+     *
+     * @param capacity the minimum capacity in bytes, rounded up to the next power of two
+     * @param overflowPolicy the behaviour when the producer delivers more data than there is room for
+     * @throws IllegalArgumentException if the capacity is less than or equal to 0 or greater than 2^30,
+     *         or if the overflow policy is {@code null}
+     */
+    public SampleRingBuffer(int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be in ]0, 2^30]");
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Overflow policy is null");
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.overflowPolicy = overflowPolicy;
+        this.buffer = ByteBuffer.allocateDirect(this.capacity);
+    }
+
+    /**
+     * Copies a transfer into the ring buffer, see {@link #offer(ByteBuffer)}.
+     *
+     * @param data the received raw signal samples
+     */
+    @Override
+    public void onReceive(ByteBuffer data) {
+        offer(data);
+    }
+
+    /**
+     * Copies the remaining bytes of {@code src} into the ring buffer, applying the overflow policy when
+     * there is not enough room. The position of {@code src} is advanced to its limit, whether or not
+     * data was dropped.
+     *
+     * @param src the data to copy
+     * @return {@code true} if all bytes were buffered, {@code false} if some were dropped or the buffer is closed
+     */
+    public boolean offer(ByteBuffer src) {
+        Objects.requireNonNull(src, "Source buffer is null");
+        if (closed) {
+            src.position(src.limit());
+            return false;
+        }
+        int length = src.remaining();
+        if (length == 0) {
+            return true;
+        }
+        return switch (overflowPolicy) {
+            case DROP_NEWEST -> offerDropNewest(src, length);
+            case DROP_OLDEST -> offerDropOldest(src, length);
+            case BLOCK -> offerBlocking(src, length);
+        };
+    }
+
+    /**
+     * Moves up to {@code dst.remaining()} buffered bytes into {@code dst} without waiting, advancing its
+     * position by the number of bytes read.
+     *
+     * @param dst the buffer receiving the data
+     * @return the number of bytes read, {@code 0} if no data is buffered, or {@code -1} if the buffer is
+     *         closed and drained
+     */
+    public int read(ByteBuffer dst) {
+        Objects.requireNonNull(dst, "Destination buffer is null");
+        while (true) {
+            long h = head.get();
+            long t = tail.get();
+            int available = (int) (t - h);
+            if (available == 0) {
+                return closed && h == tail.get() ? -1 : 0;
+            }
+            int length = Math.min(available, dst.remaining());
+            if (length == 0) {
+                return 0;
+            }
+            int index = (int) (h & mask);
+            int first = Math.min(length, capacity - index);
+            int position = dst.position();
+            dst.put(position, buffer, index, first);
+            if (first < length) {
+                dst.put(position + first, buffer, 0, length - first);
+            }
+            // A failed exchange means the producer dropped the data while it was being copied
+            if (head.compareAndSet(h, h + length)) {
+                dst.position(position + length);
+                return length;
+            }
+        }
+    }
+
+    /**
+     * Moves up to {@code length} buffered bytes into {@code dst} without waiting.
+     *
+     * @param dst the array receiving the data
+     * @param offset the index of the first byte to write in {@code dst}
+     * @param length the maximum number of bytes to read
+     * @return the number of bytes read, {@code 0} if no data is buffered, or {@code -1} if the buffer is
+     *         closed and drained
+     */
+    public int read(byte[] dst, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, dst.length);
+        while (true) {
+            long h = head.get();
+            long t = tail.get();
+            int available = (int) (t - h);
+            if (available == 0) {
+                return closed && h == tail.get() ? -1 : 0;
+            }
+            int count = Math.min(available, length);
+            if (count == 0) {
+                return 0;
+            }
+            int index = (int) (h & mask);
+            int first = Math.min(count, capacity - index);
+            buffer.get(index, dst, offset, first);
+            if (first < count) {
+                buffer.get(0, dst, offset + first, count - first);
+            }
+            if (head.compareAndSet(h, h + count)) {
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Moves up to {@code dst.remaining()} buffered bytes into {@code dst}, waiting up to the given time
+     * for data to become available.
+     *
+     * @param dst the buffer receiving the data
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout
+     * @return the number of bytes read, {@code 0} if the timeout elapsed, or {@code -1} if the buffer is
+     *         closed and drained
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public int read(ByteBuffer dst, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int result;
+        while ((result = read(dst)) == 0 && dst.hasRemaining()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                break;
+            }
+            LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of bytes currently buffered.
+     *
+     * @return the number of buffered bytes
+     */
+    public int available() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Returns the capacity of the ring buffer.
+     *
+     * @return the capacity in bytes
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the overflow policy of the ring buffer.
+     *
+     * @return the overflow policy
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Returns the total number of bytes dropped because of overflows since the buffer was created.
+     *
+     * @return the number of dropped bytes
+     */
+    public long getDroppedBytes() {
+        return droppedBytes;
+    }
+
+    /**
+     * Returns the highest number of bytes ever buffered at once, which indicates how close the
+     * consumer came to an overflow.
+     *
+     * @return the high-water mark in bytes
+     */
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * Returns whether the ring buffer was closed.
+     *
+     * @return {@code true} if the buffer is closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the ring buffer. Further offered data is dropped, a blocked producer is released and the
+     * consumer can still drain the buffered data before {@code read} returns {@code -1}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private boolean offerDropNewest(ByteBuffer src, int length) {
+        long t = tail.get();
+        if (capacity - (t - head.get()) < length) {
+            droppedBytes += length;
+            src.position(src.limit());
+            return false;
+        }
+        write(src, t, length);
+        return true;
+    }
+
+    private boolean offerDropOldest(ByteBuffer src, int length) {
+        boolean complete = true;
+        if (length > capacity) {
+            droppedBytes += length - capacity;
+            src.position(src.position() + length - capacity);
+            length = capacity;
+            complete = false;
+        }
+        long t = tail.get();
+        while (true) {
+            long h = head.get();
+            long free = capacity - (t - h);
+            if (free >= length) {
+                break;
+            }
+            long next = h + (length - free);
+            if (head.compareAndSet(h, next)) {
+                droppedBytes += next - h;
+                complete = false;
+                break;
+            }
+        }
+        write(src, t, length);
+        return complete;
+    }
+
+    private boolean offerBlocking(ByteBuffer src, int length) {
+        while (length > 0) {
+            long t = tail.get();
+            int free;
+            while ((free = (int) (capacity - (t - head.get()))) == 0) {
+                if (closed) {
+                    droppedBytes += length;
+                    src.position(src.limit());
+                    return false;
+                }
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            int chunk = Math.min(free, length);
+            write(src, t, chunk);
+            length -= chunk;
+        }
+        return true;
+    }
+
+    private void write(ByteBuffer src, long t, int length) {
+        int index = (int) (t & mask);
+        int first = Math.min(length, capacity - index);
+        int position = src.position();
+        buffer.put(index, src, position, first);
+        if (first < length) {
+            buffer.put(0, src, position + first, length - first);
+        }
+        src.position(position + length);
+        tail.lazySet(t + length);
+        long used = t + length - head.get();
+        if (used > highWaterMark) {
+            highWaterMark = used;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.suricatedevlab.jsdr;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code StreamHandle} class controls an asynchronous read running on another thread, as returned by
+ * {@link TunerSample#start(TunerSample.ReadAsyncDirectCallback, int, int, Executor)}.
+ *
+ * <p>{@link #stop()} cancels the read through {@link TunerSample#cancelAsync()} and returns immediately;
+ * {@link #awaitTermination(long, TimeUnit)} waits for the read to return. A cancellation may reach the driver just
+ * before the read actually starts, in which case the driver ignores it: the handle then cancels again when the
+ * first transfer arrives and while waiting for termination, so a stop is never lost.</p>
+ *
+ * <p>{@link #restart()} stops the read, waits for it and starts it again with the same callback and buffers, which
+ * is how settings only taken into account when a stream starts, such as the sample rate of some drivers, are
+ * applied without closing and reopening the device.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ * StreamHandle handle = tunerSample.start(ring, 0, 0);
+ * ...
+ * definition.setSampleRate(1_024_000);
+ * handle.restart();
+ * ...
+ * handle.stop();
+ * handle.awaitTermination(1, TimeUnit.SECONDS);
+ * </pre>
+ *
+ * <h2>Thread Safety</h2>
+ * All the methods can be called from any thread, including {@link #stop()} from the callback itself.
+ *
+ * @see TunerSample#start(TunerSample.ReadAsyncDirectCallback, int, int, Executor)
+ */
+public final class StreamHandle {
+
+    // Period of the cancellations repeated while waiting, for reads started after the first one
+    private static final long CANCEL_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    private static final Executor DEFAULT_EXECUTOR = command -> {
+        Thread thread = new Thread(command, "jsdr-stream-" + COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+    };
+
+    private final TunerSample sample;
+    private final TunerSample.ReadAsyncDirectCallback callback;
+    private final int bufferNumber;
+    private final int bufferSize;
+    private final Executor executor;
+    // Run by the stream thread every time a read returns, once the handle reports it terminated
+    Runnable terminationAction;
+    private volatile Run run;
+
+    StreamHandle(TunerSample sample, TunerSample.ReadAsyncDirectCallback callback, int bufferNumber, int bufferSize,
+                 Executor executor) {
+        this.sample = sample;
+        this.callback = callback;
+        this.bufferNumber = bufferNumber;
+        this.bufferSize = bufferSize;
+        this.executor = executor != null ? executor : DEFAULT_EXECUTOR;
+    }
+
+    synchronized void launch() {
+        Run next = new Run();
+        run = next;
+        try {
+            executor.execute(next);
+        }
+        catch (RuntimeException e) {
+            next.failure = e;
+            next.done.countDown();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the tuner the stream reads from.
+     *
+     * @return the tuner sample
+     */
+    public TunerSample getTunerSample() {
+        return sample;
+    }
+
+    /**
+     * Returns whether the read is running, that is started and not returned yet.
+     *
+     * @return {@code true} while the read runs
+     */
+    public boolean isRunning() {
+        return run.done.getCount() != 0;
+    }
+
+    /**
+     * Returns the error which ended the last read: the exception of the driver or of the callback.
+     *
+     * @return the error, {@code null} if the read is running, was stopped or ended normally
+     */
+    public Throwable getFailure() {
+        return run.failure;
+    }
+
+    /**
+     * Cancels the read, without waiting for it to return. Transfers received after this call are not delivered to
+     * the callback. Stopping a stream already stopped has no effect.
+     *
+     * @throws SdrException if the driver fails to cancel the read
+     */
+    public void stop() throws SdrException {
+        Run current = run;
+        current.stopped = true;
+        if (current.done.getCount() != 0) {
+            sample.cancelAsync();
+        }
+    }
+
+    /**
+     * Waits for the read to return, after a {@link #stop()} or at the end of the stream.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return {@code true} if the read returned, {@code false} if the timeout elapsed first
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        Run current = run;
+        long remaining = unit.toNanos(timeout);
+        while (remaining > 0) {
+            long start = System.nanoTime();
+            if (current.done.await(Math.min(remaining, CANCEL_RETRY_NANOS), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+            if (current.stopped) {
+                current.cancel();
+            }
+            remaining -= System.nanoTime() - start;
+        }
+        return current.done.getCount() == 0;
+    }
+
+    /**
+     * Stops the read, waits for it to return and starts it again with the same callback, buffers and executor.
+     *
+     * @throws SdrException if the driver fails to cancel the read
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the read to return
+     * @throws java.util.concurrent.RejectedExecutionException if the executor rejects the new read
+     */
+    public synchronized void restart() throws SdrException, InterruptedException {
+        stop();
+        awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        launch();
+    }
+
+    @Override
+    public String toString() {
+        return "StreamHandle{" +
+                "sample=" + sample +
+                ", running=" + isRunning() +
+                ", failure=" + getFailure() +
+                '}';
+    }
+
+    // One read of the stream, a restart replacing it with a new one
+    private final class Run implements Runnable, TunerSample.ReadAsyncDirectCallback {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean stopped;
+        private volatile Throwable failure;
+
+        @Override
+        public void run() {
+            try {
+                if (!stopped) {
+                    sample.readAsyncDirect(this, bufferNumber, bufferSize);
+                }
+            }
+            catch (Throwable t) {
+                if (failure == null && !stopped) {
+                    failure = t;
+                }
+            }
+            finally {
+                done.countDown();
+                if (terminationAction != null) {
+                    terminationAction.run();
+                }
+            }
+        }
+
+        @Override
+        public void onReceive(ByteBuffer data) {
+            if (stopped || failure != null) {
+                // Cancelled before the read started, or failed, cancel again now that it runs
+                cancel();
+                return;
+            }
+            try {
+                callback.onReceive(data);
+            }
+            catch (Throwable t) {
+                failure = t;
+                cancel();
+            }
+        }
+
+        void cancel() {
+            try {
+                sample.cancelAsync();
+            }
+            catch (SdrException | RuntimeException e) {
+                Throwable current = failure;
+                if (current != null && current != e) {
+                    current.addSuppressed(e);
+                }
+                else if (current == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+}
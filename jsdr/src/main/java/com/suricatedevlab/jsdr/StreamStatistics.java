@@ -0,0 +1,70 @@
+package com.suricatedevlab.jsdr;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Snapshot of the metrics of a sample stream, as returned by {@link TunerSample#getStatistics()}.
+ *
+ * <p>A transfer is one delivery of samples: an asynchronous callback, or one synchronous read. Rates are measured
+ * over the last second of streaming. The transfer duration histogram has {@value #HISTOGRAM_BUCKETS} buckets:
+ * bucket {@code 0} counts transfers handled in less than 2 µs and bucket {@code i} those handled in
+ * {@code [2^i, 2^(i+1)[} µs, the last bucket also counting longer transfers.</p>
+ *
+ * @param bytes the number of bytes delivered since the stream started
+ * @param transfers the number of transfers since the stream started
+ * @param bytesPerSecond the number of bytes delivered per second
+ * @param transfersPerSecond the number of transfers per second
+ * @param transferDurationHistogram the number of transfers per duration bucket
+ * @param maxTransferNanos the longest transfer handling, in nanoseconds
+ * @param jitterNanos the smoothed deviation of the time between transfers, in nanoseconds
+ * @param droppedSamples the number of samples lost by the stream; estimated from the sample rate when the driver
+ *                       does not report losses
+ * @param nativeCalls the latency of the native library calls, by function name
+ */
+public record StreamStatistics(long bytes,
+                               long transfers,
+                               double bytesPerSecond,
+                               double transfersPerSecond,
+                               long[] transferDurationHistogram,
+                               long maxTransferNanos,
+                               long jitterNanos,
+                               long droppedSamples,
+                               Map<String, NativeCallStatistics> nativeCalls) {
+
+    /**
+     * Number of buckets of the transfer duration histogram.
+     */
+    public static final int HISTOGRAM_BUCKETS = 24;
+
+    /**
+     * Statistics of a stream that did not deliver anything, or of a driver without metrics.
+     */
+    public static final StreamStatistics EMPTY = new StreamStatistics(0, 0, 0, 0, new long[HISTOGRAM_BUCKETS],
+            0, 0, 0, Map.of());
+
+    public StreamStatistics {
+        transferDurationHistogram = transferDurationHistogram.clone();
+        nativeCalls = Map.copyOf(nativeCalls);
+    }
+
+    @Override
+    public long[] transferDurationHistogram() {
+        return transferDurationHistogram.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "StreamStatistics{" +
+                "bytes=" + bytes +
+                ", transfers=" + transfers +
+                ", bytesPerSecond=" + bytesPerSecond +
+                ", transfersPerSecond=" + transfersPerSecond +
+                ", transferDurationHistogram=" + Arrays.toString(transferDurationHistogram) +
+                ", maxTransferNanos=" + maxTransferNanos +
+                ", jitterNanos=" + jitterNanos +
+                ", droppedSamples=" + droppedSamples +
+                ", nativeCalls=" + nativeCalls +
+                '}';
+    }
+}
@@ -0,0 +1,356 @@
+package com.suricatedevlab.jsdr;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of tuner settings, applied at once through {@link TunerDefinition#apply(TunerConfiguration)}.
+ *
+ * <p>Every setting is optional: a setting left unset keeps its current value on the tuner, so a configuration can
+ * hold a whole setup or only the few settings of a retune. {@link #toBuilder()} derives a configuration from
+ * another one, for instance to retune a saved setup:</p>
+ *
+ * <pre>{@code
+ * TunerConfiguration setup = TunerConfiguration.builder()
+ *         .sampleRate(2_048_000)
+ *         .tunerGainMode(false)
+ *         .tunerGain(297)
+ *         .centerFrequency(1_090_000_000L)
+ *         .build();
+ * definition.apply(setup);
+ * definition.apply(setup.toBuilder().centerFrequency(978_000_000L).build());
+ * }</pre>
+ *
+ * <p>Instances are immutable and can be shared between threads and devices.</p>
+ *
+ * @see TunerDefinition#apply(TunerConfiguration)
+ */
+public final class TunerConfiguration {
+
+    private final Integer correctionFrequency;
+    private final Long centerFrequency;
+    private final Integer sampleRate;
+    private final Integer bandwidth;
+    private final Boolean tunerGainMode;
+    private final Integer tunerGain;
+    private final Map<Integer, Integer> tunerIfGains;
+    private final Boolean automaticGainControl;
+    private final Boolean directSampling;
+    private final TunerDefinition.CrystalFrequency crystalFrequency;
+    private final Boolean biasTee;
+    private final Map<String, Object> extraProperties;
+
+    private TunerConfiguration(Builder builder) {
+        this.correctionFrequency = builder.correctionFrequency;
+        this.centerFrequency = builder.centerFrequency;
+        this.sampleRate = builder.sampleRate;
+        this.bandwidth = builder.bandwidth;
+        this.tunerGainMode = builder.tunerGainMode;
+        this.tunerGain = builder.tunerGain;
+        this.tunerIfGains = Collections.unmodifiableMap(new LinkedHashMap<>(builder.tunerIfGains));
+        this.automaticGainControl = builder.automaticGainControl;
+        this.directSampling = builder.directSampling;
+        this.crystalFrequency = builder.crystalFrequency;
+        this.biasTee = builder.biasTee;
+        this.extraProperties = Collections.unmodifiableMap(new LinkedHashMap<>(builder.extraProperties));
+    }
+
+    /**
+     * Creates a builder of a configuration without any setting.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a builder initialized with the settings of this configuration.
+     *
+     * @return a new builder
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.correctionFrequency = correctionFrequency;
+        builder.centerFrequency = centerFrequency;
+        builder.sampleRate = sampleRate;
+        builder.bandwidth = bandwidth;
+        builder.tunerGainMode = tunerGainMode;
+        builder.tunerGain = tunerGain;
+        builder.tunerIfGains.putAll(tunerIfGains);
+        builder.automaticGainControl = automaticGainControl;
+        builder.directSampling = directSampling;
+        builder.crystalFrequency = crystalFrequency;
+        builder.biasTee = biasTee;
+        builder.extraProperties.putAll(extraProperties);
+        return builder;
+    }
+
+    /**
+     * @return the correction frequency in PPM, or {@code null} to leave it unchanged
+     */
+    public Integer getCorrectionFrequency() {
+        return correctionFrequency;
+    }
+
+    /**
+     * @return the center frequency in Hz, or {@code null} to leave it unchanged
+     */
+    public Long getCenterFrequency() {
+        return centerFrequency;
+    }
+
+    /**
+     * @return the sample rate in samples per second, or {@code null} to leave it unchanged
+     */
+    public Integer getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return the tuner bandwidth in Hz, {@code 0} for automatic, or {@code null} to leave it unchanged
+     */
+    public Integer getBandwidth() {
+        return bandwidth;
+    }
+
+    /**
+     * @return {@code true} for automatic tuner gain, {@code false} for manual, or {@code null} to leave it unchanged
+     */
+    public Boolean getTunerGainMode() {
+        return tunerGainMode;
+    }
+
+    /**
+     * @return the manual tuner gain, or {@code null} to leave it unchanged
+     */
+    public Integer getTunerGain() {
+        return tunerGain;
+    }
+
+    /**
+     * @return the intermediate frequency gains by stage, in the order they are applied
+     */
+    public Map<Integer, Integer> getTunerIfGains() {
+        return tunerIfGains;
+    }
+
+    /**
+     * @return whether the automatic gain control is enabled, or {@code null} to leave it unchanged
+     */
+    public Boolean getAutomaticGainControl() {
+        return automaticGainControl;
+    }
+
+    /**
+     * @return whether direct sampling is enabled, or {@code null} to leave it unchanged
+     */
+    public Boolean getDirectSampling() {
+        return directSampling;
+    }
+
+    /**
+     * @return the crystal frequencies, or {@code null} to leave them unchanged
+     */
+    public TunerDefinition.CrystalFrequency getCrystalFrequency() {
+        return crystalFrequency;
+    }
+
+    /**
+     * @return whether the bias tee is powered, or {@code null} to leave it unchanged
+     */
+    public Boolean getBiasTee() {
+        return biasTee;
+    }
+
+    /**
+     * @return the device specific properties, see {@link TunerDefinition#setExtraProperties(Map)}
+     */
+    public Map<String, Object> getExtraProperties() {
+        return extraProperties;
+    }
+
+    @Override
+    public String toString() {
+        return "TunerConfiguration{" +
+                "correctionFrequency=" + correctionFrequency +
+                ", centerFrequency=" + centerFrequency +
+                ", sampleRate=" + sampleRate +
+                ", bandwidth=" + bandwidth +
+                ", tunerGainMode=" + tunerGainMode +
+                ", tunerGain=" + tunerGain +
+                ", tunerIfGains=" + tunerIfGains +
+                ", automaticGainControl=" + automaticGainControl +
+                ", directSampling=" + directSampling +
+                ", crystalFrequency=" + crystalFrequency +
+                ", biasTee=" + biasTee +
+                ", extraProperties=" + extraProperties +
+                '}';
+    }
+
+    /**
+     * Builder of {@link TunerConfiguration} instances.
+     */
+    public static final class Builder {
+
+        private Integer correctionFrequency;
+        private Long centerFrequency;
+        private Integer sampleRate;
+        private Integer bandwidth;
+        private Boolean tunerGainMode;
+        private Integer tunerGain;
+        private final Map<Integer, Integer> tunerIfGains = new LinkedHashMap<>();
+        private Boolean automaticGainControl;
+        private Boolean directSampling;
+        private TunerDefinition.CrystalFrequency crystalFrequency;
+        private Boolean biasTee;
+        private final Map<String, Object> extraProperties = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @param correctionFrequency the correction frequency, in PPM
+         * @return this builder
+         */
+        public Builder correctionFrequency(int correctionFrequency) {
+            this.correctionFrequency = correctionFrequency;
+            return this;
+        }
+
+        /**
+         * @param centerFrequency the center frequency, in Hz
+         * @return this builder
+         * @throws IllegalArgumentException if the frequency is negative
+         */
+        public Builder centerFrequency(long centerFrequency) {
+            if (centerFrequency < 0) {
+                throw new IllegalArgumentException("centerFrequency < 0");
+            }
+            this.centerFrequency = centerFrequency;
+            return this;
+        }
+
+        /**
+         * @param sampleRate the sample rate, in samples per second
+         * @return this builder
+         * @throws IllegalArgumentException if the rate is less than or equal to 0
+         */
+        public Builder sampleRate(int sampleRate) {
+            if (sampleRate <= 0) {
+                throw new IllegalArgumentException("sampleRate <= 0");
+            }
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * @param bandwidth the tuner bandwidth in Hz, {@code 0} to follow the sample rate
+         * @return this builder
+         * @throws IllegalArgumentException if the bandwidth is negative
+         */
+        public Builder bandwidth(int bandwidth) {
+            if (bandwidth < 0) {
+                throw new IllegalArgumentException("bandwidth < 0");
+            }
+            this.bandwidth = bandwidth;
+            return this;
+        }
+
+        /**
+         * @param automatic {@code true} for automatic tuner gain, {@code false} for the manual gain
+         * @return this builder
+         */
+        public Builder tunerGainMode(boolean automatic) {
+            this.tunerGainMode = automatic;
+            return this;
+        }
+
+        /**
+         * Sets the manual tuner gain, which the tuner only uses in manual gain mode.
+         *
+         * @param gain one of the {@link TunerDefinition#getSupportedTunerGains() supported gains}
+         * @return this builder
+         */
+        public Builder tunerGain(int gain) {
+            this.tunerGain = gain;
+            return this;
+        }
+
+        /**
+         * Sets the gain of an intermediate frequency stage, stages being applied in the order they are added.
+         *
+         * @param stage the gain stage
+         * @param gain the gain of the stage
+         * @return this builder
+         */
+        public Builder tunerIfGain(int stage, int gain) {
+            tunerIfGains.put(stage, gain);
+            return this;
+        }
+
+        /**
+         * @param activate {@code true} to enable the automatic gain control
+         * @return this builder
+         */
+        public Builder automaticGainControl(boolean activate) {
+            this.automaticGainControl = activate;
+            return this;
+        }
+
+        /**
+         * @param activate {@code true} to enable direct sampling
+         * @return this builder
+         */
+        public Builder directSampling(boolean activate) {
+            this.directSampling = activate;
+            return this;
+        }
+
+        /**
+         * @param crystalFrequency the crystal frequencies
+         * @return this builder
+         * @throws IllegalArgumentException if the crystal frequency is {@code null}
+         */
+        public Builder crystalFrequency(TunerDefinition.CrystalFrequency crystalFrequency) {
+            if (crystalFrequency == null) {
+                throw new IllegalArgumentException("crystalFrequency is null");
+            }
+            this.crystalFrequency = crystalFrequency;
+            return this;
+        }
+
+        /**
+         * @param activate {@code true} to power the bias tee
+         * @return this builder
+         */
+        public Builder biasTee(boolean activate) {
+            this.biasTee = activate;
+            return this;
+        }
+
+        /**
+         * Adds a device specific property, see {@link TunerDefinition#setExtraProperties(Map)}.
+         *
+         * @param name the property name
+         * @param value the property value
+         * @return this builder
+         * @throws IllegalArgumentException if the name or the value is {@code null}
+         */
+        public Builder extraProperty(String name, Object value) {
+            if (name == null || value == null) {
+                throw new IllegalArgumentException("Property name or value is null");
+            }
+            extraProperties.put(name, value);
+            return this;
+        }
+
+        /**
+         * @return a configuration holding the settings of this builder
+         */
+        public TunerConfiguration build() {
+            return new TunerConfiguration(this);
+        }
+    }
+}
@@ -230,6 +230,62 @@ public interface TunerDefinition extends AutoCloseable {
      */
     void setExtraProperties(Map<String, Object> properties);
 
+    /**
+     * Applies the settings of a configuration, leaving the unset ones unchanged.
+     *
+     * <p>The settings are applied in an order where no setting undoes another one: the settings that reconfigure
+     * the tuner (direct sampling, crystal frequency, sample rate, bandwidth and extra properties) come first, then
+     * the frequency correction and the center frequency, so that the tuner is only retuned once, and last the
+     * gains, the manual gain mode being set before the gain.</p>
+     *
+     * <p>Implementations may skip the settings already in effect, so that applying a retune configuration only
+     * costs the settings that actually changed. When a setting fails, the settings applied before it are kept.</p>
+     *
+     * @param configuration the settings to apply
+     * @throws IllegalArgumentException if the configuration is {@code null} or holds an invalid setting
+     */
+    default void apply(TunerConfiguration configuration) {
+        if (configuration == null) {
+            throw new IllegalArgumentException("Configuration is null");
+        }
+        if (configuration.getDirectSampling() != null) {
+            setDirectSampling(configuration.getDirectSampling());
+        }
+        if (configuration.getCrystalFrequency() != null) {
+            setCrystalFrequency(configuration.getCrystalFrequency());
+        }
+        if (configuration.getSampleRate() != null) {
+            setSampleRate(configuration.getSampleRate());
+        }
+        if (configuration.getBandwidth() != null) {
+            setBandwidth(configuration.getBandwidth());
+        }
+        if (!configuration.getExtraProperties().isEmpty()) {
+            setExtraProperties(configuration.getExtraProperties());
+        }
+        if (configuration.getCorrectionFrequency() != null) {
+            setCorrectionFrequency(configuration.getCorrectionFrequency());
+        }
+        if (configuration.getCenterFrequency() != null) {
+            setCenterFrequency(configuration.getCenterFrequency());
+        }
+        if (configuration.getTunerGainMode() != null) {
+            setTunerGainMode(configuration.getTunerGainMode());
+        }
+        if (configuration.getTunerGain() != null) {
+            setTunerGain(configuration.getTunerGain());
+        }
+        for (Map.Entry<Integer, Integer> ifGain : configuration.getTunerIfGains().entrySet()) {
+            setTunerIfGain(ifGain.getKey(), ifGain.getValue());
+        }
+        if (configuration.getAutomaticGainControl() != null) {
+            setAutomaticGainControl(configuration.getAutomaticGainControl());
+        }
+        if (configuration.getBiasTee() != null) {
+            setBiasTee(configuration.getBiasTee());
+        }
+    }
+
     /**
      * Tunes the device to the specified parameters.
      *
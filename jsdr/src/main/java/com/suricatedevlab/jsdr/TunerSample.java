@@ -1,5 +1,9 @@
 package com.suricatedevlab.jsdr;
 
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
 /**
  * The {@code TunerSample} interface provides methods for asynchronously and synchronously
  * reading samples from an SDR (Software Defined Radio) tuner. It is used for accessing raw
@@ -13,6 +17,10 @@ package com.suricatedevlab.jsdr;
  *     <li><b>Blocking Synchronous Reading</b>: Reads a specific amount of data and blocks the caller until the data is available.</li>
  * </ul>
  *
+ * <p>{@link #start(ReadAsyncDirectCallback, int, int)} runs an asynchronous read on another thread and returns a
+ * {@link StreamHandle} stopping it, so that the calling thread is not blocked for the whole stream, and
+ * {@link #publish(BackpressurePolicy)} exposes the stream as a {@link java.util.concurrent.Flow.Publisher}.</p>
+ *
  * <h2>Implementation Requirements</h2>
  * Any class implementing this interface must provide concrete implementations for the
  * methods defined here and manage resources such as buffers and connections to the hardware
@@ -38,6 +46,27 @@ public interface TunerSample extends AutoCloseable {
         void onReceive(byte[] data);
     }
 
+    /**
+     * Callback interface for handling asynchronous read operations without copying the samples.
+     *
+     * <p>Implementers of this callback receive a read-only {@link ByteBuffer} that is a view over the
+     * transfer buffer owned by the driver (for native drivers, the USB transfer buffer itself). The view
+     * is only valid for the duration of {@link #onReceive(ByteBuffer)}: once the method returns, the driver
+     * reuses the underlying memory for the next transfer. Implementations that need the data afterwards
+     * must copy it before returning, and must not keep a reference to the buffer.</p>
+     *
+     * <p>The buffer position is {@code 0} and its limit is the number of bytes received. Implementations
+     * may freely change the position and limit; they are reset before every invocation.</p>
+     */
+    interface ReadAsyncDirectCallback {
+        /**
+         * This method is called when a chunk of data has been received asynchronously.
+         *
+         * @param data a read-only view over the received raw signal samples, valid only during this call
+         */
+        void onReceive(ByteBuffer data);
+    }
+
     /**
      * Initiates an asynchronous read operation. The provided callback will be called
      * when the requested data is available.
@@ -56,6 +85,102 @@ public interface TunerSample extends AutoCloseable {
      */
     void readAsync(ReadAsyncCallback callback, int bufferNumber, int bufferSize) throws SdrException;
 
+    /**
+     * Initiates an asynchronous read operation that delivers the samples without copying them.
+     *
+     * <p>This method behaves like {@link #readAsync(ReadAsyncCallback, int, int)}, but the callback receives
+     * a read-only {@link ByteBuffer} view over the driver transfer buffer instead of a freshly allocated
+     * byte array, so no memory is allocated or copied per transfer in the steady state. See
+     * {@link ReadAsyncDirectCallback} for the lifetime rules of the view.</p>
+     *
+     * <p>The default implementation wraps the byte arrays delivered by
+     * {@link #readAsync(ReadAsyncCallback, int, int)}; drivers are expected to override it with a
+     * zero-copy implementation.</p>
+     *
+     * @param callback the callback to be invoked when the data is available
+     * @param bufferNumber the number of the buffer where the data will be stored.
+     *        This parameter is used to specify which buffer to use for the data read operation.
+     * @param bufferSize the size of the buffer (in bytes) that will be used to store the data.
+     *        The buffer should be large enough to hold the expected amount of data.
+     * @throws IllegalArgumentException if the callback is {@code null}, or if the bufferSize is less than or equal to 0
+     * @throws SdrException if there is an error during the reading process (e.g., hardware failure, timeout)
+     */
+    default void readAsyncDirect(ReadAsyncDirectCallback callback, int bufferNumber, int bufferSize) throws SdrException {
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback is null");
+        }
+        readAsync(data -> callback.onReceive(ByteBuffer.wrap(data).asReadOnlyBuffer()), bufferNumber, bufferSize);
+    }
+
+    /**
+     * Stops the asynchronous read running on this tuner, which then returns normally. This method can be called from
+     * any thread, including from the callback of the read, and does not wait for the read to return.
+     *
+     * <p>Calling this method while no asynchronous read is running has no effect; in particular it does not prevent
+     * a read started afterwards. The default implementation throws an {@link SdrException}, for drivers whose reads
+     * can not be cancelled.</p>
+     *
+     * @throws SdrException if the read can not be cancelled
+     */
+    default void cancelAsync() throws SdrException {
+        throw new SdrException("Asynchronous reads of " + getClass().getSimpleName() + " can not be cancelled");
+    }
+
+    /**
+     * Starts an asynchronous read without copying on a new daemon thread, see
+     * {@link #start(ReadAsyncDirectCallback, int, int, Executor)}.
+     *
+     * @param callback the callback to be invoked when the data is available
+     * @param bufferNumber the number of transfer buffers, {@code 0} for the driver default
+     * @param bufferSize the size of a transfer buffer in bytes, {@code 0} for the driver default
+     * @return the handle of the stream
+     * @throws IllegalArgumentException if the callback is {@code null}
+     */
+    default StreamHandle start(ReadAsyncDirectCallback callback, int bufferNumber, int bufferSize) {
+        return start(callback, bufferNumber, bufferSize, null);
+    }
+
+    /**
+     * Starts an asynchronous read without copying, as done by
+     * {@link #readAsyncDirect(ReadAsyncDirectCallback, int, int)}, on a thread of the given executor, and returns
+     * immediately.
+     *
+     * <p>The returned {@link StreamHandle} stops the read through {@link #cancelAsync()}, waits for it to end and
+     * restarts it, for instance after a retune, without closing the device. An exception thrown by the callback
+     * stops the read and is reported by {@link StreamHandle#getFailure()}.</p>
+     *
+     * @param callback the callback to be invoked when the data is available
+     * @param bufferNumber the number of transfer buffers, {@code 0} for the driver default
+     * @param bufferSize the size of a transfer buffer in bytes, {@code 0} for the driver default
+     * @param executor the executor running the read, which occupies one of its threads until the read ends;
+     *                 {@code null} for a new daemon thread
+     * @return the handle of the stream
+     * @throws IllegalArgumentException if the callback is {@code null}
+     * @throws java.util.concurrent.RejectedExecutionException if the executor rejects the read
+     */
+    default StreamHandle start(ReadAsyncDirectCallback callback, int bufferNumber, int bufferSize, Executor executor) {
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback is null");
+        }
+        StreamHandle handle = new StreamHandle(this, callback, bufferNumber, bufferSize, executor);
+        handle.launch();
+        return handle;
+    }
+
+    /**
+     * Creates a publisher of the samples of this tuner as pooled blocks, with the default buffer of 16 blocks of
+     * 256 KiB. The stream starts when the first subscriber subscribes, and every subscriber shares the same blocks,
+     * see {@link SamplePublisher}.
+     *
+     * @param policy the handling of the blocks received without demand
+     * @return the publisher
+     * @throws IllegalArgumentException if the policy is {@code null}
+     * @see SamplePublisher#builder(TunerSample)
+     */
+    default SamplePublisher publish(BackpressurePolicy policy) {
+        return SamplePublisher.builder(this).policy(policy).build();
+    }
+
     /**
      * Reads data synchronously from the tuner.
      *
@@ -70,4 +195,74 @@ public interface TunerSample extends AutoCloseable {
      * @throws SdrException if there is an error during the reading process (e.g., hardware failure, timeout)
      */
     byte[] readSync(int bufferSize) throws SdrException;
+
+    /**
+     * Reads data synchronously from the tuner into a caller-owned buffer.
+     *
+     * <p>This method blocks until data is received and writes it into {@code dst}, starting at its current
+     * position and reading at most {@code dst.remaining()} bytes. The position of {@code dst} is advanced by
+     * the number of bytes read. No memory is allocated per call, so the method can be used in a tight read
+     * loop; direct buffers avoid any intermediate copy.</p>
+     *
+     * <p>The default implementation delegates to {@link #readSync(int)}; drivers are expected to override it
+     * with an allocation-free implementation.</p>
+     *
+     * @param dst the buffer receiving the raw samples
+     * @return the number of bytes actually read, which may be less than {@code dst.remaining()}
+     * @throws IllegalArgumentException if {@code dst} is {@code null}, read-only or has no remaining space
+     * @throws SdrException if there is an error during the reading process (e.g., hardware failure, timeout)
+     */
+    default int readSync(ByteBuffer dst) throws SdrException {
+        if (dst == null || dst.isReadOnly() || !dst.hasRemaining()) {
+            throw new IllegalArgumentException("Destination buffer is null, read-only or full");
+        }
+        byte[] data = readSync(dst.remaining());
+        if (data == null) {
+            return 0;
+        }
+        dst.put(data);
+        return data.length;
+    }
+
+    /**
+     * Reads data synchronously from the tuner into a caller-owned byte array.
+     *
+     * <p>This method blocks until data is received and writes at most {@code length} bytes into {@code dst},
+     * starting at {@code offset}. No memory is allocated per call, so the method can be used in a tight read
+     * loop.</p>
+     *
+     * <p>The default implementation delegates to {@link #readSync(int)}; drivers are expected to override it
+     * with an allocation-free implementation.</p>
+     *
+     * @param dst the array receiving the raw samples
+     * @param offset the index of the first byte to write in {@code dst}
+     * @param length the maximum number of bytes to read
+     * @return the number of bytes actually read, which may be less than {@code length}
+     * @throws IllegalArgumentException if {@code dst} is {@code null}, or if the length is less than or equal to zero
+     * @throws IndexOutOfBoundsException if {@code offset} and {@code length} do not describe a range of {@code dst}
+     * @throws SdrException if there is an error during the reading process (e.g., hardware failure, timeout)
+     */
+    default int readSync(byte[] dst, int offset, int length) throws SdrException {
+        if (dst == null || length <= 0) {
+            throw new IllegalArgumentException("Destination array is null or length <= 0");
+        }
+        Objects.checkFromIndexSize(offset, length, dst.length);
+        byte[] data = readSync(length);
+        if (data == null) {
+            return 0;
+        }
+        System.arraycopy(data, 0, dst, offset, data.length);
+        return data.length;
+    }
+
+    /**
+     * Returns the metrics of the stream of this tuner.
+     *
+     * <p>The default implementation returns {@link StreamStatistics#EMPTY}, for drivers without metrics.</p>
+     *
+     * @return a snapshot of the stream metrics
+     */
+    default StreamStatistics getStatistics() {
+        return StreamStatistics.EMPTY;
+    }
 }
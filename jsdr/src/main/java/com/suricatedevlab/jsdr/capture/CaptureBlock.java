@@ -0,0 +1,104 @@
+package com.suricatedevlab.jsdr.capture;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code CaptureBlock} class is one transfer of samples delivered by a {@link CaptureCoordinator}, tagged with
+ * the device it comes from and its position in the stream of that device.
+ *
+ * <p>Each device reuses a single block for all its transfers, so that nothing is allocated per transfer: a block
+ * and its {@link #getData() data} are only valid during {@link CaptureCoordinator.BlockListener#onBlock(CaptureBlock)}.
+ * Listeners that need the samples afterwards must copy them before returning.</p>
+ *
+ * @see CaptureCoordinator
+ */
+public final class CaptureBlock {
+
+    private final int deviceIndex;
+    private final String serial;
+    private long sequence;
+    private long firstSample;
+    private long timestampNanos;
+    private ByteBuffer data;
+
+    CaptureBlock(int deviceIndex, String serial) {
+        this.deviceIndex = deviceIndex;
+        this.serial = serial;
+    }
+
+    void set(long sequence, long firstSample, long timestampNanos, ByteBuffer data) {
+        this.sequence = sequence;
+        this.firstSample = firstSample;
+        this.timestampNanos = timestampNanos;
+        this.data = data;
+    }
+
+    /**
+     * Returns the index of the device, as given by {@link com.suricatedevlab.jsdr.Device#getIndex()}.
+     *
+     * @return the device index
+     */
+    public int getDeviceIndex() {
+        return deviceIndex;
+    }
+
+    /**
+     * Returns the serial number of the device, which unlike its index does not change when devices are plugged or
+     * unplugged.
+     *
+     * @return the device serial number
+     */
+    public String getSerial() {
+        return serial;
+    }
+
+    /**
+     * Returns the number of the transfer in the stream of the device, from {@code 0}.
+     *
+     * @return the transfer sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the number of complex samples the device delivered before this block, which is the index of the
+     * first sample of the block in the stream of the device.
+     *
+     * @return the sample counter of the first sample
+     */
+    public long getFirstSample() {
+        return firstSample;
+    }
+
+    /**
+     * Returns the time the transfer was received, in the time base of {@link System#nanoTime()}.
+     *
+     * @return the reception time, in nanoseconds
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * Returns a read-only view over the interleaved unsigned 8-bit I/Q samples of the transfer, with its position
+     * at {@code 0} and its limit at the number of bytes received.
+     *
+     * @return the raw samples, valid only during the listener call
+     */
+    public ByteBuffer getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return "CaptureBlock{" +
+                "deviceIndex=" + deviceIndex +
+                ", serial='" + serial + '\'' +
+                ", sequence=" + sequence +
+                ", firstSample=" + firstSample +
+                ", timestampNanos=" + timestampNanos +
+                ", bytes=" + (data != null ? data.remaining() : 0) +
+                '}';
+    }
+}
@@ -0,0 +1,500 @@
+package com.suricatedevlab.jsdr.capture;
+
+import com.suricatedevlab.jsdr.Device;
+import com.suricatedevlab.jsdr.Driver;
+import com.suricatedevlab.jsdr.SdrException;
+import com.suricatedevlab.jsdr.StreamHandle;
+import com.suricatedevlab.jsdr.TunerConfiguration;
+import com.suricatedevlab.jsdr.TunerDefinition;
+import com.suricatedevlab.jsdr.TunerSample;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code CaptureCoordinator} class streams many devices of a driver at once, each on its own thread, and merges
+ * their transfers into a single listener.
+ *
+ * <p>The coordinator opens the devices, applies a {@link TunerConfiguration} to each of them and tunes them when it
+ * is built. {@link #start()} then starts every stream together: the stream threads are created first and wait on a
+ * common gate, which is only opened once all of them are ready, so that the devices start within a thread
+ * wake-up of each other rather than one device open apart.</p>
+ *
+ * <p>Every transfer is delivered as a {@link CaptureBlock} tagged with the index and serial number of its device,
+ * a transfer sequence number and the index of its first sample in the stream of the device. The devices share
+ * nothing on the delivery path, neither lock nor queue, so the throughput grows with the number of devices until
+ * the USB bus is saturated. {@link #getHealth()} reports the state and the rate of every device.</p>
+ *
+ * <p>Each stream runs through a {@link StreamHandle}: {@link #stop()} cancels the reads and leaves the devices
+ * open, so that the capture can be retuned and {@link #start() started} again; {@link #close()} releases them.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ * try (CaptureCoordinator capture = CaptureCoordinator.builder(DriverManager.getDriver("RTL-SDR"))
+ *         .configuration(TunerConfiguration.builder().sampleRate(2_400_000).centerFrequency(1_090_000_000L).build())
+ *         .build(block -&gt; decoders[block.getDeviceIndex()].process(block.getData()))) {
+ *     capture.start();
+ *     capture.awaitTermination(1, TimeUnit.HOURS);
+ * }
+ * </pre>
+ *
+ * <h2>Thread Safety</h2>
+ * The listener is called concurrently by the stream threads of the devices, blocks of one device being delivered
+ * in order by the same thread; it must be thread-safe and return quickly, since a slow listener stalls the device
+ * it is called for. The methods of the coordinator can be called from any thread.
+ *
+ * @see CaptureBlock
+ * @see DeviceHealth
+ */
+public final class CaptureCoordinator implements AutoCloseable {
+
+    /**
+     * Receives the merged transfers of all the devices.
+     */
+    public interface BlockListener {
+
+        /**
+         * Called by the stream thread of a device every time it receives a transfer.
+         *
+         * @param block the transfer, only valid during the call
+         */
+        void onBlock(CaptureBlock block);
+    }
+
+    private final List<Channel> channels;
+    private final BlockListener listener;
+    private final ThreadFactory threadFactory;
+    private final int bufferNumber;
+    private final int bufferSize;
+    private volatile long startNanos;
+    private volatile boolean stopped;
+
+    private CaptureCoordinator(Builder builder, List<Channel> channels, BlockListener listener) {
+        this.channels = channels;
+        this.listener = listener;
+        this.threadFactory = builder.threadFactory != null ? builder.threadFactory : new CaptureThreadFactory();
+        this.bufferNumber = builder.bufferNumber;
+        this.bufferSize = builder.bufferSize;
+    }
+
+    /**
+     * Starts building a coordinator of the devices of a driver.
+     *
+     * @param driver the driver of the devices
+     * @return a coordinator builder
+     * @throws IllegalArgumentException if the driver is {@code null}
+     */
+    public static Builder builder(Driver driver) {
+        if (driver == null) {
+            throw new IllegalArgumentException("Driver is null");
+        }
+        return new Builder(driver);
+    }
+
+    /**
+     * Returns the number of devices of the capture.
+     *
+     * @return the number of devices
+     */
+    public int getDeviceCount() {
+        return channels.size();
+    }
+
+    /**
+     * Returns the tuner of a device of the capture, for instance to retune it while streaming.
+     *
+     * @param position the position of the device in the capture, in {@code [0, deviceCount[}
+     * @return the tuner definition of the device
+     */
+    public TunerDefinition getTunerDefinition(int position) {
+        return channels.get(position).definition;
+    }
+
+    /**
+     * Starts the streams of all the devices together, and returns once they are all started.
+     *
+     * @throws IllegalStateException if a stream of the capture is still running
+     * @throws InterruptedException if the calling thread is interrupted while the stream threads get ready
+     */
+    public synchronized void start() throws InterruptedException {
+        for (Channel channel : channels) {
+            if (channel.handle != null && channel.handle.isRunning()) {
+                throw new IllegalStateException("Capture already started");
+            }
+        }
+        stopped = false;
+        CountDownLatch ready = new CountDownLatch(channels.size());
+        CountDownLatch gate = new CountDownLatch(1);
+        // Every stream thread waits at the gate before starting its read
+        Executor gated = command -> threadFactory.newThread(() -> {
+            ready.countDown();
+            try {
+                gate.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            command.run();
+        }).start();
+        try {
+            for (Channel channel : channels) {
+                channel.start(gated);
+            }
+            ready.await();
+        }
+        finally {
+            startNanos = System.nanoTime();
+            gate.countDown();
+        }
+    }
+
+    /**
+     * Cancels the streams of all the devices, without waiting for them to end. Blocks received after this call are
+     * not delivered. The devices stay open, so the capture can be started again.
+     *
+     * @throws SdrException if a stream can not be cancelled
+     */
+    public void stop() throws SdrException {
+        stopped = true;
+        SdrException failure = null;
+        for (Channel channel : channels) {
+            try {
+                channel.stop();
+            }
+            catch (SdrException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+                else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Waits until the streams of all the devices have ended, either stopped or failed.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return {@code true} if all the streams ended, {@code false} if the timeout elapsed first
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        for (Channel channel : channels) {
+            StreamHandle handle = channel.handle;
+            if (handle == null) {
+                continue;
+            }
+            long start = System.nanoTime();
+            if (!handle.awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+            remaining -= System.nanoTime() - start;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the state of every device of the capture, in the order of the devices.
+     *
+     * @return a snapshot of the health of each device
+     */
+    public List<DeviceHealth> getHealth() {
+        long now = System.nanoTime();
+        List<DeviceHealth> result = new ArrayList<>(channels.size());
+        for (Channel channel : channels) {
+            result.add(channel.getHealth(now));
+        }
+        return result;
+    }
+
+    /**
+     * Stops the capture, waits up to 5 seconds for the streams to end and closes the devices.
+     *
+     * @throws Exception if a device can not be closed
+     */
+    @Override
+    public void close() throws Exception {
+        Exception failure = null;
+        try {
+            stop();
+            if (!awaitTermination(5, TimeUnit.SECONDS)) {
+                failure = new SdrException("Streams still running after 5 seconds");
+            }
+        }
+        catch (SdrException e) {
+            failure = e;
+        }
+        for (Channel channel : channels) {
+            try {
+                channel.sample.close();
+            }
+            catch (Exception e) {
+                if (failure == null) {
+                    failure = e;
+                }
+                else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Builder of {@link CaptureCoordinator} instances.
+     */
+    public static final class Builder {
+
+        private final Driver driver;
+        private int[] deviceIndexes;
+        private TunerConfiguration configuration;
+        private final Map<Integer, TunerConfiguration> deviceConfigurations = new HashMap<>();
+        private int bufferNumber;
+        private int bufferSize;
+        private ThreadFactory threadFactory;
+
+        private Builder(Driver driver) {
+            this.driver = driver;
+        }
+
+        /**
+         * Selects the devices to capture, all the devices of the driver by default.
+         *
+         * @param deviceIndexes the indexes of the devices
+         * @return this builder
+         * @throws IllegalArgumentException if no index is given
+         */
+        public Builder devices(int... deviceIndexes) {
+            if (deviceIndexes == null || deviceIndexes.length == 0) {
+                throw new IllegalArgumentException("No device index");
+            }
+            this.deviceIndexes = deviceIndexes.clone();
+            return this;
+        }
+
+        /**
+         * Sets the configuration applied to every device, unless overridden for the device.
+         *
+         * @param configuration the tuner configuration
+         * @return this builder
+         */
+        public Builder configuration(TunerConfiguration configuration) {
+            this.configuration = configuration;
+            return this;
+        }
+
+        /**
+         * Sets the configuration applied to one device instead of the common one.
+         *
+         * @param deviceIndex the index of the device
+         * @param configuration the tuner configuration of the device
+         * @return this builder
+         * @throws IllegalArgumentException if the configuration is {@code null}
+         */
+        public Builder configuration(int deviceIndex, TunerConfiguration configuration) {
+            if (configuration == null) {
+                throw new IllegalArgumentException("Configuration is null");
+            }
+            deviceConfigurations.put(deviceIndex, configuration);
+            return this;
+        }
+
+        /**
+         * Sets the number and the size of the transfer buffers of every stream, the driver defaults by default.
+         *
+         * @param bufferNumber the number of buffers, {@code 0} for the driver default
+         * @param bufferSize the size of a buffer in bytes, {@code 0} for the driver default
+         * @return this builder
+         * @throws IllegalArgumentException if a value is negative
+         */
+        public Builder buffers(int bufferNumber, int bufferSize) {
+            if (bufferNumber < 0 || bufferSize < 0) {
+                throw new IllegalArgumentException("buffer number or buffer size < 0");
+            }
+            this.bufferNumber = bufferNumber;
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Sets the factory of the stream threads, one per device, daemon threads named {@code jsdr-capture-N} by
+         * default. On JDK 21 and later {@code Thread.ofVirtual().factory()} runs the streams on virtual threads;
+         * native drivers block in native code for the whole stream though, which pins the carrier thread.
+         *
+         * @param threadFactory the thread factory
+         * @return this builder
+         */
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * Opens, configures and tunes the devices. If a device fails, the devices already opened are closed.
+         *
+         * @param listener the listener receiving the blocks of all the devices
+         * @return the coordinator, ready to {@link #start()}
+         * @throws IllegalArgumentException if the listener is {@code null}
+         * @throws SdrException if the driver has no device, or a device can not be opened or configured
+         */
+        public CaptureCoordinator build(BlockListener listener) throws SdrException {
+            if (listener == null) {
+                throw new IllegalArgumentException("Listener is null");
+            }
+            List<Device> devices = new ArrayList<>();
+            List<Channel> channels = new ArrayList<>();
+            try {
+                if (deviceIndexes == null) {
+                    for (Iterator<Device> it = driver.getDevices().asIterator(); it.hasNext(); ) {
+                        devices.add(it.next());
+                    }
+                }
+                else {
+                    for (int index : deviceIndexes) {
+                        Device device = driver.getDevice(index);
+                        if (device == null) {
+                            throw new SdrException("No device at index " + index);
+                        }
+                        devices.add(device);
+                    }
+                }
+                if (devices.isEmpty()) {
+                    throw new SdrException("No device to capture");
+                }
+                for (Device device : devices) {
+                    TunerDefinition definition = device.getTunerDefinition();
+                    TunerConfiguration deviceConfiguration =
+                            deviceConfigurations.getOrDefault(device.getIndex(), configuration);
+                    if (deviceConfiguration != null) {
+                        definition.apply(deviceConfiguration);
+                    }
+                    channels.add(new Channel(device, definition, definition.tune()));
+                }
+            }
+            catch (SdrException | RuntimeException e) {
+                for (Device device : devices) {
+                    try {
+                        device.close();
+                    }
+                    catch (Exception suppressed) {
+                        e.addSuppressed(suppressed);
+                    }
+                }
+                throw e;
+            }
+            CaptureCoordinator coordinator = new CaptureCoordinator(this, Collections.unmodifiableList(channels),
+                    listener);
+            for (Channel channel : channels) {
+                channel.coordinator = coordinator;
+            }
+            return coordinator;
+        }
+    }
+
+    // The stream of one device, the counters being written by its stream thread only
+    private static final class Channel implements TunerSample.ReadAsyncDirectCallback {
+
+        private final Device device;
+        private final TunerDefinition definition;
+        private final TunerSample sample;
+        private final CaptureBlock block;
+        private CaptureCoordinator coordinator;
+        private volatile StreamHandle handle;
+        private volatile long blocks;
+        private volatile long bytes;
+        private volatile long lastBlockNanos;
+
+        Channel(Device device, TunerDefinition definition, TunerSample sample) {
+            this.device = device;
+            this.definition = definition;
+            this.sample = sample;
+            this.block = new CaptureBlock(device.getIndex(), device.getSerial());
+        }
+
+        void start(Executor executor) {
+            lastBlockNanos = 0;
+            handle = sample.start(this, coordinator.bufferNumber, coordinator.bufferSize, executor);
+        }
+
+        void stop() throws SdrException {
+            StreamHandle current = handle;
+            if (current != null) {
+                current.stop();
+            }
+        }
+
+        @Override
+        public void onReceive(ByteBuffer data) {
+            if (coordinator.stopped) {
+                return;
+            }
+            long now = System.nanoTime();
+            long delivered = bytes;
+            block.set(blocks, delivered >> 1, now, data);
+            // A listener exception is caught by the handle, which ends the stream
+            coordinator.listener.onBlock(block);
+            lastBlockNanos = now;
+            bytes = delivered + data.limit();
+            blocks++;
+        }
+
+        DeviceHealth getHealth(long now) {
+            StreamHandle current = handle;
+            long start = coordinator.startNanos;
+            long last = lastBlockNanos;
+            long delivered = bytes;
+            long elapsed = last - start;
+            double rate = current != null && last != 0 && elapsed > 0 ? delivered * 1e9 / elapsed : 0;
+            long idle = current == null ? 0 : now - (last != 0 ? last : start);
+            Throwable failure = current != null ? current.getFailure() : null;
+            DeviceHealth.State state;
+            if (current == null) {
+                state = DeviceHealth.State.READY;
+            }
+            else if (failure != null) {
+                state = DeviceHealth.State.FAILED;
+            }
+            else if (current.isRunning()) {
+                state = DeviceHealth.State.STREAMING;
+            }
+            else if (coordinator.stopped) {
+                state = DeviceHealth.State.STOPPED;
+            }
+            else {
+                state = DeviceHealth.State.FAILED;
+                failure = new SdrException("Stream of device " + device.getIndex() + " ended");
+            }
+            return new DeviceHealth(device.getIndex(), device.getSerial(), state, blocks, delivered, rate, idle,
+                    sample.getStatistics().droppedSamples(), failure);
+        }
+    }
+
+    private static final class CaptureThreadFactory implements ThreadFactory {
+
+        private int counter;
+
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jsdr-capture-" + counter++);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.suricatedevlab.jsdr.capture;
+
+/**
+ * Snapshot of the state of one device of a {@link CaptureCoordinator}.
+ *
+ * <p>A device streaming normally has a {@code bytesPerSecond} close to twice its sample rate and an
+ * {@code idleNanos} around the duration of one transfer; a growing {@code idleNanos} while
+ * {@link State#STREAMING} means the device stopped delivering, typically because it was unplugged.</p>
+ *
+ * @param deviceIndex the index of the device
+ * @param serial the serial number of the device
+ * @param state the state of the stream of the device
+ * @param blocks the number of blocks delivered since the capture started
+ * @param bytes the number of bytes delivered since the capture started
+ * @param bytesPerSecond the mean number of bytes delivered per second since the first block
+ * @param idleNanos the time since the last block, or since the start when no block was delivered, in nanoseconds
+ * @param droppedSamples the number of samples lost by the stream, as reported by the driver
+ * @param failure the error which ended the stream, {@code null} unless {@link State#FAILED}
+ *
+ * @see CaptureCoordinator#getHealth()
+ */
+public record DeviceHealth(int deviceIndex, String serial, State state, long blocks, long bytes,
+                           double bytesPerSecond, long idleNanos, long droppedSamples, Throwable failure) {
+
+    /**
+     * The states of the stream of a device.
+     */
+    public enum State {
+
+        /**
+         * The device is opened and configured, its stream is not started yet.
+         */
+        READY,
+
+        /**
+         * The stream of the device is running.
+         */
+        STREAMING,
+
+        /**
+         * The stream was stopped by {@link CaptureCoordinator#stop()}.
+         */
+        STOPPED,
+
+        /**
+         * The stream ended on an error of the device or of the listener.
+         */
+        FAILED
+    }
+}
@@ -0,0 +1,19 @@
+package com.suricatedevlab.jsdr.dsp;
+
+/**
+ * The {@code DemodulatorStatistics} record is a snapshot of the activity of a {@link FmDemodulator}.
+ *
+ * <p>The real-time factor is the processing time divided by the duration of the processed samples at the input
+ * rate. Below 1 the demodulator keeps up with the device, and its inverse is the number of such channels one core
+ * can demodulate.</p>
+ *
+ * @param inputSamples the number of complex samples demodulated
+ * @param audioSamples the number of audio samples produced
+ * @param processingNanos the time spent demodulating, in nanoseconds
+ * @param realTimeFactor the processing time over the signal duration, {@code 0} before the first samples
+ *
+ * @see FmDemodulator#getStatistics()
+ */
+public record DemodulatorStatistics(long inputSamples, long audioSamples, long processingNanos,
+                                    double realTimeFactor) {
+}
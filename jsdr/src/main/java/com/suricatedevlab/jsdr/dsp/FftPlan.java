@@ -0,0 +1,124 @@
+package com.suricatedevlab.jsdr.dsp;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The {@code FftPlan} class computes in-place complex fast Fourier transforms of a fixed power-of-two size.
+ *
+ * <p>The twiddle factors and the bit-reversal permutation are computed once when the plan is created, so
+ * transforms do not allocate nor evaluate trigonometric functions. A plan holds no mutable state and can be
+ * shared by any number of threads, each transforming its own data.</p>
+ *
+ * @see SpectrumEngine
+ */
+public final class FftPlan {
+
+    private final int size;
+    private final float[] cos;
+    private final float[] sin;
+    private final int[] swaps;
+
+    /**
+     * Creates a plan.
+     *
+     * @param size the transform size, a power of two between 2 and 2^24
+     * @throws IllegalArgumentException if the size is not a power of two in range
+     */
+    public FftPlan(int size) {
+        if (size < 2 || size > (1 << 24) || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two in [2, 2^24]");
+        }
+        this.size = size;
+        int half = size >> 1;
+        this.cos = new float[half];
+        this.sin = new float[half];
+        for (int k = 0; k < half; k++) {
+            double angle = 2 * Math.PI * k / size;
+            cos[k] = (float) Math.cos(angle);
+            sin[k] = (float) Math.sin(angle);
+        }
+
+        // Only the pairs (i, reverse(i)) with i < reverse(i) need to be exchanged
+        int bits = Integer.numberOfTrailingZeros(size);
+        int count = 0;
+        int[] pairs = new int[size];
+        for (int i = 0; i < size; i++) {
+            int reversed = Integer.reverse(i) >>> (32 - bits);
+            if (i < reversed) {
+                pairs[count++] = i;
+                pairs[count++] = reversed;
+            }
+        }
+        this.swaps = Arrays.copyOf(pairs, count);
+    }
+
+    /**
+     * Returns the transform size.
+     *
+     * @return the number of complex samples transformed
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Computes the forward transform of {@code size} interleaved complex samples, in place.
+     *
+     * @param data the interleaved complex samples
+     * @param offset the index of the first float of the samples
+     * @throws IndexOutOfBoundsException if the samples do not fit the array
+     */
+    public void forward(float[] data, int offset) {
+        transform(data, offset, -1);
+    }
+
+    /**
+     * Computes the unnormalized inverse transform of {@code size} interleaved complex samples, in place.
+     *
+     * @param data the interleaved complex samples
+     * @param offset the index of the first float of the samples
+     * @throws IndexOutOfBoundsException if the samples do not fit the array
+     */
+    public void inverse(float[] data, int offset) {
+        transform(data, offset, 1);
+    }
+
+    private void transform(float[] data, int offset, int direction) {
+        Objects.checkFromIndexSize(offset, size << 1, data.length);
+        int[] pairs = swaps;
+        for (int p = 0; p < pairs.length; p += 2) {
+            int a = offset + (pairs[p] << 1);
+            int b = offset + (pairs[p + 1] << 1);
+            float re = data[a];
+            float im = data[a + 1];
+            data[a] = data[b];
+            data[a + 1] = data[b + 1];
+            data[b] = re;
+            data[b + 1] = im;
+        }
+
+        float[] cosTable = cos;
+        float[] sinTable = sin;
+        for (int span = 1, step = size >> 1; span < size; span <<= 1, step >>= 1) {
+            for (int start = 0; start < size; start += span << 1) {
+                for (int j = 0, k = 0; j < span; j++, k += step) {
+                    float wr = cosTable[k];
+                    float wi = direction * sinTable[k];
+                    int a = offset + ((start + j) << 1);
+                    int b = a + (span << 1);
+                    float br = data[b];
+                    float bi = data[b + 1];
+                    float tr = wr * br - wi * bi;
+                    float ti = wr * bi + wi * br;
+                    float ar = data[a];
+                    float ai = data[a + 1];
+                    data[b] = ar - tr;
+                    data[b + 1] = ai - ti;
+                    data[a] = ar + tr;
+                    data[a + 1] = ai + ti;
+                }
+            }
+        }
+    }
+}
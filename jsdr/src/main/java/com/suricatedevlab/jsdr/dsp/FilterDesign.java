@@ -0,0 +1,61 @@
+package com.suricatedevlab.jsdr.dsp;
+
+/**
+ * The {@code FilterDesign} class computes the coefficients of the FIR filters used by the processing stages.
+ *
+ * <p>Filters are designed with the window method: an ideal (sinc) impulse response is truncated by a
+ * Blackman window, which gives a stop-band attenuation of about 74 dB. Coefficients are normalized so the
+ * filter has a unity gain at DC.</p>
+ */
+public final class FilterDesign {
+
+    private FilterDesign() {
+        throw new IllegalStateException("Can not call new");
+    }
+
+    /**
+     * Designs a low-pass filter.
+     *
+     * @param numTaps the number of coefficients, an odd number gives a symmetric filter with an integer delay
+     * @param cutoff the cutoff frequency, as a fraction of the sample rate in {@code ]0, 0.5[}
+     * @return the filter coefficients
+     * @throws IllegalArgumentException if the number of taps is less than or equal to 0, or the cutoff is out of range
+     */
+    public static float[] lowPass(int numTaps, double cutoff) {
+        if (numTaps <= 0) {
+            throw new IllegalArgumentException("number of taps <= 0");
+        }
+        if (!(cutoff > 0 && cutoff < 0.5)) {
+            throw new IllegalArgumentException("cutoff must be in ]0, 0.5[");
+        }
+        double[] taps = new double[numTaps];
+        double middle = (numTaps - 1) / 2.0;
+        double sum = 0;
+        for (int i = 0; i < numTaps; i++) {
+            double x = i - middle;
+            double sinc = x == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * x) / (Math.PI * x);
+            taps[i] = sinc * blackman(i, numTaps);
+            sum += taps[i];
+        }
+        float[] result = new float[numTaps];
+        for (int i = 0; i < numTaps; i++) {
+            result[i] = (float) (taps[i] / sum);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value of a Blackman window of the given length at the given index.
+     *
+     * @param index the index in the window
+     * @param length the length of the window
+     * @return the window value
+     */
+    static double blackman(int index, int length) {
+        if (length == 1) {
+            return 1;
+        }
+        double phase = 2 * Math.PI * index / (length - 1);
+        return 0.42 - 0.5 * Math.cos(phase) + 0.08 * Math.cos(2 * phase);
+    }
+}
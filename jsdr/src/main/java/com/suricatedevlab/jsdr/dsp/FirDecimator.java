@@ -0,0 +1,91 @@
+package com.suricatedevlab.jsdr.dsp;
+
+/**
+ * The {@code FirDecimator} stage low-pass filters complex samples with real FIR coefficients and keeps one output
+ * sample out of {@code decimation}.
+ *
+ * <p>Only the retained output samples are computed. The filter history and the decimation phase are kept
+ * between blocks, so blocks of any size can be processed.</p>
+ *
+ * @see FilterDesign
+ * @see Pipeline
+ */
+public final class FirDecimator implements Pipeline.Stage {
+
+    private final float[] taps;
+    private final int decimation;
+    private float[] history;
+    private int skip;
+
+    /**
+     * Creates a decimating filter.
+     *
+     * @param taps the filter coefficients, e.g. from {@link FilterDesign#lowPass(int, double)}
+     * @param decimation the decimation factor, 1 to only filter
+     * @throws IllegalArgumentException if there is no coefficient or the decimation is less than or equal to 0
+     */
+    public FirDecimator(float[] taps, int decimation) {
+        if (taps == null || taps.length == 0) {
+            throw new IllegalArgumentException("No filter coefficient");
+        }
+        if (decimation <= 0) {
+            throw new IllegalArgumentException("decimation <= 0");
+        }
+        // Stored reversed so the convolution walks both arrays forward
+        this.taps = new float[taps.length];
+        for (int i = 0; i < taps.length; i++) {
+            this.taps[i] = taps[taps.length - 1 - i];
+        }
+        this.decimation = decimation;
+        this.history = new float[(taps.length - 1) << 1];
+    }
+
+    /**
+     * Returns the decimation factor.
+     *
+     * @return the decimation factor
+     */
+    public int getDecimation() {
+        return decimation;
+    }
+
+    @Override
+    public int getOutputCapacity(int inputCapacity) {
+        return (((inputCapacity >> 1) + decimation - 1) / decimation + 1) << 1;
+    }
+
+    @Override
+    public void process(SignalBlock input, SignalBlock output) {
+        int samples = input.getSampleCount();
+        int delay = taps.length - 1;
+        int required = (delay + samples) << 1;
+        if (history.length < required) {
+            // Only grows for the first blocks or when the block size increases
+            float[] grown = new float[required];
+            System.arraycopy(history, 0, grown, 0, delay << 1);
+            history = grown;
+        }
+        float[] work = history;
+        System.arraycopy(input.getData(), 0, work, delay << 1, samples << 1);
+
+        float[] out = output.getData();
+        float[] coefficients = taps;
+        int produced = 0;
+        int n = skip;
+        for (; n < samples; n += decimation) {
+            float sumI = 0;
+            float sumQ = 0;
+            for (int k = 0, w = n << 1; k <= delay; k++, w += 2) {
+                float tap = coefficients[k];
+                sumI += tap * work[w];
+                sumQ += tap * work[w + 1];
+            }
+            out[produced++] = sumI;
+            out[produced++] = sumQ;
+        }
+        skip = n - samples;
+        System.arraycopy(work, samples << 1, work, 0, delay << 1);
+        output.setComplex(true);
+        output.setLength(produced);
+    }
+}
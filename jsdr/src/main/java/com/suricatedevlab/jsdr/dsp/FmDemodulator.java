@@ -0,0 +1,497 @@
+package com.suricatedevlab.jsdr.dsp;
+
+/**
+ * The {@code FmDemodulator} stage turns complex samples carrying a frequency modulated signal into audio.
+ *
+ * <p>The demodulation is done in four steps, all working in primitive arrays allocated once:</p>
+ * <ul>
+ *     <li><b>Decimation</b>: the channel, centered at DC, is low-pass filtered to its Carson bandwidth and
+ *     decimated by an integer factor to the quadrature rate. Only the retained samples are computed.</li>
+ *     <li><b>Discrimination</b>: the phase difference between consecutive samples is computed with a polynomial
+ *     approximation of {@code atan2}, accurate to 0.004 radian, and scaled so that the nominal deviation reads
+ *     {@code ±1}.</li>
+ *     <li><b>De-emphasis</b>: a single-pole low-pass filter with the time constant of the broadcast standard
+ *     (75 µs in the Americas, 50 µs elsewhere) restores the treble boost of the transmitter. Narrowband FM is
+ *     usually not pre-emphasized and disables it.</li>
+ *     <li><b>Audio resampling</b>: the audio is low-pass filtered to its bandwidth and resampled to the audio
+ *     rate by linear interpolation of the filter output, so any ratio between the quadrature and audio rates is
+ *     supported.</li>
+ * </ul>
+ *
+ * <p>The demodulator measures the time spent in {@link #demodulate(float[], int, int, float[], int)} against the
+ * duration of the samples it processed. The resulting {@link DemodulatorStatistics#realTimeFactor() real-time
+ * factor} tells how many channels one core can demodulate: a factor of 0.05 means a channel takes 5% of a core,
+ * so about 20 of them fit on one.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ * FmDemodulator broadcast = FmDemodulator.builder(2_400_000).build();
+ * FmDemodulator narrowband = FmDemodulator.builder(2_400_000)
+ *         .quadratureRate(48_000)
+ *         .deviation(5_000)
+ *         .audioBandwidth(3_000)
+ *         .deEmphasis(0)
+ *         .build();
+ * try (Pipeline pipeline = Pipeline.from(tunerSample)
+ *         .then(broadcast)
+ *         .to(audio -&gt; play(audio.getData(), audio.getLength()))) {
+ *     pipeline.run(0, 0);
+ * }
+ * </pre>
+ *
+ * <h2>Thread Safety</h2>
+ * A demodulator keeps the state of its filters between blocks and must be fed by one thread at a time. The
+ * statistics can be read from any thread.
+ *
+ * @see Pipeline
+ * @see PolyphaseChannelizer
+ */
+public final class FmDemodulator implements Pipeline.Stage {
+
+    private static final float QUARTER_PI = (float) (Math.PI / 4);
+    private static final float HALF_PI = (float) (Math.PI / 2);
+    private static final float PI = (float) Math.PI;
+    // Transition width of a Blackman-windowed filter times its number of taps, see FilterDesign
+    private static final double TRANSITION_FACTOR = 5.5;
+
+    private final int sampleRate;
+    private final int decimation;
+    private final double quadratureRate;
+    private final int audioRate;
+    private final float[] channelTaps;
+    private final float[] audioTaps;
+    private final float gain;
+    private final float deEmphasisAlpha;
+    private final double resampleStep;
+
+    // Input samples, behind the history of the channel filter
+    private float[] channelWork;
+    private int channelSkip;
+    // Quadrature samples of the current block
+    private float[] baseband;
+    private float previousI;
+    private float previousQ;
+    private float deEmphasized;
+    // Discriminator output, behind the history of the audio filter
+    private float[] audioWork;
+    // Index of the next audio sample in the filtered discriminator output of the current block, from -1
+    private double resamplePosition;
+
+    // Only written by the feeding thread
+    private volatile long inputSamples;
+    private volatile long audioSamples;
+    private volatile long processingNanos;
+
+    private FmDemodulator(Builder builder) {
+        this.sampleRate = builder.sampleRate;
+        this.decimation = Math.max(1, (int) Math.round((double) sampleRate / builder.quadratureRate));
+        this.quadratureRate = (double) sampleRate / decimation;
+        this.audioRate = builder.audioRate;
+
+        double channelCutoff = Math.min((double) (builder.deviation + builder.audioBandwidth) / sampleRate,
+                0.4 / decimation);
+        int channelTapCount = builder.channelTaps > 0
+                ? builder.channelTaps
+                : tapCount(1.0 / decimation - 2 * channelCutoff);
+        this.channelTaps = reversed(FilterDesign.lowPass(channelTapCount, channelCutoff));
+
+        double audioLimit = Math.min(audioRate, quadratureRate);
+        double audioCutoff = Math.min(builder.audioBandwidth, 0.4 * audioLimit);
+        int audioTapCount = builder.audioTaps > 0
+                ? builder.audioTaps
+                : tapCount((audioLimit - 2 * audioCutoff) / quadratureRate);
+        this.audioTaps = reversed(FilterDesign.lowPass(audioTapCount, audioCutoff / quadratureRate));
+
+        this.gain = (float) (quadratureRate / (2 * Math.PI * builder.deviation));
+        this.deEmphasisAlpha = builder.deEmphasis > 0
+                ? (float) Math.exp(-1 / (quadratureRate * builder.deEmphasis))
+                : 0;
+        this.resampleStep = quadratureRate / audioRate;
+
+        this.channelWork = new float[(channelTaps.length - 1) << 1];
+        this.baseband = new float[0];
+        this.audioWork = new float[audioTaps.length];
+    }
+
+    /**
+     * Starts building a demodulator of complex samples at the given rate, set up for broadcast FM by default.
+     *
+     * @param sampleRate the sample rate of the input, in samples per second (S/s)
+     * @return a demodulator builder
+     * @throws IllegalArgumentException if the sample rate is less than or equal to 0
+     */
+    public static Builder builder(int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sample rate <= 0");
+        }
+        return new Builder(sampleRate);
+    }
+
+    /**
+     * Returns the sample rate of the input.
+     *
+     * @return the input sample rate, in S/s
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Returns the factor of the channel decimation.
+     *
+     * @return the decimation factor
+     */
+    public int getDecimation() {
+        return decimation;
+    }
+
+    /**
+     * Returns the rate of the decimated channel, that is the input rate divided by the decimation factor.
+     *
+     * @return the quadrature rate, in S/s
+     */
+    public double getQuadratureRate() {
+        return quadratureRate;
+    }
+
+    /**
+     * Returns the sample rate of the audio.
+     *
+     * @return the audio rate, in S/s
+     */
+    public int getAudioRate() {
+        return audioRate;
+    }
+
+    /**
+     * Returns the maximum number of audio samples produced from the given number of complex samples.
+     *
+     * @param sampleCount the number of complex input samples
+     * @return the number of audio samples to make room for
+     */
+    public int getAudioCapacity(int sampleCount) {
+        return (int) Math.ceil(((double) sampleCount / decimation + 1) / resampleStep) + 1;
+    }
+
+    @Override
+    public int getOutputCapacity(int inputCapacity) {
+        return getAudioCapacity(inputCapacity >> 1);
+    }
+
+    @Override
+    public void process(SignalBlock input, SignalBlock output) {
+        int produced = demodulate(input.getData(), 0, input.getSampleCount(), output.getData(), 0);
+        output.setComplex(false);
+        output.setLength(produced);
+    }
+
+    /**
+     * Demodulates complex samples, continuing the previous call.
+     *
+     * @param samples the interleaved complex samples
+     * @param offset the index of the first float to read
+     * @param count the number of complex samples to read
+     * @param audio the array receiving the audio samples, with room for {@link #getAudioCapacity(int)} samples
+     * @param audioOffset the index of the first audio sample to write
+     * @return the number of audio samples written
+     */
+    public int demodulate(float[] samples, int offset, int count, float[] audio, int audioOffset) {
+        long start = System.nanoTime();
+        int quadrature = decimate(samples, offset, count);
+        discriminate(quadrature);
+        int produced = resample(quadrature, audio, audioOffset);
+        processingNanos += System.nanoTime() - start;
+        inputSamples += count;
+        audioSamples += produced;
+        return produced;
+    }
+
+    /**
+     * Returns the processing metrics of the demodulator since it was created or its statistics were reset.
+     *
+     * @return a snapshot of the metrics
+     */
+    public DemodulatorStatistics getStatistics() {
+        long samples = inputSamples;
+        long nanos = processingNanos;
+        double realTimeFactor = samples != 0 ? nanos * (sampleRate / 1e9) / samples : 0;
+        return new DemodulatorStatistics(samples, audioSamples, nanos, realTimeFactor);
+    }
+
+    /**
+     * Resets the processing metrics, e.g. once the JIT compiler has warmed up. The state of the filters is kept.
+     */
+    public void resetStatistics() {
+        inputSamples = 0;
+        audioSamples = 0;
+        processingNanos = 0;
+    }
+
+    // Filters and decimates the input into baseband, returns the number of quadrature samples
+    private int decimate(float[] samples, int offset, int count) {
+        int delay = channelTaps.length - 1;
+        int required = (delay + count) << 1;
+        if (channelWork.length < required) {
+            // Only grows for the first blocks or when the block size increases
+            float[] grown = new float[required];
+            System.arraycopy(channelWork, 0, grown, 0, delay << 1);
+            channelWork = grown;
+            baseband = new float[((count + decimation - 1) / decimation + 1) << 1];
+        }
+        float[] work = channelWork;
+        System.arraycopy(samples, offset, work, delay << 1, count << 1);
+
+        float[] out = baseband;
+        float[] coefficients = channelTaps;
+        int produced = 0;
+        int n = channelSkip;
+        for (; n < count; n += decimation) {
+            float sumI = 0;
+            float sumQ = 0;
+            for (int k = 0, w = n << 1; k <= delay; k++, w += 2) {
+                float tap = coefficients[k];
+                sumI += tap * work[w];
+                sumQ += tap * work[w + 1];
+            }
+            out[produced++] = sumI;
+            out[produced++] = sumQ;
+        }
+        channelSkip = n - count;
+        System.arraycopy(work, count << 1, work, 0, delay << 1);
+        return produced >> 1;
+    }
+
+    // Writes the de-emphasized phase differences of the baseband behind the audio filter history
+    private void discriminate(int count) {
+        int history = audioTaps.length;
+        if (audioWork.length < history + count) {
+            float[] grown = new float[history + count];
+            System.arraycopy(audioWork, 0, grown, 0, history);
+            audioWork = grown;
+        }
+        float[] in = baseband;
+        float[] out = audioWork;
+        float alpha = deEmphasisAlpha;
+        float beta = (1 - alpha) * gain;
+        float pi = previousI;
+        float pq = previousQ;
+        float state = deEmphasized;
+        for (int n = 0; n < count; n++) {
+            float i = in[n << 1];
+            float q = in[(n << 1) + 1];
+            // Phase of the sample times the conjugate of the previous one
+            float phase = atan2(q * pi - i * pq, i * pi + q * pq);
+            state = beta * phase + alpha * state;
+            out[history + n] = state;
+            pi = i;
+            pq = q;
+        }
+        previousI = pi;
+        previousQ = pq;
+        deEmphasized = state;
+    }
+
+    // Filters the discriminator output and interpolates it at the audio rate
+    private int resample(int count, float[] audio, int audioOffset) {
+        float[] work = audioWork;
+        float[] coefficients = audioTaps;
+        int taps = coefficients.length;
+        int produced = 0;
+        double position = resamplePosition;
+        // Filter output j, from -1, is computed from work[j + 1, j + taps]
+        for (int index = (int) Math.floor(position); index < count - 1; index = (int) Math.floor(position)) {
+            float current = 0;
+            float next = 0;
+            for (int k = 0, w = index + 1; k < taps; k++, w++) {
+                float tap = coefficients[k];
+                current += tap * work[w];
+                next += tap * work[w + 1];
+            }
+            float fraction = (float) (position - index);
+            audio[audioOffset + produced++] = current + fraction * (next - current);
+            position += resampleStep;
+        }
+        resamplePosition = position - count;
+        System.arraycopy(work, count, work, 0, taps);
+        return produced;
+    }
+
+    // Four-quadrant arc tangent, atan(z) ~ z * (pi / 4 + 0.273 * (1 - z)) on [0, 1], within 0.0038 rad
+    static float atan2(float y, float x) {
+        float ax = Math.abs(x);
+        float ay = Math.abs(y);
+        if (ax == 0 && ay == 0) {
+            return 0;
+        }
+        float angle;
+        if (ax >= ay) {
+            float z = ay / ax;
+            angle = z * (QUARTER_PI + 0.273f * (1 - z));
+        }
+        else {
+            float z = ax / ay;
+            angle = HALF_PI - z * (QUARTER_PI + 0.273f * (1 - z));
+        }
+        if (x < 0) {
+            angle = PI - angle;
+        }
+        return y < 0 ? -angle : angle;
+    }
+
+    // Number of Blackman-windowed taps for a transition band of the given width, rounded up to an odd number
+    private static int tapCount(double transition) {
+        int count = (int) Math.ceil(TRANSITION_FACTOR / transition);
+        return count | 1;
+    }
+
+    // Stored reversed so the convolutions walk both arrays forward
+    private static float[] reversed(float[] taps) {
+        float[] result = new float[taps.length];
+        for (int i = 0; i < taps.length; i++) {
+            result[i] = taps[taps.length - 1 - i];
+        }
+        return result;
+    }
+
+    /**
+     * Builder of {@link FmDemodulator} instances. The defaults demodulate broadcast FM: a 75 kHz deviation, a
+     * 240 kS/s quadrature rate, a 15 kHz audio bandwidth, a 75 µs de-emphasis and a 48 kS/s audio rate.
+     */
+    public static final class Builder {
+
+        private final int sampleRate;
+        private int quadratureRate = 240_000;
+        private int deviation = 75_000;
+        private int audioBandwidth = 15_000;
+        private double deEmphasis = 75e-6;
+        private int audioRate = 48_000;
+        private int channelTaps;
+        private int audioTaps;
+
+        private Builder(int sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        /**
+         * Sets the rate the channel is decimated to before the discriminator, 240 kS/s by default. The rate is
+         * rounded to the nearest integer fraction of the input rate, and must cover the Carson bandwidth of the
+         * signal, twice the deviation plus the audio bandwidth.
+         *
+         * @param quadratureRate the quadrature rate, in S/s
+         * @return this builder
+         * @throws IllegalArgumentException if the rate is less than or equal to 0
+         */
+        public Builder quadratureRate(int quadratureRate) {
+            if (quadratureRate <= 0) {
+                throw new IllegalArgumentException("quadrature rate <= 0");
+            }
+            this.quadratureRate = quadratureRate;
+            return this;
+        }
+
+        /**
+         * Sets the peak frequency deviation of the signal, 75 kHz by default; 5 kHz or 2.5 kHz for narrowband FM.
+         *
+         * @param deviation the deviation, in Hz
+         * @return this builder
+         * @throws IllegalArgumentException if the deviation is less than or equal to 0
+         */
+        public Builder deviation(int deviation) {
+            if (deviation <= 0) {
+                throw new IllegalArgumentException("deviation <= 0");
+            }
+            this.deviation = deviation;
+            return this;
+        }
+
+        /**
+         * Sets the bandwidth of the audio, 15 kHz by default; about 3 kHz for voice.
+         *
+         * @param audioBandwidth the audio bandwidth, in Hz
+         * @return this builder
+         * @throws IllegalArgumentException if the bandwidth is less than or equal to 0
+         */
+        public Builder audioBandwidth(int audioBandwidth) {
+            if (audioBandwidth <= 0) {
+                throw new IllegalArgumentException("audio bandwidth <= 0");
+            }
+            this.audioBandwidth = audioBandwidth;
+            return this;
+        }
+
+        /**
+         * Sets the time constant of the de-emphasis filter, 75 µs by default; 50 µs in Europe, 0 to disable it.
+         *
+         * @param deEmphasis the time constant, in seconds
+         * @return this builder
+         * @throws IllegalArgumentException if the time constant is negative
+         */
+        public Builder deEmphasis(double deEmphasis) {
+            if (!(deEmphasis >= 0)) {
+                throw new IllegalArgumentException("de-emphasis < 0");
+            }
+            this.deEmphasis = deEmphasis;
+            return this;
+        }
+
+        /**
+         * Sets the sample rate of the audio, 48 kS/s by default.
+         *
+         * @param audioRate the audio rate, in S/s
+         * @return this builder
+         * @throws IllegalArgumentException if the rate is less than or equal to 0
+         */
+        public Builder audioRate(int audioRate) {
+            if (audioRate <= 0) {
+                throw new IllegalArgumentException("audio rate <= 0");
+            }
+            this.audioRate = audioRate;
+            return this;
+        }
+
+        /**
+         * Sets the number of taps of the channel filter. By default the filter is sized to keep the aliases out of
+         * the channel, fewer taps trade selectivity for speed.
+         *
+         * @param channelTaps the number of taps, {@code 0} for the default
+         * @return this builder
+         * @throws IllegalArgumentException if the number of taps is negative
+         */
+        public Builder channelTaps(int channelTaps) {
+            if (channelTaps < 0) {
+                throw new IllegalArgumentException("channel taps < 0");
+            }
+            this.channelTaps = channelTaps;
+            return this;
+        }
+
+        /**
+         * Sets the number of taps of the audio filter. By default the filter is sized to keep the aliases out of
+         * the audio bandwidth.
+         *
+         * @param audioTaps the number of taps, {@code 0} for the default
+         * @return this builder
+         * @throws IllegalArgumentException if the number of taps is negative
+         */
+        public Builder audioTaps(int audioTaps) {
+            if (audioTaps < 0) {
+                throw new IllegalArgumentException("audio taps < 0");
+            }
+            this.audioTaps = audioTaps;
+            return this;
+        }
+
+        /**
+         * Builds the demodulator.
+         *
+         * @return the demodulator
+         * @throws IllegalArgumentException if the quadrature rate is greater than the input rate
+         */
+        public FmDemodulator build() {
+            if (quadratureRate > sampleRate) {
+                throw new IllegalArgumentException("quadrature rate > sample rate");
+            }
+            return new FmDemodulator(this);
+        }
+    }
+}
@@ -0,0 +1,703 @@
+package com.suricatedevlab.jsdr.dsp;
+
+import com.suricatedevlab.jsdr.IqConverter;
+import com.suricatedevlab.jsdr.SdrException;
+import com.suricatedevlab.jsdr.TunerDefinition;
+import com.suricatedevlab.jsdr.TunerSample;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code FrequencyScanner} class measures the power spectrum of a frequency range wider than the sample rate of
+ * a tuner, by sweeping the tuner across the range in the manner of {@code rtl_power}.
+ *
+ * <p>The range is cut into hops. For every hop the scanner retunes the device, discards the samples received while
+ * the tuner PLL settles, then reads the dwell samples. The dwell samples are averaged into a spectrum with Welch's
+ * method, as done by {@link SpectrumEngine}, and the edges of the spectrum, where the anti-aliasing filter of the
+ * device rolls off, are cropped. The remaining bins of all the hops are stitched into one continuous spectrum per
+ * sweep, bin {@code i} being centered on {@link #getFrequency(int) startFrequency + i * binWidth}.</p>
+ *
+ * <p>The spectra are computed by a pool of workers while the device dwells on the next hops, each worker owning a
+ * preallocated sample buffer and FFT. The device thread only waits for a worker when all of them are busy, so the
+ * hop rate is bound by the device as long as the workers keep up. Nothing is allocated per hop.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ * try (FrequencyScanner scanner = FrequencyScanner.builder(88_000_000L, 108_000_000L, 10_000)
+ *         .dwell(Duration.ofMillis(20))
+ *         .settle(Duration.ofMillis(5))
+ *         .build(definition, tunerSample, (s, sweep, dbfs) -&gt; plot(s.getStartFrequency(), s.getBinWidth(), dbfs))) {
+ *     scanner.scan(0);
+ * }
+ * </pre>
+ *
+ * <h2>Thread Safety</h2>
+ * {@link #scan(long)} must be called by one thread at a time, which becomes the device thread. The listener is
+ * invoked by the workers, not on the device thread, but one sweep at a time and in sweep order, even when the hops
+ * of a sweep complete after those of the next one. {@link #stop()} and {@link #getStatistics()} can be called from
+ * any thread.
+ *
+ * @see SpectrumEngine
+ * @see ScanStatistics
+ */
+public final class FrequencyScanner implements AutoCloseable {
+
+    // librtlsdr reads whole USB packets
+    private static final int READ_GRANULARITY = 512;
+    // Spectra being delivered while the next sweep is measured
+    private static final int SWEEP_BUFFERS = 2;
+
+    /**
+     * Receives the stitched spectra of the sweeps.
+     */
+    public interface SweepListener {
+
+        /**
+         * Called every time a sweep is complete.
+         *
+         * @param scanner the scanner, giving access to the frequency axis
+         * @param sweep the number of the sweep, from {@code 0}
+         * @param dbfs the power of every bin of the range in dBFS, only valid during the call
+         */
+        void onSweep(FrequencyScanner scanner, long sweep, float[] dbfs);
+    }
+
+    private final TunerDefinition definition;
+    private final TunerSample sample;
+    private final SweepListener listener;
+    private final long startFrequency;
+    private final long stopFrequency;
+    private final int sampleRate;
+    private final int fftSize;
+    private final double binWidth;
+    private final int binCount;
+    private final int keptBins;
+    private final int firstKeptBin;
+    private final boolean removeDcSpike;
+    private final long[] hopFrequencies;
+    private final int settleBytes;
+    private final int dwellBytes;
+    private final ExecutorService workers;
+    private final BlockingQueue<Hop> freeHops;
+    private final int hopCount;
+    private final BlockingQueue<float[]> freeSweeps = new ArrayBlockingQueue<>(SWEEP_BUFFERS);
+    // The completed sweeps waiting for the previous ones, by sweep number modulo the number of sweep buffers
+    private final Sweep[] completedSweeps = new Sweep[SWEEP_BUFFERS];
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private final AtomicLong sweeps = new AtomicLong();
+    private final AtomicLong lastSweepNanos = new AtomicLong();
+    private final LongAdder hops = new LongAdder();
+    private final LongAdder retuneNanos = new LongAdder();
+    private final LongAdder settleNanos = new LongAdder();
+    private final LongAdder dwellNanos = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+    private final LongAdder stallNanos = new LongAdder();
+
+    private long nextSweep;
+    // Guarded by completedSweeps
+    private long nextDelivered;
+    private boolean delivering;
+    private volatile boolean stopped;
+
+    private FrequencyScanner(Builder builder, TunerDefinition definition, TunerSample sample, SweepListener listener) {
+        this.definition = definition;
+        this.sample = sample;
+        this.listener = listener;
+        this.startFrequency = builder.startFrequency;
+        this.stopFrequency = builder.stopFrequency;
+        this.sampleRate = builder.sampleRate > 0 ? builder.sampleRate : definition.getSampleRate();
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sample rate <= 0");
+        }
+
+        // Smallest power of two FFT giving bins at most as wide as requested
+        long minSize = (long) Math.ceil(sampleRate / builder.binWidth);
+        int size = Integer.highestOneBit((int) Math.min(Math.max(4, minSize), 1 << 24));
+        this.fftSize = size < minSize ? size << 1 : size;
+        if (fftSize > (1 << 24)) {
+            throw new IllegalArgumentException("Bin width too small for the sample rate");
+        }
+        this.binWidth = (double) sampleRate / fftSize;
+        this.keptBins = Math.max(1, (int) Math.round(fftSize * (1 - builder.crop)));
+        this.firstKeptBin = (fftSize - keptBins) >> 1;
+        this.removeDcSpike = builder.removeDcSpike;
+        this.binCount = (int) Math.ceil((stopFrequency - startFrequency) / binWidth);
+        int steps = (binCount + keptBins - 1) / keptBins;
+
+        // Centered so that the first kept bin of hop i lands on bin i * keptBins of the sweep
+        this.hopFrequencies = new long[steps];
+        for (int i = 0; i < steps; i++) {
+            hopFrequencies[i] = startFrequency + Math.round(((long) i * keptBins + (fftSize >> 1) - firstKeptBin) * binWidth);
+        }
+
+        this.settleBytes = toBytes(builder.settle, 0);
+        this.dwellBytes = toBytes(builder.dwell, fftSize);
+
+        this.workers = Executors.newFixedThreadPool(builder.workers,
+                builder.threadFactory != null ? builder.threadFactory : new ScannerThreadFactory());
+        // One more hop than workers, so that the device reads the next hop while every worker is busy
+        this.hopCount = builder.workers + 1;
+        this.freeHops = new ArrayBlockingQueue<>(hopCount);
+        for (int i = 0; i < hopCount; i++) {
+            freeHops.add(new Hop(builder));
+        }
+        for (int i = 0; i < SWEEP_BUFFERS; i++) {
+            freeSweeps.add(new float[binCount]);
+        }
+    }
+
+    /**
+     * Starts building a scanner of a frequency range.
+     *
+     * @param startFrequency the lowest frequency of the range, in Hz
+     * @param stopFrequency the highest frequency of the range, in Hz
+     * @param binWidth the largest acceptable width of a bin, in Hz; the actual width is the sample rate divided by
+     *                 the smallest power of two FFT size reaching it
+     * @return a scanner builder
+     * @throws IllegalArgumentException if the range is empty or negative, or the bin width is not positive
+     */
+    public static Builder builder(long startFrequency, long stopFrequency, double binWidth) {
+        if (startFrequency < 0 || stopFrequency <= startFrequency) {
+            throw new IllegalArgumentException("Frequency range must be non-negative and non-empty");
+        }
+        if (!(binWidth > 0)) {
+            throw new IllegalArgumentException("binWidth <= 0");
+        }
+        return new Builder(startFrequency, stopFrequency, binWidth);
+    }
+
+    /**
+     * Returns the frequency of the first bin of the sweeps.
+     *
+     * @return the start frequency, in Hz
+     */
+    public long getStartFrequency() {
+        return startFrequency;
+    }
+
+    /**
+     * Returns the highest frequency of the range, which the last bin of the sweeps covers.
+     *
+     * @return the stop frequency, in Hz
+     */
+    public long getStopFrequency() {
+        return stopFrequency;
+    }
+
+    /**
+     * Returns the frequency width of a bin.
+     *
+     * @return the bin width, in Hz
+     */
+    public double getBinWidth() {
+        return binWidth;
+    }
+
+    /**
+     * Returns the number of bins of the sweeps.
+     *
+     * @return the number of bins
+     */
+    public int getBinCount() {
+        return binCount;
+    }
+
+    /**
+     * Returns the center frequency of a bin of the sweeps.
+     *
+     * @param bin the bin index, in {@code [0, binCount[}
+     * @return the frequency of the bin, in Hz
+     */
+    public double getFrequency(int bin) {
+        return startFrequency + bin * binWidth;
+    }
+
+    /**
+     * Returns the FFT size used for every hop.
+     *
+     * @return the FFT size
+     */
+    public int getFftSize() {
+        return fftSize;
+    }
+
+    /**
+     * Returns the number of hops of a sweep.
+     *
+     * @return the number of hops
+     */
+    public int getHopCount() {
+        return hopFrequencies.length;
+    }
+
+    /**
+     * Returns the center frequency the tuner is set to for a hop.
+     *
+     * @param hop the hop index, in {@code [0, hopCount[}
+     * @return the center frequency of the hop, in Hz
+     */
+    public long getHopFrequency(int hop) {
+        return hopFrequencies[hop];
+    }
+
+    /**
+     * Sweeps the range until the given number of sweeps has been delivered or {@link #stop()} is called.
+     *
+     * <p>The sample rate of the tuner is set first. The calling thread then drives the device, and this method
+     * returns once the last sweep has been delivered to the listener.</p>
+     *
+     * @param sweeps the number of sweeps, {@code 0} or less to sweep until stopped
+     * @throws SdrException if the device fails or stops delivering samples
+     * @throws InterruptedException if the calling thread is interrupted
+     * @throws IllegalStateException if the processing of a hop or the listener failed
+     */
+    public void scan(long sweeps) throws SdrException, InterruptedException {
+        stopped = false;
+        failure.set(null);
+        definition.setSampleRate(sampleRate);
+        try {
+            for (long n = 0; (sweeps <= 0 || n < sweeps) && !stopped; n++) {
+                sweep();
+            }
+        }
+        finally {
+            awaitWorkers();
+        }
+        Throwable cause = failure.getAndSet(null);
+        if (cause != null) {
+            throw new IllegalStateException("Failed to process a sweep", cause);
+        }
+    }
+
+    /**
+     * Stops {@link #scan(long)} once the current sweep is complete.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Returns the sweep metrics of the scanner.
+     *
+     * @return a snapshot of the metrics
+     */
+    public ScanStatistics getStatistics() {
+        long hopTotal = hops.sum();
+        long sweepTotal = sweeps.get();
+        long last = lastSweepNanos.get();
+        double sweepsPerSecond = last > 0 ? 1e9 / last : 0;
+        return new ScanStatistics(sweepTotal, hopTotal, sweepsPerSecond, sweepsPerSecond * hopFrequencies.length,
+                last, mean(retuneNanos, hopTotal), mean(settleNanos, hopTotal), mean(dwellNanos, hopTotal),
+                mean(processingNanos, hopTotal), stallNanos.sum());
+    }
+
+    /**
+     * Stops the scan and the workers.
+     */
+    @Override
+    public void close() {
+        stop();
+        workers.shutdown();
+    }
+
+    private void sweep() throws SdrException, InterruptedException {
+        float[] dbfs = freeSweeps.take();
+        Sweep sweep = new Sweep(nextSweep++, dbfs, hopFrequencies.length, System.nanoTime());
+        for (int i = 0; i < hopFrequencies.length; i++) {
+            if (failure.get() != null) {
+                sweep.abort(i);
+                return;
+            }
+            Hop hop = freeHops.poll();
+            if (hop == null) {
+                long waitStart = System.nanoTime();
+                try {
+                    hop = freeHops.take();
+                }
+                catch (InterruptedException e) {
+                    sweep.abort(i);
+                    throw e;
+                }
+                stallNanos.add(System.nanoTime() - waitStart);
+            }
+            try {
+                long start = System.nanoTime();
+                definition.setCenterFrequency(hopFrequencies[i]);
+                long tuned = System.nanoTime();
+                if (settleBytes > 0) {
+                    read(hop.raw, settleBytes);
+                }
+                long settled = System.nanoTime();
+                read(hop.raw, dwellBytes);
+                long read = System.nanoTime();
+                retuneNanos.add(tuned - start);
+                settleNanos.add(settled - tuned);
+                dwellNanos.add(read - settled);
+                hops.increment();
+            }
+            catch (SdrException | RuntimeException e) {
+                freeHops.add(hop);
+                sweep.abort(i);
+                throw e;
+            }
+            hop.sweep = sweep;
+            hop.index = i;
+            workers.execute(hop);
+        }
+    }
+
+    // A sweep with fewer hops than workers can complete before the previous one. Completed sweeps are delivered by
+    // number, one at a time, by the worker completing the next one due; a sweep buffer is only freed once its sweep
+    // is delivered, so the sweeps waiting never share a slot
+    private void sweepCompleted(Sweep sweep) {
+        synchronized (completedSweeps) {
+            completedSweeps[(int) (sweep.number % SWEEP_BUFFERS)] = sweep;
+            if (delivering) {
+                return;
+            }
+            delivering = true;
+        }
+        while (true) {
+            Sweep next;
+            synchronized (completedSweeps) {
+                int slot = (int) (nextDelivered % SWEEP_BUFFERS);
+                next = completedSweeps[slot];
+                if (next == null || next.number != nextDelivered) {
+                    delivering = false;
+                    return;
+                }
+                completedSweeps[slot] = null;
+                nextDelivered++;
+            }
+            next.deliver();
+        }
+    }
+
+    private void read(ByteBuffer buffer, int length) throws SdrException {
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (sample.readSync(buffer) <= 0) {
+                throw new SdrException("The tuner stopped delivering samples");
+            }
+        }
+        buffer.flip();
+    }
+
+    // Every hop back in the queue means no worker is still processing or delivering
+    private void awaitWorkers() throws InterruptedException {
+        Hop[] idle = new Hop[hopCount];
+        for (int i = 0; i < hopCount; i++) {
+            idle[i] = freeHops.take();
+        }
+        for (Hop hop : idle) {
+            freeHops.add(hop);
+        }
+    }
+
+    private int toBytes(Duration duration, int minSamples) {
+        long samples = Math.max(minSamples, (long) Math.ceil(duration.toNanos() * 1e-9 * sampleRate));
+        long bytes = (samples << 1) + READ_GRANULARITY - 1;
+        bytes -= bytes % READ_GRANULARITY;
+        if (bytes > Integer.MAX_VALUE - READ_GRANULARITY) {
+            throw new IllegalArgumentException("Duration too long for the sample rate");
+        }
+        return samples == 0 ? 0 : (int) bytes;
+    }
+
+    private static long mean(LongAdder total, long count) {
+        return count > 0 ? total.sum() / count : 0;
+    }
+
+    /**
+     * Builder of {@link FrequencyScanner} instances.
+     */
+    public static final class Builder {
+
+        private final long startFrequency;
+        private final long stopFrequency;
+        private final double binWidth;
+        private int sampleRate;
+        private double crop = 0.25;
+        private Duration dwell = Duration.ofMillis(20);
+        private Duration settle = Duration.ofMillis(5);
+        private WindowFunction window = WindowFunction.HANN;
+        private double overlap = 0.5;
+        private boolean removeDcSpike = true;
+        private int workers = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        private ThreadFactory threadFactory;
+
+        private Builder(long startFrequency, long stopFrequency, double binWidth) {
+            this.startFrequency = startFrequency;
+            this.stopFrequency = stopFrequency;
+            this.binWidth = binWidth;
+        }
+
+        /**
+         * Sets the sample rate the tuner is set to when the scan starts, its current sample rate by default.
+         *
+         * @param sampleRate the sample rate, in samples per second (S/s)
+         * @return this builder
+         * @throws IllegalArgumentException if the sample rate is less than or equal to 0
+         */
+        public Builder sampleRate(int sampleRate) {
+            if (sampleRate <= 0) {
+                throw new IllegalArgumentException("sample rate <= 0");
+            }
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * Sets the fraction of the bins dropped at the edges of every hop, half on each side, 0.25 by default.
+         * Larger crops need more hops but avoid the roll-off of the device filter.
+         *
+         * @param crop the cropped fraction, in {@code [0, 1[}
+         * @return this builder
+         * @throws IllegalArgumentException if the crop is out of range
+         */
+        public Builder crop(double crop) {
+            if (!(crop >= 0 && crop < 1)) {
+                throw new IllegalArgumentException("crop must be in [0, 1[");
+            }
+            this.crop = crop;
+            return this;
+        }
+
+        /**
+         * Sets the time spent reading the samples of every hop, 20 ms by default. The dwell is raised to at least
+         * one FFT frame.
+         *
+         * @param dwell the dwell time
+         * @return this builder
+         * @throws IllegalArgumentException if the dwell is {@code null} or not positive
+         */
+        public Builder dwell(Duration dwell) {
+            if (dwell == null || dwell.isNegative() || dwell.isZero()) {
+                throw new IllegalArgumentException("dwell must be > 0");
+            }
+            this.dwell = dwell;
+            return this;
+        }
+
+        /**
+         * Sets the time of the samples discarded after every retune while the tuner PLL settles, 5 ms by default.
+         *
+         * @param settle the settle time, {@link Duration#ZERO} to keep every sample
+         * @return this builder
+         * @throws IllegalArgumentException if the settle time is {@code null} or negative
+         */
+        public Builder settle(Duration settle) {
+            if (settle == null || settle.isNegative()) {
+                throw new IllegalArgumentException("settle must be >= 0");
+            }
+            this.settle = settle;
+            return this;
+        }
+
+        /**
+         * Sets the window applied to every frame, {@link WindowFunction#HANN} by default.
+         *
+         * @param window the window function
+         * @return this builder
+         * @throws IllegalArgumentException if the window is {@code null}
+         */
+        public Builder window(WindowFunction window) {
+            if (window == null) {
+                throw new IllegalArgumentException("Window is null");
+            }
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Sets the overlap between consecutive frames of a hop, 0.5 by default.
+         *
+         * @param overlap the overlapping fraction of a frame, in {@code [0, 1[}
+         * @return this builder
+         * @throws IllegalArgumentException if the overlap is out of range
+         */
+        public Builder overlap(double overlap) {
+            if (!(overlap >= 0 && overlap < 1)) {
+                throw new IllegalArgumentException("overlap must be in [0, 1[");
+            }
+            this.overlap = overlap;
+            return this;
+        }
+
+        /**
+         * Sets whether the center bin of every hop, which holds the DC offset of the device, is replaced by the
+         * mean of its neighbours, {@code true} by default.
+         *
+         * @param removeDcSpike {@code true} to interpolate the center bin
+         * @return this builder
+         */
+        public Builder removeDcSpike(boolean removeDcSpike) {
+            this.removeDcSpike = removeDcSpike;
+            return this;
+        }
+
+        /**
+         * Sets the number of worker threads computing the spectra of the hops, up to 4 by default.
+         *
+         * @param workers the number of workers
+         * @return this builder
+         * @throws IllegalArgumentException if the number of workers is less than or equal to 0
+         */
+        public Builder workers(int workers) {
+            if (workers <= 0) {
+                throw new IllegalArgumentException("workers <= 0");
+            }
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Sets the factory of the worker threads, daemon threads named {@code jsdr-scan-N} by default.
+         *
+         * @param threadFactory the thread factory
+         * @return this builder
+         */
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * Builds a scanner sweeping a tuner.
+         *
+         * @param definition the tuner to retune
+         * @param sample the samples of the tuner, read synchronously
+         * @param listener the listener receiving the sweeps
+         * @return the scanner
+         * @throws IllegalArgumentException if an argument is {@code null}, or the bin width is too small for the
+         *                                  sample rate
+         */
+        public FrequencyScanner build(TunerDefinition definition, TunerSample sample, SweepListener listener) {
+            if (definition == null || sample == null || listener == null) {
+                throw new IllegalArgumentException("Tuner definition, sample or listener is null");
+            }
+            return new FrequencyScanner(this, definition, sample, listener);
+        }
+    }
+
+    // A sweep being measured, delivered once its last hop is processed and the previous sweeps are delivered
+    private final class Sweep {
+
+        private final long number;
+        private final float[] dbfs;
+        private final AtomicInteger remaining;
+        private final long start;
+        private volatile boolean aborted;
+
+        Sweep(long number, float[] dbfs, int hops, long start) {
+            this.number = number;
+            this.dbfs = dbfs;
+            this.remaining = new AtomicInteger(hops);
+            this.start = start;
+        }
+
+        void completed() {
+            completed(1);
+        }
+
+        // The hops from the given one on will never be read, the sweep is released once the read ones are processed
+        void abort(int hop) {
+            aborted = true;
+            completed(hopFrequencies.length - hop);
+        }
+
+        private void completed(int hops) {
+            if (remaining.addAndGet(-hops) == 0) {
+                sweepCompleted(this);
+            }
+        }
+
+        void deliver() {
+            try {
+                if (!aborted && failure.get() == null) {
+                    long duration = System.nanoTime() - start;
+                    listener.onSweep(FrequencyScanner.this, number, dbfs);
+                    lastSweepNanos.set(duration);
+                    sweeps.incrementAndGet();
+                }
+            }
+            catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+            finally {
+                freeSweeps.add(dbfs);
+            }
+        }
+    }
+
+    // The buffers of one hop, passed from the device thread to a worker
+    private final class Hop implements Runnable {
+
+        private final ByteBuffer raw;
+        private final float[] samples;
+        private final float[] dbfs;
+        private final SpectrumEngine engine;
+        private final IqConverter converter = new IqConverter();
+        private Sweep sweep;
+        private int index;
+
+        Hop(Builder builder) {
+            this.raw = ByteBuffer.allocateDirect(Math.max(dwellBytes, settleBytes));
+            this.samples = new float[dwellBytes];
+            this.dbfs = new float[fftSize];
+            this.engine = SpectrumEngine.builder(fftSize)
+                    .window(builder.window)
+                    .overlap(builder.overlap)
+                    .build();
+        }
+
+        @Override
+        public void run() {
+            Sweep current = sweep;
+            sweep = null;
+            try {
+                long start = System.nanoTime();
+                int count = converter.toFloatInterleaved(raw, samples, 0);
+                engine.estimate(samples, 0, count, dbfs);
+                if (removeDcSpike) {
+                    int center = fftSize >> 1;
+                    dbfs[center] = (dbfs[center - 1] + dbfs[center + 1]) * 0.5f;
+                }
+                int offset = index * keptBins;
+                int length = Math.min(keptBins, binCount - offset);
+                System.arraycopy(dbfs, firstKeptBin, current.dbfs, offset, length);
+                processingNanos.add(System.nanoTime() - start);
+            }
+            catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+            finally {
+                current.completed();
+                freeHops.add(this);
+            }
+        }
+    }
+
+    private static final class ScannerThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger COUNTER = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jsdr-scan-" + COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.suricatedevlab.jsdr.dsp;
+
+/**
+ * The {@code Mixer} stage shifts complex samples in frequency by multiplying them with a numerically
+ * controlled oscillator.
+ *
+ * <p>The oscillator is a rotating phasor; it is renormalized after every block so rounding errors do not
+ * accumulate, and its phase is kept between blocks.</p>
+ *
+ * @see Pipeline
+ */
+public final class Mixer implements Pipeline.Stage {
+
+    private final double stepCos;
+    private final double stepSin;
+    private double phaseCos = 1;
+    private double phaseSin;
+
+    /**
+     * Creates a mixer.
+     *
+     * @param frequencyShift the frequency shift in Hz, a negative value moves a signal at {@code +f} to DC
+     * @param sampleRate the sample rate of the input, in samples per second (S/s)
+     * @throws IllegalArgumentException if the sample rate is less than or equal to 0
+     */
+    public Mixer(double frequencyShift, double sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sample rate <= 0");
+        }
+        double step = 2 * Math.PI * frequencyShift / sampleRate;
+        this.stepCos = Math.cos(step);
+        this.stepSin = Math.sin(step);
+    }
+
+    @Override
+    public void process(SignalBlock input, SignalBlock output) {
+        float[] in = input.getData();
+        float[] out = output.getData();
+        int length = input.getLength() & ~1;
+        double c = phaseCos;
+        double s = phaseSin;
+        for (int n = 0; n < length; n += 2) {
+            float i = in[n];
+            float q = in[n + 1];
+            out[n] = (float) (i * c - q * s);
+            out[n + 1] = (float) (i * s + q * c);
+            double nextCos = c * stepCos - s * stepSin;
+            s = c * stepSin + s * stepCos;
+            c = nextCos;
+        }
+        double magnitude = Math.sqrt(c * c + s * s);
+        phaseCos = c / magnitude;
+        phaseSin = s / magnitude;
+        output.setComplex(true);
+        output.setLength(length);
+    }
+}
@@ -0,0 +1,543 @@
+package com.suricatedevlab.jsdr.dsp;
+
+import com.suricatedevlab.jsdr.IqConverter;
+import com.suricatedevlab.jsdr.SdrException;
+import com.suricatedevlab.jsdr.TunerSample;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@code Pipeline} class is a streaming signal processing chain fed by a {@link TunerSample}.
+ *
+ * <p>The raw samples delivered by the tuner are converted into complex float blocks of a fixed size, which then
+ * flow through a sequence of {@link Stage stages} before reaching a {@link Sink}. Every block and every stage
+ * output is preallocated when the pipeline is built, so no memory is allocated per block.</p>
+ *
+ * <p>Stages added with {@link Builder#then(Stage)} run on the same thread as the previous stage, which is the
+ * driver thread for the first stages. Stages added with {@link Builder#thenAsync(Stage)} start a new thread,
+ * connected to the previous one by a bounded queue of recycled blocks, so a multi-stage chain can use several
+ * cores. When the first queue is full the driver thread never waits: the incoming samples are dropped and
+ * counted by {@link #getDroppedSamples()}. The following queues apply backpressure instead.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ * try (Pipeline pipeline = Pipeline.from(tunerSample)
+ *         .blockSize(16384)
+ *         .then(new Mixer(-200_000, 2_400_000))
+ *         .thenAsync(new FirDecimator(FilterDesign.lowPass(63, 0.05), 10))
+ *         .to(block -&gt; consume(block.getData(), block.getLength()))) {
+ *     pipeline.run(0, 0);
+ * }
+ * </pre>
+ *
+ * @see TunerSample
+ * @see SignalBlock
+ */
+public final class Pipeline implements AutoCloseable {
+
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * A processing step of a {@link Pipeline}.
+     *
+     * <p>A stage reads the valid values of the input block and writes its result in the output block, setting
+     * its length and type. Both blocks are owned by the pipeline and are only valid during the call. A stage
+     * is only ever called by one thread at a time, so it may keep state between blocks (filter history,
+     * oscillator phase...).</p>
+     */
+    public interface Stage {
+
+        /**
+         * Processes a block of samples.
+         *
+         * @param input the block to process
+         * @param output the block receiving the result, with a capacity of at least
+         *        {@link #getOutputCapacity(int) getOutputCapacity(input.getCapacity())}
+         */
+        void process(SignalBlock input, SignalBlock output);
+
+        /**
+         * Returns the capacity of the output blocks needed for input blocks of the given capacity. The default
+         * implementation returns the input capacity, stages producing more values must override it.
+         *
+         * @param inputCapacity the capacity of the input blocks, in floats
+         * @return the capacity of the output blocks, in floats
+         */
+        default int getOutputCapacity(int inputCapacity) {
+            return inputCapacity;
+        }
+    }
+
+    /**
+     * The final consumer of a {@link Pipeline}.
+     */
+    public interface Sink {
+
+        /**
+         * Consumes a processed block. The block is only valid during the call.
+         *
+         * @param block the processed block
+         */
+        void accept(SignalBlock block);
+    }
+
+    private final TunerSample source;
+    private final IqConverter converter;
+    private final int blockCapacity;
+    private final Segment[] segments;
+    private final ThreadFactory threadFactory;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final List<Thread> threads = new ArrayList<>();
+
+    private SignalBlock current;
+    private long sequence;
+    private boolean cancelledOnReceive;
+    private volatile long droppedSamples;
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    private Pipeline(Builder builder, Sink sink) {
+        this.source = builder.source;
+        this.converter = builder.converter != null ? builder.converter : new IqConverter();
+        this.blockCapacity = builder.blockSize << 1;
+        this.threadFactory = builder.threadFactory != null ? builder.threadFactory : new PipelineThreadFactory();
+
+        // Split the stages into segments, each one running on its own thread
+        List<Segment> result = new ArrayList<>();
+        List<Stage> segmentStages = new ArrayList<>();
+        Exchange input = null;
+        int capacity = blockCapacity;
+        for (int i = 0; i < builder.stages.size(); i++) {
+            if (builder.async.get(i)) {
+                Exchange output = new Exchange(builder.queueDepth, capacity);
+                result.add(new Segment(segmentStages, input, output, null, input == null, blockCapacity));
+                segmentStages = new ArrayList<>();
+                input = output;
+            }
+            segmentStages.add(builder.stages.get(i));
+            capacity = builder.stages.get(i).getOutputCapacity(capacity);
+        }
+        result.add(new Segment(segmentStages, input, null, sink, input == null, blockCapacity));
+        this.segments = result.toArray(new Segment[0]);
+    }
+
+    /**
+     * Starts building a pipeline reading the samples of the given tuner.
+     *
+     * @param source the tuner providing the samples
+     * @return a pipeline builder
+     * @throws IllegalArgumentException if the source is {@code null}
+     */
+    public static Builder from(TunerSample source) {
+        if (source == null) {
+            throw new IllegalArgumentException("Source is null");
+        }
+        return new Builder(source);
+    }
+
+    /**
+     * Streams the samples of the source through the pipeline until the source stops delivering data, a stage fails
+     * or the pipeline is closed.
+     *
+     * <p>This method blocks the calling thread, which reads the source through
+     * {@link TunerSample#readAsyncDirect(TunerSample.ReadAsyncDirectCallback, int, int)}. Once the source
+     * stops, the blocks still queued are processed before the method returns. When a stage or the sink throws
+     * an exception, or when {@link #close()} is called from another thread, the read is cancelled through
+     * {@link TunerSample#cancelAsync()}, so the source must support cancellation for this method to return
+     * before the source ends. A pipeline can only be run once, and a closed pipeline does not run.</p>
+     *
+     * @param bufferNumber the number of transfer buffers of the source
+     * @param bufferSize the size of the transfer buffers of the source, in bytes
+     * @throws IllegalStateException if the pipeline was already run
+     * @throws SdrException if the source fails or if a stage throws an exception
+     */
+    public void run(int bufferNumber, int bufferSize) throws SdrException {
+        synchronized (this) {
+            if (started) {
+                throw new IllegalStateException("Pipeline already run");
+            }
+            started = true;
+        }
+        if (closed) {
+            return;
+        }
+        for (int i = 1; i < segments.length; i++) {
+            Thread thread = threadFactory.newThread(segments[i]);
+            threads.add(thread);
+            thread.start();
+        }
+        try {
+            source.readAsyncDirect(this::onReceive, bufferNumber, bufferSize);
+            if (current != null && current.getLength() > 0 && failure.get() == null && !closed) {
+                dispatch();
+            }
+        }
+        finally {
+            if (segments[0].output != null) {
+                segments[0].output.finished = true;
+            }
+            awaitThreads();
+        }
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new SdrException("Pipeline stage failed", cause);
+        }
+    }
+
+    /**
+     * Returns the number of complex samples dropped because the first asynchronous stage could not keep up.
+     *
+     * @return the number of dropped samples
+     */
+    public long getDroppedSamples() {
+        return droppedSamples;
+    }
+
+    /**
+     * Stops the pipeline: the read of the source is cancelled, so that a {@link #run(int, int)} in progress on
+     * another thread returns, and the stage threads are stopped. Blocks still queued are discarded.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        cancelSource();
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+
+    // Runs on the driver thread, fills the current block and hands it to the first segment once full
+    private void onReceive(ByteBuffer data) {
+        if (failure.get() != null || closed) {
+            // Once from the running read, in case the cancellation was requested before it started
+            if (!cancelledOnReceive) {
+                cancelledOnReceive = true;
+                cancelSource();
+            }
+            return;
+        }
+        try {
+            int limit = data.limit();
+            while (data.remaining() > 1) {
+                if (current == null && (current = segments[0].acquireSourceBlock()) == null) {
+                    droppedSamples += data.remaining() >> 1;
+                    return;
+                }
+                int offset = current.getLength();
+                int count = Math.min(data.remaining(), blockCapacity - offset) & ~1;
+                data.limit(data.position() + count);
+                converter.toFloatInterleaved(data, current.getData(), offset);
+                data.limit(limit);
+                current.setLength(offset + count);
+                if (current.getLength() == blockCapacity) {
+                    dispatch();
+                }
+            }
+        }
+        catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private void dispatch() {
+        SignalBlock block = current;
+        current = null;
+        block.setSequence(sequence++);
+        block.setComplex(true);
+        try {
+            segments[0].process(block);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fail(Throwable t) {
+        if (failure.compareAndSet(null, t)) {
+            for (Segment segment : segments) {
+                if (segment.output != null) {
+                    segment.output.finished = true;
+                }
+            }
+            cancelSource();
+        }
+    }
+
+    // Ends the read of the source, if running; a source which can not be cancelled keeps running until it ends
+    private void cancelSource() {
+        if (!started) {
+            return;
+        }
+        try {
+            source.cancelAsync();
+        }
+        catch (SdrException | RuntimeException e) {
+            Throwable current = failure.get();
+            if (current != null && current != e) {
+                current.addSuppressed(e);
+            }
+        }
+    }
+
+    private void awaitThreads() {
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            }
+            catch (InterruptedException e) {
+                close();
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Builder of {@link Pipeline} instances, obtained from {@link Pipeline#from(TunerSample)}.
+     */
+    public static final class Builder {
+
+        private final TunerSample source;
+        private final List<Stage> stages = new ArrayList<>();
+        private final List<Boolean> async = new ArrayList<>();
+        private int blockSize = 16 * 1024;
+        private int queueDepth = 4;
+        private IqConverter converter;
+        private ThreadFactory threadFactory;
+
+        private Builder(TunerSample source) {
+            this.source = source;
+        }
+
+        /**
+         * Sets the number of complex samples per block, 16384 by default.
+         *
+         * @param blockSize the number of complex samples per block
+         * @return this builder
+         * @throws IllegalArgumentException if the block size is less than or equal to 0
+         */
+        public Builder blockSize(int blockSize) {
+            if (blockSize <= 0 || blockSize > (1 << 29)) {
+                throw new IllegalArgumentException("block size must be in ]0, 2^29]");
+            }
+            this.blockSize = blockSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of blocks of each queue between asynchronous stages, 4 by default.
+         *
+         * @param queueDepth the number of blocks per queue
+         * @return this builder
+         * @throws IllegalArgumentException if the queue depth is less than or equal to 0
+         */
+        public Builder queueDepth(int queueDepth) {
+            if (queueDepth <= 0) {
+                throw new IllegalArgumentException("queue depth <= 0");
+            }
+            this.queueDepth = queueDepth;
+            return this;
+        }
+
+        /**
+         * Sets the converter turning the raw samples into complex floats, e.g. to remove the DC offset.
+         *
+         * @param converter the converter
+         * @return this builder
+         */
+        public Builder converter(IqConverter converter) {
+            this.converter = converter;
+            return this;
+        }
+
+        /**
+         * Sets the factory of the threads running asynchronous stages.
+         *
+         * @param threadFactory the thread factory
+         * @return this builder
+         */
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * Appends a stage running on the same thread as the previous stage.
+         *
+         * @param stage the stage
+         * @return this builder
+         * @throws IllegalArgumentException if the stage is {@code null}
+         */
+        public Builder then(Stage stage) {
+            return add(stage, false);
+        }
+
+        /**
+         * Appends a stage running on a new thread, connected to the previous stage by a bounded queue.
+         *
+         * @param stage the stage
+         * @return this builder
+         * @throws IllegalArgumentException if the stage is {@code null}
+         */
+        public Builder thenAsync(Stage stage) {
+            return add(stage, true);
+        }
+
+        /**
+         * Completes the pipeline with its sink. The sink runs on the thread of the last stage.
+         *
+         * @param sink the sink consuming the processed blocks
+         * @return the pipeline
+         * @throws IllegalArgumentException if the sink is {@code null}
+         */
+        public Pipeline to(Sink sink) {
+            if (sink == null) {
+                throw new IllegalArgumentException("Sink is null");
+            }
+            return new Pipeline(this, sink);
+        }
+
+        private Builder add(Stage stage, boolean runAsync) {
+            if (stage == null) {
+                throw new IllegalArgumentException("Stage is null");
+            }
+            stages.add(stage);
+            async.add(runAsync);
+            return this;
+        }
+    }
+
+    // Bounded queue of recycled blocks between two segments
+    private static final class Exchange {
+
+        private final ArrayBlockingQueue<SignalBlock> free;
+        private final ArrayBlockingQueue<SignalBlock> full;
+        private volatile boolean finished;
+
+        Exchange(int depth, int capacity) {
+            free = new ArrayBlockingQueue<>(depth);
+            full = new ArrayBlockingQueue<>(depth);
+            for (int i = 0; i < depth; i++) {
+                free.add(new SignalBlock(capacity));
+            }
+        }
+    }
+
+    // Stages running on a single thread, between two exchanges or between the source and the sink
+    private final class Segment implements Runnable {
+
+        private final Stage[] stages;
+        private final SignalBlock[] outputs;
+        private final Exchange input;
+        private final Exchange output;
+        private final Sink sink;
+        private final boolean driverThread;
+        private final SignalBlock sourceBlock;
+
+        Segment(List<Stage> stages, Exchange input, Exchange output, Sink sink, boolean driverThread, int blockCapacity) {
+            this.stages = stages.toArray(new Stage[0]);
+            this.input = input;
+            this.output = output;
+            this.sink = sink;
+            this.driverThread = driverThread;
+            this.outputs = new SignalBlock[this.stages.length];
+            int capacity = input != null ? input.free.peek().getCapacity() : blockCapacity;
+            for (int i = 0; i < this.stages.length; i++) {
+                capacity = this.stages[i].getOutputCapacity(capacity);
+                // The last stage writes directly into the blocks of the next exchange
+                if (i < this.stages.length - 1 || output == null) {
+                    outputs[i] = new SignalBlock(capacity);
+                }
+            }
+            this.sourceBlock = driverThread && (this.stages.length > 0 || output == null) ? new SignalBlock(blockCapacity) : null;
+        }
+
+        SignalBlock acquireSourceBlock() {
+            if (sourceBlock != null) {
+                sourceBlock.setLength(0);
+                return sourceBlock;
+            }
+            SignalBlock block = output.free.poll();
+            if (block != null) {
+                block.setLength(0);
+            }
+            return block;
+        }
+
+        void process(SignalBlock block) throws InterruptedException {
+            SignalBlock in = block;
+            for (int i = 0; i < stages.length; i++) {
+                SignalBlock out = outputs[i];
+                if (out == null) {
+                    out = driverThread ? output.free.poll() : output.free.take();
+                    if (out == null) {
+                        droppedSamples += in.getSampleCount();
+                        return;
+                    }
+                }
+                out.setLength(0);
+                out.setComplex(in.isComplex());
+                out.setSequence(in.getSequence());
+                stages[i].process(in, out);
+                in = out;
+            }
+            if (output != null) {
+                output.full.put(in);
+            }
+            else {
+                sink.accept(in);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (failure.get() == null) {
+                    SignalBlock block = input.full.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (block == null) {
+                        if (input.finished && input.full.isEmpty()) {
+                            break;
+                        }
+                        continue;
+                    }
+                    try {
+                        process(block);
+                    }
+                    finally {
+                        input.free.put(block);
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            catch (Throwable t) {
+                fail(t);
+            }
+            finally {
+                if (output != null) {
+                    output.finished = true;
+                }
+            }
+        }
+    }
+
+    private static final class PipelineThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger COUNTER = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jsdr-pipeline-" + COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
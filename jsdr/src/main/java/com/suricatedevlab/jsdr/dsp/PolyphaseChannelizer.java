@@ -0,0 +1,463 @@
+package com.suricatedevlab.jsdr.dsp;
+
+import com.suricatedevlab.jsdr.TunerDefinition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The {@code PolyphaseChannelizer} class splits one wideband complex capture into many narrowband channels with a
+ * critically sampled polyphase filter bank.
+ *
+ * <p>The capture bandwidth (the sample rate) is divided into {@code M = sampleRate / channelSpacing} equally
+ * spaced channels. Every {@code M} input samples, the polyphase branches of a low-pass prototype filter are
+ * evaluated once and shared by all channels, then each requested channel is extracted with a single
+ * {@code M}-point DFT bin. Each channel is delivered at a sample rate equal to the channel spacing, centered on
+ * its frequency: a channel frequency that does not fall exactly on the channel grid is corrected by a residual
+ * oscillator running at the output rate.</p>
+ *
+ * <p>Channel frequencies are absolute and are mapped to bins with the center frequency and the sample rate of the
+ * capture, typically taken from {@link TunerDefinition#getCenterFrequency()} and
+ * {@link TunerDefinition#getSampleRate()}. Large blocks are processed in parallel on a {@link ForkJoinPool}:
+ * polyphase branches are split by output time and DFT bins by channel.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ * PolyphaseChannelizer channelizer = PolyphaseChannelizer.builder(definition, 25_000)
+ *         .channel(446_006_250L)
+ *         .channel(446_018_750L)
+ *         .build((channel, samples, length) -&gt; decode(channel, samples, length));
+ * Pipeline.from(tunerSample).to(channelizer).run(0, 0);
+ * </pre>
+ *
+ * <h2>Thread Safety</h2>
+ * A channelizer keeps the filter history of the stream and must be fed by one thread at a time. The listener is
+ * always invoked by the thread calling {@link #process(float[], int, int)}.
+ *
+ * @see Pipeline
+ * @see TunerDefinition
+ */
+public final class PolyphaseChannelizer implements Pipeline.Sink {
+
+    // Below this number of multiply-accumulates per block, fork-join overhead outweighs the gain
+    private static final long PARALLEL_THRESHOLD = 1 << 18;
+
+    /**
+     * Receives the samples of the channels.
+     */
+    public interface ChannelListener {
+
+        /**
+         * Called once per processed block and channel with the new channel samples.
+         *
+         * @param channel the index of the channel, in the order the channels were added
+         * @param samples the interleaved complex samples of the channel, only valid during the call
+         * @param length the number of valid floats in {@code samples}
+         */
+        void onSamples(int channel, float[] samples, int length);
+    }
+
+    private final int branches;
+    private final int tapsPerBranch;
+    private final int outputSampleRate;
+    private final long[] channelFrequencies;
+    private final float[] branchTaps;
+    private final float[] twiddleCos;
+    private final float[] twiddleSin;
+    private final double[] residualStep;
+    private final double[] residualCos;
+    private final double[] residualSin;
+    private final ChannelListener listener;
+    private final ForkJoinPool pool;
+    private final BlockTask blockTask;
+    private final BranchTask[] branchTasks;
+    private final ChannelTask[] channelTasks;
+
+    private float[] work;
+    private float[] branchOutputs = new float[0];
+    private float[][] channelOutputs;
+    private int[] outputIndexes = new int[0];
+    private int outputCount;
+    private int phase;
+
+    private PolyphaseChannelizer(Builder builder, ChannelListener listener) {
+        this.branches = builder.sampleRate / builder.channelSpacing;
+        this.tapsPerBranch = builder.tapsPerBranch;
+        this.outputSampleRate = builder.channelSpacing;
+        this.listener = listener;
+        this.pool = builder.pool != null ? builder.pool : ForkJoinPool.commonPool();
+
+        // Branch m holds the prototype taps h[p * M + m], p = 0..P-1
+        float[] prototype = FilterDesign.lowPass(branches * tapsPerBranch, 0.5 / branches);
+        this.branchTaps = new float[prototype.length];
+        for (int m = 0; m < branches; m++) {
+            for (int p = 0; p < tapsPerBranch; p++) {
+                branchTaps[m * tapsPerBranch + p] = prototype[p * branches + m];
+            }
+        }
+
+        int channels = builder.channels.size();
+        this.channelFrequencies = new long[channels];
+        this.twiddleCos = new float[channels * branches];
+        this.twiddleSin = new float[channels * branches];
+        this.residualStep = new double[channels];
+        this.residualCos = new double[channels];
+        this.residualSin = new double[channels];
+        this.channelOutputs = new float[channels][0];
+        for (int c = 0; c < channels; c++) {
+            long frequency = builder.channels.get(c);
+            long offset = frequency - builder.centerFrequency;
+            long bin = Math.round((double) offset / builder.channelSpacing);
+            channelFrequencies[c] = frequency;
+            int k = (int) Math.floorMod(bin, (long) branches);
+            for (int m = 0; m < branches; m++) {
+                double angle = 2 * Math.PI * (((long) k * m) % branches) / branches;
+                twiddleCos[c * branches + m] = (float) Math.cos(angle);
+                twiddleSin[c * branches + m] = (float) Math.sin(angle);
+            }
+            residualStep[c] = -2 * Math.PI * (offset - bin * builder.channelSpacing) / outputSampleRate;
+            residualCos[c] = 1;
+        }
+
+        this.work = new float[(branches * tapsPerBranch - 1) << 1];
+        int parallelism = Math.max(1, pool.getParallelism());
+        this.branchTasks = new BranchTask[parallelism];
+        this.channelTasks = new ChannelTask[Math.min(parallelism, channels)];
+        for (int i = 0; i < branchTasks.length; i++) {
+            branchTasks[i] = new BranchTask();
+        }
+        for (int i = 0; i < channelTasks.length; i++) {
+            channelTasks[i] = new ChannelTask();
+        }
+        this.blockTask = new BlockTask();
+    }
+
+    /**
+     * Starts building a channelizer for a capture with the given center frequency and sample rate.
+     *
+     * @param centerFrequency the center frequency of the capture, in Hz
+     * @param sampleRate the sample rate of the capture, in samples per second (S/s)
+     * @param channelSpacing the spacing of the channels in Hz, which must divide the sample rate; it is also
+     *        the output sample rate of every channel
+     * @return a channelizer builder
+     * @throws IllegalArgumentException if the channel spacing does not divide the sample rate into at least
+     *         2 channels
+     */
+    public static Builder builder(long centerFrequency, int sampleRate, int channelSpacing) {
+        if (sampleRate <= 0 || channelSpacing <= 0 || sampleRate % channelSpacing != 0
+                || sampleRate / channelSpacing < 2) {
+            throw new IllegalArgumentException("Channel spacing must divide the sample rate into at least 2 channels");
+        }
+        return new Builder(centerFrequency, sampleRate, channelSpacing);
+    }
+
+    /**
+     * Starts building a channelizer for the current center frequency and sample rate of a tuner.
+     *
+     * @param definition the tuner providing the samples
+     * @param channelSpacing the spacing of the channels in Hz, which must divide the sample rate
+     * @return a channelizer builder
+     * @throws IllegalArgumentException if the channel spacing does not divide the sample rate into at least
+     *         2 channels
+     */
+    public static Builder builder(TunerDefinition definition, int channelSpacing) {
+        return builder(definition.getCenterFrequency(), definition.getSampleRate(), channelSpacing);
+    }
+
+    /**
+     * Returns the number of channels of the filter bank, that is the decimation factor.
+     *
+     * @return the number of filter bank channels
+     */
+    public int getBranchCount() {
+        return branches;
+    }
+
+    /**
+     * Returns the sample rate of the channel outputs, which is the channel spacing.
+     *
+     * @return the output sample rate, in samples per second (S/s)
+     */
+    public int getOutputSampleRate() {
+        return outputSampleRate;
+    }
+
+    /**
+     * Returns the number of extracted channels.
+     *
+     * @return the number of channels
+     */
+    public int getChannelCount() {
+        return channelFrequencies.length;
+    }
+
+    /**
+     * Returns the frequency of a channel.
+     *
+     * @param channel the index of the channel
+     * @return the absolute frequency of the channel, in Hz
+     */
+    public long getChannelFrequency(int channel) {
+        return channelFrequencies[channel];
+    }
+
+    /**
+     * Channelizes a block delivered by a {@link Pipeline}.
+     *
+     * @param block a complex block
+     */
+    @Override
+    public void accept(SignalBlock block) {
+        process(block.getData(), 0, block.getSampleCount());
+    }
+
+    /**
+     * Channelizes interleaved complex samples and delivers the new channel samples to the listener.
+     *
+     * @param samples the interleaved complex samples
+     * @param offset the index of the first float to read
+     * @param count the number of complex samples to read
+     * @throws IndexOutOfBoundsException if the range does not fit the array
+     */
+    public void process(float[] samples, int offset, int count) {
+        Objects.checkFromIndexSize(offset, count << 1, samples.length);
+        int delay = branches * tapsPerBranch - 1;
+        ensureCapacity(delay, count);
+        System.arraycopy(samples, offset, work, delay << 1, count << 1);
+
+        // An output is produced every M samples, using the M * P most recent samples
+        int n = delay + phase;
+        outputCount = 0;
+        for (int end = delay + count; n < end; n += branches) {
+            outputIndexes[outputCount++] = n;
+        }
+        phase = n - delay - count;
+
+        if (outputCount > 0) {
+            long operations = (long) outputCount * branches * (tapsPerBranch + channelFrequencies.length);
+            if (operations >= PARALLEL_THRESHOLD && pool.getParallelism() > 1) {
+                blockTask.reinitialize();
+                pool.invoke(blockTask);
+            }
+            else {
+                computeBranches(0, outputCount);
+                computeChannels(0, channelFrequencies.length);
+            }
+            for (int c = 0; c < channelFrequencies.length; c++) {
+                listener.onSamples(c, channelOutputs[c], outputCount << 1);
+            }
+        }
+        System.arraycopy(work, count << 1, work, 0, delay << 1);
+    }
+
+    private void ensureCapacity(int delay, int count) {
+        if (work.length < (delay + count) << 1) {
+            float[] grown = new float[(delay + count) << 1];
+            System.arraycopy(work, 0, grown, 0, delay << 1);
+            work = grown;
+        }
+        int outputs = count / branches + 1;
+        if (outputIndexes.length < outputs) {
+            outputIndexes = new int[outputs];
+            branchOutputs = new float[(outputs * branches) << 1];
+            for (int c = 0; c < channelOutputs.length; c++) {
+                channelOutputs[c] = new float[outputs << 1];
+            }
+        }
+    }
+
+    private void computeBranches(int from, int to) {
+        float[] x = work;
+        float[] taps = branchTaps;
+        float[] v = branchOutputs;
+        int stride = branches << 1;
+        for (int o = from; o < to; o++) {
+            int newest = outputIndexes[o];
+            int base = (o * branches) << 1;
+            for (int m = 0; m < branches; m++) {
+                float sumI = 0;
+                float sumQ = 0;
+                int t = m * tapsPerBranch;
+                for (int p = 0, w = (newest - m) << 1; p < tapsPerBranch; p++, w -= stride) {
+                    float tap = taps[t + p];
+                    sumI += tap * x[w];
+                    sumQ += tap * x[w + 1];
+                }
+                v[base + (m << 1)] = sumI;
+                v[base + (m << 1) + 1] = sumQ;
+            }
+        }
+    }
+
+    private void computeChannels(int from, int to) {
+        float[] v = branchOutputs;
+        for (int c = from; c < to; c++) {
+            float[] out = channelOutputs[c];
+            int t = c * branches;
+            double step = residualStep[c];
+            double rc = residualCos[c];
+            double rs = residualSin[c];
+            double stepCos = Math.cos(step);
+            double stepSin = Math.sin(step);
+            for (int o = 0; o < outputCount; o++) {
+                float sumI = 0;
+                float sumQ = 0;
+                for (int m = 0, b = (o * branches) << 1; m < branches; m++, b += 2) {
+                    float wc = twiddleCos[t + m];
+                    float ws = twiddleSin[t + m];
+                    float vi = v[b];
+                    float vq = v[b + 1];
+                    sumI += vi * wc - vq * ws;
+                    sumQ += vi * ws + vq * wc;
+                }
+                if (step != 0) {
+                    out[o << 1] = (float) (sumI * rc - sumQ * rs);
+                    out[(o << 1) + 1] = (float) (sumI * rs + sumQ * rc);
+                    double next = rc * stepCos - rs * stepSin;
+                    rs = rc * stepSin + rs * stepCos;
+                    rc = next;
+                }
+                else {
+                    out[o << 1] = sumI;
+                    out[(o << 1) + 1] = sumQ;
+                }
+            }
+            double magnitude = Math.sqrt(rc * rc + rs * rs);
+            residualCos[c] = rc / magnitude;
+            residualSin[c] = rs / magnitude;
+        }
+    }
+
+    /**
+     * Builder of {@link PolyphaseChannelizer} instances.
+     */
+    public static final class Builder {
+
+        private final long centerFrequency;
+        private final int sampleRate;
+        private final int channelSpacing;
+        private final List<Long> channels = new ArrayList<>();
+        private int tapsPerBranch = 16;
+        private ForkJoinPool pool;
+
+        private Builder(long centerFrequency, int sampleRate, int channelSpacing) {
+            this.centerFrequency = centerFrequency;
+            this.sampleRate = sampleRate;
+            this.channelSpacing = channelSpacing;
+        }
+
+        /**
+         * Adds a channel to extract.
+         *
+         * @param frequency the absolute frequency of the channel, in Hz
+         * @return this builder
+         * @throws IllegalArgumentException if the frequency is outside of the captured band
+         */
+        public Builder channel(long frequency) {
+            long offset = frequency - centerFrequency;
+            if (Math.abs(offset) > sampleRate / 2 - channelSpacing / 2) {
+                throw new IllegalArgumentException(String.format("Channel %d Hz is outside of the captured band", frequency));
+            }
+            channels.add(frequency);
+            return this;
+        }
+
+        /**
+         * Adds several channels to extract.
+         *
+         * @param frequencies the absolute frequencies of the channels, in Hz
+         * @return this builder
+         * @throws IllegalArgumentException if a frequency is outside of the captured band
+         */
+        public Builder channels(long... frequencies) {
+            Arrays.stream(frequencies).forEach(this::channel);
+            return this;
+        }
+
+        /**
+         * Sets the number of prototype filter taps per polyphase branch, 16 by default. More taps give a
+         * sharper channel filter at a proportional cost.
+         *
+         * @param tapsPerBranch the number of taps per branch
+         * @return this builder
+         * @throws IllegalArgumentException if the number of taps is less than or equal to 0
+         */
+        public Builder tapsPerBranch(int tapsPerBranch) {
+            if (tapsPerBranch <= 0) {
+                throw new IllegalArgumentException("taps per branch <= 0");
+            }
+            this.tapsPerBranch = tapsPerBranch;
+            return this;
+        }
+
+        /**
+         * Sets the pool processing large blocks in parallel, the common pool by default.
+         *
+         * @param pool the fork-join pool
+         * @return this builder
+         */
+        public Builder pool(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * Builds the channelizer.
+         *
+         * @param listener the listener receiving the channel samples
+         * @return the channelizer
+         * @throws IllegalArgumentException if the listener is {@code null} or no channel was added
+         */
+        public PolyphaseChannelizer build(ChannelListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("Listener is null");
+            }
+            if (channels.isEmpty()) {
+                throw new IllegalArgumentException("No channel");
+            }
+            return new PolyphaseChannelizer(this, listener);
+        }
+    }
+
+    // Reused for every block: splits the branches by output time, then the DFT bins by channel
+    private final class BlockTask extends RecursiveAction {
+        @Override
+        protected void compute() {
+            split(branchTasks, outputCount);
+            invokeAll(branchTasks);
+            split(channelTasks, channelFrequencies.length);
+            invokeAll(channelTasks);
+        }
+
+        private void split(RangeTask[] tasks, int total) {
+            for (int i = 0; i < tasks.length; i++) {
+                tasks[i].reinitialize();
+                tasks[i].from = (int) ((long) total * i / tasks.length);
+                tasks[i].to = (int) ((long) total * (i + 1) / tasks.length);
+            }
+        }
+    }
+
+    private abstract static class RangeTask extends RecursiveAction {
+        int from;
+        int to;
+    }
+
+    private final class BranchTask extends RangeTask {
+        @Override
+        protected void compute() {
+            computeBranches(from, to);
+        }
+    }
+
+    private final class ChannelTask extends RangeTask {
+        @Override
+        protected void compute() {
+            computeChannels(from, to);
+        }
+    }
+}
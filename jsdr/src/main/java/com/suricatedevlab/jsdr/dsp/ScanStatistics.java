@@ -0,0 +1,26 @@
+package com.suricatedevlab.jsdr.dsp;
+
+/**
+ * The {@code ScanStatistics} record is a snapshot of the activity of a {@link FrequencyScanner}.
+ *
+ * <p>A hop is one step of a sweep: retuning, discarding the settle samples and reading the dwell samples. The
+ * mean durations split the time of a hop between the device and the processing; a {@code stallNanos} growing
+ * with the sweeps means the workers can not keep up with the device and the hop rate is bound by the FFTs.</p>
+ *
+ * @param sweeps the number of sweeps delivered
+ * @param hops the number of hops read from the device
+ * @param sweepsPerSecond the sweep rate, measured on the last sweep
+ * @param hopsPerSecond the hop rate, measured on the last sweep
+ * @param lastSweepNanos the duration of the last sweep, from its first retune to its delivery, in nanoseconds
+ * @param meanRetuneNanos the mean duration of a retune, in nanoseconds
+ * @param meanSettleNanos the mean time spent discarding the settle samples, in nanoseconds
+ * @param meanDwellNanos the mean time spent reading the dwell samples, in nanoseconds
+ * @param meanProcessingNanos the mean time of a worker to turn the dwell samples into spectrum bins, in nanoseconds
+ * @param stallNanos the time the device waited for a worker, in nanoseconds
+ *
+ * @see FrequencyScanner#getStatistics()
+ */
+public record ScanStatistics(long sweeps, long hops, double sweepsPerSecond, double hopsPerSecond,
+                             long lastSweepNanos, long meanRetuneNanos, long meanSettleNanos, long meanDwellNanos,
+                             long meanProcessingNanos, long stallNanos) {
+}
@@ -0,0 +1,117 @@
+package com.suricatedevlab.jsdr.dsp;
+
+/**
+ * The {@code SignalBlock} class is a reusable block of samples flowing through a {@link Pipeline}.
+ *
+ * <p>A block wraps a preallocated {@code float[]} and the number of values currently in use. Complex blocks
+ * hold interleaved in-phase and quadrature components ({@code I0, Q0, I1, Q1, ...}), real blocks hold one
+ * value per sample (e.g. demodulated audio). Blocks are owned by the pipeline and recycled once they have
+ * been processed, so stages and sinks must not keep references to them.</p>
+ *
+ * @see Pipeline
+ */
+public final class SignalBlock {
+
+    private final float[] data;
+    private int length;
+    private boolean complex = true;
+    private long sequence;
+
+    /**
+     * Creates a complex block able to hold the given number of values.
+     *
+     * @param capacity the number of floats of the block, twice the number of complex samples
+     * @throws IllegalArgumentException if the capacity is less than or equal to 0
+     */
+    public SignalBlock(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity <= 0");
+        }
+        this.data = new float[capacity];
+    }
+
+    /**
+     * Returns the backing array of the block. Only the first {@link #getLength()} values are valid.
+     *
+     * @return the backing array
+     */
+    public float[] getData() {
+        return data;
+    }
+
+    /**
+     * Returns the number of values in use.
+     *
+     * @return the number of valid floats in {@link #getData()}
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Sets the number of values in use.
+     *
+     * @param length the number of valid floats in {@link #getData()}
+     * @throws IllegalArgumentException if the length is negative or greater than the capacity
+     */
+    public void setLength(int length) {
+        if (length < 0 || length > data.length) {
+            throw new IllegalArgumentException("length must be in [0, " + data.length + "]");
+        }
+        this.length = length;
+    }
+
+    /**
+     * Returns the number of values the block can hold.
+     *
+     * @return the capacity in floats
+     */
+    public int getCapacity() {
+        return data.length;
+    }
+
+    /**
+     * Returns whether the block holds interleaved complex samples.
+     *
+     * @return {@code true} for complex samples, {@code false} for real samples
+     */
+    public boolean isComplex() {
+        return complex;
+    }
+
+    /**
+     * Sets whether the block holds interleaved complex samples.
+     *
+     * @param complex {@code true} for complex samples, {@code false} for real samples
+     */
+    public void setComplex(boolean complex) {
+        this.complex = complex;
+    }
+
+    /**
+     * Returns the number of samples in use, that is half the length for complex blocks.
+     *
+     * @return the number of samples
+     */
+    public int getSampleCount() {
+        return complex ? length >> 1 : length;
+    }
+
+    /**
+     * Returns the sequence number of the source block this block was derived from.
+     *
+     * @return the sequence number, starting at 0
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sets the sequence number of the source block this block was derived from.
+     *
+     * @param sequence the sequence number
+     */
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+}
@@ -0,0 +1,529 @@
+package com.suricatedevlab.jsdr.dsp;
+
+import com.suricatedevlab.jsdr.IqConverter;
+import com.suricatedevlab.jsdr.TunerDefinition;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The {@code SpectrumEngine} class estimates the power spectral density of complex samples with Welch's method.
+ *
+ * <p>The samples are cut into overlapping frames of {@link #getSize()} samples, every frame is windowed and
+ * transformed with a shared {@link FftPlan}, and the power of {@link #getAverages()} consecutive frames is
+ * averaged into one spectrum. Spectra are expressed in dBFS, a full-scale complex tone reading 0 dBFS whatever
+ * the window, and ordered from the lowest to the highest frequency, so bin {@code size / 2} is the center
+ * frequency. The frequency axis is derived from the center frequency and sample rate of the tuner.</p>
+ *
+ * <p>The engine can be used in two ways:</p>
+ * <ul>
+ *     <li><b>Streaming</b>: raw samples ({@link #process(ByteBuffer)}) or complex samples
+ *     ({@link #process(float[], int, int)}, or as a {@link Pipeline.Sink}) are accumulated and a spectrum is
+ *     delivered to the {@link SpectrumListener} every {@code averages} frames.</li>
+ *     <li><b>Batch</b>: {@link #estimate(float[], int, int, float[])} averages all the frames of a block of
+ *     samples.</li>
+ * </ul>
+ *
+ * <p>When a {@link ForkJoinPool} is configured, the frames of a spectrum are transformed concurrently, each
+ * worker owning a preallocated frame buffer and power accumulator. Nothing is allocated per spectrum.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ * SpectrumEngine engine = SpectrumEngine.builder(8192)
+ *         .window(WindowFunction.BLACKMAN_HARRIS)
+ *         .overlap(0.5)
+ *         .averages(32)
+ *         .tuning(definition)
+ *         .build((spectrum, dbfs) -&gt; display(spectrum.getFrequencies(), dbfs));
+ * tunerSample.readAsyncDirect(engine::process, 0, 0);
+ * </pre>
+ *
+ * <h2>Thread Safety</h2>
+ * An engine must be fed by one thread at a time. The listener is invoked by the feeding thread.
+ *
+ * @see FftPlan
+ * @see WindowFunction
+ */
+public final class SpectrumEngine implements Pipeline.Sink {
+
+    private static final float MIN_DBFS = -200f;
+    // Below this number of frames, fork-join overhead outweighs the gain
+    private static final int PARALLEL_MIN_FRAMES = 4;
+
+    /**
+     * Receives the spectra computed in streaming mode.
+     */
+    public interface SpectrumListener {
+
+        /**
+         * Called every time a spectrum has been averaged.
+         *
+         * @param engine the engine, giving access to the frequency axis
+         * @param dbfs the power of every bin in dBFS, only valid during the call
+         */
+        void onSpectrum(SpectrumEngine engine, float[] dbfs);
+    }
+
+    private final FftPlan plan;
+    private final float[] window;
+    private final float powerScale;
+    private final int hop;
+    private final int averages;
+    private final ForkJoinPool pool;
+    private final FrameWorker[] workers;
+    private final EstimateTask estimateTask;
+    private final SpectrumListener listener;
+    private final IqConverter converter = new IqConverter();
+    private final float[] stream;
+    private final float[] spectrum;
+
+    private long centerFrequency;
+    private int sampleRate;
+    private int buffered;
+
+    private SpectrumEngine(Builder builder, SpectrumListener listener) {
+        int size = builder.size;
+        this.plan = new FftPlan(size);
+        this.window = builder.window.coefficients(size);
+        double sum = 0;
+        for (float w : window) {
+            sum += w;
+        }
+        this.powerScale = (float) (1 / (sum * sum));
+        this.hop = Math.max(1, (int) Math.round(size * (1 - builder.overlap)));
+        this.averages = builder.averages;
+        this.centerFrequency = builder.centerFrequency;
+        this.sampleRate = builder.sampleRate;
+        this.pool = builder.pool;
+        this.listener = listener;
+
+        int parallelism = pool != null ? Math.max(1, Math.min(pool.getParallelism(), averages)) : 1;
+        this.workers = new FrameWorker[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new FrameWorker(size);
+        }
+        this.estimateTask = new EstimateTask();
+        this.spectrum = new float[size];
+        this.stream = listener != null ? new float[(size + (averages - 1) * hop) << 1] : null;
+    }
+
+    /**
+     * Starts building an engine computing spectra of the given size.
+     *
+     * @param size the FFT size, a power of two between 2 and 2^24
+     * @return an engine builder
+     * @throws IllegalArgumentException if the size is not a power of two in range
+     */
+    public static Builder builder(int size) {
+        if (size < 2 || size > (1 << 24) || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two in [2, 2^24]");
+        }
+        return new Builder(size);
+    }
+
+    /**
+     * Returns the number of bins of the spectra, which is the FFT size.
+     *
+     * @return the number of bins
+     */
+    public int getSize() {
+        return plan.getSize();
+    }
+
+    /**
+     * Returns the number of samples between the start of two consecutive frames.
+     *
+     * @return the hop size, in samples
+     */
+    public int getHop() {
+        return hop;
+    }
+
+    /**
+     * Returns the number of frames averaged per spectrum in streaming mode.
+     *
+     * @return the number of averaged frames
+     */
+    public int getAverages() {
+        return averages;
+    }
+
+    /**
+     * Returns the center frequency of the spectra, the frequency of bin {@code size / 2}.
+     *
+     * @return the center frequency, in Hz
+     */
+    public long getCenterFrequency() {
+        return centerFrequency;
+    }
+
+    /**
+     * Returns the sample rate of the analysed samples.
+     *
+     * @return the sample rate, in samples per second (S/s)
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Returns the frequency width of a bin.
+     *
+     * @return the bin width, in Hz
+     */
+    public double getBinWidth() {
+        return (double) sampleRate / plan.getSize();
+    }
+
+    /**
+     * Returns the center frequency of a bin.
+     *
+     * @param bin the bin index, in {@code [0, size[}
+     * @return the frequency of the bin, in Hz
+     */
+    public double getFrequency(int bin) {
+        return centerFrequency + (bin - (plan.getSize() >> 1)) * getBinWidth();
+    }
+
+    /**
+     * Returns the frequency axis of the spectra.
+     *
+     * @return a new array with the frequency of every bin, in Hz
+     */
+    public double[] getFrequencies() {
+        double[] result = new double[plan.getSize()];
+        for (int bin = 0; bin < result.length; bin++) {
+            result[bin] = getFrequency(bin);
+        }
+        return result;
+    }
+
+    /**
+     * Changes the center frequency and sample rate used for the frequency axis, e.g. after retuning the device.
+     * Samples buffered in streaming mode are discarded.
+     *
+     * @param centerFrequency the center frequency, in Hz
+     * @param sampleRate the sample rate, in samples per second (S/s)
+     * @throws IllegalArgumentException if the sample rate is less than or equal to 0
+     */
+    public void setTuning(long centerFrequency, int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sample rate <= 0");
+        }
+        this.centerFrequency = centerFrequency;
+        this.sampleRate = sampleRate;
+        this.buffered = 0;
+    }
+
+    /**
+     * Estimates the spectrum of a block of samples, averaging all the frames it contains.
+     *
+     * @param samples the interleaved complex samples
+     * @param offset the index of the first float to read
+     * @param count the number of complex samples, at least the FFT size
+     * @param dbfs the array receiving the power of every bin in dBFS
+     * @return the number of averaged frames
+     * @throws IllegalArgumentException if there are fewer samples than the FFT size
+     * @throws IndexOutOfBoundsException if the ranges do not fit the arrays
+     */
+    public int estimate(float[] samples, int offset, int count, float[] dbfs) {
+        int size = plan.getSize();
+        if (count < size) {
+            throw new IllegalArgumentException("Not enough samples for a frame");
+        }
+        Objects.checkFromIndexSize(offset, count << 1, samples.length);
+        Objects.checkFromIndexSize(0, size, dbfs.length);
+        int frames = 1 + (count - size) / hop;
+
+        estimateTask.samples = samples;
+        estimateTask.offset = offset;
+        estimateTask.frames = frames;
+        int used = 1;
+        if (workers.length > 1 && frames >= PARALLEL_MIN_FRAMES) {
+            estimateTask.reinitialize();
+            pool.invoke(estimateTask);
+            used = workers.length;
+        }
+        else {
+            workers[0].clear();
+            workers[0].transform(samples, offset, 0, frames);
+        }
+        estimateTask.samples = null;
+
+        // Sum the partial accumulators and reorder from -fs/2 to +fs/2
+        float[] total = workers[0].power;
+        for (int w = 1; w < used; w++) {
+            float[] partial = workers[w].power;
+            for (int k = 0; k < size; k++) {
+                total[k] += partial[k];
+            }
+        }
+        float scale = powerScale / frames;
+        int half = size >> 1;
+        for (int k = 0; k < size; k++) {
+            float power = total[k] * scale;
+            float value = power > 0 ? (float) (10 * Math.log10(power)) : MIN_DBFS;
+            dbfs[(k + half) & (size - 1)] = Math.max(MIN_DBFS, value);
+        }
+        return frames;
+    }
+
+    /**
+     * Streams raw samples, as delivered by a tuner, into the engine. The position of {@code raw} is advanced
+     * past the complete I/Q pairs consumed.
+     *
+     * @param raw the interleaved unsigned 8-bit I/Q samples
+     * @throws IllegalStateException if the engine was built without a listener
+     */
+    public void process(ByteBuffer raw) {
+        requireListener();
+        int limit = raw.limit();
+        while (raw.remaining() > 1) {
+            int count = Math.min(raw.remaining() >> 1, (stream.length >> 1) - buffered);
+            raw.limit(raw.position() + (count << 1));
+            converter.toFloatInterleaved(raw, stream, buffered << 1);
+            raw.limit(limit);
+            buffered += count;
+            flushIfComplete();
+        }
+    }
+
+    /**
+     * Streams complex samples into the engine.
+     *
+     * @param samples the interleaved complex samples
+     * @param offset the index of the first float to read
+     * @param count the number of complex samples
+     * @throws IllegalStateException if the engine was built without a listener
+     * @throws IndexOutOfBoundsException if the range does not fit the array
+     */
+    public void process(float[] samples, int offset, int count) {
+        requireListener();
+        Objects.checkFromIndexSize(offset, count << 1, samples.length);
+        while (count > 0) {
+            int chunk = Math.min(count, (stream.length >> 1) - buffered);
+            System.arraycopy(samples, offset, stream, buffered << 1, chunk << 1);
+            buffered += chunk;
+            offset += chunk << 1;
+            count -= chunk;
+            flushIfComplete();
+        }
+    }
+
+    /**
+     * Streams a complex block delivered by a {@link Pipeline} into the engine.
+     *
+     * @param block a complex block
+     */
+    @Override
+    public void accept(SignalBlock block) {
+        process(block.getData(), 0, block.getSampleCount());
+    }
+
+    private void flushIfComplete() {
+        if (buffered < (stream.length >> 1)) {
+            return;
+        }
+        estimate(stream, 0, buffered, spectrum);
+        listener.onSpectrum(this, spectrum);
+        // Keep the samples overlapping with the next frame
+        int consumed = averages * hop;
+        int retained = Math.max(0, buffered - consumed);
+        System.arraycopy(stream, (buffered - retained) << 1, stream, 0, retained << 1);
+        buffered = retained;
+    }
+
+    private void requireListener() {
+        if (listener == null) {
+            throw new IllegalStateException("Engine built without a spectrum listener");
+        }
+    }
+
+    /**
+     * Builder of {@link SpectrumEngine} instances.
+     */
+    public static final class Builder {
+
+        private final int size;
+        private WindowFunction window = WindowFunction.HANN;
+        private double overlap = 0.5;
+        private int averages = 8;
+        private long centerFrequency;
+        private int sampleRate = 1;
+        private ForkJoinPool pool;
+
+        private Builder(int size) {
+            this.size = size;
+        }
+
+        /**
+         * Sets the window applied to every frame, {@link WindowFunction#HANN} by default.
+         *
+         * @param window the window function
+         * @return this builder
+         * @throws IllegalArgumentException if the window is {@code null}
+         */
+        public Builder window(WindowFunction window) {
+            if (window == null) {
+                throw new IllegalArgumentException("Window is null");
+            }
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Sets the overlap between consecutive frames, 0.5 by default.
+         *
+         * @param overlap the overlapping fraction of a frame, in {@code [0, 1[}
+         * @return this builder
+         * @throws IllegalArgumentException if the overlap is out of range
+         */
+        public Builder overlap(double overlap) {
+            if (!(overlap >= 0 && overlap < 1)) {
+                throw new IllegalArgumentException("overlap must be in [0, 1[");
+            }
+            this.overlap = overlap;
+            return this;
+        }
+
+        /**
+         * Sets the number of frames averaged per spectrum in streaming mode, 8 by default.
+         *
+         * @param averages the number of averaged frames
+         * @return this builder
+         * @throws IllegalArgumentException if the number of frames is less than or equal to 0
+         */
+        public Builder averages(int averages) {
+            if (averages <= 0) {
+                throw new IllegalArgumentException("averages <= 0");
+            }
+            this.averages = averages;
+            return this;
+        }
+
+        /**
+         * Sets the center frequency and sample rate used for the frequency axis.
+         *
+         * @param centerFrequency the center frequency, in Hz
+         * @param sampleRate the sample rate, in samples per second (S/s)
+         * @return this builder
+         * @throws IllegalArgumentException if the sample rate is less than or equal to 0
+         */
+        public Builder tuning(long centerFrequency, int sampleRate) {
+            if (sampleRate <= 0) {
+                throw new IllegalArgumentException("sample rate <= 0");
+            }
+            this.centerFrequency = centerFrequency;
+            this.sampleRate = sampleRate;
+            return this;
+        }
+
+        /**
+         * Sets the frequency axis from the current center frequency and sample rate of a tuner.
+         *
+         * @param definition the tuner providing the samples
+         * @return this builder
+         */
+        public Builder tuning(TunerDefinition definition) {
+            return tuning(definition.getCenterFrequency(), definition.getSampleRate());
+        }
+
+        /**
+         * Enables the parallel mode, transforming the frames of a spectrum concurrently on the given pool.
+         *
+         * @param pool the fork-join pool, {@code null} to transform frames sequentially
+         * @return this builder
+         */
+        public Builder parallel(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * Builds an engine for batch estimates only.
+         *
+         * @return the engine
+         */
+        public SpectrumEngine build() {
+            return new SpectrumEngine(this, null);
+        }
+
+        /**
+         * Builds an engine delivering spectra in streaming mode.
+         *
+         * @param listener the listener receiving the spectra
+         * @return the engine
+         * @throws IllegalArgumentException if the listener is {@code null}
+         */
+        public SpectrumEngine build(SpectrumListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("Listener is null");
+            }
+            return new SpectrumEngine(this, listener);
+        }
+    }
+
+    // Owns the frame buffer and the power accumulator of one worker
+    private final class FrameWorker extends RecursiveAction {
+
+        private final float[] frame;
+        private final float[] power;
+        private int from;
+        private int to;
+
+        FrameWorker(int size) {
+            this.frame = new float[size << 1];
+            this.power = new float[size];
+        }
+
+        void clear() {
+            Arrays.fill(power, 0f);
+        }
+
+        void transform(float[] samples, int offset, int fromFrame, int toFrame) {
+            int size = plan.getSize();
+            float[] w = window;
+            for (int f = fromFrame; f < toFrame; f++) {
+                int start = offset + ((f * hop) << 1);
+                for (int n = 0, s = start; n < size; n++, s += 2) {
+                    float weight = w[n];
+                    frame[n << 1] = samples[s] * weight;
+                    frame[(n << 1) + 1] = samples[s + 1] * weight;
+                }
+                plan.forward(frame, 0);
+                for (int k = 0; k < size; k++) {
+                    float re = frame[k << 1];
+                    float im = frame[(k << 1) + 1];
+                    power[k] += re * re + im * im;
+                }
+            }
+        }
+
+        @Override
+        protected void compute() {
+            clear();
+            transform(estimateTask.samples, estimateTask.offset, from, to);
+        }
+    }
+
+    // Reused for every estimate: splits the frames between the workers
+    private final class EstimateTask extends RecursiveAction {
+
+        private float[] samples;
+        private int offset;
+        private int frames;
+
+        @Override
+        protected void compute() {
+            for (int i = 0; i < workers.length; i++) {
+                workers[i].reinitialize();
+                workers[i].from = (int) ((long) frames * i / workers.length);
+                workers[i].to = (int) ((long) frames * (i + 1) / workers.length);
+            }
+            invokeAll(workers);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.suricatedevlab.jsdr.dsp;
+
+/**
+ * The {@code WindowFunction} enumeration lists the windows applied to FFT frames to control spectral leakage.
+ *
+ * <p>Windows trade frequency resolution for side-lobe suppression: {@link #RECTANGULAR} has the narrowest main
+ * lobe and the highest side lobes, {@link #BLACKMAN_HARRIS} the widest main lobe and side lobes below -92 dB.</p>
+ *
+ * @see SpectrumEngine
+ */
+public enum WindowFunction {
+
+    /**
+     * No weighting.
+     */
+    RECTANGULAR(new double[] {1}),
+
+    /**
+     * Hann window, a good default for spectrum monitoring.
+     */
+    HANN(new double[] {0.5, 0.5}),
+
+    /**
+     * Hamming window.
+     */
+    HAMMING(new double[] {0.54, 0.46}),
+
+    /**
+     * Blackman window.
+     */
+    BLACKMAN(new double[] {0.42, 0.5, 0.08}),
+
+    /**
+     * 4-term Blackman-Harris window, for a high dynamic range.
+     */
+    BLACKMAN_HARRIS(new double[] {0.35875, 0.48829, 0.14128, 0.01168});
+
+    private final double[] terms;
+
+    WindowFunction(double[] terms) {
+        this.terms = terms;
+    }
+
+    /**
+     * Computes the coefficients of a periodic window of the given size, as used for spectral analysis.
+     *
+     * @param size the number of coefficients
+     * @return the window coefficients
+     * @throws IllegalArgumentException if the size is less than or equal to 0
+     */
+    public float[] coefficients(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size <= 0");
+        }
+        float[] result = new float[size];
+        for (int n = 0; n < size; n++) {
+            double value = 0;
+            double sign = 1;
+            for (int k = 0; k < terms.length; k++) {
+                value += sign * terms[k] * Math.cos(2 * Math.PI * k * n / size);
+                sign = -sign;
+            }
+            result[n] = (float) value;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+package com.suricatedevlab.jsdr.file;
+
+import com.suricatedevlab.jsdr.Device;
+import com.suricatedevlab.jsdr.TunerDefinition;
+import com.suricatedevlab.jsdr.io.SigMfMetadata;
+
+import java.nio.file.Path;
+
+class FileDevice implements Device {
+
+    private final int index;
+    private final Path file;
+    private final SigMfMetadata metadata;
+
+    public FileDevice(int index, Path file, SigMfMetadata metadata) {
+        this.index = index;
+        this.file = file;
+        this.metadata = metadata;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public SigMfMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String getName() {
+        return file.getFileName().toString();
+    }
+
+    @Override
+    public String getManufacturer() {
+        return "jSDR";
+    }
+
+    @Override
+    public String getProduct() {
+        return "IQ file playback";
+    }
+
+    @Override
+    public String getSerial() {
+        return file.toAbsolutePath().toString();
+    }
+
+    @Override
+    public TunerDefinition getTunerDefinition() {
+        return new FileTunerDefinition(this);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release, the recording is opened by each TunerSample
+    }
+
+    @Override
+    public String toString() {
+        return "FileDevice{" +
+                "index=" + index +
+                ", file=" + file +
+                ", metadata=" + metadata +
+                '}';
+    }
+}
@@ -0,0 +1,136 @@
+package com.suricatedevlab.jsdr.file;
+
+import com.suricatedevlab.jsdr.Device;
+import com.suricatedevlab.jsdr.Driver;
+import com.suricatedevlab.jsdr.DriverIdentifier;
+import com.suricatedevlab.jsdr.SdrException;
+import com.suricatedevlab.jsdr.io.SigMfMetadata;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Driver replaying raw 8-bit IQ recordings as if they were live devices, so that processing chains can be
+ * tested and benchmarked without hardware.
+ *
+ * <p>The recordings are looked up in the files and directories listed in the {@value #PROPERTY_PATH} system
+ * property, separated by the platform path separator. Every {@code .sigmf-data}, {@code .cu8}, {@code .iq},
+ * {@code .bin} and {@code .raw} file becomes a device, ordered by path. The sample rate and center frequency of
+ * SigMF recordings are read from their metadata sidecar; other files default to the {@value #PROPERTY_SAMPLE_RATE}
+ * system property, or 2.048 MS/s.</p>
+ */
+@DriverIdentifier(FileDriver.IDENTIFIER)
+public final class FileDriver implements Driver {
+
+    /**
+     * System property listing the recordings and directories of recordings to replay.
+     */
+    public static final String PROPERTY_PATH = "jsdr.file.path";
+
+    /**
+     * System property giving the sample rate of recordings without metadata.
+     */
+    public static final String PROPERTY_SAMPLE_RATE = "jsdr.file.sample-rate";
+
+    static final String IDENTIFIER = "FILE";
+    private static final int DEFAULT_SAMPLE_RATE = 2_048_000;
+    private static final List<String> EXTENSIONS = List.of(SigMfMetadata.DATA_EXTENSION, ".cu8", ".iq", ".bin", ".raw");
+
+    @Override
+    public boolean acceptsIdentifier(String identifier) {
+        if (identifier == null || identifier.isBlank()) {
+            return false;
+        }
+        return IDENTIFIER.contentEquals(identifier);
+    }
+
+    @Override
+    public Enumeration<Device> getDevices() throws SdrException {
+        List<Path> files = new ArrayList<>();
+        String paths = System.getProperty(PROPERTY_PATH, "");
+        for (String entry : paths.split(File.pathSeparator)) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            Path path = Path.of(entry.trim());
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> children = Files.list(path)) {
+                    children.filter(Files::isRegularFile).filter(FileDriver::isRecording).forEach(files::add);
+                }
+                catch (IOException e) {
+                    throw new SdrException("Failed to list recordings in " + path, e);
+                }
+            }
+            else if (Files.isRegularFile(path)) {
+                files.add(path);
+            }
+        }
+        Collections.sort(files);
+
+        List<Device> result = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            result.add(open(i, files.get(i)));
+        }
+        return Collections.enumeration(result);
+    }
+
+    @Override
+    public Device getDevice(int index) throws SdrException {
+        Device result = null;
+        Device entry;
+        Iterator<Device> availableDevices = getDevices().asIterator();
+        while (availableDevices.hasNext()) {
+            entry = availableDevices.next();
+            if (entry.getIndex() == index) {
+                result = entry;
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Opens a recording that is not listed in the {@value #PROPERTY_PATH} system property.
+     *
+     * @param file the recording
+     * @return a device replaying the recording
+     * @throws SdrException if the recording or its metadata can not be read
+     */
+    public Device getDevice(Path file) throws SdrException {
+        return open(0, file);
+    }
+
+    private static boolean isRecording(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ENGLISH);
+        return EXTENSIONS.stream().anyMatch(name::endsWith);
+    }
+
+    private static Device open(int index, Path file) throws SdrException {
+        if (!Files.isReadable(file)) {
+            throw new SdrException("Can not read recording " + file);
+        }
+        String name = file.getFileName().toString();
+        SigMfMetadata metadata = null;
+        if (name.endsWith(SigMfMetadata.DATA_EXTENSION)) {
+            String baseName = name.substring(0, name.length() - SigMfMetadata.DATA_EXTENSION.length());
+            Path sidecar = file.resolveSibling(baseName + SigMfMetadata.META_EXTENSION);
+            if (Files.exists(sidecar)) {
+                try {
+                    metadata = SigMfMetadata.read(sidecar);
+                }
+                catch (IOException | RuntimeException e) {
+                    throw new SdrException("Failed to read metadata " + sidecar, e);
+                }
+            }
+        }
+        if (metadata == null) {
+            int sampleRate = Integer.getInteger(PROPERTY_SAMPLE_RATE, DEFAULT_SAMPLE_RATE);
+            metadata = new SigMfMetadata(sampleRate, 0L, null, null, null, null, null);
+        }
+        return new FileDevice(index, file, metadata);
+    }
+}
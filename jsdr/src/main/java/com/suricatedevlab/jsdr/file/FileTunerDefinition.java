@@ -0,0 +1,201 @@
+package com.suricatedevlab.jsdr.file;
+
+import com.suricatedevlab.jsdr.TunerDefinition;
+import com.suricatedevlab.jsdr.TunerSample;
+import com.suricatedevlab.jsdr.io.SigMfMetadata;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Map;
+
+class FileTunerDefinition implements TunerDefinition {
+
+    static final String PROPERTY_PLAYBACK_MODE = "PLAYBACK_MODE";
+    static final String PROPERTY_LOOP = "LOOP";
+
+    enum PlaybackMode {
+        // Paced at the sample rate, like a live device
+        REALTIME,
+        // Delivered as fast as the consumer reads
+        UNTHROTTLED
+    }
+
+    private final FileDevice device;
+    private long centerFrequency;
+    private int sampleRate;
+    private int correctionFrequency;
+    private int tunerGain;
+    private CrystalFrequency crystalFrequency;
+    private PlaybackMode playbackMode = PlaybackMode.REALTIME;
+    private boolean loop;
+
+    public FileTunerDefinition(FileDevice device) {
+        this.device = device;
+        SigMfMetadata metadata = device.getMetadata();
+        this.centerFrequency = metadata.centerFrequency();
+        this.sampleRate = metadata.sampleRate();
+        this.correctionFrequency = metadata.frequencyCorrection() != null ? metadata.frequencyCorrection() : 0;
+        this.tunerGain = metadata.tunerGain() != null ? metadata.tunerGain() : 0;
+        this.crystalFrequency = metadata.crystalFrequency();
+    }
+
+    public FileDevice getDevice() {
+        return device;
+    }
+
+    public PlaybackMode getPlaybackMode() {
+        return playbackMode;
+    }
+
+    public boolean isLoop() {
+        return loop;
+    }
+
+    @Override
+    public String getTunerType() {
+        String tunerType = device.getMetadata().tunerType();
+        return tunerType != null ? tunerType : "FILE";
+    }
+
+    @Override
+    public int getCorrectionFrequency() {
+        return correctionFrequency;
+    }
+
+    @Override
+    public void setCorrectionFrequency(int correctionFrequency) {
+        this.correctionFrequency = correctionFrequency;
+    }
+
+    @Override
+    public long getCenterFrequency() {
+        return centerFrequency;
+    }
+
+    @Override
+    public void setCenterFrequency(long frequency) {
+        this.centerFrequency = frequency;
+    }
+
+    @Override
+    public int[] getSupportedTunerGains() {
+        return new int[] {tunerGain};
+    }
+
+    @Override
+    public void setTunerGainMode(boolean automatic) {
+        // The gain is baked into the recording
+    }
+
+    @Override
+    public void setTunerGain(int gain) {
+        this.tunerGain = gain;
+    }
+
+    @Override
+    public int getTunerGain() {
+        return tunerGain;
+    }
+
+    @Override
+    public void setTunerIfGain(int stage, int gain) {
+        // The gain is baked into the recording
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void setSampleRate(int rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Invalid sample rate");
+        }
+        this.sampleRate = rate;
+    }
+
+    @Override
+    public void setAutomaticGainControl(boolean activate) {
+        // The gain is baked into the recording
+    }
+
+    @Override
+    public void setDirectSampling(boolean activate) {
+        // Not applicable to a recording
+    }
+
+    @Override
+    public void setCrystalFrequency(CrystalFrequency crystalFrequency) {
+        this.crystalFrequency = crystalFrequency;
+    }
+
+    @Override
+    public CrystalFrequency getCrystalFrequency() {
+        if (crystalFrequency == null) {
+            throw new IllegalArgumentException("Failed to get crystal frequency");
+        }
+        return crystalFrequency;
+    }
+
+    @Override
+    public void setBandwidth(int bandwidth) {
+        // Not applicable to a recording
+    }
+
+    @Override
+    public void setBiasTee(boolean activate) {
+        // Not applicable to a recording
+    }
+
+    @Override
+    public void setExtraProperties(Map<String, Object> properties) {
+        if (properties == null) {
+            return;
+        }
+        if (properties.containsKey(PROPERTY_PLAYBACK_MODE)) {
+            Object value = properties.get(PROPERTY_PLAYBACK_MODE);
+            try {
+                playbackMode = PlaybackMode.valueOf(String.valueOf(value).toUpperCase(Locale.ENGLISH));
+            }
+            catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Failed to set playback mode expecting REALTIME or UNTHROTTLED");
+            }
+        }
+        if (properties.containsKey(PROPERTY_LOOP)) {
+            Object value = properties.get(PROPERTY_LOOP);
+            if (value instanceof Boolean castedValue) {
+                loop = castedValue;
+            }
+            else {
+                throw new IllegalArgumentException("Failed to set loop mode expecting boolean");
+            }
+        }
+    }
+
+    @Override
+    public TunerSample tune() {
+        try {
+            return new FileTunerSample(this);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Can not open recording " + device.getFile(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        device.close();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(String.format("FREQUENCY CORRECTION = %d\n", getCorrectionFrequency()));
+        result.append(String.format("CENTER FREQUENCY = %d\n", getCenterFrequency()));
+        result.append(String.format("SAMPLE RATE = %d\n", getSampleRate()));
+        result.append(String.format("PLAYBACK MODE = %s\n", playbackMode));
+        return result.toString();
+    }
+}
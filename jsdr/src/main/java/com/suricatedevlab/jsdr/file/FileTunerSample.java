@@ -0,0 +1,231 @@
+package com.suricatedevlab.jsdr.file;
+
+import com.suricatedevlab.jsdr.SdrException;
+import com.suricatedevlab.jsdr.StreamStatistics;
+import com.suricatedevlab.jsdr.TunerSample;
+import com.suricatedevlab.jsdr.metrics.StreamMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.locks.LockSupport;
+
+class FileTunerSample implements TunerSample {
+
+    private static final int WINDOW_SIZE = 16 * 1024 * 1024;
+    // Same default transfer size as librtlsdr
+    private static final int DEFAULT_BUFFER_SIZE = 16 * 32 * 512;
+
+    private final FileTunerDefinition definition;
+    private final FileChannel channel;
+    private final long size;
+    private final StreamMetrics metrics;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private ByteBuffer[] views;
+    private long position;
+    private long delivered;
+    private long startNanos;
+    private volatile boolean closed;
+    private volatile boolean cancelled;
+
+    public FileTunerSample(FileTunerDefinition definition) throws IOException {
+        this.definition = definition;
+        this.channel = FileChannel.open(definition.getDevice().getFile(), StandardOpenOption.READ);
+        this.size = channel.size();
+        if (StreamMetrics.isEnabled()) {
+            this.metrics = new StreamMetrics(FileDriver.IDENTIFIER, definition.getDevice().getIndex());
+            this.metrics.register();
+        }
+        else {
+            this.metrics = null;
+        }
+    }
+
+    @Override
+    public byte[] readSync(int bufferSize) throws SdrException {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("buffer size <= 0");
+        }
+        byte[] result = new byte[bufferSize];
+        int read = readSync(result, 0, bufferSize);
+        if (read == 0) {
+            return null;
+        }
+        return read == bufferSize ? result : Arrays.copyOf(result, read);
+    }
+
+    @Override
+    public int readSync(ByteBuffer dst) throws SdrException {
+        if (dst == null || dst.isReadOnly() || !dst.hasRemaining()) {
+            throw new IllegalArgumentException("Destination buffer is null, read-only or full");
+        }
+        int length = available(dst.remaining());
+        if (length > 0) {
+            pace(length);
+            long start = metrics != null ? metrics.transferStarted() : 0;
+            dst.put(dst.position(), window, (int) (position - windowStart), length);
+            dst.position(dst.position() + length);
+            advance(length);
+            if (metrics != null) {
+                metrics.transferCompleted(start, length);
+            }
+        }
+        return length;
+    }
+
+    @Override
+    public int readSync(byte[] dst, int offset, int length) throws SdrException {
+        if (dst == null || length <= 0) {
+            throw new IllegalArgumentException("Destination array is null or length <= 0");
+        }
+        Objects.checkFromIndexSize(offset, length, dst.length);
+        int count = available(length);
+        if (count > 0) {
+            pace(count);
+            long start = metrics != null ? metrics.transferStarted() : 0;
+            window.get((int) (position - windowStart), dst, offset, count);
+            advance(count);
+            if (metrics != null) {
+                metrics.transferCompleted(start, count);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void readAsync(ReadAsyncCallback callback, int bufferNumber, int bufferSize) throws SdrException {
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback is null");
+        }
+        readAsyncDirect(data -> {
+            byte[] copy = new byte[data.remaining()];
+            data.get(copy);
+            callback.onReceive(copy);
+        }, bufferNumber, bufferSize);
+    }
+
+    @Override
+    public void readAsyncDirect(ReadAsyncDirectCallback callback, int bufferNumber, int bufferSize) throws SdrException {
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback is null");
+        }
+        if (bufferSize < 0) {
+            throw new IllegalArgumentException("buffer size < 0");
+        }
+        int transferSize = bufferSize == 0 ? DEFAULT_BUFFER_SIZE : bufferSize;
+        startNanos = 0;
+        window = null;
+        cancelled = false;
+        if (metrics != null) {
+            metrics.streamStarted(definition.getSampleRate());
+            // Nothing is lost when replaying, a slow consumer only slows the replay down
+            metrics.dropped(0);
+        }
+        try {
+            while (!closed && !cancelled && prepare()) {
+                // Transfers are views over the mapped window, created once per window
+                if (views == null) {
+                    int windowLength = window.capacity();
+                    views = new ByteBuffer[(windowLength + transferSize - 1) / transferSize];
+                    for (int i = 0; i < views.length; i++) {
+                        views[i] = window.slice(i * transferSize, Math.min(transferSize, windowLength - i * transferSize));
+                    }
+                }
+                ByteBuffer view = views[(int) ((position - windowStart) / transferSize)];
+                view.clear();
+                pace(view.capacity());
+                long start = metrics != null ? metrics.transferStarted() : 0;
+                callback.onReceive(view);
+                advance(view.capacity());
+                if (metrics != null) {
+                    metrics.transferCompleted(start, view.capacity());
+                }
+            }
+        }
+        catch (IOException e) {
+            if (!closed) {
+                throw new SdrException("Failed to read recording " + definition.getDevice().getFile(), e);
+            }
+        }
+        finally {
+            window = null;
+            views = null;
+        }
+    }
+
+    @Override
+    public void cancelAsync() {
+        cancelled = true;
+    }
+
+    @Override
+    public StreamStatistics getStatistics() {
+        return metrics != null ? metrics.getStatistics() : StreamStatistics.EMPTY;
+    }
+
+    @Override
+    public void close() throws Exception {
+        closed = true;
+        if (metrics != null) {
+            metrics.close();
+        }
+        channel.close();
+        definition.close();
+    }
+
+    // Maps the window containing the current position and returns the number of bytes readable from it
+    private int available(int length) throws SdrException {
+        try {
+            if (closed || !prepare()) {
+                return 0;
+            }
+        }
+        catch (IOException e) {
+            throw new SdrException("Failed to read recording " + definition.getDevice().getFile(), e);
+        }
+        return (int) Math.min(length, windowStart + window.capacity() - position);
+    }
+
+    private boolean prepare() throws IOException {
+        if (position >= size) {
+            if (!definition.isLoop() || size == 0) {
+                return false;
+            }
+            position = 0;
+        }
+        if (window == null || position < windowStart || position >= windowStart + window.capacity()) {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+            views = null;
+        }
+        return true;
+    }
+
+    private void advance(int length) {
+        position += length;
+        delivered += length;
+    }
+
+    // Waits until the given number of bytes is due at the current sample rate
+    private void pace(int length) {
+        if (definition.getPlaybackMode() != FileTunerDefinition.PlaybackMode.REALTIME) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (startNanos == 0) {
+            startNanos = now;
+            delivered = 0;
+        }
+        long due = startNanos + (long) ((delivered + length) / 2.0 / definition.getSampleRate() * 1e9);
+        while (now < due && !closed) {
+            LockSupport.parkNanos(due - now);
+            now = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package com.suricatedevlab.jsdr.io;
+
+import com.suricatedevlab.jsdr.OverflowPolicy;
+import com.suricatedevlab.jsdr.SampleRingBuffer;
+import com.suricatedevlab.jsdr.TunerDefinition;
+import com.suricatedevlab.jsdr.TunerSample;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The {@code IqRecorder} class records the raw samples of a {@link TunerSample} to disk as SigMF captures.
+ *
+ * <p>The recorder is a {@link TunerSample.ReadAsyncDirectCallback}: the driver thread only copies every
+ * transfer into an off-heap {@link SampleRingBuffer} and returns, so disk latency never blocks the device. A
+ * dedicated writer thread drains the buffer straight into memory-mapped windows of the current segment file.
+ * Segments are rotated when they reach a maximum size or a maximum duration; each rotated segment is flushed to
+ * the storage device, truncated to its actual length, and described by a SigMF metadata sidecar built from the
+ * tuner state (center frequency, sample rate, gain, frequency correction and crystal frequencies). A segment is
+ * only created once samples arrive for it, and its start time is the time of its first sample, so an idle
+ * recorder leaves no empty files behind.</p>
+ *
+ * <p>While a segment is written, it is also flushed to the storage device at a regular
+ * {@link Builder#syncInterval(Duration) interval}, which bounds the samples lost on a crash. Every flush is timed
+ * in the {@link RecorderStatistics}.</p>
+ *
+ * <p>A mapped window is flushed when it is replaced by the next one, but it stays mapped until it is garbage
+ * collected. Windows refuses to truncate or delete a file while views mapped over it are alive, so the recorder
+ * does not map the segment files there by default and writes them through a direct buffer of the same size
+ * instead, see {@link Builder#memoryMapped(boolean)}.</p>
+ *
+ * <p>Segments are named {@code <name>-<sequence>.sigmf-data} and {@code <name>-<sequence>.sigmf-meta}.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ * try (IqRecorder recorder = IqRecorder.builder(Path.of("/data/captures"), "fm")
+ *         .segmentSize(1L &lt;&lt; 30)
+ *         .segmentDuration(Duration.ofMinutes(10))
+ *         .metadata(definition)
+ *         .build()) {
+ *     tunerSample.readAsyncDirect(recorder, 0, 0);
+ * }
+ * </pre>
+ *
+ * @see SigMfMetadata
+ * @see RecorderStatistics
+ */
+public final class IqRecorder implements TunerSample.ReadAsyncDirectCallback, AutoCloseable {
+
+    private static final long POLL_MILLIS = 100;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+    private final Path directory;
+    private final String name;
+    private final long segmentSize;
+    private final long segmentNanos;
+    private final long syncNanos;
+    private final int mapSize;
+    // The buffer standing for the windows when the segment files are not mapped, null when they are
+    private final ByteBuffer staging;
+    private final SigMfMetadata metadata;
+    private final SampleRingBuffer ring;
+    private final Thread writer;
+
+    private FileChannel channel;
+    private ByteBuffer window;
+    private long windowStart;
+    // The bytes of an unmapped window already written to the file
+    private int windowWritten;
+    private long segmentLength;
+    private long segmentStartNanos;
+    private Instant segmentStart;
+    private long lastSyncEndNanos;
+    private long syncedLength;
+    private int segmentIndex = -1;
+
+    private volatile long bytesWritten;
+    private volatile int segments;
+    private volatile long lastSyncNanos;
+    private volatile long maxSyncNanos;
+    private volatile long startNanos;
+    private volatile IOException failure;
+
+    private IqRecorder(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.name = builder.name;
+        this.segmentSize = builder.segmentSize;
+        this.segmentNanos = builder.segmentDuration != null ? builder.segmentDuration.toNanos() : Long.MAX_VALUE;
+        this.syncNanos = builder.syncInterval != null ? builder.syncInterval.toNanos() : Long.MAX_VALUE;
+        this.mapSize = (int) Math.min(builder.mapSize, segmentSize);
+        this.staging = builder.memoryMapped ? null : ByteBuffer.allocateDirect(mapSize);
+        this.metadata = builder.metadata;
+        this.ring = new SampleRingBuffer(builder.bufferCapacity, builder.overflowPolicy);
+        Files.createDirectories(directory);
+        this.writer = new Thread(this::drain, "jsdr-recorder-" + name);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Starts building a recorder.
+     *
+     * @param directory the directory receiving the segments, created if needed
+     * @param name the base name of the segment files
+     * @return a recorder builder
+     * @throws IllegalArgumentException if the directory is {@code null} or the name is blank
+     */
+    public static Builder builder(Path directory, String name) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Directory is null");
+        }
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Name is blank");
+        }
+        return new Builder(directory, name);
+    }
+
+    /**
+     * Queues a transfer for writing. Called by the driver thread, never blocks unless the recorder was built
+     * with the {@link OverflowPolicy#BLOCK} policy.
+     *
+     * @param data the received raw signal samples
+     */
+    @Override
+    public void onReceive(ByteBuffer data) {
+        if (startNanos == 0) {
+            startNanos = System.nanoTime();
+        }
+        ring.offer(data);
+    }
+
+    /**
+     * Returns a snapshot of the recorder activity.
+     *
+     * @return the recorder statistics
+     */
+    public RecorderStatistics getStatistics() {
+        long start = startNanos;
+        long written = bytesWritten;
+        double seconds = start == 0 ? 0 : (System.nanoTime() - start) / 1e9;
+        double throughput = seconds > 0 ? written / seconds / 1e6 : 0;
+        return new RecorderStatistics(written, segments, throughput, lastSyncNanos, maxSyncNanos,
+                ring.getDroppedBytes(), ring.getHighWaterMark());
+    }
+
+    /**
+     * Stops recording: the buffered samples are written, the current segment is completed and the writer
+     * thread terminates.
+     *
+     * @throws IOException if a segment could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        ring.close();
+        try {
+            writer.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                if (channel == null) {
+                    // The next segment is only created once there are samples to write into it
+                    boolean closed = ring.isClosed();
+                    if (ring.available() == 0) {
+                        if (closed) {
+                            break;
+                        }
+                        if (Thread.interrupted()) {
+                            throw new InterruptedException();
+                        }
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                        continue;
+                    }
+                    openSegment();
+                }
+                if (!window.hasRemaining()) {
+                    nextWindow();
+                }
+                int read = ring.read(window, POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (read < 0) {
+                    break;
+                }
+                long now = System.nanoTime();
+                if (read > 0) {
+                    if (segmentLength == 0) {
+                        segmentStartNanos = now;
+                        segmentStart = Instant.now();
+                    }
+                    segmentLength += read;
+                    bytesWritten += read;
+                }
+                if (segmentLength >= segmentSize || (segmentLength > 0 && now - segmentStartNanos >= segmentNanos)) {
+                    completeSegment();
+                }
+                else if (segmentLength > syncedLength && now - lastSyncEndNanos >= syncNanos) {
+                    sync();
+                }
+            }
+            completeSegment();
+        }
+        catch (IOException e) {
+            failure = e;
+            ring.close();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        segmentIndex++;
+        segments = segmentIndex + 1;
+        channel = FileChannel.open(segmentPath(SigMfMetadata.DATA_EXTENSION), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        windowStart = 0;
+        segmentLength = 0;
+        syncedLength = 0;
+        lastSyncEndNanos = System.nanoTime();
+        window = map();
+    }
+
+    private void nextWindow() throws IOException {
+        // A replaced window stays mapped until it is garbage collected, its samples are flushed now
+        flushWindow();
+        windowStart += window.limit();
+        window = map();
+    }
+
+    private ByteBuffer map() throws IOException {
+        int size = (int) Math.min(mapSize, segmentSize - windowStart);
+        if (staging != null) {
+            windowWritten = 0;
+            return staging.clear().limit(size);
+        }
+        return channel.map(FileChannel.MapMode.READ_WRITE, windowStart, size);
+    }
+
+    // Writes the samples of the current window to the storage device
+    private void flushWindow() throws IOException {
+        if (staging == null) {
+            ((MappedByteBuffer) window).force();
+            return;
+        }
+        int end = window.position();
+        int limit = window.limit();
+        window.position(windowWritten).limit(end);
+        while (window.hasRemaining()) {
+            channel.write(window, windowStart + window.position());
+        }
+        window.limit(limit);
+        windowWritten = end;
+    }
+
+    // Flushes the samples written so far to the storage device, timing the flush
+    private void sync() throws IOException {
+        long start = System.nanoTime();
+        // The windows written earlier in the segment were flushed when they were replaced
+        flushWindow();
+        channel.force(false);
+        long end = System.nanoTime();
+        lastSyncNanos = end - start;
+        maxSyncNanos = Math.max(maxSyncNanos, lastSyncNanos);
+        lastSyncEndNanos = end;
+        syncedLength = segmentLength;
+    }
+
+    private void completeSegment() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        Path data = segmentPath(SigMfMetadata.DATA_EXTENSION);
+        if (segmentLength > syncedLength) {
+            sync();
+        }
+        // The mapped windows are released by the garbage collector, the file is truncated while they may still be
+        // alive, which only Windows refuses
+        window = null;
+        channel.truncate(segmentLength);
+        channel.close();
+        channel = null;
+        if (segmentLength == 0) {
+            // The samples that opened the segment were dropped before they could be read, its index is reused
+            Files.deleteIfExists(data);
+            segmentIndex--;
+            segments = segmentIndex + 1;
+            return;
+        }
+        if (metadata != null) {
+            metadata.withStart(segmentStart).write(segmentPath(SigMfMetadata.META_EXTENSION));
+        }
+    }
+
+    private Path segmentPath(String extension) {
+        return directory.resolve(String.format("%s-%04d%s", name, segmentIndex, extension));
+    }
+
+    /**
+     * Builder of {@link IqRecorder} instances.
+     */
+    public static final class Builder {
+
+        private final Path directory;
+        private final String name;
+        private long segmentSize = 1L << 30;
+        private Duration segmentDuration;
+        private Duration syncInterval = Duration.ofSeconds(1);
+        private int mapSize = 64 * 1024 * 1024;
+        private boolean memoryMapped = !WINDOWS;
+        private int bufferCapacity = 32 * 1024 * 1024;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+        private SigMfMetadata metadata;
+
+        private Builder(Path directory, String name) {
+            this.directory = directory;
+            this.name = name;
+        }
+
+        /**
+         * Sets the maximum size of a segment, 1 GiB by default.
+         *
+         * @param segmentSize the maximum size of a segment, in bytes
+         * @return this builder
+         * @throws IllegalArgumentException if the size is less than or equal to 0
+         */
+        public Builder segmentSize(long segmentSize) {
+            if (segmentSize <= 0) {
+                throw new IllegalArgumentException("segment size <= 0");
+            }
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum duration of a segment, unlimited by default.
+         *
+         * @param segmentDuration the maximum duration of a segment, {@code null} for no limit
+         * @return this builder
+         * @throws IllegalArgumentException if the duration is zero or negative
+         */
+        public Builder segmentDuration(Duration segmentDuration) {
+            if (segmentDuration != null && (segmentDuration.isZero() || segmentDuration.isNegative())) {
+                throw new IllegalArgumentException("segment duration <= 0");
+            }
+            this.segmentDuration = segmentDuration;
+            return this;
+        }
+
+        /**
+         * Sets how often the segment being written is flushed to the storage device, every second by default.
+         * Segments are always flushed when they are completed.
+         *
+         * @param syncInterval the time between two flushes, {@code null} to only flush completed segments
+         * @return this builder
+         * @throws IllegalArgumentException if the interval is zero or negative
+         */
+        public Builder syncInterval(Duration syncInterval) {
+            if (syncInterval != null && (syncInterval.isZero() || syncInterval.isNegative())) {
+                throw new IllegalArgumentException("sync interval <= 0");
+            }
+            this.syncInterval = syncInterval;
+            return this;
+        }
+
+        /**
+         * Sets the size of the windows of the segment files, mapped or buffered, 64 MiB by default.
+         *
+         * @param mapSize the size of a window, in bytes
+         * @return this builder
+         * @throws IllegalArgumentException if the size is less than or equal to 0
+         */
+        public Builder mapSize(int mapSize) {
+            if (mapSize <= 0) {
+                throw new IllegalArgumentException("map size <= 0");
+            }
+            this.mapSize = mapSize;
+            return this;
+        }
+
+        /**
+         * Sets whether the segment files are written through memory-mapped windows, which is the default except on
+         * Windows. There, a segment file can not be truncated to its length or deleted once completed while the
+         * windows mapped over it are not garbage collected yet, so the segments are written through the file
+         * channel from a direct buffer of the {@link #mapSize(int) window size} instead.
+         *
+         * @param memoryMapped {@code true} to map the segment files, {@code false} to write them through the channel
+         * @return this builder
+         */
+        public Builder memoryMapped(boolean memoryMapped) {
+            this.memoryMapped = memoryMapped;
+            return this;
+        }
+
+        /**
+         * Sets the capacity of the buffer between the capture and the writer thread, 32 MiB by default.
+         *
+         * @param bufferCapacity the buffer capacity, in bytes
+         * @return this builder
+         */
+        public Builder bufferCapacity(int bufferCapacity) {
+            this.bufferCapacity = bufferCapacity;
+            return this;
+        }
+
+        /**
+         * Sets what happens when the writer can not keep up with the capture,
+         * {@link OverflowPolicy#DROP_NEWEST} by default.
+         *
+         * @param overflowPolicy the overflow policy
+         * @return this builder
+         */
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * Writes a SigMF metadata sidecar for every segment, with the current state of the tuner.
+         *
+         * @param definition the tuner providing the samples
+         * @return this builder
+         */
+        public Builder metadata(TunerDefinition definition) {
+            return metadata(SigMfMetadata.of(definition));
+        }
+
+        /**
+         * Writes a SigMF metadata sidecar for every segment.
+         *
+         * @param metadata the capture metadata, {@code null} to write no sidecar
+         * @return this builder
+         */
+        public Builder metadata(SigMfMetadata metadata) {
+            this.metadata = metadata;
+            return this;
+        }
+
+        /**
+         * Builds the recorder and starts its writer thread.
+         *
+         * @return the recorder
+         * @throws IOException if the directory can not be created
+         */
+        public IqRecorder build() throws IOException {
+            return new IqRecorder(this);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.suricatedevlab.jsdr.io;
+
+/**
+ * The {@code RecorderStatistics} record is a snapshot of the activity of an {@link IqRecorder}.
+ *
+ * @param bytesWritten the number of sample bytes written to disk
+ * @param segments the number of segments created, including the current one
+ * @param throughput the sustained write rate since the recorder started, in MB/s (10^6 bytes per second)
+ * @param lastSyncNanos the duration of the last flush to the storage device, periodic or completing a segment,
+ *                      in nanoseconds
+ * @param maxSyncNanos the longest flush to the storage device, in nanoseconds
+ * @param droppedBytes the number of bytes dropped because the writer could not keep up with the capture
+ * @param bufferHighWaterMark the highest number of bytes waiting in the capture buffer
+ *
+ * @see IqRecorder#getStatistics()
+ */
+public record RecorderStatistics(long bytesWritten, int segments, double throughput, long lastSyncNanos,
+                                 long maxSyncNanos, long droppedBytes, long bufferHighWaterMark) {
+}
@@ -0,0 +1,178 @@
+package com.suricatedevlab.jsdr.io;
+
+import com.suricatedevlab.jsdr.TunerDefinition;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The {@code SigMfMetadata} record holds the tuner state describing a raw IQ capture, and reads and writes it
+ * as a <a href="https://sigmf.org">SigMF</a> metadata file.
+ *
+ * <p>Captures are stored as {@code cu8} (interleaved unsigned 8-bit I/Q), the native format of the RTL-SDR
+ * dongles. The core SigMF fields hold the sample rate, the center frequency, the capture start time and the
+ * tuner type; the gain, frequency correction and crystal frequencies are stored in the {@code jsdr}
+ * extension namespace. Values that could not be read from the tuner are omitted.</p>
+ *
+ * @param sampleRate the sample rate, in samples per second (S/s)
+ * @param centerFrequency the center frequency, in Hz
+ * @param tunerType the tuner type, or {@code null} if unknown
+ * @param tunerGain the tuner gain in tenths of dB, or {@code null} if unknown
+ * @param frequencyCorrection the frequency correction in PPM, or {@code null} if unknown
+ * @param crystalFrequency the crystal frequencies, or {@code null} if unknown
+ * @param start the time of the first sample, or {@code null} if unknown
+ *
+ * @see IqRecorder
+ */
+public record SigMfMetadata(int sampleRate, long centerFrequency, String tunerType, Integer tunerGain,
+                            Integer frequencyCorrection, TunerDefinition.CrystalFrequency crystalFrequency,
+                            Instant start) {
+
+    /**
+     * The extension of SigMF data files.
+     */
+    public static final String DATA_EXTENSION = ".sigmf-data";
+
+    /**
+     * The extension of SigMF metadata files.
+     */
+    public static final String META_EXTENSION = ".sigmf-meta";
+
+    /**
+     * The SigMF data type of raw RTL-SDR samples.
+     */
+    public static final String DATATYPE = "cu8";
+
+    /**
+     * Takes a snapshot of the current state of a tuner. Settings the tuner fails to report are left unknown.
+     *
+     * @param definition the tuner
+     * @return the metadata, without start time
+     */
+    public static SigMfMetadata of(TunerDefinition definition) {
+        return new SigMfMetadata(definition.getSampleRate(), definition.getCenterFrequency(),
+                query(definition::getTunerType), query(definition::getTunerGain),
+                query(definition::getCorrectionFrequency), query(definition::getCrystalFrequency), null);
+    }
+
+    /**
+     * Returns a copy of this metadata with the given start time.
+     *
+     * @param start the time of the first sample
+     * @return the metadata with the start time
+     */
+    public SigMfMetadata withStart(Instant start) {
+        return new SigMfMetadata(sampleRate, centerFrequency, tunerType, tunerGain, frequencyCorrection,
+                crystalFrequency, start);
+    }
+
+    /**
+     * Returns the SigMF JSON document of this metadata.
+     *
+     * @return the JSON document
+     */
+    public String toJson() {
+        StringBuilder result = new StringBuilder(512);
+        result.append("{\n  \"global\": {\n");
+        result.append("    \"core:datatype\": \"").append(DATATYPE).append("\",\n");
+        result.append("    \"core:sample_rate\": ").append(sampleRate).append(",\n");
+        result.append("    \"core:version\": \"1.0.0\",\n");
+        result.append("    \"core:recorder\": \"jSDR\",\n");
+        if (tunerType != null) {
+            result.append("    \"core:hw\": \"").append(escape(tunerType)).append("\",\n");
+        }
+        if (tunerGain != null) {
+            result.append("    \"jsdr:tuner_gain\": ").append(tunerGain).append(",\n");
+        }
+        if (frequencyCorrection != null) {
+            result.append("    \"jsdr:frequency_correction\": ").append(frequencyCorrection).append(",\n");
+        }
+        if (crystalFrequency != null) {
+            result.append("    \"jsdr:rtl_xtal_frequency\": ").append(crystalFrequency.rtlFrequency()).append(",\n");
+            result.append("    \"jsdr:tuner_xtal_frequency\": ").append(crystalFrequency.tunerFrequency()).append(",\n");
+        }
+        result.append("    \"core:extensions\": [{\"name\": \"jsdr\", \"version\": \"1.0.0\", \"optional\": true}]\n");
+        result.append("  },\n  \"captures\": [\n    {\n");
+        result.append("      \"core:sample_start\": 0,\n");
+        if (start != null) {
+            result.append("      \"core:datetime\": \"").append(start).append("\",\n");
+        }
+        result.append("      \"core:frequency\": ").append(centerFrequency).append("\n");
+        result.append("    }\n  ],\n  \"annotations\": []\n}\n");
+        return result.toString();
+    }
+
+    /**
+     * Writes the SigMF metadata file.
+     *
+     * @param path the metadata file
+     * @throws IOException if the file can not be written
+     */
+    public void write(Path path) throws IOException {
+        Files.writeString(path, toJson(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a SigMF metadata file. Only the fields written by {@link #toJson()} are read, other fields are
+     * ignored.
+     *
+     * @param path the metadata file
+     * @return the metadata
+     * @throws IOException if the file can not be read, or if it does not describe a {@code cu8} capture with a
+     *         sample rate
+     */
+    public static SigMfMetadata read(Path path) throws IOException {
+        String json = Files.readString(path, StandardCharsets.UTF_8);
+        String datatype = stringField(json, "core:datatype");
+        if (datatype != null && !DATATYPE.equals(datatype.toLowerCase(Locale.ENGLISH))) {
+            throw new IOException(String.format("Unsupported SigMF datatype %s, only %s is supported", datatype, DATATYPE));
+        }
+        Long sampleRate = numberField(json, "core:sample_rate");
+        if (sampleRate == null) {
+            throw new IOException("Missing core:sample_rate in " + path);
+        }
+        Long frequency = numberField(json, "core:frequency");
+        Long gain = numberField(json, "jsdr:tuner_gain");
+        Long correction = numberField(json, "jsdr:frequency_correction");
+        Long rtlXtal = numberField(json, "jsdr:rtl_xtal_frequency");
+        Long tunerXtal = numberField(json, "jsdr:tuner_xtal_frequency");
+        String datetime = stringField(json, "core:datetime");
+        return new SigMfMetadata(sampleRate.intValue(), frequency != null ? frequency : 0L,
+                stringField(json, "core:hw"),
+                gain != null ? gain.intValue() : null,
+                correction != null ? correction.intValue() : null,
+                rtlXtal != null && tunerXtal != null
+                        ? new TunerDefinition.CrystalFrequency(rtlXtal.intValue(), tunerXtal.intValue()) : null,
+                datetime != null ? Instant.parse(datetime) : null);
+    }
+
+    private static Long numberField(String json, String name) {
+        Matcher matcher = Pattern.compile("\"" + Pattern.quote(name) + "\"\\s*:\\s*(-?[0-9]+(?:\\.[0-9]+)?(?:[eE][+-]?[0-9]+)?)").matcher(json);
+        return matcher.find() ? (long) Double.parseDouble(matcher.group(1)) : null;
+    }
+
+    private static String stringField(String json, String name) {
+        Matcher matcher = Pattern.compile("\"" + Pattern.quote(name) + "\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"").matcher(json);
+        return matcher.find() ? matcher.group(1).replace("\\\"", "\"").replace("\\\\", "\\") : null;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static <T> T query(Supplier<T> getter) {
+        try {
+            return getter.get();
+        }
+        catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.suricatedevlab.jsdr.metrics;
+
+import jdk.jfr.*;
+
+@Name("com.suricatedevlab.jsdr.NativeCall")
+@Label("SDR Native Call")
+@Description("Call to a function of a native driver library")
+@Category({"jSDR", "Native"})
+@Enabled(false)
+@StackTrace(false)
+class NativeCallEvent extends Event {
+
+    @Label("Driver")
+    String driver;
+
+    @Label("Device")
+    int device;
+
+    @Label("Function")
+    String function;
+
+    @Label("Latency")
+    @Timespan
+    long latency;
+}
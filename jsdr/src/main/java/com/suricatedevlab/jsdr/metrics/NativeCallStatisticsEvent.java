@@ -0,0 +1,32 @@
+package com.suricatedevlab.jsdr.metrics;
+
+import jdk.jfr.*;
+
+@Name("com.suricatedevlab.jsdr.NativeCallStatistics")
+@Label("SDR Native Call Statistics")
+@Description("Periodic snapshot of the latency of a native function of an open device")
+@Category({"jSDR", "Native"})
+@Period("1 s")
+@StackTrace(false)
+class NativeCallStatisticsEvent extends Event {
+
+    @Label("Driver")
+    String driver;
+
+    @Label("Device")
+    int device;
+
+    @Label("Function")
+    String function;
+
+    @Label("Calls")
+    long calls;
+
+    @Label("Mean Latency")
+    @Timespan
+    long meanNanos;
+
+    @Label("Max Latency")
+    @Timespan
+    long maxNanos;
+}
@@ -0,0 +1,500 @@
+package com.suricatedevlab.jsdr.metrics;
+
+import com.suricatedevlab.jsdr.NativeCallStatistics;
+import com.suricatedevlab.jsdr.StreamStatistics;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Metrics of the sample stream of one open device, recorded by the drivers and published as
+ * {@link StreamStatistics}, as a {@link StreamMetricsMXBean} and as JDK Flight Recorder events.
+ *
+ * <p>A transfer is recorded with {@link #transferStarted()} and {@link #transferCompleted(long, int)}, and a
+ * native call with {@link #nativeCallStarted()} and the {@link NativeCall} counter of its function. Both cost a
+ * couple of {@link System#nanoTime()} reads and a few lock-free counter updates, without allocating, so the metrics
+ * can stay on at full sample rate; the {@value #PROPERTY_ENABLED} system property turns them off for the drivers
+ * honoring it.</p>
+ *
+ * <p>While registered, the metrics are exposed through JMX and emitted every second as
+ * {@code com.suricatedevlab.jsdr.StreamStatistics} and {@code com.suricatedevlab.jsdr.NativeCallStatistics}
+ * Flight Recorder events. The per transfer {@code com.suricatedevlab.jsdr.Transfer} and per call
+ * {@code com.suricatedevlab.jsdr.NativeCall} events are disabled by default, being recorded at the transfer and
+ * call rates.</p>
+ */
+public final class StreamMetrics implements StreamMetricsMXBean, AutoCloseable {
+
+    /**
+     * System property turning the metrics of the drivers off when set to {@code false}.
+     */
+    public static final String PROPERTY_ENABLED = "jsdr.metrics.enabled";
+
+    private static final String DOMAIN = "com.suricatedevlab.jsdr";
+    private static final long RATE_WINDOW_NANOS = 1_000_000_000L;
+    private static final int JITTER_SMOOTHING = 16;
+    private static final Set<StreamMetrics> REGISTERED = new CopyOnWriteArraySet<>();
+    private static final EventType TRANSFER_EVENT = EventType.getEventType(TransferEvent.class);
+    private static final EventType NATIVE_CALL_EVENT = EventType.getEventType(NativeCallEvent.class);
+
+    static {
+        FlightRecorder.addPeriodicEvent(StreamStatisticsEvent.class, StreamMetrics::emitStreamStatistics);
+        FlightRecorder.addPeriodicEvent(NativeCallStatisticsEvent.class, StreamMetrics::emitNativeCallStatistics);
+    }
+
+    private final String driver;
+    private final int device;
+    private final Map<String, NativeCall> nativeCalls = new ConcurrentHashMap<>();
+    private final Function<String, NativeCall> nativeCallFactory = NativeCall::new;
+    private ObjectName objectName;
+
+    // Transfer metrics, updated without locking by the thread delivering the transfers and read from any thread
+    private final AtomicLongArray histogram = new AtomicLongArray(StreamStatistics.HISTOGRAM_BUCKETS);
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder transfers = new LongAdder();
+    private final AtomicLong maxTransferNanos = new AtomicLong();
+    private final LongAdder reportedDroppedSamples = new LongAdder();
+    private volatile double jitter;
+    private volatile double bytesPerSecond;
+    private volatile double transfersPerSecond;
+    private volatile long estimatedDroppedSamples;
+    private volatile boolean dropsReported;
+    private volatile int sampleRate;
+    private volatile boolean streamRestarted;
+
+    // Estimator state, only touched by the delivering thread: the transfers of a stream complete one at a time
+    private long deliveredBytes;
+    private long deliveredTransfers;
+    private long lastTransferNanos;
+    private long lastInterval;
+    private double smoothedJitter;
+    private long windowStartNanos;
+    private long windowBytes;
+    private long windowTransfers;
+    private long firstTransferNanos;
+    private long firstTransferBytes;
+    private long droppedEstimate;
+
+    /**
+     * Creates the metrics of a device, not registered yet.
+     *
+     * @param driver the identifier of the driver
+     * @param device the index of the device
+     */
+    public StreamMetrics(String driver, int device) {
+        this.driver = driver;
+        this.device = device;
+    }
+
+    /**
+     * @return {@code false} if the {@value #PROPERTY_ENABLED} system property turns the metrics off
+     */
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(PROPERTY_ENABLED));
+    }
+
+    /**
+     * Exposes the metrics through JMX and Flight Recorder. A registration of the same device replaces the previous
+     * one.
+     *
+     * @throws IllegalStateException if the MBean can not be registered
+     */
+    public synchronized void register() {
+        if (objectName != null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=StreamMetrics,driver=" + ObjectName.quote(driver)
+                    + ",device=" + device);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            objectName = name;
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Can not register metrics of device " + driver + " #" + device, e);
+        }
+        REGISTERED.add(this);
+    }
+
+    /**
+     * Removes the metrics from JMX and Flight Recorder.
+     */
+    @Override
+    public synchronized void close() {
+        REGISTERED.remove(this);
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        }
+        catch (InstanceNotFoundException e) {
+            // Replaced by a later registration of the same device
+        }
+        catch (MBeanRegistrationException e) {
+            throw new IllegalStateException("Can not unregister metrics of device " + driver + " #" + device, e);
+        }
+        objectName = null;
+    }
+
+    /**
+     * Starts a new stream: the rates, jitter and drop estimation restart while the totals keep growing.
+     *
+     * @param sampleRate the sample rate of the stream, used to estimate the dropped samples
+     */
+    public void streamStarted(int sampleRate) {
+        this.sampleRate = sampleRate;
+        jitter = 0;
+        estimatedDroppedSamples = 0;
+        // Seen by the delivering thread on the next transfer, which resets its estimators
+        streamRestarted = true;
+    }
+
+    /**
+     * Records samples lost by the stream, when the driver knows them. Once called, the reported losses replace
+     * the estimation from the sample rate.
+     *
+     * @param samples the number of lost samples
+     */
+    public void dropped(long samples) {
+        reportedDroppedSamples.add(samples);
+        dropsReported = true;
+    }
+
+    /**
+     * @return the start time to give to {@link #transferCompleted(long, int)}
+     */
+    public long transferStarted() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a transfer once handled by the consumer. The transfers of a stream are recorded by one thread at a
+     * time, as they are delivered.
+     *
+     * @param startNanos the value returned by {@link #transferStarted()}
+     * @param length the number of bytes delivered
+     */
+    public void transferCompleted(long startNanos, int length) {
+        long now = System.nanoTime();
+        long duration = now - startNanos;
+        if (streamRestarted) {
+            streamRestarted = false;
+            lastTransferNanos = 0;
+            lastInterval = 0;
+            smoothedJitter = 0;
+            windowStartNanos = 0;
+            firstTransferNanos = 0;
+            droppedEstimate = 0;
+        }
+
+        long interval = lastTransferNanos == 0 ? 0 : startNanos - lastTransferNanos;
+        if (lastTransferNanos != 0) {
+            // Interarrival jitter estimator of RFC 3550
+            if (lastInterval != 0) {
+                smoothedJitter += (Math.abs(interval - lastInterval) - smoothedJitter) / JITTER_SMOOTHING;
+                jitter = smoothedJitter;
+            }
+            lastInterval = interval;
+        }
+        lastTransferNanos = startNanos;
+
+        bytes.add(length);
+        transfers.increment();
+        histogram.incrementAndGet(bucket(duration));
+        updateMax(maxTransferNanos, duration);
+        deliveredBytes += length;
+        deliveredTransfers++;
+
+        if (windowStartNanos == 0) {
+            windowStartNanos = startNanos;
+            windowBytes = deliveredBytes - length;
+            windowTransfers = deliveredTransfers - 1;
+        }
+        else if (now - windowStartNanos >= RATE_WINDOW_NANOS) {
+            double elapsed = (now - windowStartNanos) / 1e9;
+            bytesPerSecond = (deliveredBytes - windowBytes) / elapsed;
+            transfersPerSecond = (deliveredTransfers - windowTransfers) / elapsed;
+            windowStartNanos = now;
+            windowBytes = deliveredBytes;
+            windowTransfers = deliveredTransfers;
+        }
+
+        // Samples the device produced since the first transfer but that were never delivered
+        if (firstTransferNanos == 0) {
+            firstTransferNanos = startNanos;
+            firstTransferBytes = deliveredBytes;
+        }
+        else if (sampleRate > 0) {
+            double expected = (startNanos - firstTransferNanos) / 1e9 * sampleRate;
+            long delivered = (deliveredBytes - length - firstTransferBytes) >> 1;
+            long dropped = (long) expected - delivered - (length >> 1);
+            if (dropped > droppedEstimate) {
+                droppedEstimate = dropped;
+                estimatedDroppedSamples = dropped;
+            }
+        }
+
+        // The per transfer event is disabled by default, it is only allocated while a recording enables it
+        if (TRANSFER_EVENT.isEnabled()) {
+            TransferEvent event = new TransferEvent();
+            if (event.shouldCommit()) {
+                event.driver = driver;
+                event.device = device;
+                event.bytes = length;
+                event.handlingTime = duration;
+                event.interval = interval;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * @return the start time to give to {@link #nativeCallCompleted(String, long)} or {@link NativeCall#completed(long)}
+     */
+    public long nativeCallStarted() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a call to a native function. Callers timing the same function repeatedly should resolve its
+     * {@link #nativeCall(String) counter} once instead.
+     *
+     * @param function the name of the function
+     * @param startNanos the value returned by {@link #nativeCallStarted()}
+     */
+    public void nativeCallCompleted(String function, long startNanos) {
+        nativeCall(function).completed(startNanos);
+    }
+
+    /**
+     * Returns the counter of the calls to a native function, created on first use.
+     *
+     * @param function the name of the function
+     * @return the counter recording the calls to {@code function}
+     */
+    public NativeCall nativeCall(String function) {
+        return nativeCalls.computeIfAbsent(function, nativeCallFactory);
+    }
+
+    /**
+     * @return a snapshot of the metrics
+     */
+    public StreamStatistics getStatistics() {
+        Map<String, NativeCallStatistics> calls = new TreeMap<>();
+        nativeCalls.forEach((function, call) -> {
+            if (call.isCalled()) {
+                calls.put(function, call.snapshot());
+            }
+        });
+        return new StreamStatistics(bytes.sum(), transfers.sum(), bytesPerSecond, transfersPerSecond,
+                getTransferDurationHistogram(), maxTransferNanos.get(), (long) jitter, getDroppedSamples(), calls);
+    }
+
+    @Override
+    public String getDriver() {
+        return driver;
+    }
+
+    @Override
+    public int getDevice() {
+        return device;
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getTransfers() {
+        return transfers.sum();
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    @Override
+    public double getTransfersPerSecond() {
+        return transfersPerSecond;
+    }
+
+    @Override
+    public long[] getTransferDurationHistogram() {
+        long[] counts = new long[histogram.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = histogram.get(i);
+        }
+        return counts;
+    }
+
+    @Override
+    public long getMaxTransferNanos() {
+        return maxTransferNanos.get();
+    }
+
+    @Override
+    public long getJitterNanos() {
+        return (long) jitter;
+    }
+
+    @Override
+    public long getDroppedSamples() {
+        return dropsReported ? reportedDroppedSamples.sum() : estimatedDroppedSamples;
+    }
+
+    @Override
+    public Map<String, Long> getNativeCalls() {
+        Map<String, Long> result = new TreeMap<>();
+        nativeCalls.forEach((function, call) -> {
+            if (call.isCalled()) {
+                result.put(function, call.calls.sum());
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getNativeCallMeanNanos() {
+        Map<String, Long> result = new TreeMap<>();
+        nativeCalls.forEach((function, call) -> {
+            if (call.isCalled()) {
+                result.put(function, call.snapshot().meanNanos());
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getNativeCallMaxNanos() {
+        Map<String, Long> result = new TreeMap<>();
+        nativeCalls.forEach((function, call) -> {
+            if (call.isCalled()) {
+                result.put(function, call.maxNanos.get());
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamMetrics{" +
+                "driver='" + driver + '\'' +
+                ", device=" + device +
+                '}';
+    }
+
+    // Bucket 0 below 2 µs, then one bucket per power of two of microseconds
+    private static int bucket(long nanos) {
+        long micros = nanos / 1000;
+        int bucket = micros <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(micros);
+        return Math.min(bucket, StreamStatistics.HISTOGRAM_BUCKETS - 1);
+    }
+
+    private static void emitStreamStatistics() {
+        for (StreamMetrics metrics : REGISTERED) {
+            StreamStatistics statistics = metrics.getStatistics();
+            StreamStatisticsEvent event = new StreamStatisticsEvent();
+            event.driver = metrics.driver;
+            event.device = metrics.device;
+            event.bytes = statistics.bytes();
+            event.transfers = statistics.transfers();
+            event.bytesPerSecond = statistics.bytesPerSecond();
+            event.transfersPerSecond = statistics.transfersPerSecond();
+            event.maxTransferNanos = statistics.maxTransferNanos();
+            event.jitterNanos = statistics.jitterNanos();
+            event.droppedSamples = statistics.droppedSamples();
+            event.commit();
+        }
+    }
+
+    private static void emitNativeCallStatistics() {
+        for (StreamMetrics metrics : REGISTERED) {
+            metrics.nativeCalls.forEach((function, call) -> {
+                if (!call.isCalled()) {
+                    return;
+                }
+                NativeCallStatistics statistics = call.snapshot();
+                NativeCallStatisticsEvent event = new NativeCallStatisticsEvent();
+                event.driver = metrics.driver;
+                event.device = metrics.device;
+                event.function = function;
+                event.calls = statistics.calls();
+                event.meanNanos = statistics.meanNanos();
+                event.maxNanos = statistics.maxNanos();
+                event.commit();
+            });
+        }
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Counter of the calls to one native function, resolved once through {@link #nativeCall(String)} so that
+     * recording a call is a clock read and a few uncontended counter updates. Calls come from the streaming thread
+     * and from the threads tuning the device.
+     */
+    public final class NativeCall {
+
+        private final String function;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private NativeCall(String function) {
+            this.function = function;
+        }
+
+        /**
+         * Records a call to the function.
+         *
+         * @param startNanos the value returned by {@link StreamMetrics#nativeCallStarted()}
+         */
+        public void completed(long startNanos) {
+            long latency = System.nanoTime() - startNanos;
+            calls.increment();
+            totalNanos.add(latency);
+            updateMax(maxNanos, latency);
+
+            if (NATIVE_CALL_EVENT.isEnabled()) {
+                NativeCallEvent event = new NativeCallEvent();
+                if (event.shouldCommit()) {
+                    event.driver = driver;
+                    event.device = device;
+                    event.function = function;
+                    event.latency = latency;
+                    event.commit();
+                }
+            }
+        }
+
+        // Counters resolved up front are only reported once their function was called
+        boolean isCalled() {
+            return calls.sum() != 0;
+        }
+
+        NativeCallStatistics snapshot() {
+            return new NativeCallStatistics(calls.sum(), totalNanos.sum(), maxNanos.get());
+        }
+    }
+}
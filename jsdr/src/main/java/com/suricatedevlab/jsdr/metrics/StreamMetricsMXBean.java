@@ -0,0 +1,77 @@
+package com.suricatedevlab.jsdr.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link StreamMetrics} of an open device, registered under
+ * {@code com.suricatedevlab.jsdr:type=StreamMetrics,driver=<driver>,device=<index>}.
+ *
+ * @see com.suricatedevlab.jsdr.StreamStatistics
+ */
+public interface StreamMetricsMXBean {
+
+    /**
+     * @return the identifier of the driver of the device
+     */
+    String getDriver();
+
+    /**
+     * @return the index of the device
+     */
+    int getDevice();
+
+    /**
+     * @return the number of bytes delivered since the stream started
+     */
+    long getBytes();
+
+    /**
+     * @return the number of transfers since the stream started
+     */
+    long getTransfers();
+
+    /**
+     * @return the number of bytes delivered per second
+     */
+    double getBytesPerSecond();
+
+    /**
+     * @return the number of transfers per second
+     */
+    double getTransfersPerSecond();
+
+    /**
+     * @return the number of transfers per duration bucket
+     */
+    long[] getTransferDurationHistogram();
+
+    /**
+     * @return the longest transfer handling, in nanoseconds
+     */
+    long getMaxTransferNanos();
+
+    /**
+     * @return the smoothed deviation of the time between transfers, in nanoseconds
+     */
+    long getJitterNanos();
+
+    /**
+     * @return the number of samples lost, reported by the driver or estimated from the sample rate
+     */
+    long getDroppedSamples();
+
+    /**
+     * @return the number of calls by native function
+     */
+    Map<String, Long> getNativeCalls();
+
+    /**
+     * @return the mean latency by native function, in nanoseconds
+     */
+    Map<String, Long> getNativeCallMeanNanos();
+
+    /**
+     * @return the maximum latency by native function, in nanoseconds
+     */
+    Map<String, Long> getNativeCallMaxNanos();
+}
@@ -0,0 +1,45 @@
+package com.suricatedevlab.jsdr.metrics;
+
+import jdk.jfr.*;
+
+@Name("com.suricatedevlab.jsdr.StreamStatistics")
+@Label("SDR Stream Statistics")
+@Description("Periodic snapshot of the metrics of an open device")
+@Category({"jSDR", "Stream"})
+@Period("1 s")
+@StackTrace(false)
+class StreamStatisticsEvent extends Event {
+
+    @Label("Driver")
+    String driver;
+
+    @Label("Device")
+    int device;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Transfers")
+    long transfers;
+
+    @Label("Throughput")
+    @DataAmount
+    @Frequency
+    double bytesPerSecond;
+
+    @Label("Transfer Rate")
+    @Frequency
+    double transfersPerSecond;
+
+    @Label("Max Transfer Handling Time")
+    @Timespan
+    long maxTransferNanos;
+
+    @Label("Jitter")
+    @Timespan
+    long jitterNanos;
+
+    @Label("Dropped Samples")
+    long droppedSamples;
+}
@@ -0,0 +1,31 @@
+package com.suricatedevlab.jsdr.metrics;
+
+import jdk.jfr.*;
+
+@Name("com.suricatedevlab.jsdr.Transfer")
+@Label("SDR Transfer")
+@Description("Delivery of samples to the consumer of a stream")
+@Category({"jSDR", "Stream"})
+@Enabled(false)
+@StackTrace(false)
+class TransferEvent extends Event {
+
+    @Label("Driver")
+    String driver;
+
+    @Label("Device")
+    int device;
+
+    @Label("Bytes")
+    @DataAmount
+    int bytes;
+
+    @Label("Handling Time")
+    @Timespan
+    long handlingTime;
+
+    @Label("Interval")
+    @Description("Time since the previous transfer")
+    @Timespan
+    long interval;
+}
@@ -0,0 +1,56 @@
+package com.suricatedevlab.jsdr.modes;
+
+// Addresses of the aircraft heard recently, which the address/parity replies are checked against. Open addressed,
+// entries expire lazily and their slots are reused by later insertions
+final class IcaoAddressCache {
+
+    private final int[] addresses;
+    private final long[] lastSeen;
+    private final int mask;
+    private final long ttlNanos;
+
+    IcaoAddressCache(int capacity, long ttlNanos) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.addresses = new int[size];
+        this.lastSeen = new long[size];
+        this.mask = size - 1;
+        this.ttlNanos = ttlNanos;
+    }
+
+    boolean contains(int address, long nowNanos) {
+        int key = address + 1;
+        for (int slot = hash(key) & mask, probes = 0; addresses[slot] != 0 && probes <= mask;
+             slot = (slot + 1) & mask, probes++) {
+            if (addresses[slot] == key) {
+                return nowNanos - lastSeen[slot] <= ttlNanos;
+            }
+        }
+        return false;
+    }
+
+    void add(int address, long nowNanos) {
+        int key = address + 1;
+        int free = -1;
+        int slot = hash(key) & mask;
+        for (int probes = 0; addresses[slot] != 0 && probes <= mask; slot = (slot + 1) & mask, probes++) {
+            if (addresses[slot] == key) {
+                lastSeen[slot] = nowNanos;
+                return;
+            }
+            if (free < 0 && nowNanos - lastSeen[slot] > ttlNanos) {
+                free = slot;
+            }
+        }
+        if (addresses[slot] == 0 && free < 0) {
+            free = slot;
+        }
+        // A full table of live entries evicts the home slot
+        int target = free >= 0 ? free : hash(key) & mask;
+        addresses[target] = key;
+        lastSeen[target] = nowNanos;
+    }
+
+    private static int hash(int key) {
+        return (key * 0x9E3779B1) >>> 16;
+    }
+}
@@ -0,0 +1,74 @@
+package com.suricatedevlab.jsdr.modes;
+
+// CRC-24 of Mode S frames (polynomial 0xFFF409), computed a byte at a time through a 256-entry table
+final class ModeSCrc {
+
+    private static final int POLYNOMIAL = 0xFFF409;
+    private static final int[] TABLE = new int[256];
+    // Syndromes of the single-bit errors of short and long frames, open addressed with the bit index
+    private static final int ERROR_TABLE_SIZE = 512;
+    private static final int[] SHORT_SYNDROMES = new int[ERROR_TABLE_SIZE];
+    private static final byte[] SHORT_BITS = new byte[ERROR_TABLE_SIZE];
+    private static final int[] LONG_SYNDROMES = new int[ERROR_TABLE_SIZE];
+    private static final byte[] LONG_BITS = new byte[ERROR_TABLE_SIZE];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            int crc = b << 16;
+            for (int k = 0; k < 8; k++) {
+                crc = (crc & 0x800000) != 0 ? (crc << 1) ^ POLYNOMIAL : crc << 1;
+            }
+            TABLE[b] = crc & 0xFFFFFF;
+        }
+        fillErrorTable(ModeSMessage.SHORT_BYTES, SHORT_SYNDROMES, SHORT_BITS);
+        fillErrorTable(ModeSMessage.LONG_BYTES, LONG_SYNDROMES, LONG_BITS);
+    }
+
+    private ModeSCrc() {
+        throw new IllegalStateException("Can not call new");
+    }
+
+    // CRC of the frame with its parity field, 0 for an intact frame whose parity is not overlaid
+    static int syndrome(byte[] frame, int offset, int bytes) {
+        int crc = 0;
+        int end = offset + bytes - 3;
+        for (int i = offset; i < end; i++) {
+            crc = ((crc << 8) ^ TABLE[((crc >>> 16) ^ frame[i]) & 0xFF]) & 0xFFFFFF;
+        }
+        int parity = ((frame[end] & 0xFF) << 16) | ((frame[end + 1] & 0xFF) << 8) | (frame[end + 2] & 0xFF);
+        return crc ^ parity;
+    }
+
+    // Index of the bit, from the first transmitted, whose flip gives this syndrome, -1 if none
+    static int errorBit(int syndrome, int bytes) {
+        int[] syndromes = bytes == ModeSMessage.LONG_BYTES ? LONG_SYNDROMES : SHORT_SYNDROMES;
+        byte[] bits = bytes == ModeSMessage.LONG_BYTES ? LONG_BITS : SHORT_BITS;
+        int mask = ERROR_TABLE_SIZE - 1;
+        for (int slot = hash(syndrome) & mask; syndromes[slot] != 0; slot = (slot + 1) & mask) {
+            if (syndromes[slot] == syndrome) {
+                return bits[slot] & 0xFF;
+            }
+        }
+        return -1;
+    }
+
+    private static void fillErrorTable(int bytes, int[] syndromes, byte[] bits) {
+        byte[] frame = new byte[bytes];
+        int mask = ERROR_TABLE_SIZE - 1;
+        for (int bit = 0; bit < bytes * 8; bit++) {
+            frame[bit >> 3] = (byte) (0x80 >>> (bit & 7));
+            int syndrome = syndrome(frame, 0, bytes);
+            frame[bit >> 3] = 0;
+            int slot = hash(syndrome) & mask;
+            while (syndromes[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            syndromes[slot] = syndrome;
+            bits[slot] = (byte) bit;
+        }
+    }
+
+    private static int hash(int syndrome) {
+        return (syndrome * 0x9E3779B1) >>> 16;
+    }
+}
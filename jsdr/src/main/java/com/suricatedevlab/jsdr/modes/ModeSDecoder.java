@@ -0,0 +1,465 @@
+package com.suricatedevlab.jsdr.modes;
+
+import com.suricatedevlab.jsdr.IqTable;
+import com.suricatedevlab.jsdr.TunerSample;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code ModeSDecoder} class decodes the Mode S replies and ADS-B extended squitters transmitted by aircraft on
+ * 1090 MHz, from the raw samples of a tuner at 2 MS/s.
+ *
+ * <p>The samples go through the following steps, all working in arrays allocated once:</p>
+ * <ul>
+ *     <li><b>Magnitude</b>: every unsigned 8-bit I/Q pair is turned into its magnitude by a single lookup in the
+ *     shared {@link IqTable#MAGNITUDE} table.</li>
+ *     <li><b>Preamble detection</b>: the four pulses of the 8 µs preamble are matched against the samples
+ *     between them and the quiet zone that follows, which rules out most of the noise with a few comparisons.</li>
+ *     <li><b>Bit slicing</b>: each of the 1 µs pulse-position bits is read by comparing its two half-bit samples.
+ *     The downlink format, read from the first bits, gives the length of the frame; unknown formats are dropped
+ *     there.</li>
+ *     <li><b>Validation</b>: the CRC-24 of the frame is computed a byte at a time through a table. Extended
+ *     squitters with a single bit error are repaired from their syndrome, and the address/parity field of the
+ *     other replies is checked against the aircraft heard in the last minute.</li>
+ * </ul>
+ *
+ * <p>Blocks of 65536 samples or more are cut into one chunk per worker of the pool: the magnitudes, then the
+ * detection, slicing and parity check of every chunk are computed in parallel. The messages are then delivered in
+ * stream order on the feeding thread. A message crossing the end of a block is decoded with the next block.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ * definition.setCenterFrequency(1_090_000_000);
+ * definition.setSampleRate(2_000_000);
+ * ModeSDecoder decoder = ModeSDecoder.builder()
+ *         .build(message -&gt; System.out.println(message.toHex()));
+ * definition.tune().readAsyncDirect(decoder::process, 0, 0);
+ * </pre>
+ *
+ * <h2>Thread Safety</h2>
+ * A decoder must be fed by one thread at a time, which also invokes the listener. The statistics can be read from
+ * any thread.
+ *
+ * @see ModeSMessage
+ * @see ModeSStatistics
+ */
+public final class ModeSDecoder {
+
+    private static final int SAMPLE_RATE = 2_000_000;
+    private static final long NANOS_PER_SAMPLE = TimeUnit.SECONDS.toNanos(1) / SAMPLE_RATE;
+    private static final int PREAMBLE_SAMPLES = 16;
+    private static final int MESSAGE_SAMPLES = PREAMBLE_SAMPLES + ModeSMessage.LONG_BYTES * 16;
+    private static final long ADDRESS_TTL_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final int ADDRESS_CAPACITY = 4096;
+    // Below this number of samples per block, fork-join overhead outweighs the gain
+    private static final int PARALLEL_MIN_SAMPLES = 1 << 16;
+
+    private static final boolean[] KNOWN_FORMATS = new boolean[32];
+
+    // Outcome of the parity check of a frame
+    private static final byte INVALID = 0;
+    private static final byte VALID = 1;
+    private static final byte ADDRESS_PARITY = 2;
+
+    static {
+        for (int format : new int[]{0, 4, 5, 11, 16, 17, 18, 20, 21}) {
+            KNOWN_FORMATS[format] = true;
+        }
+        for (int format = 24; format < 32; format++) {
+            KNOWN_FORMATS[format] = true;
+        }
+    }
+
+    /**
+     * Receives the decoded messages.
+     */
+    public interface MessageListener {
+
+        /**
+         * Called for every decoded message, in stream order, by the thread feeding the decoder.
+         *
+         * @param message the message
+         */
+        void onMessage(ModeSMessage message);
+    }
+
+    private final MessageListener listener;
+    private final ForkJoinPool pool;
+    private final boolean errorCorrection;
+    private final Worker[] workers;
+    private final BlockTask blockTask;
+    private final IcaoAddressCache addresses = new IcaoAddressCache(ADDRESS_CAPACITY, ADDRESS_TTL_NANOS);
+
+    private byte[] raw = new byte[0];
+    private float[] magnitude = new float[0];
+    // Magnitudes carried over from the previous block, whose messages may end in this one
+    private int kept;
+    // Index in the stream of magnitude[0]
+    private long baseSample;
+    // Index in the stream of the end of the last delivered message
+    private long lastEnd;
+
+    // Only written by the feeding thread
+    private volatile long samples;
+    private volatile long preambles;
+    private volatile long messages;
+    private volatile long corrected;
+    private volatile long rejected;
+    private volatile long processingNanos;
+
+    private ModeSDecoder(Builder builder, MessageListener listener) {
+        this.listener = listener;
+        this.pool = builder.pool != null ? builder.pool : ForkJoinPool.commonPool();
+        this.errorCorrection = builder.errorCorrection;
+        this.workers = new Worker[Math.max(1, pool.getParallelism())];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker();
+        }
+        this.blockTask = new BlockTask();
+    }
+
+    /**
+     * Starts building a decoder.
+     *
+     * @return a decoder builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Decodes the raw samples of a tuner, from the position to the limit of the buffer, and delivers the messages
+     * to the listener. A trailing odd byte is skipped. Can be used as a {@link TunerSample.ReadAsyncDirectCallback}.
+     *
+     * @param data interleaved unsigned 8-bit I/Q samples at 2 MS/s
+     */
+    public void process(ByteBuffer data) {
+        int length = data.remaining() & ~1;
+        if (raw.length < length) {
+            raw = new byte[length];
+        }
+        data.get(raw, 0, length);
+        data.position(data.limit());
+        decode(raw, 0, length);
+    }
+
+    /**
+     * Decodes raw samples, as returned by {@link TunerSample#readSync(int)}, and delivers the messages to the
+     * listener. A trailing odd byte is skipped.
+     *
+     * @param data interleaved unsigned 8-bit I/Q samples at 2 MS/s
+     * @param offset the index of the first byte to read
+     * @param length the number of bytes to read
+     * @throws IndexOutOfBoundsException if the range does not fit the array
+     */
+    public void process(byte[] data, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        decode(data, offset, length & ~1);
+    }
+
+    /**
+     * Returns the decoding metrics since the decoder was created.
+     *
+     * @return a snapshot of the metrics
+     */
+    public ModeSStatistics getStatistics() {
+        long decoded = samples;
+        long nanos = processingNanos;
+        long delivered = messages;
+        double seconds = (double) decoded / SAMPLE_RATE;
+        return new ModeSStatistics(decoded, preambles, delivered, corrected, rejected, nanos,
+                seconds > 0 ? delivered / seconds : 0, decoded > 0 ? nanos / (1e3 * decoded) : 0);
+    }
+
+    private void decode(byte[] data, int offset, int length) {
+        long received = System.nanoTime();
+        int count = length >> 1;
+        int total = kept + count;
+        if (magnitude.length < total) {
+            // Only grows for the first blocks or when the block size increases
+            magnitude = Arrays.copyOf(magnitude, total);
+        }
+        boolean parallel = count >= PARALLEL_MIN_SAMPLES && workers.length > 1;
+        IqTable.MAGNITUDE.convert(data, offset, length, magnitude, kept, parallel ? pool : null);
+        // Every start leaving room for a long message is scanned, after the last message delivered
+        int scanFrom = (int) Math.min(Math.max(lastEnd - baseSample, 0), total);
+        int scanTo = Math.max(scanFrom, total - MESSAGE_SAMPLES + 1);
+        if (parallel) {
+            blockTask.reinitialize();
+            blockTask.scanFrom = scanFrom;
+            blockTask.scanTo = scanTo;
+            pool.invoke(blockTask);
+        }
+        else {
+            workers[0].scan(scanFrom, scanTo);
+            for (int i = 1; i < workers.length; i++) {
+                workers[i].clear();
+            }
+        }
+        deliver(received, total);
+
+        int consumed = Math.max(0, total - MESSAGE_SAMPLES + 1);
+        System.arraycopy(magnitude, consumed, magnitude, 0, total - consumed);
+        kept = total - consumed;
+        baseSample += consumed;
+        samples += count;
+        processingNanos += System.nanoTime() - received;
+    }
+
+    // Delivers the frames of the workers in stream order, checking the address/parity replies
+    private void deliver(long received, int total) {
+        long end = baseSample + total;
+        for (Worker worker : workers) {
+            preambles += worker.preambles;
+            rejected += worker.rejected;
+            for (int k = 0; k < worker.count; k++) {
+                long start = baseSample + worker.starts[k];
+                if (start < lastEnd) {
+                    // Detected in a chunk inside a message found at the end of the previous one
+                    continue;
+                }
+                int offset = k * ModeSMessage.LONG_BYTES;
+                int bytes = (worker.frames[offset] & 0xFF) >>> 3 >= 16
+                        ? ModeSMessage.LONG_BYTES
+                        : ModeSMessage.SHORT_BYTES;
+                int address = worker.addresses[k];
+                if (worker.status[k] == ADDRESS_PARITY) {
+                    if (!addresses.contains(address, received)) {
+                        rejected++;
+                        continue;
+                    }
+                }
+                else {
+                    addresses.add(address, received);
+                }
+                int correctedBit = worker.correctedBits[k];
+                if (correctedBit >= 0) {
+                    corrected++;
+                }
+                messages++;
+                lastEnd = start + PREAMBLE_SAMPLES + bytes * 16;
+                listener.onMessage(new ModeSMessage(Arrays.copyOfRange(worker.frames, offset, offset + bytes),
+                        address, correctedBit, start, received - (end - start) * NANOS_PER_SAMPLE,
+                        worker.levels[k]));
+            }
+        }
+    }
+
+    /**
+     * Builder of {@link ModeSDecoder} instances.
+     */
+    public static final class Builder {
+
+        private ForkJoinPool pool;
+        private boolean errorCorrection = true;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the pool decoding large blocks in parallel, the common pool by default.
+         *
+         * @param pool the fork-join pool
+         * @return this builder
+         */
+        public Builder pool(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * Sets whether extended squitters with a single bit error are repaired, {@code true} by default. Disabling
+         * it trades the weak messages for a lower rate of false positives.
+         *
+         * @param errorCorrection {@code true} to repair single bit errors
+         * @return this builder
+         */
+        public Builder errorCorrection(boolean errorCorrection) {
+            this.errorCorrection = errorCorrection;
+            return this;
+        }
+
+        /**
+         * Builds the decoder.
+         *
+         * @param listener the listener receiving the messages
+         * @return the decoder
+         * @throws IllegalArgumentException if the listener is {@code null}
+         */
+        public ModeSDecoder build(MessageListener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("Listener is null");
+            }
+            return new ModeSDecoder(this, listener);
+        }
+    }
+
+    // Detects, slices and checks the frames starting in a range of the magnitudes, keeping those that may be valid
+    private final class Worker {
+
+        private byte[] frames = new byte[16 * ModeSMessage.LONG_BYTES];
+        private int[] starts = new int[16];
+        private byte[] status = new byte[16];
+        private int[] addresses = new int[16];
+        private int[] correctedBits = new int[16];
+        private float[] levels = new float[16];
+        private int count;
+        private long preambles;
+        private long rejected;
+
+        void clear() {
+            count = 0;
+            preambles = 0;
+            rejected = 0;
+        }
+
+        void scan(int from, int to) {
+            clear();
+            float[] m = magnitude;
+            for (int j = from; j < to; j++) {
+                float m0 = m[j];
+                // Pulses at 0, 1, 3.5 and 4.5 µs, lower samples around them
+                if (!(m0 > m[j + 1] && m[j + 1] < m[j + 2] && m[j + 2] > m[j + 3] && m[j + 3] < m0
+                        && m[j + 4] < m0 && m[j + 5] < m0 && m[j + 6] < m0
+                        && m[j + 7] > m[j + 8] && m[j + 8] < m[j + 9] && m[j + 9] > m[j + 6])) {
+                    continue;
+                }
+                float pulses = m0 + m[j + 2] + m[j + 7] + m[j + 9];
+                float high = pulses / 6;
+                if (m[j + 4] >= high || m[j + 5] >= high
+                        || m[j + 11] >= high || m[j + 12] >= high || m[j + 13] >= high || m[j + 14] >= high) {
+                    continue;
+                }
+                preambles++;
+                if (count == starts.length) {
+                    grow();
+                }
+                int offset = count * ModeSMessage.LONG_BYTES;
+                slice(m, j + PREAMBLE_SAMPLES, offset, 1);
+                int format = (frames[offset] & 0xFF) >>> 3;
+                if (!KNOWN_FORMATS[format]) {
+                    continue;
+                }
+                int bytes = format >= 16 ? ModeSMessage.LONG_BYTES : ModeSMessage.SHORT_BYTES;
+                slice(m, j + PREAMBLE_SAMPLES + 16, offset + 1, bytes - 1);
+                byte outcome = check(offset, bytes, format);
+                if (outcome == INVALID) {
+                    rejected++;
+                    continue;
+                }
+                starts[count] = j;
+                status[count] = outcome;
+                levels[count] = Math.min(1f, pulses / 4);
+                count++;
+                if (outcome == VALID) {
+                    j += PREAMBLE_SAMPLES + bytes * 16 - 1;
+                }
+            }
+        }
+
+        // Reads the bits of bytes from the magnitudes, a 1 being a pulse in the first half of the bit
+        private void slice(float[] m, int sample, int offset, int bytes) {
+            for (int i = 0; i < bytes; i++) {
+                int value = 0;
+                for (int b = 0; b < 8; b++, sample += 2) {
+                    value = (value << 1) | (m[sample] > m[sample + 1] ? 1 : 0);
+                }
+                frames[offset + i] = (byte) value;
+            }
+        }
+
+        private byte check(int offset, int bytes, int format) {
+            int syndrome = ModeSCrc.syndrome(frames, offset, bytes);
+            correctedBits[count] = -1;
+            switch (format) {
+                case 17, 18 -> {
+                    if (syndrome != 0) {
+                        int bit = errorCorrection ? ModeSCrc.errorBit(syndrome, bytes) : -1;
+                        // A fix in the downlink format would change the length of the frame
+                        if (bit < 5) {
+                            return INVALID;
+                        }
+                        frames[offset + (bit >> 3)] ^= (byte) (0x80 >>> (bit & 7));
+                        correctedBits[count] = bit;
+                    }
+                    addresses[count] = announcedAddress(offset);
+                    return VALID;
+                }
+                case 11 -> {
+                    // The parity is overlaid with the interrogator identifier, in the 7 low bits
+                    if ((syndrome & ~0x7F) != 0) {
+                        return INVALID;
+                    }
+                    addresses[count] = announcedAddress(offset);
+                    return VALID;
+                }
+                default -> {
+                    // The parity is overlaid with the address of the aircraft
+                    addresses[count] = syndrome;
+                    return ADDRESS_PARITY;
+                }
+            }
+        }
+
+        private int announcedAddress(int offset) {
+            return ((frames[offset + 1] & 0xFF) << 16) | ((frames[offset + 2] & 0xFF) << 8)
+                    | (frames[offset + 3] & 0xFF);
+        }
+
+        private void grow() {
+            int capacity = starts.length << 1;
+            frames = Arrays.copyOf(frames, capacity * ModeSMessage.LONG_BYTES);
+            starts = Arrays.copyOf(starts, capacity);
+            status = Arrays.copyOf(status, capacity);
+            addresses = Arrays.copyOf(addresses, capacity);
+            correctedBits = Arrays.copyOf(correctedBits, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+        }
+    }
+
+    // Reused for every block: splits the scan into one range per worker
+    private final class BlockTask extends RecursiveAction {
+
+        private final ScanTask[] scanTasks = new ScanTask[workers.length];
+        private int scanFrom;
+        private int scanTo;
+
+        BlockTask() {
+            for (int i = 0; i < workers.length; i++) {
+                scanTasks[i] = new ScanTask(workers[i]);
+            }
+        }
+
+        @Override
+        protected void compute() {
+            long length = scanTo - scanFrom;
+            for (int i = 0; i < scanTasks.length; i++) {
+                scanTasks[i].reinitialize();
+                scanTasks[i].from = scanFrom + (int) (length * i / scanTasks.length);
+                scanTasks[i].to = scanFrom + (int) (length * (i + 1) / scanTasks.length);
+            }
+            invokeAll(scanTasks);
+        }
+    }
+
+    private final class ScanTask extends RecursiveAction {
+
+        private final Worker worker;
+        private int from;
+        private int to;
+
+        ScanTask(Worker worker) {
+            this.worker = worker;
+        }
+
+        @Override
+        protected void compute() {
+            worker.scan(from, to);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.suricatedevlab.jsdr.modes;
+
+import java.util.HexFormat;
+
+/**
+ * The {@code ModeSMessage} class is a Mode S reply or ADS-B extended squitter decoded by a {@link ModeSDecoder}.
+ *
+ * <p>A message holds the raw bits of the frame, 56 bits for the short downlink formats and 112 bits for the long
+ * ones, whose parity has been checked, together with the position of its preamble in the stream. Messages are
+ * immutable and can be kept after the listener returns.</p>
+ *
+ * <p>The address of a message is the ICAO address of the aircraft: read from the AA field for the all-call replies
+ * (DF11) and extended squitters (DF17, DF18), recovered from the address/parity field for the other formats. The
+ * fields of the ADS-B payload are not decoded; {@link #getTypeCode()} tells which kind of extended squitter the
+ * {@link #getBytes() bytes} carry.</p>
+ *
+ * @see ModeSDecoder
+ */
+public final class ModeSMessage {
+
+    static final int SHORT_BYTES = 7;
+    static final int LONG_BYTES = 14;
+
+    private static final HexFormat HEX = HexFormat.of().withUpperCase();
+
+    private final byte[] bytes;
+    private final int address;
+    private final int correctedBit;
+    private final long sampleIndex;
+    private final long timestampNanos;
+    private final float signalLevel;
+
+    ModeSMessage(byte[] bytes, int address, int correctedBit, long sampleIndex, long timestampNanos,
+                 float signalLevel) {
+        this.bytes = bytes;
+        this.address = address;
+        this.correctedBit = correctedBit;
+        this.sampleIndex = sampleIndex;
+        this.timestampNanos = timestampNanos;
+        this.signalLevel = signalLevel;
+    }
+
+    /**
+     * Returns the downlink format of the message, e.g. 17 for an ADS-B extended squitter. Comm-D replies, whose
+     * format starts with two 1 bits, all read 24.
+     *
+     * @return the downlink format
+     */
+    public int getDownlinkFormat() {
+        int format = (bytes[0] & 0xFF) >>> 3;
+        return format >= 24 ? 24 : format;
+    }
+
+    /**
+     * Returns the ICAO address of the aircraft which sent the message.
+     *
+     * @return the 24-bit address
+     */
+    public int getAddress() {
+        return address;
+    }
+
+    /**
+     * Returns the type code of an extended squitter, the first 5 bits of its ME field: 1 to 4 for the
+     * identification, 5 to 8 for the surface position, 9 to 18 and 20 to 22 for the airborne position, 19 for the
+     * airborne velocity.
+     *
+     * @return the type code, {@code -1} if the message is not an extended squitter (DF17 or DF18)
+     */
+    public int getTypeCode() {
+        int format = getDownlinkFormat();
+        return format == 17 || format == 18 ? (bytes[4] & 0xFF) >>> 3 : -1;
+    }
+
+    /**
+     * Returns the number of bits of the message.
+     *
+     * @return 56 or 112
+     */
+    public int getBitLength() {
+        return bytes.length * 8;
+    }
+
+    /**
+     * Returns the bits of the message, as transmitted, after error correction.
+     *
+     * @return a copy of the bytes of the message
+     */
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+
+    /**
+     * Returns whether a bit error was corrected with the parity of the message.
+     *
+     * @return {@code true} if a bit was flipped
+     */
+    public boolean isCorrected() {
+        return correctedBit >= 0;
+    }
+
+    /**
+     * Returns the index of the corrected bit, from the first transmitted bit.
+     *
+     * @return the bit index, {@code -1} if the message was received intact
+     */
+    public int getCorrectedBit() {
+        return correctedBit;
+    }
+
+    /**
+     * Returns the position of the first preamble pulse of the message, counted in samples from the first sample
+     * fed to the decoder. At 2 MS/s it times the message to 0.5 µs relative to the other messages of the stream.
+     *
+     * @return the sample index of the message
+     */
+    public long getSampleIndex() {
+        return sampleIndex;
+    }
+
+    /**
+     * Returns the time the message was received, in the time base of {@link System#nanoTime()}. It is derived from
+     * the reception of the block holding the message and its position in the block.
+     *
+     * @return the reception time, in nanoseconds
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * Returns the mean magnitude of the preamble pulses, relative to the full scale of the samples.
+     *
+     * @return the signal level, in {@code [0, 1]}
+     */
+    public float getSignalLevel() {
+        return signalLevel;
+    }
+
+    /**
+     * Returns the bits of the message as hexadecimal digits, the usual {@code *8D4840D6...;} notation without its
+     * delimiters.
+     *
+     * @return the message in hexadecimal
+     */
+    public String toHex() {
+        return HEX.formatHex(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "ModeSMessage{" +
+                "df=" + getDownlinkFormat() +
+                ", address=" + String.format("%06X", address) +
+                ", data=" + toHex() +
+                ", correctedBit=" + correctedBit +
+                ", sampleIndex=" + sampleIndex +
+                ", signalLevel=" + signalLevel +
+                '}';
+    }
+}
@@ -0,0 +1,25 @@
+package com.suricatedevlab.jsdr.modes;
+
+/**
+ * The {@code ModeSStatistics} record is a snapshot of the activity of a {@link ModeSDecoder}.
+ *
+ * <p>Every preamble found is sliced into a frame unless its downlink format is unknown; the frames whose parity
+ * does not check, or whose recovered address is not the one of an aircraft heard recently, are rejected. The rates
+ * are measured against the duration of the samples, so they also apply to recordings processed faster than real
+ * time: {@code cpuPerMegasample} is the fraction of a core needed to decode 1 MS/s, a 2 MS/s receiver taking twice
+ * as much.</p>
+ *
+ * @param samples the number of samples decoded
+ * @param preambles the number of preambles detected
+ * @param messages the number of messages delivered
+ * @param corrected the number of delivered messages with a corrected bit error
+ * @param rejected the number of frames failing the parity check
+ * @param processingNanos the time spent decoding, in nanoseconds
+ * @param messagesPerSecond the number of messages per second of signal
+ * @param cpuPerMegasample the processing time per second of signal at 1 MS/s, in seconds
+ *
+ * @see ModeSDecoder#getStatistics()
+ */
+public record ModeSStatistics(long samples, long preambles, long messages, long corrected, long rejected,
+                              long processingNanos, double messagesPerSecond, double cpuPerMegasample) {
+}
@@ -1,5 +1,6 @@
 package com.suricatedevlab.jsdr.rtl;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 final class ByteUtils {
@@ -22,4 +23,13 @@ final class ByteUtils {
         }
         return Arrays.copyOf(intArray, i + 1);
     }
+
+    // Decodes a NUL terminated C string, ignoring whatever follows the terminator
+    public static String toString(byte[] bytes) {
+        int length = 0;
+        while (length < bytes.length && bytes[length] != 0) {
+            ++length;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
 }
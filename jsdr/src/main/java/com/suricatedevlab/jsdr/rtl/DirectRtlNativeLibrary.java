@@ -0,0 +1,222 @@
+package com.suricatedevlab.jsdr.rtl;
+
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
+
+import java.nio.ByteBuffer;
+
+// Binds the functions called while streaming or retuning through JNA direct mapping, which avoids the
+// reflection and argument conversion of interface mapping, and delegates the others to the interface mapping.
+// Pointers are passed as their 64-bit address so that no Pointer is allocated per call.
+final class DirectRtlNativeLibrary implements RtlNativeLibrary {
+
+    private static NativeLibrary registeredLibrary;
+
+    private final RtlNativeLibrary mapped;
+
+    DirectRtlNativeLibrary(RtlNativeLibrary mapped) {
+        this.mapped = mapped;
+    }
+
+    static boolean isSupported() {
+        return Native.POINTER_SIZE == Long.BYTES;
+    }
+
+    // The natives of a class can only be bound to one library
+    static synchronized boolean register(NativeLibrary library) {
+        if (registeredLibrary == null) {
+            Native.register(DirectRtlNativeLibrary.class, library);
+            registeredLibrary = library;
+        }
+        return registeredLibrary == library;
+    }
+
+    private static native int rtlsdr_set_sample_rate(long dev, int rate);
+    private static native int rtlsdr_get_sample_rate(long dev);
+    private static native int rtlsdr_reset_buffer(long dev);
+    private static native int rtlsdr_read_sync(long dev, long buf, int len, long n_read);
+    private static native int rtlsdr_read_sync(long dev, byte[] buf, int len, long n_read);
+    private static native int rtlsdr_set_freq_correction(long dev, int ppm);
+    // The frequency is a uint32_t
+    private static native int rtlsdr_set_center_freq(long dev, int freq);
+    private static native int rtlsdr_get_center_freq(long dev);
+    private static native int rtlsdr_set_tuner_gain(long dev, int gain);
+    private static native int rtlsdr_get_tuner_gain(long dev);
+    private static native int rtlsdr_read_async(long dev, RTLSDRReadAsyncCallback cb, long ctx, int buf_num, int buf_len);
+    private static native int rtlsdr_cancel_async(long dev);
+
+    @Override
+    public int rtlsdr_open(PointerByReference dev, int index) {
+        return mapped.rtlsdr_open(dev, index);
+    }
+
+    @Override
+    public void rtlsdr_close(Pointer dev) {
+        mapped.rtlsdr_close(dev);
+    }
+
+    @Override
+    public int rtlsdr_set_sample_rate(Pointer dev, int rate) {
+        return rtlsdr_set_sample_rate(Pointer.nativeValue(dev), rate);
+    }
+
+    @Override
+    public int rtlsdr_get_sample_rate(Pointer dev) {
+        return rtlsdr_get_sample_rate(Pointer.nativeValue(dev));
+    }
+
+    @Override
+    public void rtlsdr_reset_buffer(Pointer dev) {
+        rtlsdr_reset_buffer(Pointer.nativeValue(dev));
+    }
+
+    @Override
+    public int rtlsdr_read_sync(Pointer dev, byte[] buf, int len, IntByReference n_read) {
+        return rtlsdr_read_sync(Pointer.nativeValue(dev), buf, len, Pointer.nativeValue(n_read.getPointer()));
+    }
+
+    @Override
+    public int rtlsdr_read_sync(Pointer dev, ByteBuffer buf, int len, IntByReference n_read) {
+        if (buf.isDirect()) {
+            // RtlTunerSample keeps the address of its buffer and reads through the Pointer overload instead
+            long address = Pointer.nativeValue(Native.getDirectBufferPointer(buf)) + buf.position();
+            return rtlsdr_read_sync(Pointer.nativeValue(dev), address, len, Pointer.nativeValue(n_read.getPointer()));
+        }
+        if (buf.hasArray() && buf.arrayOffset() + buf.position() == 0) {
+            return rtlsdr_read_sync(Pointer.nativeValue(dev), buf.array(), len, Pointer.nativeValue(n_read.getPointer()));
+        }
+        // Arrays can only be passed from their first element
+        return mapped.rtlsdr_read_sync(dev, buf, len, n_read);
+    }
+
+    @Override
+    public int rtlsdr_read_sync(Pointer dev, Pointer buf, int len, IntByReference n_read) {
+        return rtlsdr_read_sync(Pointer.nativeValue(dev), Pointer.nativeValue(buf), len,
+                Pointer.nativeValue(n_read.getPointer()));
+    }
+
+    @Override
+    public int rtlsdr_set_freq_correction(Pointer dev, int ppm) {
+        return rtlsdr_set_freq_correction(Pointer.nativeValue(dev), ppm);
+    }
+
+    @Override
+    public int rtlsdr_get_freq_correction(Pointer dev) {
+        return mapped.rtlsdr_get_freq_correction(dev);
+    }
+
+    @Override
+    public int rtlsdr_set_center_freq(Pointer dev, long freq) {
+        return rtlsdr_set_center_freq(Pointer.nativeValue(dev), (int) freq);
+    }
+
+    @Override
+    public long rtlsdr_get_center_freq(Pointer dev) {
+        return Integer.toUnsignedLong(rtlsdr_get_center_freq(Pointer.nativeValue(dev)));
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_if_gain(Pointer dev, int stage, int gain) {
+        return mapped.rtlsdr_set_tuner_if_gain(dev, stage, gain);
+    }
+
+    @Override
+    public int rtlsdr_get_tuner_gains(Pointer dev, int[] gains) {
+        return mapped.rtlsdr_get_tuner_gains(dev, gains);
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_gain(Pointer dev, int gain) {
+        return rtlsdr_set_tuner_gain(Pointer.nativeValue(dev), gain);
+    }
+
+    @Override
+    public int rtlsdr_get_tuner_gain(Pointer dev) {
+        return rtlsdr_get_tuner_gain(Pointer.nativeValue(dev));
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_gain_mode(Pointer dev, int mode) {
+        return mapped.rtlsdr_set_tuner_gain_mode(dev, mode);
+    }
+
+    @Override
+    public int rtlsdr_set_agc_mode(Pointer dev, int enable) {
+        return mapped.rtlsdr_set_agc_mode(dev, enable);
+    }
+
+    @Override
+    public int rtlsdr_set_direct_sampling(Pointer dev, int mode) {
+        return mapped.rtlsdr_set_direct_sampling(dev, mode);
+    }
+
+    @Override
+    public int rtlsdr_set_offset_tuning(Pointer dev, int enable) {
+        return mapped.rtlsdr_set_offset_tuning(dev, enable);
+    }
+
+    @Override
+    public int rtlsdr_get_device_count() {
+        return mapped.rtlsdr_get_device_count();
+    }
+
+    @Override
+    public String rtlsdr_get_device_name(int index) {
+        return mapped.rtlsdr_get_device_name(index);
+    }
+
+    @Override
+    public int rtlsdr_get_device_usb_strings(int index, byte[] manufacturer, byte[] product, byte[] serial) {
+        return mapped.rtlsdr_get_device_usb_strings(index, manufacturer, product, serial);
+    }
+
+    @Override
+    public int rtlsdr_set_xtal_freq(Pointer dev, int rtl_freq, int tuner_freq) {
+        return mapped.rtlsdr_set_xtal_freq(dev, rtl_freq, tuner_freq);
+    }
+
+    @Override
+    public int rtlsdr_get_xtal_freq(Pointer dev, IntByReference rtl_freq, IntByReference tuner_freq) {
+        return mapped.rtlsdr_get_xtal_freq(dev, rtl_freq, tuner_freq);
+    }
+
+    @Override
+    public int rtlsdr_set_dithering(Pointer dev, int on) {
+        return mapped.rtlsdr_set_dithering(dev, on);
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_bandwidth(Pointer dev, int bw) {
+        return mapped.rtlsdr_set_tuner_bandwidth(dev, bw);
+    }
+
+    @Override
+    public int rtlsdr_set_bias_tee(Pointer dev, int on) {
+        return mapped.rtlsdr_set_bias_tee(dev, on);
+    }
+
+    @Override
+    public int rtlsdr_get_tuner_type(Pointer dev) {
+        return mapped.rtlsdr_get_tuner_type(dev);
+    }
+
+    @Override
+    public int rtlsdr_read_async(Pointer dev, RTLSDRReadAsyncCallback cb, Pointer ctx, int buf_num, int buf_len) {
+        return rtlsdr_read_async(Pointer.nativeValue(dev), cb, Pointer.nativeValue(ctx), buf_num, buf_len);
+    }
+
+    @Override
+    public int rtlsdr_cancel_async(Pointer dev) {
+        return rtlsdr_cancel_async(Pointer.nativeValue(dev));
+    }
+
+    @Override
+    public String toString() {
+        return "DirectRtlNativeLibrary{" +
+                "library=" + registeredLibrary +
+                '}';
+    }
+}
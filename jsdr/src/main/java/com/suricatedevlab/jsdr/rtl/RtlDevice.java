@@ -4,6 +4,7 @@ import com.sun.jna.ptr.PointerByReference;
 import com.suricatedevlab.jsdr.Device;
 import com.suricatedevlab.jsdr.SdrException;
 import com.suricatedevlab.jsdr.TunerDefinition;
+import com.suricatedevlab.jsdr.metrics.StreamMetrics;
 
 class RtlDevice implements Device {
 
@@ -13,6 +14,8 @@ class RtlDevice implements Device {
     private final String serial;
     private final RtlNativeLibrary nativeLibrary;
     private final PointerByReference handle;
+    private final StreamMetrics metrics;
+    private final RtlTunerSampleFactory tunerSampleFactory;
 
     public RtlDevice(int index, RtlNativeLibrary nativeLibrary, String manufacturer,
                      String product, String serial) {
@@ -20,7 +23,16 @@ class RtlDevice implements Device {
         this.manufacturer = manufacturer;
         this.product = product;
         this.serial = serial;
-        this.nativeLibrary = nativeLibrary;
+        if (StreamMetrics.isEnabled()) {
+            this.metrics = new StreamMetrics(RtlDriver.IDENTIFIER, index);
+            this.nativeLibrary = RtlNativeLibraryMetrics.instrument(nativeLibrary, metrics);
+        }
+        else {
+            this.metrics = null;
+            this.nativeLibrary = nativeLibrary;
+        }
+        // Looked up on the library itself, the metrics wrapper only implements RtlNativeLibrary
+        this.tunerSampleFactory = nativeLibrary instanceof RtlTunerSampleFactory factory ? factory : RtlTunerSample::new;
         handle = new PointerByReference();
     }
 
@@ -32,6 +44,15 @@ class RtlDevice implements Device {
         return handle;
     }
 
+    RtlTunerSample newTunerSample(RtlTunerDefinition definition) {
+        return tunerSampleFactory.create(definition);
+    }
+
+    // null when the metrics are disabled
+    public StreamMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public int getIndex() {
         return index;
@@ -63,12 +84,18 @@ class RtlDevice implements Device {
         if (result < 0) {
             throw new SdrException("Can not open device at index # "+getIndex());
         }
+        if (metrics != null) {
+            metrics.register();
+        }
         return new RtlTunerDefinition(this);
     }
 
     @Override
     public void close() throws Exception {
         try {
+            if (metrics != null) {
+                metrics.close();
+            }
             nativeLibrary.rtlsdr_close(handle.getValue());
         }
         catch (Exception ex) {
@@ -0,0 +1,79 @@
+package com.suricatedevlab.jsdr.rtl;
+
+import com.suricatedevlab.jsdr.SdrException;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Cache of the devices seen by librtlsdr, so that lookups by index or serial do not enumerate the USB bus.
+// An enumeration is reused until it is older than the time to live or until refresh() is called.
+final class RtlDeviceRegistry {
+
+    // Size of the buffers librtlsdr fills with the USB strings
+    private static final int USB_STRING_SIZE = 256;
+
+    private final RtlNativeLibrary nativeLibrary;
+    private final long timeToLiveNanos;
+    private final byte[] manufacturer = new byte[USB_STRING_SIZE];
+    private final byte[] product = new byte[USB_STRING_SIZE];
+    private final byte[] serial = new byte[USB_STRING_SIZE];
+    private volatile Snapshot snapshot;
+
+    RtlDeviceRegistry(RtlNativeLibrary nativeLibrary, long timeToLiveNanos) {
+        this.nativeLibrary = nativeLibrary;
+        this.timeToLiveNanos = timeToLiveNanos;
+    }
+
+    Entry[] getEntries() throws SdrException {
+        return current().entries;
+    }
+
+    Entry getEntry(int index) throws SdrException {
+        Entry[] entries = current().entries;
+        return index >= 0 && index < entries.length ? entries[index] : null;
+    }
+
+    Entry getEntry(String serial) throws SdrException {
+        return current().bySerial.get(serial);
+    }
+
+    synchronized void refresh() throws SdrException {
+        int deviceCount = nativeLibrary.rtlsdr_get_device_count();
+        Entry[] entries = new Entry[Math.max(deviceCount, 0)];
+        Map<String, Entry> bySerial = new HashMap<>();
+        for (int i = 0; i < entries.length; i++) {
+            Arrays.fill(manufacturer, (byte) 0);
+            Arrays.fill(product, (byte) 0);
+            Arrays.fill(serial, (byte) 0);
+            if (nativeLibrary.rtlsdr_get_device_usb_strings(i, manufacturer, product, serial) < 0) {
+                throw new SdrException("Failed to load device info at index " + i);
+            }
+            entries[i] = new Entry(i, ByteUtils.toString(manufacturer), ByteUtils.toString(product),
+                    ByteUtils.toString(serial));
+            // Cheap dongles often share a serial number, the first index wins
+            bySerial.putIfAbsent(entries[i].serial(), entries[i]);
+        }
+        snapshot = new Snapshot(entries, bySerial, System.nanoTime() + timeToLiveNanos);
+    }
+
+    private Snapshot current() throws SdrException {
+        Snapshot result = snapshot;
+        if (result == null || System.nanoTime() - result.expiresNanos >= 0) {
+            synchronized (this) {
+                result = snapshot;
+                if (result == null || System.nanoTime() - result.expiresNanos >= 0) {
+                    refresh();
+                    result = snapshot;
+                }
+            }
+        }
+        return result;
+    }
+
+    record Entry(int index, String manufacturer, String product, String serial) {
+    }
+
+    private record Snapshot(Entry[] entries, Map<String, Entry> bySerial, long expiresNanos) {
+    }
+}
@@ -2,19 +2,32 @@ package com.suricatedevlab.jsdr.rtl;
 
 import com.suricatedevlab.jsdr.Device;
 import com.suricatedevlab.jsdr.Driver;
+import com.suricatedevlab.jsdr.DriverIdentifier;
 import com.suricatedevlab.jsdr.SdrException;
 
-import java.io.UnsupportedEncodingException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Driver of the RTL2832U based dongles, through librtlsdr.
+ *
+ * <p>Devices are enumerated once and cached by index and serial number. The cache expires after the number of
+ * milliseconds given by the {@value #PROPERTY_REGISTRY_TTL} system property, 5 seconds by default, so that
+ * plugged and unplugged dongles are eventually seen; {@link #refresh()} updates it immediately.</p>
+ *
+ * <p>librtlsdr is only loaded when devices are first requested, so that selecting another driver does not pay
+ * for it.</p>
+ */
+@DriverIdentifier(RtlDriver.IDENTIFIER)
 public final class RtlDriver implements Driver {
 
-    private static final String IDENTIFIER = "RTL-SDR";
-    private static final RtlNativeLibrary NATIVE_LIBRARY;
+    /**
+     * System property giving the time to live of the device cache, in milliseconds.
+     */
+    public static final String PROPERTY_REGISTRY_TTL = "jsdr.rtl.registry.ttl";
 
-    static {
-        NATIVE_LIBRARY = RtlNativeLibrary.getInstance();
-    }
+    static final String IDENTIFIER = "RTL-SDR";
+    private static final long DEFAULT_REGISTRY_TTL = 5000L;
 
     @Override
     public boolean acceptsIdentifier(String identifier) {
@@ -26,38 +39,58 @@ public final class RtlDriver implements Driver {
 
     @Override
     public Enumeration<Device> getDevices() throws SdrException {
-        List<Device> result = new ArrayList<>();
-        for (int i = 0, deviceCount = NATIVE_LIBRARY.rtlsdr_get_device_count(); i < deviceCount; i++) {
-
-            try {
-                byte[] manufacturerAsBytes = new byte[256];
-                byte[] productAsBytes = new byte[256];
-                byte[] serialAsBytes = new byte[256];
-                NATIVE_LIBRARY.rtlsdr_get_device_usb_strings(0, manufacturerAsBytes, productAsBytes, serialAsBytes);
-
-                String manufacturer = new String(ByteUtils.trim(manufacturerAsBytes), "UTF-8");
-                String product = new String(ByteUtils.trim(productAsBytes), "UTF-8");
-                String serial = new String(ByteUtils.trim(serialAsBytes), "UTF-8");
-                result.add(new RtlDevice(i, NATIVE_LIBRARY, manufacturer, product, serial));
-            } catch (UnsupportedEncodingException e) {
-                throw new SdrException("Failed to load device info at index "+i, e);
-            }
+        RtlDeviceRegistry.Entry[] entries = registry().getEntries();
+        List<Device> result = new ArrayList<>(entries.length);
+        for (RtlDeviceRegistry.Entry entry : entries) {
+            result.add(newDevice(entry));
         }
         return Collections.enumeration(result);
     }
 
     @Override
     public Device getDevice(int index) throws SdrException {
-        Device result = null;
-        Device entry;
-        Iterator<Device> availableDevices = getDevices().asIterator();
-        while(availableDevices.hasNext()) {
-            entry = availableDevices.next();
-            if (entry.getIndex() == index) {
-                result = entry;
-                break;
-            }
+        RtlDeviceRegistry.Entry entry = registry().getEntry(index);
+        return entry != null ? newDevice(entry) : null;
+    }
+
+    @Override
+    public Device getDeviceBySerial(String serial) throws SdrException {
+        if (serial == null) {
+            return null;
         }
-        return result;
+        RtlDeviceRegistry.Entry entry = registry().getEntry(serial);
+        return entry != null ? newDevice(entry) : null;
+    }
+
+    /**
+     * Enumerates the connected devices again, e.g. after a dongle was plugged or unplugged.
+     *
+     * @throws SdrException if the devices can not be enumerated
+     */
+    public void refresh() throws SdrException {
+        registry().refresh();
+    }
+
+    private static Device newDevice(RtlDeviceRegistry.Entry entry) {
+        return new RtlDevice(entry.index(), NativeHolder.NATIVE_LIBRARY, entry.manufacturer(), entry.product(),
+                entry.serial());
+    }
+
+    private static RtlDeviceRegistry registry() throws SdrException {
+        try {
+            return NativeHolder.REGISTRY;
+        }
+        catch (LinkageError e) {
+            // ExceptionInInitializerError on the first access, NoClassDefFoundError on the next ones
+            throw new SdrException("Can not load librtlsdr", e);
+        }
+    }
+
+    // Loaded by the JVM on first access only, which defers the native library until devices are requested
+    private static final class NativeHolder {
+
+        private static final RtlNativeLibrary NATIVE_LIBRARY = RtlNativeLibrary.getInstance();
+        private static final RtlDeviceRegistry REGISTRY = new RtlDeviceRegistry(NATIVE_LIBRARY,
+                TimeUnit.MILLISECONDS.toNanos(Long.getLong(PROPERTY_REGISTRY_TTL, DEFAULT_REGISTRY_TTL)));
     }
 }
@@ -4,13 +4,7 @@ import com.sun.jna.*;
 import com.sun.jna.ptr.IntByReference;
 import com.sun.jna.ptr.PointerByReference;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.nio.ByteBuffer;
 
 interface RtlNativeLibrary extends Library {
 
@@ -23,26 +17,7 @@ interface RtlNativeLibrary extends Library {
     public static final int RTLSDR_TUNER_TYPE_R828D = 6;
 
     static RtlNativeLibrary getInstance() {
-        try {
-            File tempFile = extractLibrary(RtlNativeLibrary.class.getClassLoader(), "librtlsdr.2.0.1.dylib");
-            System.setProperty("jna.library.path", tempFile.getParent());
-            return Native.load(tempFile.getName(), RtlNativeLibrary.class);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private static File extractLibrary(ClassLoader classLoader, String resourcePath) throws IOException {
-        try (InputStream in = classLoader.getResourceAsStream(resourcePath)) {
-            if (in == null) throw new FileNotFoundException("Library not found: " + resourcePath);
-
-            // Create a temporary file and copy the library into it
-            Path tempFile = Files.createTempFile("librtlsdr.2.0.1", ".dylib");
-            tempFile.toFile().deleteOnExit();
-            Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
-
-            return tempFile.toFile();
-        }
+        return RtlNativeLoader.load();
     }
 
     int rtlsdr_open(PointerByReference dev, int index); // Open RTL-SDR device
@@ -50,7 +25,9 @@ interface RtlNativeLibrary extends Library {
     int rtlsdr_set_sample_rate(Pointer dev, int rate); // Set sample rate
     int rtlsdr_get_sample_rate(Pointer dev); // Get current sample rate
     void rtlsdr_reset_buffer(Pointer dev); // Reset buffer
-    int rtlsdr_read_sync(Pointer dev, byte[] buf, int len, PointerByReference n_read); // Read samples
+    int rtlsdr_read_sync(Pointer dev, byte[] buf, int len, IntByReference n_read); // Read samples
+    int rtlsdr_read_sync(Pointer dev, ByteBuffer buf, int len, IntByReference n_read); // Read samples at the buffer position
+    int rtlsdr_read_sync(Pointer dev, Pointer buf, int len, IntByReference n_read); // Read samples to native memory
     int rtlsdr_set_freq_correction(Pointer dev, int ppm); // Set frequency correction
     int rtlsdr_get_freq_correction(Pointer dev); // Get frequency correction
     int rtlsdr_set_center_freq(Pointer dev, long freq); // Set center frequency
@@ -76,6 +53,7 @@ interface RtlNativeLibrary extends Library {
     int rtlsdr_get_tuner_type(Pointer dev);
 
     int rtlsdr_read_async(Pointer dev, RTLSDRReadAsyncCallback cb, Pointer ctx, int buf_num, int buf_len);
+    int rtlsdr_cancel_async(Pointer dev); // Make rtlsdr_read_async return, from any thread
 
     interface RTLSDRReadAsyncCallback extends Callback {
         void invoke(Pointer buf, int length, Pointer ctx);
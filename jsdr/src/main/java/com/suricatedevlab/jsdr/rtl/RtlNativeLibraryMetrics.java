@@ -0,0 +1,431 @@
+package com.suricatedevlab.jsdr.rtl;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
+import com.suricatedevlab.jsdr.metrics.StreamMetrics;
+
+import java.nio.ByteBuffer;
+
+// Times every librtlsdr function into the metrics of the device. Each function has its counter resolved up front
+// and calls are forwarded as is, so timing a call neither allocates nor looks anything up
+final class RtlNativeLibraryMetrics implements RtlNativeLibrary {
+
+    private final RtlNativeLibrary nativeLibrary;
+    private final StreamMetrics metrics;
+    private final StreamMetrics.NativeCall open;
+    private final StreamMetrics.NativeCall close;
+    private final StreamMetrics.NativeCall setSampleRate;
+    private final StreamMetrics.NativeCall getSampleRate;
+    private final StreamMetrics.NativeCall resetBuffer;
+    private final StreamMetrics.NativeCall readSync;
+    private final StreamMetrics.NativeCall setFreqCorrection;
+    private final StreamMetrics.NativeCall getFreqCorrection;
+    private final StreamMetrics.NativeCall setCenterFreq;
+    private final StreamMetrics.NativeCall getCenterFreq;
+    private final StreamMetrics.NativeCall setTunerIfGain;
+    private final StreamMetrics.NativeCall getTunerGains;
+    private final StreamMetrics.NativeCall setTunerGain;
+    private final StreamMetrics.NativeCall getTunerGain;
+    private final StreamMetrics.NativeCall setTunerGainMode;
+    private final StreamMetrics.NativeCall setAgcMode;
+    private final StreamMetrics.NativeCall setDirectSampling;
+    private final StreamMetrics.NativeCall setOffsetTuning;
+    private final StreamMetrics.NativeCall getDeviceCount;
+    private final StreamMetrics.NativeCall getDeviceName;
+    private final StreamMetrics.NativeCall getDeviceUsbStrings;
+    private final StreamMetrics.NativeCall setXtalFreq;
+    private final StreamMetrics.NativeCall getXtalFreq;
+    private final StreamMetrics.NativeCall setDithering;
+    private final StreamMetrics.NativeCall setTunerBandwidth;
+    private final StreamMetrics.NativeCall setBiasTee;
+    private final StreamMetrics.NativeCall getTunerType;
+    private final StreamMetrics.NativeCall readAsync;
+    private final StreamMetrics.NativeCall cancelAsync;
+
+    private RtlNativeLibraryMetrics(RtlNativeLibrary nativeLibrary, StreamMetrics metrics) {
+        this.nativeLibrary = nativeLibrary;
+        this.metrics = metrics;
+        open = metrics.nativeCall("rtlsdr_open");
+        close = metrics.nativeCall("rtlsdr_close");
+        setSampleRate = metrics.nativeCall("rtlsdr_set_sample_rate");
+        getSampleRate = metrics.nativeCall("rtlsdr_get_sample_rate");
+        resetBuffer = metrics.nativeCall("rtlsdr_reset_buffer");
+        readSync = metrics.nativeCall("rtlsdr_read_sync");
+        setFreqCorrection = metrics.nativeCall("rtlsdr_set_freq_correction");
+        getFreqCorrection = metrics.nativeCall("rtlsdr_get_freq_correction");
+        setCenterFreq = metrics.nativeCall("rtlsdr_set_center_freq");
+        getCenterFreq = metrics.nativeCall("rtlsdr_get_center_freq");
+        setTunerIfGain = metrics.nativeCall("rtlsdr_set_tuner_if_gain");
+        getTunerGains = metrics.nativeCall("rtlsdr_get_tuner_gains");
+        setTunerGain = metrics.nativeCall("rtlsdr_set_tuner_gain");
+        getTunerGain = metrics.nativeCall("rtlsdr_get_tuner_gain");
+        setTunerGainMode = metrics.nativeCall("rtlsdr_set_tuner_gain_mode");
+        setAgcMode = metrics.nativeCall("rtlsdr_set_agc_mode");
+        setDirectSampling = metrics.nativeCall("rtlsdr_set_direct_sampling");
+        setOffsetTuning = metrics.nativeCall("rtlsdr_set_offset_tuning");
+        getDeviceCount = metrics.nativeCall("rtlsdr_get_device_count");
+        getDeviceName = metrics.nativeCall("rtlsdr_get_device_name");
+        getDeviceUsbStrings = metrics.nativeCall("rtlsdr_get_device_usb_strings");
+        setXtalFreq = metrics.nativeCall("rtlsdr_set_xtal_freq");
+        getXtalFreq = metrics.nativeCall("rtlsdr_get_xtal_freq");
+        setDithering = metrics.nativeCall("rtlsdr_set_dithering");
+        setTunerBandwidth = metrics.nativeCall("rtlsdr_set_tuner_bandwidth");
+        setBiasTee = metrics.nativeCall("rtlsdr_set_bias_tee");
+        getTunerType = metrics.nativeCall("rtlsdr_get_tuner_type");
+        readAsync = metrics.nativeCall("rtlsdr_read_async");
+        cancelAsync = metrics.nativeCall("rtlsdr_cancel_async");
+    }
+
+    static RtlNativeLibrary instrument(RtlNativeLibrary nativeLibrary, StreamMetrics metrics) {
+        return new RtlNativeLibraryMetrics(nativeLibrary, metrics);
+    }
+
+    @Override
+    public int rtlsdr_open(PointerByReference dev, int index) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_open(dev, index);
+        }
+        finally {
+            open.completed(start);
+        }
+    }
+
+    @Override
+    public void rtlsdr_close(Pointer dev) {
+        long start = metrics.nativeCallStarted();
+        try {
+            nativeLibrary.rtlsdr_close(dev);
+        }
+        finally {
+            close.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_sample_rate(Pointer dev, int rate) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_set_sample_rate(dev, rate);
+        }
+        finally {
+            setSampleRate.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_get_sample_rate(Pointer dev) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_get_sample_rate(dev);
+        }
+        finally {
+            getSampleRate.completed(start);
+        }
+    }
+
+    @Override
+    public void rtlsdr_reset_buffer(Pointer dev) {
+        long start = metrics.nativeCallStarted();
+        try {
+            nativeLibrary.rtlsdr_reset_buffer(dev);
+        }
+        finally {
+            resetBuffer.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_read_sync(Pointer dev, byte[] buf, int len, IntByReference n_read) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_read_sync(dev, buf, len, n_read);
+        }
+        finally {
+            readSync.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_read_sync(Pointer dev, ByteBuffer buf, int len, IntByReference n_read) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_read_sync(dev, buf, len, n_read);
+        }
+        finally {
+            readSync.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_read_sync(Pointer dev, Pointer buf, int len, IntByReference n_read) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_read_sync(dev, buf, len, n_read);
+        }
+        finally {
+            readSync.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_freq_correction(Pointer dev, int ppm) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_set_freq_correction(dev, ppm);
+        }
+        finally {
+            setFreqCorrection.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_get_freq_correction(Pointer dev) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_get_freq_correction(dev);
+        }
+        finally {
+            getFreqCorrection.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_center_freq(Pointer dev, long freq) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_set_center_freq(dev, freq);
+        }
+        finally {
+            setCenterFreq.completed(start);
+        }
+    }
+
+    @Override
+    public long rtlsdr_get_center_freq(Pointer dev) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_get_center_freq(dev);
+        }
+        finally {
+            getCenterFreq.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_if_gain(Pointer dev, int stage, int gain) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_set_tuner_if_gain(dev, stage, gain);
+        }
+        finally {
+            setTunerIfGain.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_get_tuner_gains(Pointer dev, int[] gains) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_get_tuner_gains(dev, gains);
+        }
+        finally {
+            getTunerGains.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_gain(Pointer dev, int gain) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_set_tuner_gain(dev, gain);
+        }
+        finally {
+            setTunerGain.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_get_tuner_gain(Pointer dev) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_get_tuner_gain(dev);
+        }
+        finally {
+            getTunerGain.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_gain_mode(Pointer dev, int mode) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_set_tuner_gain_mode(dev, mode);
+        }
+        finally {
+            setTunerGainMode.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_agc_mode(Pointer dev, int enable) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_set_agc_mode(dev, enable);
+        }
+        finally {
+            setAgcMode.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_direct_sampling(Pointer dev, int mode) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_set_direct_sampling(dev, mode);
+        }
+        finally {
+            setDirectSampling.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_offset_tuning(Pointer dev, int enable) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_set_offset_tuning(dev, enable);
+        }
+        finally {
+            setOffsetTuning.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_get_device_count() {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_get_device_count();
+        }
+        finally {
+            getDeviceCount.completed(start);
+        }
+    }
+
+    @Override
+    public String rtlsdr_get_device_name(int index) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_get_device_name(index);
+        }
+        finally {
+            getDeviceName.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_get_device_usb_strings(int index, byte[] manufacturer, byte[] product, byte[] serial) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_get_device_usb_strings(index, manufacturer, product, serial);
+        }
+        finally {
+            getDeviceUsbStrings.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_xtal_freq(Pointer dev, int rtl_freq, int tuner_freq) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_set_xtal_freq(dev, rtl_freq, tuner_freq);
+        }
+        finally {
+            setXtalFreq.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_get_xtal_freq(Pointer dev, IntByReference rtl_freq, IntByReference tuner_freq) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_get_xtal_freq(dev, rtl_freq, tuner_freq);
+        }
+        finally {
+            getXtalFreq.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_dithering(Pointer dev, int on) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_set_dithering(dev, on);
+        }
+        finally {
+            setDithering.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_bandwidth(Pointer dev, int bw) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_set_tuner_bandwidth(dev, bw);
+        }
+        finally {
+            setTunerBandwidth.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_bias_tee(Pointer dev, int on) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_set_bias_tee(dev, on);
+        }
+        finally {
+            setBiasTee.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_get_tuner_type(Pointer dev) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_get_tuner_type(dev);
+        }
+        finally {
+            getTunerType.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_read_async(Pointer dev, RTLSDRReadAsyncCallback cb, Pointer ctx, int buf_num, int buf_len) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_read_async(dev, cb, ctx, buf_num, buf_len);
+        }
+        finally {
+            readAsync.completed(start);
+        }
+    }
+
+    @Override
+    public int rtlsdr_cancel_async(Pointer dev) {
+        long start = metrics.nativeCallStarted();
+        try {
+            return nativeLibrary.rtlsdr_cancel_async(dev);
+        }
+        finally {
+            cancelAsync.completed(start);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RtlNativeLibraryMetrics{" +
+                "nativeLibrary=" + nativeLibrary +
+                '}';
+    }
+}
@@ -0,0 +1,176 @@
+package com.suricatedevlab.jsdr.rtl;
+
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Platform;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+
+// Resolves librtlsdr in this order:
+// 1. the path or name given by the jsdr.rtl.library system property, "system" forcing the system library
+// 2. the build bundled for the platform under native/<os>-<arch>/, extracted once to a content-hashed cache
+// 3. the librtlsdr installed on the system
+// and binds it through JNA, or through the FFM API (java.lang.foreign) when jsdr.rtl.backend=ffm on JDK 22+
+final class RtlNativeLoader {
+
+    static final String PROPERTY_LIBRARY = "jsdr.rtl.library";
+    static final String PROPERTY_MAPPING = "jsdr.rtl.mapping";
+    static final String PROPERTY_CACHE = "jsdr.native.cache";
+    static final String PROPERTY_BACKEND = "jsdr.rtl.backend";
+    static final String BACKEND_JNA = "jna";
+    static final String BACKEND_FFM = "ffm";
+
+    private static final String LIBRARY_NAME = "rtlsdr";
+    private static final String SYSTEM = "system";
+    private static final String MAPPING_INTERFACE = "interface";
+    private static final int HASH_PREFIX_LENGTH = 16;
+    // Only in the META-INF/versions/22 classes of the jar
+    private static final String FOREIGN_LIBRARY = "com.suricatedevlab.jsdr.rtl.FfmRtlNativeLibrary";
+
+    private RtlNativeLoader() {
+        throw new IllegalStateException("Can not call new");
+    }
+
+    static RtlNativeLibrary load() {
+        String backend = System.getProperty(PROPERTY_BACKEND, BACKEND_JNA);
+        if (BACKEND_FFM.equalsIgnoreCase(backend)) {
+            return loadForeign(locate());
+        }
+        if (!BACKEND_JNA.equalsIgnoreCase(backend)) {
+            throw new IllegalArgumentException("Unknown " + PROPERTY_BACKEND + " '" + backend + "', expected "
+                    + BACKEND_JNA + " or " + BACKEND_FFM);
+        }
+        NativeLibrary library = NativeLibrary.getInstance(locate());
+        boolean direct = !MAPPING_INTERFACE.equalsIgnoreCase(System.getProperty(PROPERTY_MAPPING));
+        return load(library, direct);
+    }
+
+    static RtlNativeLibrary load(NativeLibrary library, boolean direct) {
+        RtlNativeLibrary mapped = Native.load(library.getFile() != null ? library.getFile().getAbsolutePath()
+                : library.getName(), RtlNativeLibrary.class);
+        if (!direct || !DirectRtlNativeLibrary.isSupported() || !DirectRtlNativeLibrary.register(library)) {
+            return mapped;
+        }
+        return new DirectRtlNativeLibrary(mapped);
+    }
+
+    // Path or name of the library, a name being looked up by the dynamic linker
+    static RtlNativeLibrary loadForeign(String library) {
+        Class<?> type;
+        try {
+            type = Class.forName(FOREIGN_LIBRARY);
+        }
+        catch (ClassNotFoundException e) {
+            throw new IllegalStateException("The " + BACKEND_FFM + " backend requires JDK 22 or later", e);
+        }
+        try {
+            return (RtlNativeLibrary) type.getDeclaredMethod("load", String.class).invoke(null, library);
+        }
+        catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Can not bind " + library, e.getCause());
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can not bind " + library, e);
+        }
+    }
+
+    // Path of the library to load, or the name to look up on the system
+    private static String locate() {
+        String configured = System.getProperty(PROPERTY_LIBRARY);
+        if (configured != null && !configured.isBlank()) {
+            return SYSTEM.equalsIgnoreCase(configured) ? LIBRARY_NAME : configured;
+        }
+        String fileName = System.mapLibraryName(LIBRARY_NAME);
+        for (String prefix : getResourcePrefixes()) {
+            String resource = "native/" + prefix + "/" + fileName;
+            try (InputStream in = RtlNativeLoader.class.getClassLoader().getResourceAsStream(resource)) {
+                if (in != null) {
+                    return extract(in.readAllBytes(), fileName).toString();
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Can not extract " + resource, e);
+            }
+        }
+        return LIBRARY_NAME;
+    }
+
+    private static List<String> getResourcePrefixes() {
+        List<String> result = new ArrayList<>();
+        int separator = Platform.RESOURCE_PREFIX.indexOf('-');
+        String os = separator < 0 ? Platform.RESOURCE_PREFIX : Platform.RESOURCE_PREFIX.substring(0, separator);
+        result.add(os + "-" + Platform.ARCH);
+        if (!result.contains(Platform.RESOURCE_PREFIX)) {
+            // e.g. "darwin" for universal macOS builds
+            result.add(Platform.RESOURCE_PREFIX);
+        }
+        return result;
+    }
+
+    // The directory is named after the library hash, so a run reuses the file extracted by a previous run
+    private static Path extract(byte[] content, String fileName) throws IOException {
+        Path directory = getCacheDirectory().resolve(hash(content));
+        Path target = directory.resolve(fileName);
+        if (Files.isRegularFile(target) && Files.size(target) == content.length) {
+            return target;
+        }
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, fileName, ".tmp");
+        try {
+            Files.write(temporary, content);
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (FileAlreadyExistsException | AtomicMoveNotSupportedException e) {
+                // Extracted concurrently by another JVM, or a file system without atomic moves
+                if (!Files.isRegularFile(target) || Files.size(target) != content.length) {
+                    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        finally {
+            Files.deleteIfExists(temporary);
+        }
+        return target;
+    }
+
+    private static Path getCacheDirectory() {
+        String configured = System.getProperty(PROPERTY_CACHE);
+        if (configured != null && !configured.isBlank()) {
+            return Path.of(configured);
+        }
+        Path home = Path.of(System.getProperty("user.home"));
+        if (Platform.isMac()) {
+            return home.resolve("Library").resolve("Caches").resolve("jsdr");
+        }
+        if (Platform.isWindows()) {
+            String localAppData = System.getenv("LOCALAPPDATA");
+            return (localAppData != null ? Path.of(localAppData) : home).resolve("jsdr").resolve("cache");
+        }
+        String xdgCache = System.getenv("XDG_CACHE_HOME");
+        return (xdgCache != null && !xdgCache.isBlank() ? Path.of(xdgCache) : home.resolve(".cache")).resolve("jsdr");
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest).substring(0, HASH_PREFIX_LENGTH).toLowerCase(Locale.ENGLISH);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,21 +1,45 @@
 package com.suricatedevlab.jsdr.rtl;
 
 import com.sun.jna.ptr.IntByReference;
+import com.suricatedevlab.jsdr.TunerConfiguration;
 import com.suricatedevlab.jsdr.TunerSample;
 import com.suricatedevlab.jsdr.TunerDefinition;
 
 import java.util.Arrays;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
+// Caches the tuner type and gain table, which do not change, and the last value of every setting, so that getters
+// stay in Java and setters skip the control transfers of a value already in effect. A null cached value is unknown:
+// it is read from librtlsdr on the next get, and always sent on the next set
 class RtlTunerDefinition implements TunerDefinition {
 
     private static final String PROPERTY_TUNER_OFFSET = "TUNER_OFFSET";
     private static final String PROPERTY_TUNER_DITHERING = "TUNER_DITHERING";
+    // Returned by rtlsdr_set_freq_correction when the correction is already in effect
+    private static final int CORRECTION_UNCHANGED = -2;
 
     private final RtlDevice device;
 
+    private RtlSdrTunerType tunerType;
+    private int[] supportedTunerGains;
+    private Integer correctionFrequency;
+    private Long centerFrequency;
+    private Integer requestedSampleRate;
+    // librtlsdr reports the rate the hardware achieves, which can differ from the requested one
+    private Integer sampleRate;
+    private Boolean tunerGainMode;
+    private Integer tunerGain;
+    private Boolean automaticGainControl;
+    private Boolean directSampling;
+    private CrystalFrequency crystalFrequency;
+    private Integer bandwidth;
+    private Boolean biasTee;
+    private Boolean offsetTuning;
+    private Boolean dithering;
+
     public RtlTunerDefinition(RtlDevice device) {
         this.device = device;
     }
@@ -25,78 +49,131 @@ class RtlTunerDefinition implements TunerDefinition {
     }
 
     @Override
-    public String getTunerType() {
-        int tunerTypeCode = device.getNativeLibrary().rtlsdr_get_tuner_type(device.getHandle().getValue());
-        RtlSdrTunerType result = RtlSdrTunerType.fromCode(tunerTypeCode);
-        return result.getDisplayName();
+    public synchronized String getTunerType() {
+        return getRtlSdrTunerType().getDisplayName();
+    }
+
+    private RtlSdrTunerType getRtlSdrTunerType() {
+        if (tunerType == null) {
+            int tunerTypeCode = device.getNativeLibrary().rtlsdr_get_tuner_type(device.getHandle().getValue());
+            tunerType = RtlSdrTunerType.fromCode(tunerTypeCode);
+        }
+        return tunerType;
     }
 
     @Override
-    public int getCorrectionFrequency() {
-        return device.getNativeLibrary().rtlsdr_get_freq_correction(device.getHandle().getValue());
+    public synchronized int getCorrectionFrequency() {
+        if (correctionFrequency == null) {
+            correctionFrequency = device.getNativeLibrary().rtlsdr_get_freq_correction(device.getHandle().getValue());
+        }
+        return correctionFrequency;
     }
 
     @Override
-    public void setCorrectionFrequency(int correctionFrequency) {
+    public synchronized void setCorrectionFrequency(int correctionFrequency) {
+        if (Objects.equals(this.correctionFrequency, correctionFrequency)) {
+            return;
+        }
         int result = device.getNativeLibrary().rtlsdr_set_freq_correction(device.getHandle().getValue(), correctionFrequency);
-        if (result < 0) {
+        if (result < 0 && result != CORRECTION_UNCHANGED) {
             throw new IllegalArgumentException("Invalid correction frequency (PPM)");
         }
+        this.correctionFrequency = correctionFrequency;
     }
 
     @Override
-    public long getCenterFrequency() {
-        return device.getNativeLibrary().rtlsdr_get_center_freq(device.getHandle().getValue());
+    public synchronized long getCenterFrequency() {
+        if (centerFrequency == null) {
+            centerFrequency = device.getNativeLibrary().rtlsdr_get_center_freq(device.getHandle().getValue());
+        }
+        return centerFrequency;
     }
 
     @Override
-    public void setCenterFrequency(long frequency) {
+    public synchronized void setCenterFrequency(long frequency) {
+        if (Objects.equals(centerFrequency, frequency)) {
+            return;
+        }
         int result = device.getNativeLibrary().rtlsdr_set_center_freq(device.getHandle().getValue(), frequency);
         if (result < 0) {
             throw new IllegalArgumentException("Invalid center frequency");
         }
+        centerFrequency = frequency;
     }
 
     @Override
-    public int[] getSupportedTunerGains() {
-        int[] gains = new int[256];
-        int result = device.getNativeLibrary().rtlsdr_get_tuner_gains(device.getHandle().getValue(), gains);
-        if (result < 0) {
-            throw new IllegalStateException("Can not fetch supported tuner gains");
+    public synchronized int[] getSupportedTunerGains() {
+        return getSupportedTunerGainTable().clone();
+    }
+
+    // Ascending, as listed by the tuner drivers of librtlsdr
+    private int[] getSupportedTunerGainTable() {
+        if (supportedTunerGains == null) {
+            int[] gains = new int[256];
+            int result = device.getNativeLibrary().rtlsdr_get_tuner_gains(device.getHandle().getValue(), gains);
+            if (result < 0) {
+                throw new IllegalStateException("Can not fetch supported tuner gains");
+            }
+            gains = Arrays.copyOf(gains, Math.min(result, gains.length));
+            Arrays.sort(gains);
+            supportedTunerGains = gains;
         }
-        return ByteUtils.trim(gains);
+        return supportedTunerGains;
     }
 
     @Override
-    public void setTunerGainMode(boolean automatic) {
-        int result = device.getNativeLibrary().rtlsdr_set_tuner_gain_mode(device.getHandle().getValue(), automatic ? 1 : 0);
+    public synchronized void setTunerGainMode(boolean automatic) {
+        if (Objects.equals(tunerGainMode, automatic)) {
+            return;
+        }
+        // librtlsdr takes the manual flag
+        int result = device.getNativeLibrary().rtlsdr_set_tuner_gain_mode(device.getHandle().getValue(), automatic ? 0 : 1);
         if (result < 0) {
             throw new IllegalStateException("Failed to set tuner gain mode");
         }
+        tunerGainMode = automatic;
+        // The tuner drivers reset the gain stages when switching modes, the manual gain has to be sent again
+        tunerGain = null;
     }
 
     @Override
-    public void setTunerGain(int gain) {
-        int[] supportedTunerGains = getSupportedTunerGains();
-        if (Arrays.stream(supportedTunerGains).noneMatch(g -> g == gain)) {
-            String formattedTunerGains = getFormattedIntValues(supportedTunerGains);
-            throw new IllegalArgumentException(String
-                                        .format("Invalid tuner gain = %d - only tuner gains: %s are supported",
-                                                gain, formattedTunerGains));
+    public synchronized void setTunerGain(int gain) {
+        checkTunerGain(gain);
+        if (Objects.equals(tunerGain, gain)) {
+            return;
         }
         int result = device.getNativeLibrary().rtlsdr_set_tuner_gain(device.getHandle().getValue(), gain);
         if (result < 0) {
             throw new IllegalArgumentException("Invalid tuner gain");
         }
+        tunerGain = gain;
+        if (!Boolean.FALSE.equals(tunerGainMode)) {
+            // Some tuner drivers switch to manual gain when a gain is set
+            tunerGainMode = null;
+        }
+    }
+
+    private void checkTunerGain(int gain) {
+        int[] gains = getSupportedTunerGainTable();
+        if (Arrays.binarySearch(gains, gain) < 0) {
+            String formattedTunerGains = getFormattedIntValues(gains);
+            throw new IllegalArgumentException(String
+                                        .format("Invalid tuner gain = %d - only tuner gains: %s are supported",
+                                                gain, formattedTunerGains));
+        }
     }
 
     @Override
-    public int getTunerGain() {
-        return device.getNativeLibrary().rtlsdr_get_tuner_gain(device.getHandle().getValue());
+    public synchronized int getTunerGain() {
+        if (tunerGain == null) {
+            tunerGain = device.getNativeLibrary().rtlsdr_get_tuner_gain(device.getHandle().getValue());
+        }
+        return tunerGain;
     }
 
     @Override
     public void setTunerIfGain(int stage, int gain) {
+        // Not cached, librtlsdr does not report the IF gains
         int result = device.getNativeLibrary().rtlsdr_set_tuner_if_gain(device.getHandle().getValue(), stage, gain);
         if (result < 0) {
             throw new IllegalArgumentException("Invalid tuner if gain");
@@ -104,91 +181,134 @@ class RtlTunerDefinition implements TunerDefinition {
     }
 
     @Override
-    public int getSampleRate() {
-        return device.getNativeLibrary().rtlsdr_get_sample_rate(device.getHandle().getValue());
+    public synchronized int getSampleRate() {
+        if (sampleRate == null) {
+            sampleRate = device.getNativeLibrary().rtlsdr_get_sample_rate(device.getHandle().getValue());
+        }
+        return sampleRate;
     }
 
     @Override
-    public void setSampleRate(int rate) {
+    public synchronized void setSampleRate(int rate) {
+        if (Objects.equals(requestedSampleRate, rate)) {
+            return;
+        }
         int result = device.getNativeLibrary().rtlsdr_set_sample_rate(device.getHandle().getValue(), rate);
         if (result < 0) {
             throw new IllegalArgumentException("Invalid sample rate");
         }
+        requestedSampleRate = rate;
+        sampleRate = null;
     }
 
     @Override
-    public void setAutomaticGainControl(boolean activate) {
+    public synchronized void setAutomaticGainControl(boolean activate) {
+        if (Objects.equals(automaticGainControl, activate)) {
+            return;
+        }
         int result = device.getNativeLibrary().rtlsdr_set_agc_mode(device.getHandle().getValue(), activate ? 1 : 0);
         if (result < 0) {
             throw new IllegalArgumentException("Failed to set in AGC mode");
         }
+        automaticGainControl = activate;
     }
 
     @Override
-    public void setDirectSampling(boolean activate) {
+    public synchronized void setDirectSampling(boolean activate) {
+        if (Objects.equals(directSampling, activate)) {
+            return;
+        }
         int result = device.getNativeLibrary().rtlsdr_set_direct_sampling(device.getHandle().getValue(), activate ? 1 : 0);
         if (result < 0) {
             throw new IllegalArgumentException("Failed to set in direct sampling");
         }
+        directSampling = activate;
+        // Leaving direct sampling initializes the tuner again, dropping its gain, bandwidth and offset settings
+        tunerGainMode = null;
+        tunerGain = null;
+        bandwidth = null;
+        offsetTuning = null;
     }
 
     @Override
-    public void setCrystalFrequency(CrystalFrequency crystalFrequency) {
+    public synchronized void setCrystalFrequency(CrystalFrequency crystalFrequency) {
+        if (Objects.equals(this.crystalFrequency, crystalFrequency)) {
+            return;
+        }
         int result = device.getNativeLibrary().rtlsdr_set_xtal_freq(device.getHandle().getValue(),
                 crystalFrequency.rtlFrequency(), crystalFrequency.tunerFrequency());
         if (result < 0) {
             throw new IllegalArgumentException("Failed to set crystal frequency");
         }
+        this.crystalFrequency = crystalFrequency;
+        // The achieved sample rate depends on the crystal
+        sampleRate = null;
     }
 
     @Override
-    public CrystalFrequency getCrystalFrequency() {
-        IntByReference rtlFrequency = new IntByReference();
-        IntByReference tunerFrequency = new IntByReference();
-        int result = device.getNativeLibrary().rtlsdr_get_xtal_freq(device.getHandle().getValue(),
-                rtlFrequency, tunerFrequency);
-        if (result < 0) {
-            throw new IllegalArgumentException("Failed to get crystal frequency");
+    public synchronized CrystalFrequency getCrystalFrequency() {
+        if (crystalFrequency == null) {
+            IntByReference rtlFrequency = new IntByReference();
+            IntByReference tunerFrequency = new IntByReference();
+            int result = device.getNativeLibrary().rtlsdr_get_xtal_freq(device.getHandle().getValue(),
+                    rtlFrequency, tunerFrequency);
+            if (result < 0) {
+                throw new IllegalArgumentException("Failed to get crystal frequency");
+            }
+            crystalFrequency = new CrystalFrequency(rtlFrequency.getValue(), tunerFrequency.getValue());
         }
-        return new CrystalFrequency(rtlFrequency.getValue(), tunerFrequency.getValue());
+        return crystalFrequency;
     }
 
     @Override
-    public void setBandwidth(int bandwidth) {
+    public synchronized void setBandwidth(int bandwidth) {
+        if (Objects.equals(this.bandwidth, bandwidth)) {
+            return;
+        }
         int result = device.getNativeLibrary().rtlsdr_set_tuner_bandwidth(device.getHandle().getValue(), bandwidth);
         if (result < 0) {
             throw new IllegalStateException("Failed to set bandwidth");
         }
+        this.bandwidth = bandwidth;
     }
 
     @Override
-    public void setBiasTee(boolean activate) {
+    public synchronized void setBiasTee(boolean activate) {
+        if (Objects.equals(biasTee, activate)) {
+            return;
+        }
         int result = device.getNativeLibrary().rtlsdr_set_bias_tee(device.getHandle().getValue(), activate ? 1 : 0);
         if (result < 0) {
             throw new IllegalArgumentException("Failed to set in direct sampling");
         }
+        biasTee = activate;
     }
 
     @Override
-    public void setExtraProperties(Map<String, Object> properties) {
+    public synchronized void setExtraProperties(Map<String, Object> properties) {
         if (properties == null) {
             return;
         }
         if (properties.containsKey(PROPERTY_TUNER_OFFSET)) {
             Object value = properties.get(PROPERTY_TUNER_OFFSET);
             if (value instanceof Boolean castedValue) {
-                int result = device.getNativeLibrary().rtlsdr_set_offset_tuning(device.getHandle().getValue(), castedValue ? 1 : 0);
-                if (result == -1) {
-                    throw new IllegalStateException("Uninitialized device handle");
-                }
-                else if (result == -2) {
-                    throw new UnsupportedOperationException("Failed to set in offset tuning mode since direct sampling = true");
-                }
-                else if (result == -3) {
-                    throw new IllegalStateException("Failed to set in offset tuning mode since direct sampling = true");
-                }
-                else if (result < 0) {
-                    throw new IllegalStateException("Failed to set in offset tuning mode");
+                if (!castedValue.equals(offsetTuning)) {
+                    int result = device.getNativeLibrary().rtlsdr_set_offset_tuning(device.getHandle().getValue(), castedValue ? 1 : 0);
+                    if (result == -1) {
+                        throw new IllegalStateException("Uninitialized device handle");
+                    }
+                    else if (result == -2) {
+                        throw new UnsupportedOperationException("Failed to set in offset tuning mode since direct sampling = true");
+                    }
+                    else if (result == -3) {
+                        throw new IllegalStateException("Failed to set in offset tuning mode since direct sampling = true");
+                    }
+                    else if (result < 0) {
+                        throw new IllegalStateException("Failed to set in offset tuning mode");
+                    }
+                    offsetTuning = castedValue;
+                    // Offset tuning sets the bandwidth of the R82xx tuners
+                    bandwidth = null;
                 }
             }
             else {
@@ -198,7 +318,7 @@ class RtlTunerDefinition implements TunerDefinition {
 
         if (properties.containsKey(PROPERTY_TUNER_DITHERING)) {
 
-            RtlSdrTunerType tunerType = RtlSdrTunerType.fromDisplayName(getTunerType());
+            RtlSdrTunerType tunerType = getRtlSdrTunerType();
 
             if (!tunerType.supportsDithering()) {
                 throw new UnsupportedOperationException(String.format("Tuner dithering is only supported by device type %s",
@@ -207,15 +327,18 @@ class RtlTunerDefinition implements TunerDefinition {
 
             Object value = properties.get(PROPERTY_TUNER_DITHERING);
             if (value instanceof Boolean castedValue) {
-                int result = device.getNativeLibrary().rtlsdr_set_dithering(device.getHandle().getValue(), castedValue ? 1 : 0);
-                if (result == -1) {
-                    throw new IllegalStateException("Uninitialized device handle");
-                }
-                else if (result == 1) {
-                    throw new UnsupportedOperationException("Can not set tuner dithering for this device");
-                }
-                else if (result < 0) {
-                    throw new IllegalStateException("Failed to set tuner dithering");
+                if (!castedValue.equals(dithering)) {
+                    int result = device.getNativeLibrary().rtlsdr_set_dithering(device.getHandle().getValue(), castedValue ? 1 : 0);
+                    if (result == -1) {
+                        throw new IllegalStateException("Uninitialized device handle");
+                    }
+                    else if (result == 1) {
+                        throw new UnsupportedOperationException("Can not set tuner dithering for this device");
+                    }
+                    else if (result < 0) {
+                        throw new IllegalStateException("Failed to set tuner dithering");
+                    }
+                    dithering = castedValue;
                 }
             }
             else {
@@ -224,9 +347,18 @@ class RtlTunerDefinition implements TunerDefinition {
         }
     }
 
+    @Override
+    public synchronized void apply(TunerConfiguration configuration) {
+        // Checked before any control transfer, so that an invalid gain does not leave the configuration half applied
+        if (configuration != null && configuration.getTunerGain() != null) {
+            checkTunerGain(configuration.getTunerGain());
+        }
+        TunerDefinition.super.apply(configuration);
+    }
+
     @Override
     public TunerSample tune() {
-        return new RtlTunerSample(this);
+        return device.newTunerSample(this);
     }
 
     @Override
@@ -235,12 +367,12 @@ class RtlTunerDefinition implements TunerDefinition {
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         StringBuilder result = new StringBuilder();
         result.append(String.format("FREQUENCY CORRECTION = %d\n", getCorrectionFrequency()));
         result.append(String.format("CENTER FREQUENCY = %d\n", getCenterFrequency()));
         result.append(String.format("SAMPLE RATE = %d\n", getSampleRate()));
-        result.append(String.format("SUPPORTED TUNER GAIN = %s\n", getFormattedIntValues(getSupportedTunerGains())));
+        result.append(String.format("SUPPORTED TUNER GAIN = %s\n", getFormattedIntValues(getSupportedTunerGainTable())));
         return result.toString();
     }
 
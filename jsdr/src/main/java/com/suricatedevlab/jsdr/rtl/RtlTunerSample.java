@@ -1,17 +1,35 @@
 package com.suricatedevlab.jsdr.rtl;
 
+import com.sun.jna.Native;
 import com.sun.jna.Pointer;
-import com.sun.jna.ptr.PointerByReference;
+import com.sun.jna.ptr.IntByReference;
 import com.suricatedevlab.jsdr.SdrException;
+import com.suricatedevlab.jsdr.StreamStatistics;
 import com.suricatedevlab.jsdr.TunerSample;
+import com.suricatedevlab.jsdr.metrics.StreamMetrics;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
 
 class RtlTunerSample implements TunerSample {
 
+    private static final int ASYNC_NOT_RUNNING = -2;
+
     private final RtlTunerDefinition definition;
-    private PointerByReference nRead;
+    private final StreamMetrics metrics;
+    private final IntByReference nRead = new IntByReference();
+    // Moved to the read position of a direct buffer on every read
+    private final Pointer bufferPointer = new Pointer(0);
+    private ByteBuffer wrappedArray;
+    // The last direct buffer read into and its address
+    private ByteBuffer addressedBuffer;
+    private long bufferAddress;
+    private boolean streaming;
 
     public RtlTunerSample(RtlTunerDefinition definition) {
         this.definition = definition;
+        this.metrics = definition.getDevice().getMetrics();
     }
 
     @Override
@@ -20,17 +38,35 @@ class RtlTunerSample implements TunerSample {
             throw new IllegalArgumentException("buffer size <= 0");
         }
         byte[] result = new byte[bufferSize];
-        resetBuffer();
-        int operationResult = definition.getDevice().getNativeLibrary().rtlsdr_read_sync(definition.getDevice().getHandle().getValue(),
-                                result, bufferSize, nRead);
-        if (operationResult < 0) {
-            throw new SdrException("Failed to perform read sync");
+        int read = readSync(result, 0, bufferSize);
+        if (read == 0) {
+            return null;
+        }
+        return read == bufferSize ? result : Arrays.copyOf(result, read);
+    }
+
+    @Override
+    public int readSync(ByteBuffer dst) throws SdrException {
+        if (dst == null || dst.isReadOnly() || !dst.hasRemaining()) {
+            throw new IllegalArgumentException("Destination buffer is null, read-only or full");
+        }
+        int read = read(dst, dst.remaining());
+        dst.position(dst.position() + read);
+        return read;
+    }
+
+    @Override
+    public int readSync(byte[] dst, int offset, int length) throws SdrException {
+        if (dst == null || length <= 0) {
+            throw new IllegalArgumentException("Destination array is null or length <= 0");
         }
-        result = ByteUtils.trim(result);
-        if (result.length == 0) {
-            result = null;
+        Objects.checkFromIndexSize(offset, length, dst.length);
+        // Keep the wrapper of the last array so that a read loop reusing the same array does not allocate
+        if (wrappedArray == null || wrappedArray.array() != dst) {
+            wrappedArray = ByteBuffer.wrap(dst);
         }
-        return result;
+        wrappedArray.clear().position(offset);
+        return read(wrappedArray, length);
     }
 
     @Override
@@ -40,13 +76,17 @@ class RtlTunerSample implements TunerSample {
             throw new IllegalArgumentException("Callback is null");
         }
 
-        resetBuffer();
+        startStreaming();
 
         RtlNativeLibrary.RTLSDRReadAsyncCallback nativeCallback = new RtlNativeLibrary.RTLSDRReadAsyncCallback() {
             @Override
             public void invoke(Pointer buf, int length, Pointer ctx) {
+                long start = metrics != null ? metrics.transferStarted() : 0;
                 byte[] data = buf.getByteArray(0, length);
                 callback.onReceive(data);
+                if (metrics != null) {
+                    metrics.transferCompleted(start, length);
+                }
             }
         };
 
@@ -59,12 +99,153 @@ class RtlTunerSample implements TunerSample {
         }
     }
 
+    @Override
+    public void readAsyncDirect(ReadAsyncDirectCallback callback, int bufferNumber, int bufferSize) throws SdrException {
+
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback is null");
+        }
+
+        startStreaming();
+
+        TransferBufferViews views = new TransferBufferViews();
+        RtlNativeLibrary.RTLSDRReadAsyncCallback nativeCallback = new RtlNativeLibrary.RTLSDRReadAsyncCallback() {
+            @Override
+            public void invoke(Pointer buf, int length, Pointer ctx) {
+                long start = metrics != null ? metrics.transferStarted() : 0;
+                long address = Pointer.nativeValue(buf);
+                ByteBuffer view = views.viewOf(address, length);
+                if (view == null) {
+                    view = views.add(address, buf.getByteBuffer(0, length).asReadOnlyBuffer(), length);
+                }
+                callback.onReceive(view);
+                if (metrics != null) {
+                    metrics.transferCompleted(start, length);
+                }
+            }
+        };
+
+        int result = definition.getDevice().getNativeLibrary().rtlsdr_read_async(definition.getDevice().getHandle().getValue(),
+                nativeCallback, null, bufferNumber, bufferSize);
+
+        if (result < 0) {
+            throw new SdrException("Failed to perform read async");
+        }
+    }
+
+    @Override
+    public void cancelAsync() throws SdrException {
+        int result = definition.getDevice().getNativeLibrary().rtlsdr_cancel_async(definition.getDevice().getHandle().getValue());
+        // -2 when no read is running
+        if (result < 0 && result != ASYNC_NOT_RUNNING) {
+            throw new SdrException("Failed to cancel read async");
+        }
+    }
+
+    @Override
+    public StreamStatistics getStatistics() {
+        return metrics != null ? metrics.getStatistics() : StreamStatistics.EMPTY;
+    }
+
     @Override
     public void close() throws Exception {
         definition.close();
     }
 
-    private void resetBuffer() {
+    RtlTunerDefinition getDefinition() {
+        return definition;
+    }
+
+    // null when the metrics are disabled
+    StreamMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Reads at the position of the buffer; librtlsdr reports the byte count through n_read
+    int read(ByteBuffer dst, int length) throws SdrException {
+        long start = transferStarted();
+        RtlNativeLibrary nativeLibrary = definition.getDevice().getNativeLibrary();
+        Pointer handle = definition.getDevice().getHandle().getValue();
+        int operationResult;
+        if (dst.isDirect()) {
+            // A read loop reuses the same buffer, its address is only looked up when the buffer changes
+            if (addressedBuffer != dst) {
+                bufferAddress = Pointer.nativeValue(Native.getDirectBufferPointer(dst));
+                addressedBuffer = dst;
+            }
+            Pointer.nativeValue(bufferPointer, bufferAddress + dst.position());
+            operationResult = nativeLibrary.rtlsdr_read_sync(handle, bufferPointer, length, nRead);
+        }
+        else {
+            operationResult = nativeLibrary.rtlsdr_read_sync(handle, dst, length, nRead);
+        }
+        if (operationResult < 0) {
+            throw new SdrException("Failed to perform read sync");
+        }
+        return transferCompleted(start, Math.min(nRead.getValue(), length));
+    }
+
+    // Starts the stream on the first synchronous read
+    long transferStarted() {
+        if (!streaming) {
+            startStreaming();
+        }
+        return metrics != null ? metrics.transferStarted() : 0;
+    }
+
+    int transferCompleted(long start, int read) {
+        if (metrics != null) {
+            metrics.transferCompleted(start, read);
+        }
+        return read;
+    }
+
+    // The endpoint is only reset when a stream starts, resetting between reads would drop in-flight samples
+    void startStreaming() {
         definition.getDevice().getNativeLibrary().rtlsdr_reset_buffer(definition.getDevice().getHandle().getValue());
+        streaming = true;
+        if (metrics != null) {
+            metrics.streamStarted(definition.getSampleRate());
+        }
+    }
+
+    // librtlsdr allocates its transfer buffers once per rtlsdr_read_async call and cycles through them, so a
+    // read-only view is created the first time a buffer address is seen and then reused for every later
+    // transfer landing in the same buffer
+    static final class TransferBufferViews {
+
+        private long[] addresses = new long[16];
+        private ByteBuffer[] views = new ByteBuffer[16];
+        private int count;
+
+        // The view of the buffer positioned over the transfer, null when the address is new
+        ByteBuffer viewOf(long address, int length) {
+            for (int i = 0; i < count; i++) {
+                if (addresses[i] == address && views[i].capacity() >= length) {
+                    ByteBuffer view = views[i];
+                    view.limit(length).position(0);
+                    return view;
+                }
+            }
+            return null;
+        }
+
+        ByteBuffer add(long address, ByteBuffer view, int length) {
+            view.limit(length).position(0);
+            for (int i = 0; i < count; i++) {
+                if (addresses[i] == address) {
+                    views[i] = view;
+                    return view;
+                }
+            }
+            if (count == addresses.length) {
+                addresses = Arrays.copyOf(addresses, count * 2);
+                views = Arrays.copyOf(views, count * 2);
+            }
+            addresses[count] = address;
+            views[count] = view;
+            count++;
+            return view;
+        }
     }
 }
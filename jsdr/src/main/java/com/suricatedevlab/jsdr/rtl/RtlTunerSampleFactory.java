@@ -0,0 +1,8 @@
+package com.suricatedevlab.jsdr.rtl;
+
+// Implemented by the native libraries streaming through their own tuner sample, such as the FFM backend
+@FunctionalInterface
+interface RtlTunerSampleFactory {
+
+    RtlTunerSample create(RtlTunerDefinition definition);
+}
@@ -0,0 +1,178 @@
+package com.suricatedevlab.jsdr.sim;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+
+class SignalGenerator {
+
+    private static final int SINE_BITS = 12;
+    private static final int SINE_SIZE = 1 << SINE_BITS;
+    private static final int SINE_MASK = SINE_SIZE - 1;
+    private static final int SINE_SHIFT = Integer.SIZE - SINE_BITS;
+    private static final int QUARTER = SINE_SIZE / 4;
+    private static final float[] SINE = new float[SINE_SIZE];
+    private static final int NOISE_SIZE = 1 << 16;
+    private static final int NOISE_MASK = NOISE_SIZE - 1;
+    private static final int SCRATCH_SIZE = 16 * 1024;
+
+    static {
+        for (int i = 0; i < SINE_SIZE; i++) {
+            SINE[i] = (float) Math.sin(2 * Math.PI * i / SINE_SIZE);
+        }
+    }
+
+    private final SignalScenario scenario;
+    private final float[] gaussian = new float[NOISE_SIZE];
+    private final int[] phases;
+    private final int[] increments;
+    private final float[] amplitudes;
+    private final byte[] scratch = new byte[SCRATCH_SIZE];
+    private int activeTones;
+    private float sigma;
+    private float clip;
+    private int random;
+    private long burstOn;
+    private long burstPeriod;
+    private long burstPosition;
+
+    private long centerFrequency = -1;
+    private int sampleRate = -1;
+    private double gain = Double.NaN;
+
+    SignalGenerator(SignalScenario scenario, long seed) {
+        this.scenario = scenario;
+        int toneCount = scenario.getTones().size();
+        this.phases = new int[toneCount];
+        this.increments = new int[toneCount];
+        this.amplitudes = new float[toneCount];
+        Random source = new Random(seed);
+        for (int i = 0; i < NOISE_SIZE; i++) {
+            gaussian[i] = (float) source.nextGaussian();
+        }
+        this.random = source.nextInt() | 1;
+    }
+
+    SignalScenario getScenario() {
+        return scenario;
+    }
+
+    // Recomputes the oscillators when the tuning changed, the gain being given in dB
+    void configure(long centerFrequency, int sampleRate, double gain) {
+        if (centerFrequency == this.centerFrequency && sampleRate == this.sampleRate && gain == this.gain) {
+            return;
+        }
+        this.centerFrequency = centerFrequency;
+        this.sampleRate = sampleRate;
+        this.gain = gain;
+
+        double scale = Math.pow(10, gain / 20);
+        List<SignalScenario.Tone> tones = scenario.getTones();
+        activeTones = 0;
+        for (SignalScenario.Tone tone : tones) {
+            double offset = tone.frequency() - centerFrequency;
+            if (Math.abs(offset) > sampleRate / 2.0) {
+                continue;
+            }
+            // Phase accumulators wrap on 32 bits, one turn being 2^32
+            increments[activeTones] = (int) Math.round(offset / sampleRate * 0x1p32);
+            amplitudes[activeTones] = (float) (scale * Math.pow(10, tone.level() / 20));
+            activeTones++;
+        }
+        sigma = (float) (scale * Math.pow(10, scenario.getNoiseLevel() / 20) / Math.sqrt(2));
+        clip = (float) scenario.getClipLevel();
+        if (scenario.getBurstOnMicros() > 0) {
+            burstOn = Math.max(1, scenario.getBurstOnMicros() * sampleRate / 1_000_000L);
+            burstPeriod = burstOn + Math.max(1, scenario.getBurstOffMicros() * sampleRate / 1_000_000L);
+            burstPosition %= burstPeriod;
+        }
+        else {
+            burstOn = 0;
+            burstPeriod = 0;
+        }
+    }
+
+    void fill(ByteBuffer dst, int length) {
+        if (dst.hasArray()) {
+            fill(dst.array(), dst.arrayOffset() + dst.position(), length);
+            dst.position(dst.position() + length);
+            return;
+        }
+        while (length > 0) {
+            int chunk = Math.min(length, SCRATCH_SIZE);
+            fill(scratch, 0, chunk);
+            dst.put(scratch, 0, chunk);
+            length -= chunk;
+        }
+    }
+
+    // Writes interleaved unsigned 8-bit IQ, a trailing odd byte receiving the I component of one more sample
+    void fill(byte[] dst, int offset, int length) {
+        int end = offset + length;
+        int index = offset;
+        while (index < end) {
+            int samples = (end - index + 1) >> 1;
+            boolean on = true;
+            if (burstPeriod > 0) {
+                if (burstPosition < burstOn) {
+                    samples = (int) Math.min(samples, burstOn - burstPosition);
+                }
+                else {
+                    samples = (int) Math.min(samples, burstPeriod - burstPosition);
+                    on = false;
+                }
+                burstPosition = (burstPosition + samples) % burstPeriod;
+            }
+            index = generate(dst, index, end, samples, on);
+        }
+    }
+
+    private int generate(byte[] dst, int index, int end, int samples, boolean on) {
+        int tones = on ? activeTones : 0;
+        float noise = sigma;
+        float limit = clip;
+        int state = random;
+        for (int n = 0; n < samples; n++) {
+            float i = 0;
+            float q = 0;
+            for (int t = 0; t < tones; t++) {
+                int phase = phases[t] >>> SINE_SHIFT;
+                i += amplitudes[t] * SINE[(phase + QUARTER) & SINE_MASK];
+                q += amplitudes[t] * SINE[phase];
+                phases[t] += increments[t];
+            }
+            if (noise > 0) {
+                state ^= state << 13;
+                state ^= state >>> 17;
+                state ^= state << 5;
+                i += noise * gaussian[state & NOISE_MASK];
+                q += noise * gaussian[(state >>> 16) & NOISE_MASK];
+            }
+            i = Math.max(-limit, Math.min(limit, i));
+            q = Math.max(-limit, Math.min(limit, q));
+            dst[index++] = (byte) (int) (i * 127.5f + 128f);
+            if (index < end) {
+                dst[index++] = (byte) (int) (q * 127.5f + 128f);
+            }
+        }
+        if (tones < activeTones) {
+            // Keyed off tones keep running so that bursts stay phase continuous
+            for (int t = 0; t < activeTones; t++) {
+                phases[t] += increments[t] * samples;
+            }
+        }
+        random = state;
+        return index;
+    }
+
+    // Advances the signal as if the given number of bytes had been generated
+    void skip(long length) {
+        long samples = (length + 1) >> 1;
+        for (int t = 0; t < activeTones; t++) {
+            phases[t] += (int) (increments[t] * samples);
+        }
+        if (burstPeriod > 0) {
+            burstPosition = (burstPosition + samples) % burstPeriod;
+        }
+    }
+}
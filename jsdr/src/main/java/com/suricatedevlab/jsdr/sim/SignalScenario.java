@@ -0,0 +1,215 @@
+package com.suricatedevlab.jsdr.sim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Description of the signal synthesized by the {@link SimDriver} devices.
+ *
+ * <p>A scenario is a sum of continuous wave tones at absolute frequencies, so that they appear at their offset
+ * from the center frequency of the simulated tuner, plus additive white gaussian noise. The tones can be keyed
+ * on and off in bursts and the sum is clipped at a configurable level before 8-bit quantization, like an
+ * overdriven ADC. Levels are expressed in dBFS at a tuner gain of 0 dB; a manual tuner gain scales the whole
+ * signal, noise included.</p>
+ *
+ * <p>Instances are immutable and can be shared between devices.</p>
+ */
+public final class SignalScenario {
+
+    /**
+     * Scenario used when none is configured: a -6 dBFS tone 100 kHz above 100 MHz over a -40 dBFS noise floor.
+     */
+    public static final SignalScenario DEFAULT = builder()
+            .tone(100_100_000L, -6)
+            .noise(-40)
+            .build();
+
+    private final List<Tone> tones;
+    private final double noiseLevel;
+    private final long burstOnMicros;
+    private final long burstOffMicros;
+    private final double clipLevel;
+    private final long seed;
+
+    private SignalScenario(Builder builder) {
+        this.tones = Collections.unmodifiableList(new ArrayList<>(builder.tones));
+        this.noiseLevel = builder.noiseLevel;
+        this.burstOnMicros = builder.burstOnMicros;
+        this.burstOffMicros = builder.burstOffMicros;
+        this.clipLevel = builder.clipLevel;
+        this.seed = builder.seed;
+    }
+
+    /**
+     * Creates a builder of an empty scenario, without tones nor noise.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the tones of the scenario
+     */
+    public List<Tone> getTones() {
+        return tones;
+    }
+
+    /**
+     * @return the noise power in dBFS, or {@link Double#NEGATIVE_INFINITY} without noise
+     */
+    public double getNoiseLevel() {
+        return noiseLevel;
+    }
+
+    /**
+     * @return the time during which tones are keyed on in each burst period, in microseconds, 0 for continuous tones
+     */
+    public long getBurstOnMicros() {
+        return burstOnMicros;
+    }
+
+    /**
+     * @return the time during which tones are keyed off in each burst period, in microseconds
+     */
+    public long getBurstOffMicros() {
+        return burstOffMicros;
+    }
+
+    /**
+     * @return the amplitude at which the I and Q components saturate, as a fraction of full scale
+     */
+    public double getClipLevel() {
+        return clipLevel;
+    }
+
+    /**
+     * @return the seed of the noise generator
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return "SignalScenario{" +
+                "tones=" + tones +
+                ", noiseLevel=" + noiseLevel +
+                ", burstOnMicros=" + burstOnMicros +
+                ", burstOffMicros=" + burstOffMicros +
+                ", clipLevel=" + clipLevel +
+                '}';
+    }
+
+    /**
+     * Continuous wave tone of a scenario.
+     *
+     * @param frequency the absolute frequency of the tone, in Hz
+     * @param level the power of the tone, in dBFS
+     */
+    public record Tone(long frequency, double level) {
+    }
+
+    /**
+     * Builder of {@link SignalScenario} instances.
+     */
+    public static final class Builder {
+
+        private final List<Tone> tones = new ArrayList<>();
+        private double noiseLevel = Double.NEGATIVE_INFINITY;
+        private long burstOnMicros;
+        private long burstOffMicros;
+        private double clipLevel = 1.0;
+        private long seed = 1L;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a continuous wave tone. Tones further than half the sample rate from the center frequency are not
+         * synthesized.
+         *
+         * @param frequency the absolute frequency of the tone, in Hz
+         * @param level the power of the tone, in dBFS
+         * @return this builder
+         * @throws IllegalArgumentException if the frequency is negative or the level is not finite
+         */
+        public Builder tone(long frequency, double level) {
+            if (frequency < 0) {
+                throw new IllegalArgumentException("frequency < 0");
+            }
+            if (!Double.isFinite(level)) {
+                throw new IllegalArgumentException("Tone level must be finite");
+            }
+            tones.add(new Tone(frequency, level));
+            return this;
+        }
+
+        /**
+         * Adds white gaussian noise, none by default.
+         *
+         * @param level the noise power over the whole sample rate, in dBFS
+         * @return this builder
+         * @throws IllegalArgumentException if the level is not finite
+         */
+        public Builder noise(double level) {
+            if (!Double.isFinite(level)) {
+                throw new IllegalArgumentException("Noise level must be finite");
+            }
+            this.noiseLevel = level;
+            return this;
+        }
+
+        /**
+         * Keys the tones on and off periodically, the noise remaining continuous. Tones are continuous by default.
+         *
+         * @param onMicros the time during which tones are on, in microseconds
+         * @param offMicros the time during which tones are off, in microseconds
+         * @return this builder
+         * @throws IllegalArgumentException if a duration is less than or equal to 0
+         */
+        public Builder bursts(long onMicros, long offMicros) {
+            if (onMicros <= 0 || offMicros <= 0) {
+                throw new IllegalArgumentException("Burst durations must be > 0");
+            }
+            this.burstOnMicros = onMicros;
+            this.burstOffMicros = offMicros;
+            return this;
+        }
+
+        /**
+         * Sets the amplitude at which the I and Q components saturate, full scale by default.
+         *
+         * @param level the clipping amplitude as a fraction of full scale, in {@code ]0, 1]}
+         * @return this builder
+         * @throws IllegalArgumentException if the level is out of range
+         */
+        public Builder clipping(double level) {
+            if (!(level > 0 && level <= 1)) {
+                throw new IllegalArgumentException("Clip level must be in ]0, 1]");
+            }
+            this.clipLevel = level;
+            return this;
+        }
+
+        /**
+         * Sets the seed of the noise generator, so that runs are reproducible.
+         *
+         * @param seed the seed
+         * @return this builder
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * @return a new scenario
+         */
+        public SignalScenario build() {
+            return new SignalScenario(this);
+        }
+    }
+}
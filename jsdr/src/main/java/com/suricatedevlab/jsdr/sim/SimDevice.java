@@ -0,0 +1,55 @@
+package com.suricatedevlab.jsdr.sim;
+
+import com.suricatedevlab.jsdr.Device;
+import com.suricatedevlab.jsdr.TunerDefinition;
+
+class SimDevice implements Device {
+
+    private final int index;
+
+    public SimDevice(int index) {
+        this.index = index;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String getName() {
+        return "Simulated device #" + index;
+    }
+
+    @Override
+    public String getManufacturer() {
+        return "jSDR";
+    }
+
+    @Override
+    public String getProduct() {
+        return "Signal generator";
+    }
+
+    @Override
+    public String getSerial() {
+        return String.format("SIM%05d", index);
+    }
+
+    @Override
+    public TunerDefinition getTunerDefinition() {
+        return new SimTunerDefinition(this);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+
+    @Override
+    public String toString() {
+        return "SimDevice{" +
+                "index=" + index +
+                '}';
+    }
+}
@@ -0,0 +1,74 @@
+package com.suricatedevlab.jsdr.sim;
+
+import com.suricatedevlab.jsdr.Device;
+import com.suricatedevlab.jsdr.Driver;
+import com.suricatedevlab.jsdr.DriverIdentifier;
+import com.suricatedevlab.jsdr.SdrException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Driver of virtual devices synthesizing IQ samples, so that the throughput ceiling and the drop behaviour of
+ * consumers can be measured without hardware.
+ *
+ * <p>The number of devices is given by the {@value #PROPERTY_DEVICES} system property, 1 by default. Each device
+ * synthesizes the {@link SignalScenario} set through the {@value #PROPERTY_SCENARIO} extra property of its tuner,
+ * {@link SignalScenario#DEFAULT} otherwise, at the center frequency, sample rate and gain set on the tuner.
+ * Asynchronous reads run the synthesis on a dedicated generator thread per device.</p>
+ *
+ * <p>Samples are paced at the sample rate by default, a consumer slower than the sample rate then losing
+ * transfers like with a real device. Setting the {@value #PROPERTY_PLAYBACK_MODE} extra property to
+ * {@code UNTHROTTLED} delivers samples as fast as they are consumed.</p>
+ */
+@DriverIdentifier(SimDriver.IDENTIFIER)
+public final class SimDriver implements Driver {
+
+    /**
+     * System property giving the number of virtual devices.
+     */
+    public static final String PROPERTY_DEVICES = "jsdr.sim.devices";
+
+    /**
+     * Extra tuner property holding the {@link SignalScenario} to synthesize.
+     */
+    public static final String PROPERTY_SCENARIO = "SCENARIO";
+
+    /**
+     * Extra tuner property selecting the pacing of samples, {@code REALTIME} or {@code UNTHROTTLED}.
+     */
+    public static final String PROPERTY_PLAYBACK_MODE = "PLAYBACK_MODE";
+
+    static final String IDENTIFIER = "SIM";
+
+    @Override
+    public boolean acceptsIdentifier(String identifier) {
+        if (identifier == null || identifier.isBlank()) {
+            return false;
+        }
+        return IDENTIFIER.contentEquals(identifier);
+    }
+
+    @Override
+    public Enumeration<Device> getDevices() throws SdrException {
+        int count = Integer.getInteger(PROPERTY_DEVICES, 1);
+        if (count < 0) {
+            throw new SdrException("Invalid number of simulated devices " + count);
+        }
+        List<Device> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new SimDevice(i));
+        }
+        return Collections.enumeration(result);
+    }
+
+    @Override
+    public Device getDevice(int index) throws SdrException {
+        if (index < 0 || index >= Integer.getInteger(PROPERTY_DEVICES, 1)) {
+            return null;
+        }
+        return new SimDevice(index);
+    }
+}
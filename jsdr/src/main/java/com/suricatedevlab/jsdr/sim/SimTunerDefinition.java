@@ -0,0 +1,216 @@
+package com.suricatedevlab.jsdr.sim;
+
+import com.suricatedevlab.jsdr.TunerDefinition;
+import com.suricatedevlab.jsdr.TunerSample;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+class SimTunerDefinition implements TunerDefinition {
+
+    enum PlaybackMode {
+        // Paced at the sample rate, like a live device
+        REALTIME,
+        // Delivered as fast as the consumer reads
+        UNTHROTTLED
+    }
+
+    // Gains of the R820T tuner, in tenths of dB
+    private static final int[] SUPPORTED_TUNER_GAINS = {
+            0, 9, 14, 27, 37, 77, 87, 125, 144, 157, 166, 197, 207, 229, 254,
+            280, 297, 328, 338, 364, 372, 386, 402, 421, 434, 439, 445, 480, 496
+    };
+    private static final long DEFAULT_CENTER_FREQUENCY = 100_000_000L;
+    private static final int DEFAULT_SAMPLE_RATE = 2_048_000;
+
+    private final SimDevice device;
+    // Read by the generator thread, so that retuning applies to a running stream
+    private volatile long centerFrequency = DEFAULT_CENTER_FREQUENCY;
+    private volatile int sampleRate = DEFAULT_SAMPLE_RATE;
+    private volatile int tunerGain;
+    private volatile boolean automaticGain = true;
+    private int correctionFrequency;
+    private CrystalFrequency crystalFrequency;
+    private SignalScenario scenario = SignalScenario.DEFAULT;
+    private PlaybackMode playbackMode = PlaybackMode.REALTIME;
+
+    public SimTunerDefinition(SimDevice device) {
+        this.device = device;
+    }
+
+    public SimDevice getDevice() {
+        return device;
+    }
+
+    public SignalScenario getScenario() {
+        return scenario;
+    }
+
+    public PlaybackMode getPlaybackMode() {
+        return playbackMode;
+    }
+
+    // Gain applied to the scenario in dB, the automatic mode keeping the scenario levels
+    public double getEffectiveGain() {
+        return automaticGain ? 0 : tunerGain / 10.0;
+    }
+
+    @Override
+    public String getTunerType() {
+        return "SIM";
+    }
+
+    @Override
+    public int getCorrectionFrequency() {
+        return correctionFrequency;
+    }
+
+    @Override
+    public void setCorrectionFrequency(int correctionFrequency) {
+        this.correctionFrequency = correctionFrequency;
+    }
+
+    @Override
+    public long getCenterFrequency() {
+        return centerFrequency;
+    }
+
+    @Override
+    public void setCenterFrequency(long frequency) {
+        if (frequency < 0) {
+            throw new IllegalArgumentException("Invalid center frequency");
+        }
+        this.centerFrequency = frequency;
+    }
+
+    @Override
+    public int[] getSupportedTunerGains() {
+        return SUPPORTED_TUNER_GAINS.clone();
+    }
+
+    @Override
+    public void setTunerGainMode(boolean automatic) {
+        this.automaticGain = automatic;
+    }
+
+    @Override
+    public void setTunerGain(int gain) {
+        if (Arrays.stream(SUPPORTED_TUNER_GAINS).noneMatch(g -> g == gain)) {
+            throw new IllegalArgumentException(String
+                    .format("Invalid tuner gain = %d - only tuner gains: %s are supported",
+                            gain, getFormattedIntValues(SUPPORTED_TUNER_GAINS)));
+        }
+        this.tunerGain = gain;
+    }
+
+    @Override
+    public int getTunerGain() {
+        return tunerGain;
+    }
+
+    @Override
+    public void setTunerIfGain(int stage, int gain) {
+        // The simulated tuner has a single gain stage
+    }
+
+    @Override
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    @Override
+    public void setSampleRate(int rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Invalid sample rate");
+        }
+        this.sampleRate = rate;
+    }
+
+    @Override
+    public void setAutomaticGainControl(boolean activate) {
+        // The simulated tuner has no AGC
+    }
+
+    @Override
+    public void setDirectSampling(boolean activate) {
+        // Not applicable to a simulated tuner
+    }
+
+    @Override
+    public void setCrystalFrequency(CrystalFrequency crystalFrequency) {
+        this.crystalFrequency = crystalFrequency;
+    }
+
+    @Override
+    public CrystalFrequency getCrystalFrequency() {
+        if (crystalFrequency == null) {
+            throw new IllegalArgumentException("Failed to get crystal frequency");
+        }
+        return crystalFrequency;
+    }
+
+    @Override
+    public void setBandwidth(int bandwidth) {
+        // Not applicable to a simulated tuner
+    }
+
+    @Override
+    public void setBiasTee(boolean activate) {
+        // Not applicable to a simulated tuner
+    }
+
+    @Override
+    public void setExtraProperties(Map<String, Object> properties) {
+        if (properties == null) {
+            return;
+        }
+        if (properties.containsKey(SimDriver.PROPERTY_SCENARIO)) {
+            Object value = properties.get(SimDriver.PROPERTY_SCENARIO);
+            if (value instanceof SignalScenario castedValue) {
+                scenario = castedValue;
+            }
+            else {
+                throw new IllegalArgumentException("Failed to set scenario expecting SignalScenario");
+            }
+        }
+        if (properties.containsKey(SimDriver.PROPERTY_PLAYBACK_MODE)) {
+            Object value = properties.get(SimDriver.PROPERTY_PLAYBACK_MODE);
+            try {
+                playbackMode = PlaybackMode.valueOf(String.valueOf(value).toUpperCase(Locale.ENGLISH));
+            }
+            catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Failed to set playback mode expecting REALTIME or UNTHROTTLED");
+            }
+        }
+    }
+
+    @Override
+    public TunerSample tune() {
+        return new SimTunerSample(this);
+    }
+
+    @Override
+    public void close() {
+        device.close();
+    }
+
+    private static String getFormattedIntValues(int[] values) {
+        return Arrays.stream(values)
+                .mapToObj(Integer::toString)
+                .collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(String.format("FREQUENCY CORRECTION = %d\n", getCorrectionFrequency()));
+        result.append(String.format("CENTER FREQUENCY = %d\n", getCenterFrequency()));
+        result.append(String.format("SAMPLE RATE = %d\n", getSampleRate()));
+        result.append(String.format("TUNER GAIN = %d\n", getTunerGain()));
+        result.append(String.format("PLAYBACK MODE = %s\n", playbackMode));
+        result.append(String.format("SCENARIO = %s\n", scenario));
+        return result.toString();
+    }
+}
@@ -0,0 +1,265 @@
+package com.suricatedevlab.jsdr.sim;
+
+import com.suricatedevlab.jsdr.SdrException;
+import com.suricatedevlab.jsdr.StreamStatistics;
+import com.suricatedevlab.jsdr.TunerSample;
+import com.suricatedevlab.jsdr.metrics.StreamMetrics;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+class SimTunerSample implements TunerSample {
+
+    // Same defaults as librtlsdr
+    private static final int DEFAULT_BUFFER_NUMBER = 15;
+    private static final int DEFAULT_BUFFER_SIZE = 16 * 32 * 512;
+    private static final long POLL_MILLIS = 100;
+
+    private final SimTunerDefinition definition;
+    private final SignalGenerator generator;
+    private final AtomicLong droppedBytes = new AtomicLong();
+    private final StreamMetrics metrics;
+    private long delivered;
+    private long startNanos;
+    private int pacedSampleRate;
+    private volatile boolean closed;
+    private volatile boolean cancelled;
+
+    public SimTunerSample(SimTunerDefinition definition) {
+        this.definition = definition;
+        this.generator = new SignalGenerator(definition.getScenario(),
+                definition.getScenario().getSeed() + definition.getDevice().getIndex());
+        if (StreamMetrics.isEnabled()) {
+            this.metrics = new StreamMetrics(SimDriver.IDENTIFIER, definition.getDevice().getIndex());
+            this.metrics.register();
+        }
+        else {
+            this.metrics = null;
+        }
+    }
+
+    // Bytes lost because the asynchronous consumer did not keep up with the sample rate
+    public long getDroppedBytes() {
+        return droppedBytes.get();
+    }
+
+    @Override
+    public byte[] readSync(int bufferSize) throws SdrException {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("buffer size <= 0");
+        }
+        byte[] result = new byte[bufferSize];
+        readSync(result, 0, bufferSize);
+        return result;
+    }
+
+    @Override
+    public int readSync(ByteBuffer dst) throws SdrException {
+        if (dst == null || dst.isReadOnly() || !dst.hasRemaining()) {
+            throw new IllegalArgumentException("Destination buffer is null, read-only or full");
+        }
+        int length = dst.remaining();
+        pace(length, false);
+        long start = metrics != null ? metrics.transferStarted() : 0;
+        configure();
+        generator.fill(dst, length);
+        delivered += length;
+        if (metrics != null) {
+            metrics.transferCompleted(start, length);
+        }
+        return length;
+    }
+
+    @Override
+    public int readSync(byte[] dst, int offset, int length) throws SdrException {
+        if (dst == null || length <= 0) {
+            throw new IllegalArgumentException("Destination array is null or length <= 0");
+        }
+        Objects.checkFromIndexSize(offset, length, dst.length);
+        pace(length, false);
+        long start = metrics != null ? metrics.transferStarted() : 0;
+        configure();
+        generator.fill(dst, offset, length);
+        delivered += length;
+        if (metrics != null) {
+            metrics.transferCompleted(start, length);
+        }
+        return length;
+    }
+
+    @Override
+    public void readAsync(ReadAsyncCallback callback, int bufferNumber, int bufferSize) throws SdrException {
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback is null");
+        }
+        readAsyncDirect(data -> {
+            byte[] copy = new byte[data.remaining()];
+            data.get(copy);
+            callback.onReceive(copy);
+        }, bufferNumber, bufferSize);
+    }
+
+    @Override
+    public void readAsyncDirect(ReadAsyncDirectCallback callback, int bufferNumber, int bufferSize) throws SdrException {
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback is null");
+        }
+        if (bufferNumber < 0 || bufferSize < 0) {
+            throw new IllegalArgumentException("buffer number or buffer size < 0");
+        }
+        int transferCount = bufferNumber == 0 ? DEFAULT_BUFFER_NUMBER : bufferNumber;
+        int transferSize = bufferSize == 0 ? DEFAULT_BUFFER_SIZE : bufferSize;
+        BlockingQueue<Transfer> free = new ArrayBlockingQueue<>(transferCount);
+        BlockingQueue<Transfer> full = new ArrayBlockingQueue<>(transferCount);
+        for (int i = 0; i < transferCount; i++) {
+            free.add(new Transfer(ByteBuffer.allocateDirect(transferSize)));
+        }
+
+        // Synthesis runs on its own thread while this thread delivers, like the USB transfers of a real device
+        Thread thread = new Thread(() -> generate(free, full, transferSize),
+                "jsdr-sim-" + definition.getDevice().getIndex());
+        thread.setDaemon(true);
+        startNanos = 0;
+        cancelled = false;
+        if (metrics != null) {
+            metrics.streamStarted(definition.getSampleRate());
+            metrics.dropped(0);
+        }
+        thread.start();
+        try {
+            while (!closed && !cancelled) {
+                Transfer transfer = full.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (transfer == null) {
+                    continue;
+                }
+                long start = metrics != null ? metrics.transferStarted() : 0;
+                try {
+                    // The callback may have moved the view of a previous transfer of this buffer
+                    transfer.view.clear();
+                    callback.onReceive(transfer.view);
+                }
+                finally {
+                    free.offer(transfer);
+                }
+                if (metrics != null) {
+                    metrics.transferCompleted(start, transferSize);
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            stopGenerator(thread);
+        }
+    }
+
+    @Override
+    public void cancelAsync() {
+        cancelled = true;
+    }
+
+    @Override
+    public StreamStatistics getStatistics() {
+        return metrics != null ? metrics.getStatistics() : StreamStatistics.EMPTY;
+    }
+
+    @Override
+    public void close() throws Exception {
+        closed = true;
+        if (metrics != null) {
+            metrics.close();
+        }
+        definition.close();
+    }
+
+    // The generator shares the signal generator and the pacing state with the next read, which only starts once it
+    // has exited. The interrupt status of the caller is kept
+    private static void stopGenerator(Thread thread) {
+        thread.interrupt();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            }
+            catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void generate(BlockingQueue<Transfer> free, BlockingQueue<Transfer> full, int transferSize) {
+        boolean realtime = definition.getPlaybackMode() == SimTunerDefinition.PlaybackMode.REALTIME;
+        try {
+            while (!closed && !cancelled && !Thread.currentThread().isInterrupted()) {
+                pace(transferSize, true);
+                configure();
+                Transfer transfer = realtime ? free.poll() : free.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (transfer == null) {
+                    if (realtime) {
+                        // No transfer available in time, the samples are lost
+                        generator.skip(transferSize);
+                        droppedBytes.addAndGet(transferSize);
+                        if (metrics != null) {
+                            metrics.dropped(transferSize >> 1);
+                        }
+                        delivered += transferSize;
+                    }
+                    continue;
+                }
+                transfer.buffer.clear();
+                generator.fill(transfer.buffer, transferSize);
+                delivered += transferSize;
+                full.offer(transfer);
+            }
+        }
+        catch (InterruptedException e) {
+            // Stopped by the delivering thread
+        }
+    }
+
+    private void configure() {
+        generator.configure(definition.getCenterFrequency(), definition.getSampleRate(), definition.getEffectiveGain());
+    }
+
+    // Waits until the given number of bytes is due at the current sample rate, or until the asynchronous read is
+    // cancelled
+    private void pace(int length, boolean async) {
+        if (definition.getPlaybackMode() != SimTunerDefinition.PlaybackMode.REALTIME) {
+            return;
+        }
+        long now = System.nanoTime();
+        int sampleRate = definition.getSampleRate();
+        if (startNanos == 0 || sampleRate != pacedSampleRate) {
+            startNanos = now;
+            delivered = 0;
+            pacedSampleRate = sampleRate;
+        }
+        long due = startNanos + (long) ((delivered + length) / 2.0 / sampleRate * 1e9);
+        while (now < due && !closed && !(async && cancelled) && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(due - now);
+            now = System.nanoTime();
+        }
+    }
+
+    // A pooled transfer buffer, filled by the synthesis thread, and the read-only view of it handed to the callback
+    private static final class Transfer {
+
+        private final ByteBuffer buffer;
+        private final ByteBuffer view;
+
+        private Transfer(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.view = buffer.asReadOnlyBuffer();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.suricatedevlab.jsdr;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * A {@link TunerSample} delivering its samples as {@link MemorySegment}s, implemented by the drivers bound through
+ * the Foreign Function and Memory API.
+ *
+ * <p>This interface is only available on JDK 22 or later. The tuner samples returned by
+ * {@link TunerDefinition#tune()} implement it when their driver streams through memory segments, for instance the
+ * RTL-SDR driver with the {@code jsdr.rtl.backend=ffm} system property:</p>
+ *
+ * <pre>{@code
+ * if (definition.tune() instanceof SegmentTunerSample sample) {
+ *     sample.readAsyncSegment(data -> process(data), 0, 0);
+ * }
+ * }</pre>
+ *
+ * @see TunerSample
+ */
+public interface SegmentTunerSample extends TunerSample {
+
+    /**
+     * Callback interface for handling asynchronous read operations over the native transfer buffers.
+     *
+     * <p>Implementers of this callback receive a read-only {@link MemorySegment} slice of the transfer buffer owned
+     * by the driver, no sample being copied. The segment is only valid for the duration of
+     * {@link #onReceive(MemorySegment)}: once the method returns, the driver reuses the underlying memory for the
+     * next transfer, and the segment can no longer be accessed once the stream has stopped. Implementations that
+     * need the data afterwards must copy it before returning.</p>
+     */
+    interface ReadAsyncSegmentCallback {
+        /**
+         * This method is called when a chunk of data has been received asynchronously.
+         *
+         * @param data a read-only segment over the received raw signal samples, valid only during this call
+         */
+        void onReceive(MemorySegment data);
+    }
+
+    /**
+     * Initiates an asynchronous read operation that delivers the samples as memory segments.
+     *
+     * <p>This method behaves like {@link #readAsyncDirect(ReadAsyncDirectCallback, int, int)}, the callback
+     * receiving a slice of the driver transfer buffer sized to the received byte count. See
+     * {@link ReadAsyncSegmentCallback} for the lifetime rules of the segment. An exception thrown by the callback
+     * stops the stream and is rethrown by this method.</p>
+     *
+     * @param callback the callback to be invoked when the data is available
+     * @param bufferNumber the number of transfer buffers, {@code 0} for the driver default
+     * @param bufferSize the size of each transfer buffer in bytes, {@code 0} for the driver default
+     * @throws IllegalArgumentException if the callback is {@code null}
+     * @throws SdrException if there is an error during the reading process (e.g., hardware failure, timeout)
+     */
+    void readAsyncSegment(ReadAsyncSegmentCallback callback, int bufferNumber, int bufferSize) throws SdrException;
+
+    /**
+     * Reads data synchronously from the tuner into a caller-owned memory segment.
+     *
+     * <p>This method blocks until data is received and writes at most {@code dst.byteSize()} bytes at the start of
+     * {@code dst}. Native segments are written by the driver without any intermediate copy.</p>
+     *
+     * @param dst the segment receiving the raw samples
+     * @return the number of bytes actually read, which may be less than the size of {@code dst}
+     * @throws IllegalArgumentException if {@code dst} is {@code null}, read-only or empty
+     * @throws SdrException if there is an error during the reading process (e.g., hardware failure, timeout)
+     */
+    int readSync(MemorySegment dst) throws SdrException;
+}
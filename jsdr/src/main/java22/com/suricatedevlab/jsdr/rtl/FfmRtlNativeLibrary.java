@@ -0,0 +1,495 @@
+package com.suricatedevlab.jsdr.rtl;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.PointerByReference;
+
+import java.lang.foreign.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static java.lang.foreign.ValueLayout.*;
+
+// Binds librtlsdr through the FFM API (java.lang.foreign): Linker downcall handles for the functions and an upcall
+// stub for the rtlsdr_read_async callback, so that transfers reach Java as segments over the USB buffers.
+// The JNA types of RtlNativeLibrary are only unwrapped to their addresses, the streaming itself goes through
+// FfmRtlTunerSample which works on segments.
+final class FfmRtlNativeLibrary implements RtlNativeLibrary, RtlTunerSampleFactory {
+
+    private static final Linker LINKER = Linker.nativeLinker();
+    private static final FunctionDescriptor READ_ASYNC_CALLBACK = FunctionDescriptor.ofVoid(ADDRESS, JAVA_INT, ADDRESS);
+    private static final MethodHandle ON_TRANSFER;
+    private static final int USB_STRING_SIZE = 256;
+
+    static {
+        try {
+            ON_TRANSFER = MethodHandles.lookup().findVirtual(Upcall.class, "onTransfer",
+                    MethodType.methodType(void.class, MemorySegment.class, int.class, MemorySegment.class));
+        }
+        catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String library;
+    private final MethodHandle open;
+    private final MethodHandle close;
+    private final MethodHandle setSampleRate;
+    private final MethodHandle getSampleRate;
+    private final MethodHandle resetBuffer;
+    private final MethodHandle readSync;
+    private final MethodHandle setFreqCorrection;
+    private final MethodHandle getFreqCorrection;
+    private final MethodHandle setCenterFreq;
+    private final MethodHandle getCenterFreq;
+    private final MethodHandle setTunerIfGain;
+    private final MethodHandle getTunerGains;
+    private final MethodHandle setTunerGain;
+    private final MethodHandle getTunerGain;
+    private final MethodHandle setTunerGainMode;
+    private final MethodHandle setAgcMode;
+    private final MethodHandle setDirectSampling;
+    private final MethodHandle setOffsetTuning;
+    private final MethodHandle getDeviceCount;
+    private final MethodHandle getDeviceName;
+    private final MethodHandle getDeviceUsbStrings;
+    private final MethodHandle setXtalFreq;
+    private final MethodHandle getXtalFreq;
+    private final MethodHandle setDithering;
+    private final MethodHandle setTunerBandwidth;
+    private final MethodHandle setBiasTee;
+    private final MethodHandle getTunerType;
+    private final MethodHandle readAsync;
+    private final MethodHandle cancelAsync;
+
+    private FfmRtlNativeLibrary(String library, SymbolLookup lookup) {
+        this.library = library;
+        open = bind(lookup, "rtlsdr_open", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT));
+        close = bind(lookup, "rtlsdr_close", FunctionDescriptor.of(JAVA_INT, ADDRESS));
+        setSampleRate = bind(lookup, "rtlsdr_set_sample_rate", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT));
+        getSampleRate = bind(lookup, "rtlsdr_get_sample_rate", FunctionDescriptor.of(JAVA_INT, ADDRESS));
+        resetBuffer = bind(lookup, "rtlsdr_reset_buffer", FunctionDescriptor.of(JAVA_INT, ADDRESS));
+        readSync = bind(lookup, "rtlsdr_read_sync", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, JAVA_INT, ADDRESS));
+        setFreqCorrection = bind(lookup, "rtlsdr_set_freq_correction", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT));
+        getFreqCorrection = bind(lookup, "rtlsdr_get_freq_correction", FunctionDescriptor.of(JAVA_INT, ADDRESS));
+        // Frequencies and rates are uint32_t
+        setCenterFreq = bind(lookup, "rtlsdr_set_center_freq", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT));
+        getCenterFreq = bind(lookup, "rtlsdr_get_center_freq", FunctionDescriptor.of(JAVA_INT, ADDRESS));
+        setTunerIfGain = bind(lookup, "rtlsdr_set_tuner_if_gain", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT, JAVA_INT));
+        getTunerGains = bind(lookup, "rtlsdr_get_tuner_gains", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS));
+        setTunerGain = bind(lookup, "rtlsdr_set_tuner_gain", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT));
+        getTunerGain = bind(lookup, "rtlsdr_get_tuner_gain", FunctionDescriptor.of(JAVA_INT, ADDRESS));
+        setTunerGainMode = bind(lookup, "rtlsdr_set_tuner_gain_mode", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT));
+        setAgcMode = bind(lookup, "rtlsdr_set_agc_mode", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT));
+        setDirectSampling = bind(lookup, "rtlsdr_set_direct_sampling", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT));
+        setOffsetTuning = bind(lookup, "rtlsdr_set_offset_tuning", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT));
+        getDeviceCount = bind(lookup, "rtlsdr_get_device_count", FunctionDescriptor.of(JAVA_INT));
+        getDeviceName = bind(lookup, "rtlsdr_get_device_name", FunctionDescriptor.of(ADDRESS, JAVA_INT));
+        getDeviceUsbStrings = bind(lookup, "rtlsdr_get_device_usb_strings",
+                FunctionDescriptor.of(JAVA_INT, JAVA_INT, ADDRESS, ADDRESS, ADDRESS));
+        setXtalFreq = bind(lookup, "rtlsdr_set_xtal_freq", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT, JAVA_INT));
+        getXtalFreq = bind(lookup, "rtlsdr_get_xtal_freq", FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, ADDRESS));
+        setDithering = bind(lookup, "rtlsdr_set_dithering", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT));
+        setTunerBandwidth = bind(lookup, "rtlsdr_set_tuner_bandwidth", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT));
+        setBiasTee = bind(lookup, "rtlsdr_set_bias_tee", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT));
+        getTunerType = bind(lookup, "rtlsdr_get_tuner_type", FunctionDescriptor.of(JAVA_INT, ADDRESS));
+        readAsync = bind(lookup, "rtlsdr_read_async",
+                FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS, ADDRESS, JAVA_INT, JAVA_INT));
+        cancelAsync = bind(lookup, "rtlsdr_cancel_async", FunctionDescriptor.of(JAVA_INT, ADDRESS));
+    }
+
+    // Called by RtlNativeLoader: a path is loaded as is, a name is looked up by the dynamic linker
+    static FfmRtlNativeLibrary load(String library) {
+        Path path = Path.of(library);
+        SymbolLookup lookup = path.getParent() != null
+                ? SymbolLookup.libraryLookup(path, Arena.global())
+                : SymbolLookup.libraryLookup(System.mapLibraryName(library), Arena.global());
+        return new FfmRtlNativeLibrary(library, lookup);
+    }
+
+    // Like JNA, a function missing from an older librtlsdr only fails when it is called
+    private static MethodHandle bind(SymbolLookup lookup, String name, FunctionDescriptor descriptor) {
+        return lookup.find(name)
+                .map(symbol -> LINKER.downcallHandle(symbol, descriptor))
+                .orElseGet(() -> {
+                    MethodType type = descriptor.toMethodType();
+                    MethodHandle thrower = MethodHandles.throwException(type.returnType(), UnsatisfiedLinkError.class);
+                    thrower = MethodHandles.insertArguments(thrower, 0,
+                            new UnsatisfiedLinkError("Can not find " + name + " in librtlsdr"));
+                    return MethodHandles.dropArguments(thrower, 0, type.parameterList());
+                });
+    }
+
+    @Override
+    public RtlTunerSample create(RtlTunerDefinition definition) {
+        return new FfmRtlTunerSample(definition, this);
+    }
+
+    static MemorySegment segmentOf(Pointer pointer) {
+        return pointer == null ? MemorySegment.NULL : MemorySegment.ofAddress(Pointer.nativeValue(pointer));
+    }
+
+    int readSync(MemorySegment dev, MemorySegment buf, int len, MemorySegment nRead) {
+        try {
+            return (int) readSync.invokeExact(dev, buf, len, nRead);
+        }
+        catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    // Streams until cancelled, the handler receiving each transfer as a segment of the transfer length.
+    // The segments are bound to the lifetime of the stream, and can no longer be accessed once this returns
+    int readAsync(MemorySegment dev, TransferHandler handler, int bufNum, int bufLen) {
+        try (Arena arena = Arena.ofShared()) {
+            Upcall upcall = new Upcall(dev, handler, arena);
+            MemorySegment stub = LINKER.upcallStub(ON_TRANSFER.bindTo(upcall), READ_ASYNC_CALLBACK, arena);
+            int result = (int) readAsync.invokeExact(dev, stub, MemorySegment.NULL, bufNum, bufLen);
+            if (upcall.failure != null) {
+                throw upcall.failure;
+            }
+            return result;
+        }
+        catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    int cancelAsync(MemorySegment dev) {
+        try {
+            return (int) cancelAsync.invokeExact(dev);
+        }
+        catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    @Override
+    public int rtlsdr_open(PointerByReference dev, int index) {
+        return call(open, segmentOf(dev.getPointer()), index);
+    }
+
+    @Override
+    public void rtlsdr_close(Pointer dev) {
+        call(close, segmentOf(dev));
+    }
+
+    @Override
+    public int rtlsdr_set_sample_rate(Pointer dev, int rate) {
+        return call(setSampleRate, segmentOf(dev), rate);
+    }
+
+    @Override
+    public int rtlsdr_get_sample_rate(Pointer dev) {
+        return call(getSampleRate, segmentOf(dev));
+    }
+
+    @Override
+    public void rtlsdr_reset_buffer(Pointer dev) {
+        call(resetBuffer, segmentOf(dev));
+    }
+
+    @Override
+    public int rtlsdr_read_sync(Pointer dev, byte[] buf, int len, IntByReference n_read) {
+        // Heap memory can not be handed to a blocking call, the samples are staged in native memory
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment staging = arena.allocate(len);
+            int result = readSync(segmentOf(dev), staging, len, segmentOf(n_read.getPointer()));
+            if (result >= 0) {
+                MemorySegment.copy(staging, JAVA_BYTE, 0, buf, 0, Math.min(n_read.getValue(), len));
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public int rtlsdr_read_sync(Pointer dev, ByteBuffer buf, int len, IntByReference n_read) {
+        if (buf.isDirect()) {
+            return readSync(segmentOf(dev), MemorySegment.ofBuffer(buf), len, segmentOf(n_read.getPointer()));
+        }
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment staging = arena.allocate(len);
+            int result = readSync(segmentOf(dev), staging, len, segmentOf(n_read.getPointer()));
+            if (result >= 0) {
+                MemorySegment.copy(staging, 0, MemorySegment.ofBuffer(buf), 0, Math.min(n_read.getValue(), len));
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public int rtlsdr_read_sync(Pointer dev, Pointer buf, int len, IntByReference n_read) {
+        return readSync(segmentOf(dev), segmentOf(buf), len, segmentOf(n_read.getPointer()));
+    }
+
+    @Override
+    public int rtlsdr_set_freq_correction(Pointer dev, int ppm) {
+        return call(setFreqCorrection, segmentOf(dev), ppm);
+    }
+
+    @Override
+    public int rtlsdr_get_freq_correction(Pointer dev) {
+        return call(getFreqCorrection, segmentOf(dev));
+    }
+
+    @Override
+    public int rtlsdr_set_center_freq(Pointer dev, long freq) {
+        return call(setCenterFreq, segmentOf(dev), (int) freq);
+    }
+
+    @Override
+    public long rtlsdr_get_center_freq(Pointer dev) {
+        return Integer.toUnsignedLong(call(getCenterFreq, segmentOf(dev)));
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_if_gain(Pointer dev, int stage, int gain) {
+        try {
+            return (int) setTunerIfGain.invokeExact(segmentOf(dev), stage, gain);
+        }
+        catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    @Override
+    public int rtlsdr_get_tuner_gains(Pointer dev, int[] gains) {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment values = gains == null ? MemorySegment.NULL : arena.allocate(JAVA_INT, gains.length);
+            int count = call(getTunerGains, segmentOf(dev), values);
+            if (gains != null && count > 0) {
+                MemorySegment.copy(values, JAVA_INT, 0, gains, 0, Math.min(count, gains.length));
+            }
+            return count;
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_gain(Pointer dev, int gain) {
+        return call(setTunerGain, segmentOf(dev), gain);
+    }
+
+    @Override
+    public int rtlsdr_get_tuner_gain(Pointer dev) {
+        return call(getTunerGain, segmentOf(dev));
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_gain_mode(Pointer dev, int mode) {
+        return call(setTunerGainMode, segmentOf(dev), mode);
+    }
+
+    @Override
+    public int rtlsdr_set_agc_mode(Pointer dev, int enable) {
+        return call(setAgcMode, segmentOf(dev), enable);
+    }
+
+    @Override
+    public int rtlsdr_set_direct_sampling(Pointer dev, int mode) {
+        return call(setDirectSampling, segmentOf(dev), mode);
+    }
+
+    @Override
+    public int rtlsdr_set_offset_tuning(Pointer dev, int enable) {
+        return call(setOffsetTuning, segmentOf(dev), enable);
+    }
+
+    @Override
+    public int rtlsdr_get_device_count() {
+        try {
+            return (int) getDeviceCount.invokeExact();
+        }
+        catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    @Override
+    public String rtlsdr_get_device_name(int index) {
+        MemorySegment name;
+        try {
+            name = (MemorySegment) getDeviceName.invokeExact(index);
+        }
+        catch (Throwable t) {
+            throw unchecked(t);
+        }
+        if (name.equals(MemorySegment.NULL)) {
+            return null;
+        }
+        // The returned pointer has no size, the string ends at its NUL
+        MemorySegment string = name.reinterpret(Long.MAX_VALUE);
+        int length = 0;
+        while (string.get(JAVA_BYTE, length) != 0) {
+            length++;
+        }
+        return new String(string.asSlice(0, length).toArray(JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int rtlsdr_get_device_usb_strings(int index, byte[] manufacturer, byte[] product, byte[] serial) {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment manufacturerSegment = allocate(arena, manufacturer);
+            MemorySegment productSegment = allocate(arena, product);
+            MemorySegment serialSegment = allocate(arena, serial);
+            int result = (int) getDeviceUsbStrings.invokeExact(index, manufacturerSegment, productSegment, serialSegment);
+            copy(manufacturerSegment, manufacturer);
+            copy(productSegment, product);
+            copy(serialSegment, serial);
+            return result;
+        }
+        catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_xtal_freq(Pointer dev, int rtl_freq, int tuner_freq) {
+        try {
+            return (int) setXtalFreq.invokeExact(segmentOf(dev), rtl_freq, tuner_freq);
+        }
+        catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    @Override
+    public int rtlsdr_get_xtal_freq(Pointer dev, IntByReference rtl_freq, IntByReference tuner_freq) {
+        try {
+            return (int) getXtalFreq.invokeExact(segmentOf(dev), segmentOf(rtl_freq.getPointer()),
+                    segmentOf(tuner_freq.getPointer()));
+        }
+        catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    @Override
+    public int rtlsdr_set_dithering(Pointer dev, int on) {
+        return call(setDithering, segmentOf(dev), on);
+    }
+
+    @Override
+    public int rtlsdr_set_tuner_bandwidth(Pointer dev, int bw) {
+        return call(setTunerBandwidth, segmentOf(dev), bw);
+    }
+
+    @Override
+    public int rtlsdr_set_bias_tee(Pointer dev, int on) {
+        return call(setBiasTee, segmentOf(dev), on);
+    }
+
+    @Override
+    public int rtlsdr_get_tuner_type(Pointer dev) {
+        return call(getTunerType, segmentOf(dev));
+    }
+
+    @Override
+    public int rtlsdr_read_async(Pointer dev, RTLSDRReadAsyncCallback cb, Pointer ctx, int buf_num, int buf_len) {
+        return readAsync(segmentOf(dev), buf -> cb.invoke(new Pointer(buf.address()), (int) buf.byteSize(), ctx),
+                buf_num, buf_len);
+    }
+
+    @Override
+    public int rtlsdr_cancel_async(Pointer dev) {
+        return cancelAsync(segmentOf(dev));
+    }
+
+    @Override
+    public String toString() {
+        return "FfmRtlNativeLibrary{" +
+                "library='" + library + '\'' +
+                '}';
+    }
+
+    private static int call(MethodHandle function, MemorySegment dev) {
+        try {
+            return (int) function.invokeExact(dev);
+        }
+        catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    private static int call(MethodHandle function, MemorySegment dev, int value) {
+        try {
+            return (int) function.invokeExact(dev, value);
+        }
+        catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    private static int call(MethodHandle function, MemorySegment dev, MemorySegment value) {
+        try {
+            return (int) function.invokeExact(dev, value);
+        }
+        catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    private static MemorySegment allocate(Arena arena, byte[] string) {
+        return string == null ? MemorySegment.NULL : arena.allocate(Math.max(string.length, USB_STRING_SIZE));
+    }
+
+    private static void copy(MemorySegment segment, byte[] string) {
+        if (string != null) {
+            MemorySegment.copy(segment, JAVA_BYTE, 0, string, 0, string.length);
+        }
+    }
+
+    private static RuntimeException unchecked(Throwable t) {
+        if (t instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (t instanceof Error error) {
+            throw error;
+        }
+        throw new IllegalStateException(t);
+    }
+
+    // Receives the transfers of rtlsdr_read_async
+    @FunctionalInterface
+    interface TransferHandler {
+        void onTransfer(MemorySegment buf);
+    }
+
+    // Target of the upcall stub. An exception thrown back into native code would crash the JVM, so the first one
+    // cancels the stream instead and is rethrown once rtlsdr_read_async returned
+    private final class Upcall {
+
+        private final MemorySegment dev;
+        private final TransferHandler handler;
+        private final Arena arena;
+        private Throwable failure;
+
+        private Upcall(MemorySegment dev, TransferHandler handler, Arena arena) {
+            this.dev = dev;
+            this.handler = handler;
+            this.arena = arena;
+        }
+
+        @SuppressWarnings("unused")
+        void onTransfer(MemorySegment buf, int length, MemorySegment ctx) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                handler.onTransfer(buf.reinterpret(length, arena, null));
+            }
+            catch (Throwable t) {
+                failure = t;
+                try {
+                    cancelAsync(dev);
+                }
+                catch (Throwable cancel) {
+                    t.addSuppressed(cancel);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.suricatedevlab.jsdr.rtl;
+
+import com.sun.jna.Pointer;
+import com.suricatedevlab.jsdr.SdrException;
+import com.suricatedevlab.jsdr.SegmentTunerSample;
+import com.suricatedevlab.jsdr.metrics.StreamMetrics;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+
+// Streams through FfmRtlNativeLibrary: transfers are slices of the librtlsdr buffers and direct buffers are read
+// into without going through JNA. Calls bypass the metrics wrapper, so read_sync and read_async are timed here
+final class FfmRtlTunerSample extends RtlTunerSample implements SegmentTunerSample {
+
+    private final FfmRtlNativeLibrary nativeLibrary;
+    private final Arena arena = Arena.ofAuto();
+    private final MemorySegment nRead = arena.allocate(JAVA_INT);
+    private final StreamMetrics.NativeCall readSyncCall;
+    private final StreamMetrics.NativeCall readAsyncCall;
+    private MemorySegment staging = MemorySegment.NULL;
+
+    FfmRtlTunerSample(RtlTunerDefinition definition, FfmRtlNativeLibrary nativeLibrary) {
+        super(definition);
+        this.nativeLibrary = nativeLibrary;
+        StreamMetrics metrics = getMetrics();
+        this.readSyncCall = metrics != null ? metrics.nativeCall("rtlsdr_read_sync") : null;
+        this.readAsyncCall = metrics != null ? metrics.nativeCall("rtlsdr_read_async") : null;
+    }
+
+    @Override
+    public int readSync(MemorySegment dst) throws SdrException {
+        if (dst == null || dst.isReadOnly() || dst.byteSize() == 0) {
+            throw new IllegalArgumentException("Destination segment is null, read-only or empty");
+        }
+        int length = (int) Math.min(dst.byteSize(), Integer.MAX_VALUE);
+        if (dst.isNative()) {
+            return read(dst, length);
+        }
+        int read = read(staging(length), length);
+        MemorySegment.copy(staging, 0, dst, 0, read);
+        return read;
+    }
+
+    @Override
+    int read(ByteBuffer dst, int length) throws SdrException {
+        if (dst.isDirect()) {
+            return read(MemorySegment.ofBuffer(dst), length);
+        }
+        // Heap memory can not be handed to a blocking call, the samples are staged in native memory
+        int read = read(staging(length), length);
+        MemorySegment.copy(staging, JAVA_BYTE, 0, dst.array(), dst.arrayOffset() + dst.position(), read);
+        return read;
+    }
+
+    @Override
+    public void readAsync(ReadAsyncCallback callback, int bufferNumber, int bufferSize) throws SdrException {
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback is null");
+        }
+        readAsyncSegment(data -> callback.onReceive(data.toArray(JAVA_BYTE)), bufferNumber, bufferSize);
+    }
+
+    @Override
+    public void readAsyncDirect(ReadAsyncDirectCallback callback, int bufferNumber, int bufferSize) throws SdrException {
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback is null");
+        }
+        TransferBufferViews views = new TransferBufferViews();
+        readAsyncSegment(data -> {
+            int length = (int) data.byteSize();
+            ByteBuffer view = views.viewOf(data.address(), length);
+            if (view == null) {
+                view = views.add(data.address(), data.asByteBuffer(), length);
+            }
+            callback.onReceive(view);
+        }, bufferNumber, bufferSize);
+    }
+
+    @Override
+    public void readAsyncSegment(ReadAsyncSegmentCallback callback, int bufferNumber, int bufferSize) throws SdrException {
+        if (callback == null) {
+            throw new IllegalArgumentException("Callback is null");
+        }
+
+        startStreaming();
+
+        StreamMetrics metrics = getMetrics();
+        long call = metrics != null ? metrics.nativeCallStarted() : 0;
+        int result;
+        try {
+            result = nativeLibrary.readAsync(getHandle(), buf -> {
+                long start = metrics != null ? metrics.transferStarted() : 0;
+                callback.onReceive(buf.asReadOnly());
+                if (metrics != null) {
+                    metrics.transferCompleted(start, (int) buf.byteSize());
+                }
+            }, bufferNumber, bufferSize);
+        }
+        finally {
+            if (metrics != null) {
+                readAsyncCall.completed(call);
+            }
+        }
+
+        if (result < 0) {
+            throw new SdrException("Failed to perform read async");
+        }
+    }
+
+    private int read(MemorySegment dst, int length) throws SdrException {
+        long start = transferStarted();
+        StreamMetrics metrics = getMetrics();
+        long call = metrics != null ? metrics.nativeCallStarted() : 0;
+        int operationResult = nativeLibrary.readSync(getHandle(), dst, length, nRead);
+        if (metrics != null) {
+            readSyncCall.completed(call);
+        }
+        if (operationResult < 0) {
+            throw new SdrException("Failed to perform read sync");
+        }
+        return transferCompleted(start, Math.min(nRead.get(JAVA_INT, 0), length));
+    }
+
+    private MemorySegment getHandle() {
+        return MemorySegment.ofAddress(Pointer.nativeValue(getDefinition().getDevice().getHandle().getValue()));
+    }
+
+    // Grown to the largest read, reused by the next ones
+    private MemorySegment staging(int length) {
+        if (staging.byteSize() < length) {
+            staging = arena.allocate(length);
+        }
+        return staging;
+    }
+}
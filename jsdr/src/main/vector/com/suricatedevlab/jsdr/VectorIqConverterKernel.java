@@ -0,0 +1,183 @@
+package com.suricatedevlab.jsdr;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// Vector API loops of IqConverter, loaded through IqConverterKernel#load(). One vector of the preferred species
+// holds L float or int samples; they are read from L bytes for the interleaved layouts, and from 2L bytes, seen as
+// L little-endian I/Q shorts, for the split ones. Flipping the sign bit of an unsigned sample u gives the signed
+// byte u - 128, from which the table values are (s + 0.5) / 127.5 for floats and 256 s + 128 for shorts
+final class VectorIqConverterKernel implements IqConverterKernel {
+
+    private static final VectorSpecies<Float> FLOAT = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INT = VectorSpecies.of(int.class, FLOAT.vectorShape());
+    private static final int LANES = FLOAT.length();
+    private static final float SCALE = 1f / 127.5f;
+    // Vectors accumulated in the DC sums before they are added up, keeping float lane sums exact (below 2^24)
+    private static final int SUM_BLOCK = 4096;
+
+    // Species of L bytes, 2L bytes and L shorts, null when L bytes are not a vector shape. Like the masks, they must
+    // be constants for the JIT to compile the loops to vector instructions
+    private static final VectorSpecies<Byte> BYTES = LANES >= 8 ? species(byte.class, LANES * Byte.SIZE) : null;
+    private static final VectorSpecies<Byte> PAIR_BYTES = LANES >= 8 ? species(byte.class, LANES * Short.SIZE) : null;
+    private static final VectorSpecies<Short> SHORTS = LANES >= 8 ? species(short.class, LANES * Short.SIZE) : null;
+    private static final VectorMask<Float> EVEN_FLOATS = VectorMask.fromLong(FLOAT, 0x5555_5555_5555_5555L);
+    private static final VectorMask<Integer> EVEN_INTS = VectorMask.fromLong(INT, 0x5555_5555_5555_5555L);
+
+    private VectorIqConverterKernel() {
+    }
+
+    // Called by IqConverterKernel#load(), null when the preferred vectors have less than 8 lanes
+    static IqConverterKernel create() {
+        return BYTES != null ? new VectorIqConverterKernel() : null;
+    }
+
+    @Override
+    public int toFloatInterleaved(byte[] src, int s, int pairs, float[] dst, int d, float offsetI, float offsetQ,
+                                  long[] sums) {
+        int vectors = (pairs << 1) / LANES;
+        FloatVector offsets = FloatVector.broadcast(FLOAT, offsetQ).blend(FloatVector.broadcast(FLOAT, offsetI),
+                EVEN_FLOATS);
+        int n = 0;
+        while (n < vectors) {
+            int first = n;
+            int end = Math.min(vectors, n + SUM_BLOCK);
+            FloatVector sum = FloatVector.zero(FLOAT);
+            for (int k = n * LANES; n < end; n++, k += LANES) {
+                FloatVector x = (FloatVector) ByteVector.fromArray(BYTES, src, s + k)
+                        .lanewise(VectorOperators.XOR, (byte) 0x80)
+                        .convertShape(VectorOperators.B2F, FLOAT, 0);
+                if (sums != null) {
+                    sum = sum.add(x);
+                }
+                x.add(0.5f).mul(SCALE).sub(offsets).intoArray(dst, d + k);
+            }
+            if (sums != null) {
+                addSums(sums, (long) sum.reduceLanes(VectorOperators.ADD, EVEN_FLOATS),
+                        (long) sum.reduceLanes(VectorOperators.ADD), (end - first) * LANES >> 1);
+            }
+        }
+        return vectors * LANES >> 1;
+    }
+
+    @Override
+    public int toFloatSplit(byte[] src, int s, int pairs, float[] dstI, float[] dstQ, int d, float offsetI,
+                            float offsetQ, long[] sums) {
+        int vectors = pairs / LANES;
+        int n = 0;
+        while (n < vectors) {
+            int first = n;
+            int end = Math.min(vectors, n + SUM_BLOCK);
+            FloatVector sumI = FloatVector.zero(FLOAT);
+            FloatVector sumQ = FloatVector.zero(FLOAT);
+            for (int k = n * LANES; n < end; n++, k += LANES) {
+                ShortVector x = signedPairs(src, s + (k << 1));
+                FloatVector i = (FloatVector) x.lanewise(VectorOperators.LSHL, 8).lanewise(VectorOperators.ASHR, 8)
+                        .convertShape(VectorOperators.S2F, FLOAT, 0);
+                FloatVector q = (FloatVector) x.lanewise(VectorOperators.ASHR, 8)
+                        .convertShape(VectorOperators.S2F, FLOAT, 0);
+                if (sums != null) {
+                    sumI = sumI.add(i);
+                    sumQ = sumQ.add(q);
+                }
+                i.add(0.5f).mul(SCALE).sub(offsetI).intoArray(dstI, d + k);
+                q.add(0.5f).mul(SCALE).sub(offsetQ).intoArray(dstQ, d + k);
+            }
+            if (sums != null) {
+                long signedI = (long) sumI.reduceLanes(VectorOperators.ADD);
+                addSums(sums, signedI, signedI + (long) sumQ.reduceLanes(VectorOperators.ADD), (end - first) * LANES);
+            }
+        }
+        return vectors * LANES;
+    }
+
+    @Override
+    public int toShortInterleaved(byte[] src, int s, int pairs, short[] dst, int d, int offsetI, int offsetQ,
+                                  long[] sums) {
+        int vectors = (pairs << 1) / LANES;
+        // The table value 256 s + 128 minus the DC offset
+        IntVector bias = IntVector.broadcast(INT, 128 - offsetQ).blend(IntVector.broadcast(INT, 128 - offsetI),
+                EVEN_INTS);
+        int n = 0;
+        while (n < vectors) {
+            int first = n;
+            int end = Math.min(vectors, n + SUM_BLOCK);
+            IntVector sum = IntVector.zero(INT);
+            for (int k = n * LANES; n < end; n++, k += LANES) {
+                IntVector x = (IntVector) ByteVector.fromArray(BYTES, src, s + k)
+                        .lanewise(VectorOperators.XOR, (byte) 0x80)
+                        .convertShape(VectorOperators.B2I, INT, 0);
+                if (sums != null) {
+                    sum = sum.add(x);
+                }
+                toShorts(x, bias).intoArray(dst, d + k);
+            }
+            if (sums != null) {
+                addSums(sums, sum.reduceLanesToLong(VectorOperators.ADD, EVEN_INTS),
+                        sum.reduceLanesToLong(VectorOperators.ADD), (end - first) * LANES >> 1);
+            }
+        }
+        return vectors * LANES >> 1;
+    }
+
+    @Override
+    public int toShortSplit(byte[] src, int s, int pairs, short[] dstI, short[] dstQ, int d, int offsetI,
+                            int offsetQ, long[] sums) {
+        int vectors = pairs / LANES;
+        IntVector biasI = IntVector.broadcast(INT, 128 - offsetI);
+        IntVector biasQ = IntVector.broadcast(INT, 128 - offsetQ);
+        int n = 0;
+        while (n < vectors) {
+            int first = n;
+            int end = Math.min(vectors, n + SUM_BLOCK);
+            IntVector sumI = IntVector.zero(INT);
+            IntVector sumQ = IntVector.zero(INT);
+            for (int k = n * LANES; n < end; n++, k += LANES) {
+                ShortVector x = signedPairs(src, s + (k << 1));
+                IntVector i = (IntVector) x.lanewise(VectorOperators.LSHL, 8).lanewise(VectorOperators.ASHR, 8)
+                        .convertShape(VectorOperators.S2I, INT, 0);
+                IntVector q = (IntVector) x.lanewise(VectorOperators.ASHR, 8)
+                        .convertShape(VectorOperators.S2I, INT, 0);
+                if (sums != null) {
+                    sumI = sumI.add(i);
+                    sumQ = sumQ.add(q);
+                }
+                toShorts(i, biasI).intoArray(dstI, d + k);
+                toShorts(q, biasQ).intoArray(dstQ, d + k);
+            }
+            if (sums != null) {
+                long signedI = sumI.reduceLanesToLong(VectorOperators.ADD);
+                addSums(sums, signedI, signedI + sumQ.reduceLanesToLong(VectorOperators.ADD), (end - first) * LANES);
+            }
+        }
+        return vectors * LANES;
+    }
+
+    // The sums of the signed samples of a block, back to unsigned bytes
+    private static void addSums(long[] sums, long signedI, long signedTotal, int pairs) {
+        sums[0] += signedI + 128L * pairs;
+        sums[1] += signedTotal - signedI + 128L * pairs;
+    }
+
+    // L pairs read as little-endian shorts, I in the low byte, with both sign bits flipped
+    private static ShortVector signedPairs(byte[] src, int s) {
+        return ByteVector.fromArray(PAIR_BYTES, src, s).reinterpretAsShorts()
+                .lanewise(VectorOperators.XOR, (short) 0x8080);
+    }
+
+    private static ShortVector toShorts(IntVector signed, IntVector bias) {
+        return (ShortVector) signed.lanewise(VectorOperators.LSHL, 8).add(bias)
+                .max(Short.MIN_VALUE).min(Short.MAX_VALUE)
+                .convertShape(VectorOperators.I2S, SHORTS, 0);
+    }
+
+    private static <E> VectorSpecies<E> species(Class<E> type, int bits) {
+        return VectorSpecies.of(type, VectorShape.forBitSize(bits));
+    }
+}
@@ -0,0 +1,108 @@
+package com.suricatedevlab.jsdr.rtl;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.suricatedevlab.jsdr.TunerSample;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RtlTunerSampleTest {
+
+    private static final int BUFFER_NUMBER = 4;
+    private static final int BUFFER_SIZE = 16384;
+    private static final int WARM_UP_TRANSFERS = 50_000;
+    private static final int MEASURED_TRANSFERS = 10_000;
+
+    private final Memory[] buffers = new Memory[BUFFER_NUMBER];
+    private RtlNativeLibrary.RTLSDRReadAsyncCallback nativeCallback;
+    private RtlTunerSample tunerSample;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < BUFFER_NUMBER; i++) {
+            buffers[i] = new Memory(BUFFER_SIZE);
+            buffers[i].setMemory(0, BUFFER_SIZE, (byte) (i + 1));
+        }
+        // librtlsdr stand-in: rtlsdr_read_async keeps the callback, which the tests invoke as its USB thread would
+        RtlNativeLibrary nativeLibrary = (RtlNativeLibrary) Proxy.newProxyInstance(
+                RtlNativeLibrary.class.getClassLoader(), new Class<?>[] {RtlNativeLibrary.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("rtlsdr_read_async")) {
+                        nativeCallback = (RtlNativeLibrary.RTLSDRReadAsyncCallback) args[1];
+                    }
+                    Class<?> type = method.getReturnType();
+                    if (type == int.class) {
+                        return 0;
+                    }
+                    return type == long.class ? (Object) 0L : null;
+                });
+        RtlDevice device = new RtlDevice(0, nativeLibrary, "Realtek", "RTL2838UHIDIR", "00000001");
+        tunerSample = new RtlTunerSample(new RtlTunerDefinition(device));
+    }
+
+    @Test
+    void readAsyncDirectDeliversReadOnlyViewsOfTheTransferBuffers() throws Exception {
+        List<ByteBuffer> views = new ArrayList<>();
+        List<Byte> firstBytes = new ArrayList<>();
+        tunerSample.readAsyncDirect(data -> {
+            views.add(data);
+            firstBytes.add(data.get(0));
+        }, BUFFER_NUMBER, BUFFER_SIZE);
+        assertNotNull(nativeCallback);
+
+        for (int transfer = 0; transfer < 2 * BUFFER_NUMBER; transfer++) {
+            nativeCallback.invoke(buffers[transfer % BUFFER_NUMBER], BUFFER_SIZE / 2, Pointer.NULL);
+        }
+
+        for (int transfer = 0; transfer < 2 * BUFFER_NUMBER; transfer++) {
+            ByteBuffer view = views.get(transfer);
+            assertTrue(view.isReadOnly());
+            assertTrue(view.isDirect());
+            assertEquals(0, view.position());
+            assertEquals(BUFFER_SIZE / 2, view.limit());
+            assertEquals((byte) (transfer % BUFFER_NUMBER + 1), firstBytes.get(transfer));
+            // The buffers are cycled, the view of a buffer is reused by its next transfers
+            assertSame(views.get(transfer % BUFFER_NUMBER), view);
+        }
+    }
+
+    @Test
+    void readAsyncDirectDoesNotAllocateInSteadyState() throws Exception {
+        long[] checksum = new long[1];
+        TunerSample.ReadAsyncDirectCallback callback = data -> {
+            while (data.hasRemaining()) {
+                checksum[0] += data.get();
+            }
+        };
+        tunerSample.readAsyncDirect(callback, BUFFER_NUMBER, BUFFER_SIZE);
+        assertNotNull(nativeCallback);
+
+        transfer(WARM_UP_TRANSFERS);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        transfer(MEASURED_TRANSFERS);
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assertEquals(0, allocated, "bytes allocated by " + MEASURED_TRANSFERS + " transfers");
+        assertEquals((long) (WARM_UP_TRANSFERS + MEASURED_TRANSFERS) / BUFFER_NUMBER * BUFFER_SIZE * (1 + 2 + 3 + 4),
+                checksum[0]);
+        assertEquals((long) (WARM_UP_TRANSFERS + MEASURED_TRANSFERS) * BUFFER_SIZE,
+                tunerSample.getStatistics().bytes());
+    }
+
+    private void transfer(int transfers) {
+        for (int transfer = 0; transfer < transfers; transfer++) {
+            nativeCallback.invoke(buffers[transfer % BUFFER_NUMBER], BUFFER_SIZE, Pointer.NULL);
+        }
+    }
+}